@@ -0,0 +1,73 @@
+package io.github.linna.cy.benchmark;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基准测试使用的代表性数据: 包含 {@link Long} / {@link BigInteger} ID, 日期时间, 嵌套对象, 列表与 Map
+ */
+@Data
+@NoArgsConstructor
+public class Payload {
+    private Long id;
+    private BigInteger version;
+    private String name;
+    private boolean enabled;
+    private LocalDateTime createTime;
+    private LocalDate birthday;
+    private LocalTime alarm;
+    private List<Item> items;
+    private Map<String, String> attributes;
+
+    @Data
+    @NoArgsConstructor
+    public static class Item {
+        private Long id;
+        private String title;
+        private int quantity;
+        private double price;
+        private LocalDateTime updateTime;
+    }
+
+    /**
+     * @param itemCount {@link Payload#getItems()} 的数量, 用于控制数据大小
+     */
+    public static Payload create(int itemCount) {
+        Payload payload = new Payload();
+        payload.setId(1234567890123456789L);
+        payload.setVersion(BigInteger.valueOf(Long.MAX_VALUE).add(BigInteger.TEN));
+        payload.setName("benchmark-payload");
+        payload.setEnabled(true);
+        payload.setCreateTime(LocalDateTime.of(2024, 5, 20, 13, 14, 15));
+        payload.setBirthday(LocalDate.of(2000, 1, 1));
+        payload.setAlarm(LocalTime.of(7, 30, 0));
+
+        List<Item> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            Item item = new Item();
+            item.setId(100000000000L + i);
+            item.setTitle("item-" + i);
+            item.setQuantity(i % 7 + 1);
+            item.setPrice(9.99 * (i + 1));
+            item.setUpdateTime(LocalDateTime.of(2024, 5, 20, 13, 14, i % 60));
+            items.add(item);
+        }
+        payload.setItems(items);
+
+        Map<String, String> attributes = new LinkedHashMap<>();
+        for (int i = 0; i < 8; i++) {
+            attributes.put("attribute-" + i, "value-" + i);
+        }
+        payload.setAttributes(attributes);
+        return payload;
+    }
+}
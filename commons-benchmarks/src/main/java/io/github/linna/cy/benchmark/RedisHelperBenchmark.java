@@ -0,0 +1,179 @@
+package io.github.linna.cy.benchmark;
+
+import io.github.linna.cy.config.BaseRedisConfig;
+import io.github.linna.cy.databind.BaseJacksonObjectMapper;
+import io.github.linna.cy.helper.SerializableRedisHelper;
+import io.github.linna.cy.serializer.RedisSerializerMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link io.github.linna.cy.helper.IRedisHelper} 常用操作的延迟.
+ * <p>
+ * 默认连接 {@code localhost:6379}, 可以通过 {@code -Dredis.host} 与 {@code -Dredis.port} 指定;
+ * 连接不上时启动一个内嵌的 Redis (使用随机端口).
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RedisHelperBenchmark {
+
+    /**
+     * 每次批量操作的 Key 数量
+     */
+    private static final int BATCH_SIZE = 100;
+
+    /**
+     * 异步扇出的 Key 数量
+     */
+    private static final int FAN_OUT_SIZE = 20;
+
+    @Param({"JSON", "COMPACT"})
+    public RedisSerializerMode serializerMode;
+
+    private RedisServer embeddedServer;
+    private LettuceConnectionFactory connectionFactory;
+    private SerializableRedisHelper<Object> helper;
+
+    private Payload payload;
+    private List<Serializable> keys;
+    private Map<Serializable, Object> entries;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        String host = System.getProperty("redis.host", "localhost");
+        int port = Integer.getInteger("redis.port", 6379);
+        if (!isReachable(host, port)) {
+            host = "localhost";
+            port = freePort();
+            // 关闭 RDB 快照, 不在工作目录中留下 dump.rdb
+            this.embeddedServer = RedisServer.newRedisServer()
+                    .port(port)
+                    .setting("save \"\"")
+                    .build();
+            this.embeddedServer.start();
+        }
+
+        this.connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration(host, port));
+        this.connectionFactory.afterPropertiesSet();
+        BaseRedisConfig config = new BaseRedisConfig(new BaseJacksonObjectMapper()).setSerializerMode(this.serializerMode);
+        this.helper = config.generateDefaultRedisHelper(
+                config.generateDefaultRedisTemplate(this.connectionFactory, config.generateDefaultRedisSerializer()));
+
+        this.payload = Payload.create(10);
+        this.keys = new ArrayList<>(BATCH_SIZE);
+        this.entries = new LinkedHashMap<>();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            String key = "benchmark:" + i;
+            this.keys.add(key);
+            this.entries.put(key, this.payload);
+        }
+        this.helper.setAll(this.entries);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        this.helper.delete(this.keys);
+        this.connectionFactory.destroy();
+        if (this.embeddedServer != null) {
+            this.embeddedServer.stop();
+        }
+    }
+
+    @Benchmark
+    public Object get() {
+        return this.helper.get(this.keys.get(0));
+    }
+
+    @Benchmark
+    public Object set() {
+        return this.helper.set(this.keys.get(0), this.payload);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Object> batchGet() {
+        return this.helper.getAll(this.keys);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Object batchSet() {
+        return this.helper.setAll(this.entries);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void pipelineSet() {
+        this.helper.pipeline(pipeline -> {
+            for (Serializable key : this.keys) {
+                pipeline.set(key, this.payload);
+            }
+        });
+    }
+
+    /**
+     * 每个 Key 一次阻塞调用, 作为批量与管道操作的基准
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void sequentialSet() {
+        for (Serializable key : this.keys) {
+            this.helper.set(key, this.payload);
+        }
+    }
+
+    @Benchmark
+    public Object asyncFanOutGet() {
+        List<CompletableFuture<Object>> futures = new ArrayList<>(FAN_OUT_SIZE);
+        for (int i = 0; i < FAN_OUT_SIZE; i++) {
+            futures.add(this.helper.getAsync(this.keys.get(i)));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+    }
+
+    private static boolean isReachable(String host, int port) {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(host, port), 500);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package io.github.linna.cy.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.github.linna.cy.config.BaseRedisConfig;
+import io.github.linna.cy.databind.BaseJacksonObjectMapper;
+import io.github.linna.cy.serializer.RedisSerializerMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 不同 ObjectMapper / 序列化器配置下的序列化与反序列化吞吐量. 配合 {@code -prof gc} 可以得到分配速率
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializerBenchmark {
+
+    /**
+     * <ul>
+     *     <li>PLAIN: 只注册了 {@link JavaTimeModule} 的 {@link ObjectMapper}, 作为基准</li>
+     *     <li>BASE: {@link BaseJacksonObjectMapper}, 不带类型信息</li>
+     *     <li>REDIS_JSON: {@link BaseRedisConfig} 默认的 Json 序列化器 (NON_FINAL 类型信息)</li>
+     *     <li>REDIS_COMPACT: {@link RedisSerializerMode#COMPACT}</li>
+     *     <li>REDIS_COMPACT_LZ4: {@link RedisSerializerMode#COMPACT} + 超过 512 字节时 LZ4 压缩</li>
+     *     <li>BASE_ACCELERATED / REDIS_JSON_ACCELERATED: 在对应配置上开启 {@link BaseJacksonObjectMapper#enableAcceleration()}</li>
+     * </ul>
+     */
+    @Param({"PLAIN", "BASE", "REDIS_JSON", "REDIS_COMPACT", "REDIS_COMPACT_LZ4",
+            "BASE_ACCELERATED", "REDIS_JSON_ACCELERATED"})
+    public String config;
+
+    /**
+     * {@link Payload#getItems()} 的数量
+     */
+    @Param({"2", "200"})
+    public int items;
+
+    private RedisSerializer<Object> serializer;
+    private Payload payload;
+    private byte[] serialized;
+
+    @Setup
+    public void setup() {
+        this.serializer = createSerializer(this.config);
+        this.payload = Payload.create(this.items);
+        this.serialized = this.serializer.serialize(this.payload);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return this.serializer.serialize(this.payload);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return this.serializer.deserialize(this.serialized);
+    }
+
+    @SuppressWarnings("unchecked")
+    static RedisSerializer<Object> createSerializer(String config) {
+        switch (config) {
+            case "PLAIN": {
+                Jackson2JsonRedisSerializer<?> serializer = new Jackson2JsonRedisSerializer<>(Payload.class);
+                serializer.setObjectMapper(new ObjectMapper().registerModule(new JavaTimeModule()));
+                return (RedisSerializer<Object>) serializer;
+            }
+            case "BASE": {
+                Jackson2JsonRedisSerializer<?> serializer = new Jackson2JsonRedisSerializer<>(Payload.class);
+                serializer.setObjectMapper(new BaseJacksonObjectMapper());
+                return (RedisSerializer<Object>) serializer;
+            }
+            case "BASE_ACCELERATED": {
+                Jackson2JsonRedisSerializer<?> serializer = new Jackson2JsonRedisSerializer<>(Payload.class);
+                serializer.setObjectMapper(BaseJacksonObjectMapper.accelerated());
+                return (RedisSerializer<Object>) serializer;
+            }
+            case "REDIS_JSON":
+                return new BaseRedisConfig(new BaseJacksonObjectMapper()).generateDefaultRedisSerializer();
+            case "REDIS_JSON_ACCELERATED":
+                return new BaseRedisConfig(BaseJacksonObjectMapper.accelerated()).generateDefaultRedisSerializer();
+            case "REDIS_COMPACT":
+                return new BaseRedisConfig(new BaseJacksonObjectMapper())
+                        .setSerializerMode(RedisSerializerMode.COMPACT)
+                        .generateDefaultRedisSerializer();
+            case "REDIS_COMPACT_LZ4":
+                return new BaseRedisConfig(new BaseJacksonObjectMapper())
+                        .setSerializerMode(RedisSerializerMode.COMPACT)
+                        .setCompressionThreshold(512)
+                        .generateDefaultRedisSerializer();
+            default:
+                throw new IllegalArgumentException("Unknown serializer config: " + config);
+        }
+    }
+}
@@ -1,21 +1,23 @@
 package io.github.linna.cy.databind;
 
 import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
-import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateDeserializer;
-import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateTimeDeserializer;
-import com.fasterxml.jackson.datatype.jsr310.deser.LocalTimeDeserializer;
-import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateSerializer;
-import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateTimeSerializer;
-import com.fasterxml.jackson.datatype.jsr310.ser.LocalTimeSerializer;
 
 import java.math.BigInteger;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import static com.fasterxml.jackson.databind.DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES;
 
@@ -25,6 +27,22 @@ public class BaseJacksonObjectMapper extends ObjectMapper {
     public static final String DEFAULT_DATE_TIME_FORMAT = "yyyy-MM-dd HH:mm:ss";
     public static final String DEFAULT_TIME_FORMAT = "HH:mm:ss";
 
+    /**
+     * 需要预热的类型, 由所有 {@link BaseJacksonObjectMapper#copy()} 得到的映射器共享
+     */
+    private final Set<Class<?>> warmUpTypes;
+
+    /**
+     * 按类型缓存的 {@link ObjectReader} / {@link ObjectWriter}. 与配置相关, 不在拷贝之间共享
+     */
+    private final transient ConcurrentMap<JavaType, ObjectReader> readers = new ConcurrentHashMap<>();
+    private final transient ConcurrentMap<JavaType, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    /**
+     * 已注册的字节码加速模块
+     */
+    private JacksonAccelerator accelerator = JacksonAccelerator.NONE;
+
     /**
      * <p>
      * Jackson {@link ObjectMapper} 的构造器
@@ -38,40 +56,177 @@ public class BaseJacksonObjectMapper extends ObjectMapper {
      */
     public BaseJacksonObjectMapper() {
         super();
+        this.warmUpTypes = ConcurrentHashMap.newKeySet();
         // 反序列化时忽略多余字段
         this.configure(FAIL_ON_UNKNOWN_PROPERTIES, false);
         // 反序列化兼容处理
         this.getDeserializationConfig().withoutFeatures(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
 
         SimpleModule simpleModule = new SimpleModule()
-                // 时间反序列化
-                .addDeserializer(LocalDateTime.class,
-                        new LocalDateTimeDeserializer(DateTimeFormatter.ofPattern(DEFAULT_DATE_TIME_FORMAT)))
-                .addDeserializer(LocalDate.class,
-                        new LocalDateDeserializer(DateTimeFormatter.ofPattern(DEFAULT_DATE_FORMAT)))
-                .addDeserializer(LocalTime.class,
-                        new LocalTimeDeserializer(DateTimeFormatter.ofPattern(DEFAULT_TIME_FORMAT)))
+                // 时间反序列化 (定宽解析, 与 DateTimeFormatter 结果一致)
+                .addDeserializer(LocalDateTime.class, new FastLocalDateTimeDeserializer())
+                .addDeserializer(LocalDate.class, new FastLocalDateDeserializer())
+                .addDeserializer(LocalTime.class, new FastLocalTimeDeserializer())
                 // 长整型序列化
                 .addSerializer(BigInteger.class, ToStringSerializer.instance)
                 .addSerializer(Long.class, ToStringSerializer.instance)
-                // 时间序列化
-                .addSerializer(LocalDateTime.class,
-                        new LocalDateTimeSerializer(DateTimeFormatter.ofPattern(DEFAULT_DATE_TIME_FORMAT)))
-                .addSerializer(LocalDate.class,
-                        new LocalDateSerializer(DateTimeFormatter.ofPattern(DEFAULT_DATE_FORMAT)))
-                .addSerializer(LocalTime.class,
-                        new LocalTimeSerializer(DateTimeFormatter.ofPattern(DEFAULT_TIME_FORMAT)));
+                // 时间序列化 (定宽输出, 与 DateTimeFormatter 结果一致)
+                .addSerializer(LocalDateTime.class, new FastLocalDateTimeSerializer())
+                .addSerializer(LocalDate.class, new FastLocalDateSerializer())
+                .addSerializer(LocalTime.class, new FastLocalTimeSerializer());
 
         // 注册功能模块
         this.registerModule(simpleModule);
     }
 
+    /**
+     * 拷贝 {@code src} 的配置. {@code src} 为 {@link BaseJacksonObjectMapper} 时共享其预热类型
+     * (不共享已构建的序列化器, 拷贝后通常还会修改配置)
+     */
     public BaseJacksonObjectMapper(ObjectMapper src) {
         super(src);
+        this.warmUpTypes = src instanceof BaseJacksonObjectMapper
+                ? ((BaseJacksonObjectMapper) src).warmUpTypes : ConcurrentHashMap.newKeySet();
+        if (src instanceof BaseJacksonObjectMapper) {
+            this.accelerator = ((BaseJacksonObjectMapper) src).accelerator;
+        }
+    }
+
+    /**
+     * 创建开启了字节码加速的 {@link BaseJacksonObjectMapper}
+     *
+     * @see BaseJacksonObjectMapper#enableAcceleration()
+     */
+    public static BaseJacksonObjectMapper accelerated() {
+        return new BaseJacksonObjectMapper().enableAcceleration();
+    }
+
+    /**
+     * 注册 {@link JacksonAccelerator#detect()} 选择的字节码加速模块, 以生成的访问器代替反射读写属性;
+     * 没有可用的模块时保持使用反射. 需要在映射器使用之前调用
+     */
+    public BaseJacksonObjectMapper enableAcceleration() {
+        return enableAcceleration(JacksonAccelerator.detect());
+    }
+
+    /**
+     * 注册指定的字节码加速模块. 已注册过加速模块时不做任何修改
+     *
+     * @throws IllegalStateException 模块不在类路径中或无法创建
+     */
+    public BaseJacksonObjectMapper enableAcceleration(JacksonAccelerator accelerator) {
+        if (this.accelerator != JacksonAccelerator.NONE || accelerator == JacksonAccelerator.NONE) {
+            return this;
+        }
+        registerModule(accelerator.createModule());
+        this.accelerator = accelerator;
+        return this;
+    }
+
+    /**
+     * 已注册的字节码加速模块, 未注册时为 {@link JacksonAccelerator#NONE}
+     */
+    public JacksonAccelerator getAccelerator() {
+        return this.accelerator;
     }
 
     @Override
     public ObjectMapper copy() {
         return new BaseJacksonObjectMapper(this);
     }
+
+    /**
+     * 获取 {@code type} 的 {@link ObjectReader}, 在配置未改变时复用同一个实例 (包括其已解析的根反序列化器)
+     */
+    public ObjectReader cachedReader(Class<?> type) {
+        return cachedReader(constructType(type));
+    }
+
+    /**
+     * @see BaseJacksonObjectMapper#cachedReader(Class)
+     */
+    public ObjectReader cachedReader(JavaType type) {
+        ObjectReader reader = this.readers.get(type);
+        // 映射器的配置被修改后会替换配置对象, 此时重新构建
+        if (reader == null || reader.getConfig() != getDeserializationConfig()) {
+            reader = readerFor(type);
+            this.readers.put(type, reader);
+        }
+        return reader;
+    }
+
+    /**
+     * 获取 {@code type} 的 {@link ObjectWriter}, 在配置未改变时复用同一个实例 (包括其已解析的根序列化器)
+     */
+    public ObjectWriter cachedWriter(Class<?> type) {
+        return cachedWriter(constructType(type));
+    }
+
+    /**
+     * @see BaseJacksonObjectMapper#cachedWriter(Class)
+     */
+    public ObjectWriter cachedWriter(JavaType type) {
+        ObjectWriter writer = this.writers.get(type);
+        if (writer == null || writer.getConfig() != getSerializationConfig()) {
+            writer = writerFor(type);
+            this.writers.put(type, writer);
+        }
+        return writer;
+    }
+
+    /**
+     * 注册需要预热的类型但不立即预热, 用于配置尚未完成的映射器 (例如之后会被拷贝并修改配置)
+     *
+     * @see BaseJacksonObjectMapper#warmUp()
+     */
+    public BaseJacksonObjectMapper registerWarmUpTypes(Class<?>... types) {
+        this.warmUpTypes.addAll(Arrays.asList(types));
+        return this;
+    }
+
+    /**
+     * 注册并立即预热 {@code types}
+     *
+     * @see BaseJacksonObjectMapper#warmUp()
+     */
+    public BaseJacksonObjectMapper warmUp(Class<?>... types) {
+        registerWarmUpTypes(types);
+        for (Class<?> type : types) {
+            warmUp(type);
+        }
+        return this;
+    }
+
+    /**
+     * 预热所有已注册的类型: 提前完成类型的内省并构建序列化器与反序列化器, 放入本映射器的缓存中,
+     * 避免首次请求时的构建开销. 应在映射器的配置完成之后 (例如启动时) 调用
+     *
+     * @throws IllegalArgumentException 某个类型无法序列化或反序列化
+     */
+    public BaseJacksonObjectMapper warmUp() {
+        for (Class<?> type : this.warmUpTypes) {
+            warmUp(type);
+        }
+        return this;
+    }
+
+    /**
+     * 已注册的预热类型
+     */
+    public Set<Class<?>> getWarmUpTypes() {
+        return Collections.unmodifiableSet(this.warmUpTypes);
+    }
+
+    private void warmUp(Class<?> type) {
+        JavaType javaType = constructType(type);
+        // 构建时会预取根 (反) 序列化器
+        cachedReader(javaType);
+        cachedWriter(javaType);
+        try {
+            // 以 Object 为根类型序列化时 (例如 Redis 的序列化器) 按运行时类型查找
+            getSerializerProviderInstance().findTypedValueSerializer(type, true, null);
+        } catch (JsonMappingException e) {
+            throw new IllegalArgumentException("Failed to warm up " + type.getName(), e);
+        }
+    }
 }
@@ -0,0 +1,34 @@
+package io.github.linna.cy.databind;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateDeserializer;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 直接从解析器的字符缓冲区中按 {@link BaseJacksonObjectMapper#DEFAULT_DATE_FORMAT} 格式定宽解析 {@link LocalDate}, 不创建中间字符串.
+ * 不符合格式 (例如含有空白) 或数值超出范围时回退到 {@link LocalDateDeserializer}, 结果与其完全一致
+ */
+public class FastLocalDateDeserializer extends LocalDateDeserializer {
+    private static final long serialVersionUID = 1L;
+
+    public FastLocalDateDeserializer() {
+        super(DateTimeFormatter.ofPattern(BaseJacksonObjectMapper.DEFAULT_DATE_FORMAT));
+    }
+
+    @Override
+    public LocalDate deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        if (parser.hasToken(JsonToken.VALUE_STRING)) {
+            LocalDate value = FixedWidthDateTimes.parseDate(parser.getTextCharacters(), parser.getTextOffset(),
+                    parser.getTextLength());
+            if (value != null) {
+                return value;
+            }
+        }
+        return super.deserialize(parser, context);
+    }
+}
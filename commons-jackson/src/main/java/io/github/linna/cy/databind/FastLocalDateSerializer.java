@@ -0,0 +1,56 @@
+package io.github.linna.cy.databind;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.type.WritableTypeId;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateSerializer;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 以 {@link BaseJacksonObjectMapper#DEFAULT_DATE_FORMAT} 格式定宽输出 {@link LocalDate}, 不经过 {@link DateTimeFormatter}
+ * 且不创建中间字符串, 输出与 {@link LocalDateSerializer} 完全一致.
+ * 属性上通过 {@link com.fasterxml.jackson.annotation.JsonFormat} 指定了其他格式时使用 {@link LocalDateSerializer}
+ */
+public class FastLocalDateSerializer extends LocalDateSerializer {
+    private static final long serialVersionUID = 1L;
+
+    public FastLocalDateSerializer() {
+        super(DateTimeFormatter.ofPattern(BaseJacksonObjectMapper.DEFAULT_DATE_FORMAT));
+    }
+
+    @Override
+    public JsonSerializer<?> createContextual(SerializerProvider provider, BeanProperty property)
+            throws JsonMappingException {
+        if (FixedWidthDateTimes.isDefaultFormat(findFormatOverrides(provider, property, handledType()))) {
+            return this;
+        }
+        return super.createContextual(provider, property);
+    }
+
+    @Override
+    public void serialize(LocalDate value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        if (!FixedWidthDateTimes.writeDate(generator, value)) {
+            super.serialize(value, generator, provider);
+        }
+    }
+
+    @Override
+    public void serializeWithType(LocalDate value, JsonGenerator generator, SerializerProvider provider,
+                                  TypeSerializer typeSerializer) throws IOException {
+        if (!FixedWidthDateTimes.isFixedWidthYear(value.getYear())) {
+            super.serializeWithType(value, generator, provider, typeSerializer);
+            return;
+        }
+        WritableTypeId typeId = typeSerializer.writeTypePrefix(generator,
+                typeSerializer.typeId(value, serializationShape(provider)));
+        FixedWidthDateTimes.writeDate(generator, value);
+        typeSerializer.writeTypeSuffix(generator, typeId);
+    }
+}
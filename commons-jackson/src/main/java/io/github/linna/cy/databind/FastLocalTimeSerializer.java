@@ -0,0 +1,50 @@
+package io.github.linna.cy.databind;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.type.WritableTypeId;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.datatype.jsr310.ser.LocalTimeSerializer;
+
+import java.io.IOException;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 以 {@link BaseJacksonObjectMapper#DEFAULT_TIME_FORMAT} 格式定宽输出 {@link LocalTime}, 不经过 {@link DateTimeFormatter}
+ * 且不创建中间字符串, 输出与 {@link LocalTimeSerializer} 完全一致.
+ * 属性上通过 {@link com.fasterxml.jackson.annotation.JsonFormat} 指定了其他格式时使用 {@link LocalTimeSerializer}
+ */
+public class FastLocalTimeSerializer extends LocalTimeSerializer {
+    private static final long serialVersionUID = 1L;
+
+    public FastLocalTimeSerializer() {
+        super(DateTimeFormatter.ofPattern(BaseJacksonObjectMapper.DEFAULT_TIME_FORMAT));
+    }
+
+    @Override
+    public JsonSerializer<?> createContextual(SerializerProvider provider, BeanProperty property)
+            throws JsonMappingException {
+        if (FixedWidthDateTimes.isDefaultFormat(findFormatOverrides(provider, property, handledType()))) {
+            return this;
+        }
+        return super.createContextual(provider, property);
+    }
+
+    @Override
+    public void serialize(LocalTime value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        FixedWidthDateTimes.writeTime(generator, value);
+    }
+
+    @Override
+    public void serializeWithType(LocalTime value, JsonGenerator generator, SerializerProvider provider,
+                                  TypeSerializer typeSerializer) throws IOException {
+        WritableTypeId typeId = typeSerializer.writeTypePrefix(generator,
+                typeSerializer.typeId(value, serializationShape(provider)));
+        FixedWidthDateTimes.writeTime(generator, value);
+        typeSerializer.writeTypeSuffix(generator, typeId);
+    }
+}
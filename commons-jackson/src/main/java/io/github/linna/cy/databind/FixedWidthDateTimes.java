@@ -0,0 +1,199 @@
+package io.github.linna.cy.databind;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * {@link BaseJacksonObjectMapper} 默认日期时间格式的定宽读写, 不经过 {@link java.time.format.DateTimeFormatter}.
+ * <p>
+ * 只处理 {@code 0001} - {@code 9999} 年且严格符合格式的值, 其余情况返回 {@code false} / {@code null},
+ * 由调用方回退到基于 {@link java.time.format.DateTimeFormatter} 的实现, 以保证结果与其完全一致.
+ * </p>
+ */
+final class FixedWidthDateTimes {
+    static final int DATE_LENGTH = 10;
+    static final int TIME_LENGTH = 8;
+    static final int DATE_TIME_LENGTH = DATE_LENGTH + 1 + TIME_LENGTH;
+
+    private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[DATE_TIME_LENGTH]);
+
+    private FixedWidthDateTimes() {
+    }
+
+    /**
+     * 属性的格式覆盖是否不影响默认格式 (未指定格式, 形状, 区域与时区)
+     */
+    static boolean isDefaultFormat(JsonFormat.Value format) {
+        return format == null || !format.hasPattern() && !format.hasShape() && !format.hasLocale() && !format.hasTimeZone();
+    }
+
+    /**
+     * 年份是否可以按 {@code yyyy} 定宽输出
+     */
+    static boolean isFixedWidthYear(int year) {
+        return year >= 1 && year <= 9999;
+    }
+
+    static boolean writeDateTime(JsonGenerator generator, LocalDateTime value) throws IOException {
+        if (!isFixedWidthYear(value.getYear())) {
+            return false;
+        }
+        char[] buffer = BUFFER.get();
+        putDate(buffer, value.getYear(), value.getMonthValue(), value.getDayOfMonth());
+        buffer[DATE_LENGTH] = ' ';
+        putTime(buffer, DATE_LENGTH + 1, value.getHour(), value.getMinute(), value.getSecond());
+        generator.writeString(buffer, 0, DATE_TIME_LENGTH);
+        return true;
+    }
+
+    static boolean writeDate(JsonGenerator generator, LocalDate value) throws IOException {
+        if (!isFixedWidthYear(value.getYear())) {
+            return false;
+        }
+        char[] buffer = BUFFER.get();
+        putDate(buffer, value.getYear(), value.getMonthValue(), value.getDayOfMonth());
+        generator.writeString(buffer, 0, DATE_LENGTH);
+        return true;
+    }
+
+    static void writeTime(JsonGenerator generator, LocalTime value) throws IOException {
+        char[] buffer = BUFFER.get();
+        putTime(buffer, 0, value.getHour(), value.getMinute(), value.getSecond());
+        generator.writeString(buffer, 0, TIME_LENGTH);
+    }
+
+    /**
+     * 解析 {@code yyyy-MM-dd HH:mm:ss}
+     *
+     * @return 不符合格式或数值超出范围时返回 {@code null}
+     */
+    static LocalDateTime parseDateTime(char[] text, int offset, int length) {
+        if (length != DATE_TIME_LENGTH || text[offset + DATE_LENGTH] != ' ') {
+            return null;
+        }
+        int year = parseYear(text, offset);
+        int month = parseField(text, offset + 5, '-', offset + 4);
+        int day = parseField(text, offset + 8, '-', offset + 7);
+        int timeOffset = offset + DATE_LENGTH + 1;
+        int hour = parse2(text, timeOffset);
+        int minute = parseField(text, timeOffset + 3, ':', timeOffset + 2);
+        int second = parseField(text, timeOffset + 6, ':', timeOffset + 5);
+        if ((year | month | day | hour | minute | second) < 0) {
+            return null;
+        }
+        try {
+            return LocalDateTime.of(year, month, day, hour, minute, second);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 解析 {@code yyyy-MM-dd}
+     *
+     * @return 不符合格式或数值超出范围时返回 {@code null}
+     */
+    static LocalDate parseDate(char[] text, int offset, int length) {
+        if (length != DATE_LENGTH) {
+            return null;
+        }
+        int year = parseYear(text, offset);
+        int month = parseField(text, offset + 5, '-', offset + 4);
+        int day = parseField(text, offset + 8, '-', offset + 7);
+        if ((year | month | day) < 0) {
+            return null;
+        }
+        try {
+            return LocalDate.of(year, month, day);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 解析 {@code HH:mm:ss}
+     *
+     * @return 不符合格式或数值超出范围时返回 {@code null}
+     */
+    static LocalTime parseTime(char[] text, int offset, int length) {
+        if (length != TIME_LENGTH) {
+            return null;
+        }
+        int hour = parse2(text, offset);
+        int minute = parseField(text, offset + 3, ':', offset + 2);
+        int second = parseField(text, offset + 6, ':', offset + 5);
+        if ((hour | minute | second) < 0) {
+            return null;
+        }
+        try {
+            return LocalTime.of(hour, minute, second);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    private static void putDate(char[] buffer, int year, int month, int day) {
+        buffer[0] = digit(year / 1000);
+        buffer[1] = digit(year / 100 % 10);
+        buffer[2] = digit(year / 10 % 10);
+        buffer[3] = digit(year % 10);
+        buffer[4] = '-';
+        put2(buffer, 5, month);
+        buffer[7] = '-';
+        put2(buffer, 8, day);
+    }
+
+    private static void putTime(char[] buffer, int offset, int hour, int minute, int second) {
+        put2(buffer, offset, hour);
+        buffer[offset + 2] = ':';
+        put2(buffer, offset + 3, minute);
+        buffer[offset + 5] = ':';
+        put2(buffer, offset + 6, second);
+    }
+
+    private static void put2(char[] buffer, int offset, int value) {
+        buffer[offset] = digit(value / 10);
+        buffer[offset + 1] = digit(value % 10);
+    }
+
+    private static char digit(int value) {
+        return (char) ('0' + value);
+    }
+
+    /**
+     * @return 年份为 {@code 0000} 或不是 4 位数字时返回 {@code -1}
+     */
+    private static int parseYear(char[] text, int offset) {
+        int high = parse2(text, offset);
+        int low = parse2(text, offset + 2);
+        if ((high | low) < 0) {
+            return -1;
+        }
+        int year = high * 100 + low;
+        return year == 0 ? -1 : year;
+    }
+
+    /**
+     * 解析 {@code separatorIndex} 处为 {@code separator} 的两位数字
+     *
+     * @return 不符合时返回 {@code -1}
+     */
+    private static int parseField(char[] text, int offset, char separator, int separatorIndex) {
+        return text[separatorIndex] == separator ? parse2(text, offset) : -1;
+    }
+
+    private static int parse2(char[] text, int offset) {
+        int high = text[offset] - '0';
+        int low = text[offset + 1] - '0';
+        if (high < 0 || high > 9 || low < 0 || low > 9) {
+            return -1;
+        }
+        return high * 10 + low;
+    }
+}
@@ -0,0 +1,106 @@
+package io.github.linna.cy.databind;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+
+/**
+ * 以生成的字节码代替反射访问属性的 Jackson 模块. 两个模块均为可选依赖, 需要由使用方自行引入
+ * <ul>
+ *     <li>{@link JacksonAccelerator#AFTERBURNER}: 适用于 JDK 8, 在 JDK 9+ 上受模块系统限制效果有限</li>
+ *     <li>{@link JacksonAccelerator#BLACKBIRD}: 基于 {@code LambdaMetafactory}, 需要 JDK 11+</li>
+ * </ul>
+ */
+public enum JacksonAccelerator {
+    /**
+     * 不加速, 使用反射
+     */
+    NONE(null),
+    AFTERBURNER("com.fasterxml.jackson.module.afterburner.AfterburnerModule"),
+    BLACKBIRD("com.fasterxml.jackson.module.blackbird.BlackbirdModule");
+
+    private final String moduleClassName;
+
+    JacksonAccelerator(String moduleClassName) {
+        this.moduleClassName = moduleClassName;
+    }
+
+    /**
+     * 根据运行时版本与类路径选择可用的加速模块: JDK 11+ 优先 {@link JacksonAccelerator#BLACKBIRD},
+     * 其次 {@link JacksonAccelerator#AFTERBURNER}. 模块不存在或字节码生成被禁止 (例如安全管理器) 时依次回退,
+     * 都不可用时返回 {@link JacksonAccelerator#NONE}
+     */
+    public static JacksonAccelerator detect() {
+        JacksonAccelerator[] candidates = javaVersion() >= 11
+                ? new JacksonAccelerator[]{BLACKBIRD, AFTERBURNER}
+                : new JacksonAccelerator[]{AFTERBURNER};
+        for (JacksonAccelerator candidate : candidates) {
+            if (candidate.isUsable()) {
+                return candidate;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * 创建加速模块
+     *
+     * @return {@link JacksonAccelerator#NONE} 时返回 {@code null}
+     * @throws IllegalStateException 模块不在类路径中或无法创建
+     */
+    public Module createModule() {
+        if (this.moduleClassName == null) {
+            return null;
+        }
+        try {
+            return (Module) Class.forName(this.moduleClassName, true, JacksonAccelerator.class.getClassLoader())
+                    .getConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            throw new IllegalStateException("Jackson module " + this.moduleClassName + " is not available.", e);
+        }
+    }
+
+    /**
+     * 模块是否存在, 并且能在当前运行时正常完成一次序列化与反序列化
+     */
+    public boolean isUsable() {
+        if (this.moduleClassName == null) {
+            return true;
+        }
+        try {
+            ObjectMapper objectMapper = new ObjectMapper().registerModule(createModule());
+            Probe probe = new Probe();
+            probe.setValue(1);
+            Probe result = objectMapper.readValue(objectMapper.writeValueAsBytes(probe), Probe.class);
+            return result.getValue() == probe.getValue();
+        } catch (IOException | RuntimeException | LinkageError e) {
+            return false;
+        }
+    }
+
+    private static int javaVersion() {
+        String version = System.getProperty("java.specification.version", "1.8");
+        try {
+            // 1.8 -> 8, 11 -> 11
+            return version.startsWith("1.") ? Integer.parseInt(version.substring(2)) : Integer.parseInt(version);
+        } catch (NumberFormatException e) {
+            return 8;
+        }
+    }
+
+    /**
+     * 仅用于 {@link JacksonAccelerator#isUsable()} 的检测 (需要是公开类才会被加速)
+     */
+    public static final class Probe {
+        private int value;
+
+        public int getValue() {
+            return this.value;
+        }
+
+        public void setValue(int value) {
+            this.value = value;
+        }
+    }
+}
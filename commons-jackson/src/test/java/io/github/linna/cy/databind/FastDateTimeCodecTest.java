@@ -0,0 +1,226 @@
+package io.github.linna.cy.databind;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateDeserializer;
+import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateTimeDeserializer;
+import com.fasterxml.jackson.datatype.jsr310.deser.LocalTimeDeserializer;
+import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateSerializer;
+import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateTimeSerializer;
+import com.fasterxml.jackson.datatype.jsr310.ser.LocalTimeSerializer;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 定宽日期时间读写 ({@code Fast*} 序列化器 / 反序列化器) 与基于 {@link DateTimeFormatter} 的原实现的一致性
+ */
+public class FastDateTimeCodecTest {
+
+    private static final List<LocalDate> DATES = Arrays.asList(
+            LocalDate.of(1, 1, 1),
+            LocalDate.of(1970, 1, 1),
+            LocalDate.of(2024, 2, 29),
+            LocalDate.of(9999, 12, 31),
+            LocalDate.of(10000, 1, 1),
+            LocalDate.of(0, 6, 15),
+            LocalDate.of(-1, 1, 1),
+            LocalDate.of(-10000, 12, 31));
+
+    private static final List<LocalTime> TIMES = Arrays.asList(
+            LocalTime.MIDNIGHT,
+            LocalTime.of(1, 2, 3),
+            LocalTime.of(12, 30, 45, 123_000_000),
+            LocalTime.of(23, 59, 59, 999_999_999),
+            LocalTime.MAX);
+
+    private static final List<String> DATE_INPUTS = Arrays.asList(
+            "2023-01-31", "0001-01-01", "9999-12-31", "0000-01-01", "10000-01-01", "+10000-01-01", "-0001-01-01",
+            "2023-02-29", "2024-02-29", "2023-04-31", "2023-13-01", "2023-00-10", "2023-1-01", "2023/01/01",
+            " 2023-01-01", "2023-01-01 ", "2023-01-01T00:00", "abcd-ef-gh", "");
+
+    private static final List<String> TIME_INPUTS = Arrays.asList(
+            "00:00:00", "23:59:59", "24:00:00", "23:60:00", "23:59:60", "12:30:45.123", "1:02:03", "01-02-03",
+            " 01:02:03", "01:02", "");
+
+    private static final List<String> DATE_TIME_INPUTS = Arrays.asList(
+            "2023-01-31 12:30:45", "0001-01-01 00:00:00", "9999-12-31 23:59:59", "0000-01-01 00:00:00",
+            "10000-01-01 00:00:00", "-0001-01-01 00:00:00", "2023-02-29 00:00:00", "2023-12-31 24:00:00",
+            "2023-01-01 23:60:00", "2023-01-01T12:30:45", "2023-01-01 12:30:45.5", "2023-01-01  12:30:45",
+            "2023-01-01 12:30", "");
+
+    private final ObjectMapper fast = new BaseJacksonObjectMapper();
+    private final ObjectMapper reference = referenceMapper();
+
+    /**
+     * 与改为定宽实现之前的 {@link BaseJacksonObjectMapper} 相同的日期时间配置
+     */
+    private static ObjectMapper referenceMapper() {
+        DateTimeFormatter date = DateTimeFormatter.ofPattern(BaseJacksonObjectMapper.DEFAULT_DATE_FORMAT);
+        DateTimeFormatter dateTime = DateTimeFormatter.ofPattern(BaseJacksonObjectMapper.DEFAULT_DATE_TIME_FORMAT);
+        DateTimeFormatter time = DateTimeFormatter.ofPattern(BaseJacksonObjectMapper.DEFAULT_TIME_FORMAT);
+        SimpleModule module = new SimpleModule()
+                .addDeserializer(LocalDateTime.class, new LocalDateTimeDeserializer(dateTime))
+                .addDeserializer(LocalDate.class, new LocalDateDeserializer(date))
+                .addDeserializer(LocalTime.class, new LocalTimeDeserializer(time))
+                .addSerializer(LocalDateTime.class, new LocalDateTimeSerializer(dateTime))
+                .addSerializer(LocalDate.class, new LocalDateSerializer(date))
+                .addSerializer(LocalTime.class, new LocalTimeSerializer(time));
+        return new ObjectMapper()
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+                .registerModule(module);
+    }
+
+    @Test
+    public void writesDatesLikeFormatter() throws Exception {
+        for (LocalDate value : DATES) {
+            assertSameWrite(value);
+        }
+    }
+
+    @Test
+    public void writesTimesLikeFormatter() throws Exception {
+        for (LocalTime value : TIMES) {
+            assertSameWrite(value);
+        }
+    }
+
+    @Test
+    public void writesDateTimesLikeFormatter() throws Exception {
+        for (LocalDate date : DATES) {
+            for (LocalTime time : TIMES) {
+                assertSameWrite(LocalDateTime.of(date, time));
+            }
+        }
+    }
+
+    @Test
+    public void readsDatesLikeFormatter() throws Exception {
+        for (String text : DATE_INPUTS) {
+            assertSameRead(LocalDate.class, quote(text));
+        }
+        assertSameRead(LocalDate.class, "[2023,1,31]");
+        assertSameRead(LocalDate.class, "null");
+    }
+
+    @Test
+    public void readsTimesLikeFormatter() throws Exception {
+        for (String text : TIME_INPUTS) {
+            assertSameRead(LocalTime.class, quote(text));
+        }
+        assertSameRead(LocalTime.class, "[1,2,3,456]");
+    }
+
+    @Test
+    public void readsDateTimesLikeFormatter() throws Exception {
+        for (String text : DATE_TIME_INPUTS) {
+            assertSameRead(LocalDateTime.class, quote(text));
+        }
+        assertSameRead(LocalDateTime.class, "[2023,1,31,12,30,45]");
+    }
+
+    @Test
+    public void readsWrittenValuesBack() throws Exception {
+        for (LocalDate date : DATES) {
+            assertSameRead(LocalDate.class, this.reference.writeValueAsString(date));
+            for (LocalTime time : TIMES) {
+                assertSameRead(LocalDateTime.class, this.reference.writeValueAsString(LocalDateTime.of(date, time)));
+            }
+        }
+        for (LocalTime time : TIMES) {
+            assertSameRead(LocalTime.class, this.reference.writeValueAsString(time));
+        }
+    }
+
+    /**
+     * 开启 {@link ObjectMapper.DefaultTyping#NON_FINAL} 时 (例如 Redis 的值序列化器), 声明为 {@link Object} 的属性会带上类型信息
+     */
+    @Test
+    public void matchesFormatterWithDefaultTyping() throws Exception {
+        ObjectMapper typedFast = typed(this.fast.copy());
+        ObjectMapper typedReference = typed(this.reference.copy());
+
+        Holder holder = new Holder();
+        holder.date = LocalDate.of(2023, 1, 31);
+        holder.time = LocalTime.of(12, 30, 45, 5);
+        holder.dateTime = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+        holder.any = LocalDateTime.of(10000, 1, 1, 0, 0);
+        holder.values = new ArrayList<>(Arrays.asList(LocalDate.of(1, 1, 1), LocalTime.MAX, "text"));
+
+        String json = typedReference.writeValueAsString(holder);
+        assertEquals(json, typedFast.writeValueAsString(holder));
+
+        Holder expected = typedReference.readValue(json, Holder.class);
+        Holder actual = typedFast.readValue(json, Holder.class);
+        assertEquals(typedReference.writeValueAsString(expected), typedFast.writeValueAsString(actual));
+        assertEquals(expected.any, actual.any);
+        assertEquals(expected.values, actual.values);
+    }
+
+    private static ObjectMapper typed(ObjectMapper mapper) {
+        return mapper.activateDefaultTyping(LaissezFaireSubTypeValidator.instance, ObjectMapper.DefaultTyping.NON_FINAL);
+    }
+
+    private void assertSameWrite(Object value) throws Exception {
+        assertEquals(String.valueOf(value), this.reference.writeValueAsString(value), this.fast.writeValueAsString(value));
+        Object[] array = {value};
+        assertEquals(String.valueOf(value), this.reference.writeValueAsString(array), this.fast.writeValueAsString(array));
+    }
+
+    /**
+     * 分别从字符串与字节数组读取 (对应不同的解析器实现), 结果或异常类型应与原实现一致
+     */
+    private void assertSameRead(Class<?> type, String json) {
+        String expected = read(this.reference, type, json);
+        assertEquals(json, expected, read(this.fast, type, json));
+        String wrapped = "{\"padding\":\"" + json.replace("\"", "") + "\",\"value\":" + json + "}";
+        assertEquals(json, readField(this.reference, type, wrapped), readField(this.fast, type, wrapped));
+    }
+
+    private static String read(ObjectMapper mapper, Class<?> type, String json) {
+        String fromString = describe(() -> mapper.readValue(json, type));
+        String fromBytes = describe(() -> mapper.readValue(json.getBytes(StandardCharsets.UTF_8), type));
+        assertEquals(json, fromString, fromBytes);
+        return fromString;
+    }
+
+    private static String readField(ObjectMapper mapper, Class<?> type, String json) {
+        return describe(() -> mapper.readerFor(type).at("/value").readValue(json));
+    }
+
+    private static String describe(Read read) {
+        try {
+            return "value: " + read.read();
+        } catch (Exception e) {
+            return "error: " + e.getClass().getName();
+        }
+    }
+
+    private static String quote(String text) {
+        return "\"" + text + "\"";
+    }
+
+    @FunctionalInterface
+    private interface Read {
+        Object read() throws Exception;
+    }
+
+    public static class Holder {
+        public LocalDate date;
+        public LocalTime time;
+        public LocalDateTime dateTime;
+        public Object any;
+        public List<Object> values;
+    }
+}
@@ -0,0 +1,184 @@
+package io.github.linna.cy.cache;
+
+import net.jpountz.xxhash.XXHash64;
+import net.jpountz.xxhash.XXHashFactory;
+
+import javax.validation.constraints.NotNull;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 进程内的布隆过滤器, 位数组保存在 {@code long} 数组中 ({@link AtomicLongArray}), 可以并发读写.
+ * <p>
+ * 元素为字节数组 (例如序列化后的 Key), 位置由两个不同种子的 XXHash64 以双重哈希
+ * ({@code h1 + i * h2}) 生成, 与 JVM 及进程无关, 因此可以与 Redis 位图 (SETBIT / GETBIT 的偏移量) 一一对应.
+ * </p>
+ * <p>
+ * NOTES: 只会误判存在, 不会误判不存在; 元素无法删除.
+ * </p>
+ */
+public class BloomFilter {
+
+    /**
+     * 最大位数, 与 Redis 字符串 (位图) 的上限 512MB 一致
+     */
+    public static final long MAXIMUM_BIT_SIZE = 1L << 32;
+
+    private static final XXHash64 HASH = XXHashFactory.fastestInstance().hash64();
+    private static final long SEED_1 = 0L;
+    private static final long SEED_2 = 0x9E3779B97F4A7C15L;
+
+    private final AtomicLongArray words;
+    private final long bitSize;
+    private final int hashFunctions;
+
+    /**
+     * 按预期元素数量与误判率计算位数与哈希函数个数
+     *
+     * @param expectedInsertions 预期的元素数量, 必须为正数
+     * @param fpp                期望的误判率, 取值范围 {@code (0, 1)}
+     */
+    public BloomFilter(long expectedInsertions, double fpp) {
+        if (expectedInsertions <= 0 || !(fpp > 0 && fpp < 1)) {
+            throw new IllegalArgumentException("The expected insertions must be positive and the fpp must be in (0, 1).");
+        }
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        // 按 long 对齐, Redis 位图按字节读取时不会越界
+        bits = Math.min(MAXIMUM_BIT_SIZE, Math.max(64, (bits + 63) & ~63L));
+        this.bitSize = bits;
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bits / expectedInsertions * Math.log(2)));
+        this.words = new AtomicLongArray((int) (bits >>> 6));
+    }
+
+    /**
+     * 位数
+     */
+    public long bitSize() {
+        return this.bitSize;
+    }
+
+    /**
+     * 哈希函数个数, 即每个元素对应的位数
+     */
+    public int hashFunctions() {
+        return this.hashFunctions;
+    }
+
+    /**
+     * 计算 {@code item} 对应的各个位的位置
+     */
+    public long[] positions(@NotNull byte[] item) {
+        long h1 = HASH.hash(item, 0, item.length, SEED_1);
+        long h2 = HASH.hash(item, 0, item.length, SEED_2);
+        long[] positions = new long[this.hashFunctions];
+        for (int i = 0; i < this.hashFunctions; i++) {
+            positions[i] = position(h1, h2, i);
+        }
+        return positions;
+    }
+
+    /**
+     * {@code item} 是否可能存在. 返回 {@code false} 时一定不存在
+     */
+    public boolean mightContain(@NotNull byte[] item) {
+        long h1 = HASH.hash(item, 0, item.length, SEED_1);
+        long h2 = HASH.hash(item, 0, item.length, SEED_2);
+        for (int i = 0; i < this.hashFunctions; i++) {
+            if (!isSet(position(h1, h2, i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 由 {@link BloomFilter#positions(byte[])} 得到的各个位是否都已设置
+     */
+    public boolean mightContain(@NotNull long[] positions) {
+        for (long position : positions) {
+            if (!isSet(position)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 添加 {@code item}
+     *
+     * @return 是否有位发生了变化; 返回 {@code false} 时 {@code item} (或与其冲突的元素) 已存在
+     */
+    public boolean put(@NotNull byte[] item) {
+        return set(positions(item));
+    }
+
+    /**
+     * 设置 {@link BloomFilter#positions(byte[])} 得到的各个位
+     *
+     * @return 是否有位发生了变化
+     */
+    public boolean set(@NotNull long[] positions) {
+        boolean changed = false;
+        for (long position : positions) {
+            int index = (int) (position >>> 6);
+            long mask = 1L << position;
+            long word = this.words.get(index);
+            if ((word & mask) == 0) {
+                this.words.getAndAccumulate(index, mask, (current, bit) -> current | bit);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * 合并 Redis 位图 (GET 得到的字符串, 偏移量 {@code 0} 为第一个字节的最高位), 超出位数的部分被忽略
+     */
+    public void merge(@NotNull byte[] bitmap) {
+        int length = (int) Math.min(bitmap.length, this.bitSize >>> 3);
+        for (int start = 0; start < length; start += 8) {
+            long word = 0;
+            for (int j = start, end = Math.min(start + 8, length); j < end; j++) {
+                // Redis 位图每个字节从最高位开始计数, 反转后放入对应的 8 位
+                word |= (long) (Integer.reverse(bitmap[j] & 0xFF) >>> 24) << ((j - start) << 3);
+            }
+            if (word != 0) {
+                this.words.accumulateAndGet(start >>> 3, word, (current, bits) -> current | bits);
+            }
+        }
+    }
+
+    /**
+     * 已设置的位数
+     */
+    public long bitCount() {
+        long count = 0;
+        for (int i = 0; i < this.words.length(); i++) {
+            count += Long.bitCount(this.words.get(i));
+        }
+        return count;
+    }
+
+    /**
+     * 按当前已设置的位数估算的误判率
+     */
+    public double expectedFpp() {
+        return Math.pow((double) bitCount() / this.bitSize, this.hashFunctions);
+    }
+
+    /**
+     * 清除所有位
+     */
+    public void clear() {
+        for (int i = 0; i < this.words.length(); i++) {
+            this.words.set(i, 0);
+        }
+    }
+
+    private boolean isSet(long position) {
+        return (this.words.get((int) (position >>> 6)) & (1L << position)) != 0;
+    }
+
+    private long position(long h1, long h2, int i) {
+        return ((h1 + (i + 1) * h2) & Long.MAX_VALUE) % this.bitSize;
+    }
+}
@@ -0,0 +1,198 @@
+package io.github.linna.cy.cache;
+
+import org.apache.commons.collections4.map.AbstractLinkedMap;
+import org.apache.commons.collections4.map.LRUMap;
+
+import javax.validation.constraints.NotNull;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 进程内的本地缓存 (L1), 容量有界, 按 LRU 策略淘汰, 并为每个条目设置存活时间 (TTL).
+ * <p>
+ * 所有访问都在同一把锁下完成, 适合读多写少、Key 数量有限的热点数据.
+ * </p>
+ */
+public class NearCache<K, V> {
+    private final LRUMap<K, CacheEntry<V>> store;
+    private final long ttlNanos;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    /**
+     * 失效版本号的分段数量
+     */
+    private static final int VERSION_STRIPES = 1024;
+
+    /**
+     * 按 Key 分段的失效版本号. 失效操作只递增 Key 所在分段的版本号, 用于丢弃在失效期间加载的旧值,
+     * 其他 Key 的失效 (除非落在同一分段) 不影响本 Key 的回填
+     */
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+    /**
+     * @param maximumSize 最大条目数量
+     * @param ttl         条目的存活时间. 为 {@code null} 或非正数时条目永不过期
+     */
+    public NearCache(int maximumSize, Duration ttl) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("The maximum size of near cache must be positive.");
+        }
+        this.ttlNanos = ttl == null || ttl.isNegative() || ttl.isZero() ? Long.MAX_VALUE : ttl.toNanos();
+        this.store = new LRUMap<K, CacheEntry<V>>(maximumSize) {
+            @Override
+            protected boolean removeLRU(AbstractLinkedMap.LinkEntry<K, CacheEntry<V>> entry) {
+                evictions.increment();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * 获取 {@code key} 对应的值, 不存在或已过期时返回 {@code null}
+     */
+    public V get(@NotNull K key) {
+        V value = null;
+        synchronized (this.store) {
+            CacheEntry<V> entry = this.store.get(key);
+            if (entry != null) {
+                if (entry.isExpired(System.nanoTime())) {
+                    this.store.remove(key);
+                    this.expirations.increment();
+                } else {
+                    value = entry.value;
+                }
+            }
+        }
+        if (value == null) {
+            this.misses.increment();
+        } else {
+            this.hits.increment();
+        }
+        return value;
+    }
+
+    /**
+     * 获取 {@code key} 对应的值, 但不计入命中 / 未命中次数
+     */
+    public V peek(@NotNull K key) {
+        synchronized (this.store) {
+            CacheEntry<V> entry = this.store.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.isExpired(System.nanoTime())) {
+                this.store.remove(key);
+                this.expirations.increment();
+                return null;
+            }
+            return entry.value;
+        }
+    }
+
+    /**
+     * 写入 {@code key} 对应的值. {@code value} 为 {@code null} 时将移除该条目
+     */
+    public void put(@NotNull K key, V value) {
+        synchronized (this.store) {
+            if (value == null) {
+                this.store.remove(key);
+            } else {
+                this.store.put(key, new CacheEntry<>(value, expireAt()));
+            }
+        }
+    }
+
+    /**
+     * 仅当 {@link NearCache#currentVersion(Object)} 仍等于 {@code expectedVersion} 时才写入,
+     * 避免在加载期间发生的失效被旧值覆盖
+     *
+     * @param expectedVersion 开始加载前通过 {@link NearCache#currentVersion(Object)} 获取的版本号
+     * @return 是否写入成功
+     */
+    public boolean putIfCurrent(@NotNull K key, V value, long expectedVersion) {
+        if (value == null) {
+            return false;
+        }
+        synchronized (this.store) {
+            if (this.versions.get(stripe(key)) != expectedVersion) {
+                return false;
+            }
+            this.store.put(key, new CacheEntry<>(value, expireAt()));
+            return true;
+        }
+    }
+
+    /**
+     * 获取 {@code key} 当前的失效版本号
+     */
+    public long currentVersion(@NotNull K key) {
+        return this.versions.get(stripe(key));
+    }
+
+    /**
+     * 使 {@code key} 对应的条目失效
+     */
+    public void invalidate(@NotNull K key) {
+        synchronized (this.store) {
+            this.versions.incrementAndGet(stripe(key));
+            this.store.remove(key);
+        }
+    }
+
+    /**
+     * 使所有条目失效
+     */
+    public void invalidateAll() {
+        synchronized (this.store) {
+            for (int i = 0; i < VERSION_STRIPES; i++) {
+                this.versions.incrementAndGet(i);
+            }
+            this.store.clear();
+        }
+    }
+
+    /**
+     * 当前缓存的条目数量 (可能包含尚未被清理的过期条目)
+     */
+    public int size() {
+        synchronized (this.store) {
+            return this.store.size();
+        }
+    }
+
+    /**
+     * 获取命中 / 未命中 / 淘汰次数的快照
+     */
+    public NearCacheStats stats() {
+        return new NearCacheStats(this.hits.sum(), this.misses.sum(), this.evictions.sum(),
+                this.expirations.sum());
+    }
+
+    private static int stripe(Object key) {
+        int hash = key == null ? 0 : key.hashCode();
+        return (hash ^ (hash >>> 16)) & (VERSION_STRIPES - 1);
+    }
+
+    private long expireAt() {
+        return this.ttlNanos == Long.MAX_VALUE ? Long.MAX_VALUE : System.nanoTime() + this.ttlNanos;
+    }
+
+    private static final class CacheEntry<V> {
+        private final V value;
+        private final long expireAt;
+
+        private CacheEntry(V value, long expireAt) {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+
+        private boolean isExpired(long now) {
+            return this.expireAt != Long.MAX_VALUE && now - this.expireAt >= 0;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package io.github.linna.cy.cache;
+
+import lombok.Value;
+
+/**
+ * {@link NearCache} 的统计快照
+ */
+@Value
+public class NearCacheStats {
+    /**
+     * 命中次数
+     */
+    long hitCount;
+    /**
+     * 未命中次数
+     */
+    long missCount;
+    /**
+     * 因容量不足被淘汰的条目数量
+     */
+    long evictionCount;
+    /**
+     * 因超过存活时间被移除的条目数量
+     */
+    long expirationCount;
+
+    /**
+     * 命中率. 尚无请求时返回 {@code 0}
+     */
+    public double hitRate() {
+        long total = this.hitCount + this.missCount;
+        return total == 0 ? 0 : (double) this.hitCount / total;
+    }
+}
@@ -0,0 +1,186 @@
+package io.github.linna.cy.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.core.convert.ConversionService;
+
+import javax.validation.constraints.NotNull;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+/**
+ * 两级缓存: 本地 {@link NearCache} (L1) + Redis (L2).
+ * <p>
+ * 读取时先查 L1, 未命中时读取 L2 并回填 L1; 写入与删除先作用于 L2, 再使 L1 失效并通知其他节点.
+ * {@code null} 以 {@link org.springframework.cache.support.NullValue} 的形式缓存在两级中.
+ * L1 的 Key 与 Redis 中的 Key 使用相同的字符串转换规则, 以便其他节点根据通知精确失效.
+ * </p>
+ * <p>
+ * NOTES: L1 命中时返回的是同一个对象实例, 调用方不应修改缓存的值.
+ * </p>
+ */
+public class TieredCache extends AbstractValueAdaptingCache {
+    private final String name;
+    private final Cache redisCache;
+    private final NearCache<String, Object> local;
+    private final ConversionService conversionService;
+    private final Consumer<String> invalidationPublisher;
+    private final ConcurrentMap<String, Object> loading = new ConcurrentHashMap<>();
+
+    /**
+     * @param redisCache            L2
+     * @param conversionService     将 Key 转换为字符串, 应与 L2 相同
+     * @param invalidationPublisher 通知其他节点使 L1 失效, 参数为 L1 的 Key, 为 {@code null} 时表示清空
+     */
+    public TieredCache(@NotNull String name, @NotNull Cache redisCache, @NotNull TieredCacheConfig config,
+                       @NotNull ConversionService conversionService, @NotNull Consumer<String> invalidationPublisher) {
+        super(config.isCacheNullValues());
+        this.name = name;
+        this.redisCache = redisCache;
+        this.local = new NearCache<>(config.getLocalMaximumSize(), config.effectiveLocalTtl());
+        this.conversionService = conversionService;
+        this.invalidationPublisher = invalidationPublisher;
+    }
+
+    @Override
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * 返回 L2
+     */
+    @Override
+    public Object getNativeCache() {
+        return this.redisCache;
+    }
+
+    /**
+     * L1 的统计
+     */
+    public NearCacheStats localStats() {
+        return this.local.stats();
+    }
+
+    @Override
+    protected Object lookup(@NotNull Object key) {
+        String localKey = localKey(key);
+        Object value = this.local.get(localKey);
+        if (value != null) {
+            return value;
+        }
+        long version = this.local.currentVersion(localKey);
+        ValueWrapper wrapper = this.redisCache.get(key);
+        if (wrapper == null) {
+            return null;
+        }
+        value = toStoreValue(wrapper.get());
+        this.local.putIfCurrent(localKey, value, version);
+        return value;
+    }
+
+    /**
+     * 同一个节点中对同一个 Key 的并发加载只执行一次 {@code valueLoader}
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(@NotNull Object key, @NotNull Callable<T> valueLoader) {
+        ValueWrapper wrapper = get(key);
+        if (wrapper != null) {
+            return (T) wrapper.get();
+        }
+        String localKey = localKey(key);
+        Object lock = this.loading.computeIfAbsent(localKey, k -> new Object());
+        try {
+            synchronized (lock) {
+                wrapper = get(key);
+                if (wrapper != null) {
+                    return (T) wrapper.get();
+                }
+                T value;
+                try {
+                    value = valueLoader.call();
+                } catch (Exception e) {
+                    throw new ValueRetrievalException(key, valueLoader, e);
+                }
+                put(key, value);
+                return value;
+            }
+        } finally {
+            this.loading.remove(localKey, lock);
+        }
+    }
+
+    @Override
+    public void put(@NotNull Object key, Object value) {
+        String localKey = localKey(key);
+        // 先失效再取版本号: 之后开始的其他写入都会使版本号变化
+        this.local.invalidate(localKey);
+        long version = this.local.currentVersion(localKey);
+        this.redisCache.put(key, value);
+        this.invalidationPublisher.accept(localKey);
+        if (!this.local.putIfCurrent(localKey, toStoreValue(value), version)) {
+            // 期间有并发的写入, 无法确定其在 L2 中的先后顺序, 不回填并移除其可能写入的值
+            this.local.invalidate(localKey);
+        }
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(@NotNull Object key, Object value) {
+        ValueWrapper existing = this.redisCache.putIfAbsent(key, value);
+        if (existing == null && (value != null || isAllowNullValues())) {
+            // 只有写入成功时才需要失效, L2 中已有值时 L1 与其他节点不受影响
+            invalidateLocal(localKey(key));
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(@NotNull Object key) {
+        this.redisCache.evict(key);
+        invalidateLocal(localKey(key));
+    }
+
+    @Override
+    public void clear() {
+        this.redisCache.clear();
+        this.local.invalidateAll();
+        this.invalidationPublisher.accept(null);
+    }
+
+    /**
+     * 收到其他节点的通知时调用
+     *
+     * @param localKey 为 {@code null} 时清空 L1
+     */
+    void onInvalidation(String localKey) {
+        if (localKey == null) {
+            this.local.invalidateAll();
+        } else {
+            this.local.invalidate(localKey);
+        }
+    }
+
+    private void invalidateLocal(String localKey) {
+        this.local.invalidate(localKey);
+        this.invalidationPublisher.accept(localKey);
+    }
+
+    /**
+     * 与 {@link org.springframework.data.redis.cache.RedisCache} 相同的 Key 转换规则
+     */
+    private String localKey(Object key) {
+        if (key instanceof String) {
+            return (String) key;
+        }
+        if (this.conversionService.canConvert(key.getClass(), String.class)) {
+            String converted = this.conversionService.convert(key, String.class);
+            if (converted != null) {
+                return converted;
+            }
+        }
+        return key.toString();
+    }
+}
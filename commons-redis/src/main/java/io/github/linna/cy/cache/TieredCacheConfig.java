@@ -0,0 +1,98 @@
+package io.github.linna.cy.cache;
+
+import lombok.Getter;
+
+import javax.validation.constraints.NotNull;
+import java.time.Duration;
+
+/**
+ * {@link TieredCache} 的配置, 不可变. 每个修改方法都返回一个新的配置
+ */
+@Getter
+public final class TieredCacheConfig {
+
+    /**
+     * 默认的本地 (L1) 最大条目数量
+     */
+    public static final int DEFAULT_LOCAL_MAXIMUM_SIZE = 10_000;
+
+    /**
+     * 默认的本地 (L1) 条目存活时间
+     */
+    public static final Duration DEFAULT_LOCAL_TTL = Duration.ofMinutes(1);
+
+    /**
+     * Redis (L2) 中条目的存活时间, {@link Duration#ZERO} 表示永不过期
+     */
+    private final Duration entryTtl;
+
+    /**
+     * 本地 (L1) 最大条目数量
+     */
+    private final int localMaximumSize;
+
+    /**
+     * 本地 (L1) 条目的存活时间, 也是未收到失效通知时的最大不一致时间. 不会超过 {@link TieredCacheConfig#getEntryTtl()}
+     */
+    private final Duration localTtl;
+
+    /**
+     * 是否缓存 {@code null}, 防止不存在的数据反复穿透到数据源
+     */
+    private final boolean cacheNullValues;
+
+    private TieredCacheConfig(Duration entryTtl, int localMaximumSize, Duration localTtl, boolean cacheNullValues) {
+        this.entryTtl = entryTtl;
+        this.localMaximumSize = localMaximumSize;
+        this.localTtl = localTtl;
+        this.cacheNullValues = cacheNullValues;
+    }
+
+    /**
+     * 默认配置: L2 永不过期, L1 最多 {@value DEFAULT_LOCAL_MAXIMUM_SIZE} 个条目, 存活 1 分钟, 缓存 {@code null}
+     */
+    public static TieredCacheConfig defaultConfig() {
+        return new TieredCacheConfig(Duration.ZERO, DEFAULT_LOCAL_MAXIMUM_SIZE, DEFAULT_LOCAL_TTL, true);
+    }
+
+    /**
+     * 设置 Redis (L2) 中条目的存活时间
+     */
+    public TieredCacheConfig entryTtl(@NotNull Duration entryTtl) {
+        return new TieredCacheConfig(entryTtl, this.localMaximumSize, this.localTtl, this.cacheNullValues);
+    }
+
+    /**
+     * 设置本地 (L1) 最大条目数量
+     */
+    public TieredCacheConfig localMaximumSize(int localMaximumSize) {
+        if (localMaximumSize <= 0) {
+            throw new IllegalArgumentException("The local maximum size must be positive.");
+        }
+        return new TieredCacheConfig(this.entryTtl, localMaximumSize, this.localTtl, this.cacheNullValues);
+    }
+
+    /**
+     * 设置本地 (L1) 条目的存活时间
+     */
+    public TieredCacheConfig localTtl(@NotNull Duration localTtl) {
+        return new TieredCacheConfig(this.entryTtl, this.localMaximumSize, localTtl, this.cacheNullValues);
+    }
+
+    /**
+     * 不缓存 {@code null}
+     */
+    public TieredCacheConfig disableCachingNullValues() {
+        return new TieredCacheConfig(this.entryTtl, this.localMaximumSize, this.localTtl, false);
+    }
+
+    /**
+     * 实际使用的本地 (L1) 存活时间: {@code localTtl} 与 {@code entryTtl} 中较短的一个
+     */
+    Duration effectiveLocalTtl() {
+        if (this.entryTtl.isZero() || this.entryTtl.isNegative() || this.entryTtl.compareTo(this.localTtl) > 0) {
+            return this.localTtl;
+        }
+        return this.entryTtl;
+    }
+}
@@ -0,0 +1,225 @@
+package io.github.linna.cy.cache;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import javax.validation.constraints.NotNull;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 两级缓存 {@link TieredCache} 的 {@link CacheManager}. L2 使用 {@link RedisCache} 与指定的值序列化器,
+ * 未预先配置的缓存名称在第一次使用时以默认配置创建.
+ * <p>
+ * 写入与删除通过频道 {@value INVALIDATION_CHANNEL} 通知其他节点使 L1 失效; 订阅断开期间的修改仅由 L1 的 TTL 兜底.
+ * 在第一次创建缓存时订阅, 未使用时不占用连接; 不再使用时需要调用 {@link TieredCacheManager#destroy()} (作为 Spring Bean 时自动调用).
+ * </p>
+ */
+@Slf4j
+public class TieredCacheManager implements CacheManager, MessageListener, DisposableBean {
+
+    /**
+     * L1 失效通知的频道
+     */
+    public static final String INVALIDATION_CHANNEL = "cache:invalidation";
+
+    private static final byte[] RAW_CHANNEL = INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8);
+    private static final String SEPARATOR = "\n";
+    private static final String EVICT = "E";
+    private static final String CLEAR = "C";
+
+    private final RedisConnectionFactory connectionFactory;
+    private final RedisCacheWriter cacheWriter;
+    private final RedisSerializer<Object> valueSerializer;
+    private final ConcurrentMap<String, TieredCache> caches = new ConcurrentHashMap<>();
+    private final Map<String, TieredCacheConfig> cacheConfigs = new ConcurrentHashMap<>();
+
+    /**
+     * 本节点的标识, 用于忽略自己发出的通知
+     */
+    @Getter
+    private final String nodeId = UUID.randomUUID().toString();
+
+    /**
+     * 未单独配置的缓存所使用的配置
+     */
+    @Getter
+    private volatile TieredCacheConfig defaultConfig = TieredCacheConfig.defaultConfig();
+
+    /**
+     * Redis 中缓存 Key 的前缀, 最终的 Key 为 {@code keyPrefix + 缓存名称 + "::" + Key}
+     */
+    @Getter
+    private volatile String keyPrefix = "";
+
+    private RedisMessageListenerContainer container;
+    private boolean ownsContainer;
+    private volatile boolean subscribed;
+
+    /**
+     * @param valueSerializer L2 中值的序列化器, 通常为 {@link io.github.linna.cy.config.BaseRedisConfig#generateDefaultRedisSerializer()}
+     */
+    public TieredCacheManager(@NotNull RedisConnectionFactory connectionFactory,
+                              @NotNull RedisSerializer<Object> valueSerializer) {
+        this.connectionFactory = connectionFactory;
+        this.cacheWriter = RedisCacheWriter.nonLockingRedisCacheWriter(connectionFactory);
+        this.valueSerializer = valueSerializer;
+    }
+
+    /**
+     * 设置未单独配置的缓存所使用的配置. 需要在缓存创建之前调用
+     */
+    public TieredCacheManager setDefaultConfig(@NotNull TieredCacheConfig defaultConfig) {
+        this.defaultConfig = defaultConfig;
+        return this;
+    }
+
+    /**
+     * 为名为 {@code name} 的缓存设置配置. 需要在该缓存创建之前调用
+     */
+    public TieredCacheManager setCacheConfig(@NotNull String name, @NotNull TieredCacheConfig config) {
+        this.cacheConfigs.put(name, config);
+        return this;
+    }
+
+    /**
+     * 设置 Redis 中缓存 Key 的前缀. 需要在缓存创建之前调用
+     */
+    public TieredCacheManager setKeyPrefix(String keyPrefix) {
+        this.keyPrefix = keyPrefix == null ? "" : keyPrefix;
+        return this;
+    }
+
+    /**
+     * 使用已有的订阅容器接收失效通知. 需要在缓存创建之前调用, 未设置时自行创建
+     */
+    public synchronized TieredCacheManager setContainer(RedisMessageListenerContainer container) {
+        this.container = container;
+        return this;
+    }
+
+    @Override
+    public Cache getCache(@NotNull String name) {
+        Cache cache = this.caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        // 在创建缓存之前订阅, 以免错过其创建之后的通知
+        subscribe();
+        return this.caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(this.caches.keySet());
+    }
+
+    @Override
+    public synchronized void destroy() throws Exception {
+        if (!this.subscribed) {
+            return;
+        }
+        this.subscribed = false;
+        if (this.ownsContainer) {
+            this.container.destroy();
+            this.container = null;
+            this.ownsContainer = false;
+        } else {
+            this.container.removeMessageListener(this);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(SEPARATOR, 4);
+        if (parts.length < 3 || this.nodeId.equals(parts[0])) {
+            return;
+        }
+        TieredCache cache = this.caches.get(parts[2]);
+        if (cache == null) {
+            return;
+        }
+        if (CLEAR.equals(parts[1])) {
+            cache.onInvalidation(null);
+        } else if (EVICT.equals(parts[1]) && parts.length == 4) {
+            cache.onInvalidation(parts[3]);
+        }
+    }
+
+    /**
+     * 订阅失效通知, 已订阅时不做任何操作
+     */
+    private void subscribe() {
+        if (this.subscribed) {
+            return;
+        }
+        synchronized (this) {
+            if (this.subscribed) {
+                return;
+            }
+            if (this.container == null) {
+                RedisMessageListenerContainer created = new RedisMessageListenerContainer();
+                created.setConnectionFactory(this.connectionFactory);
+                created.afterPropertiesSet();
+                created.start();
+                this.container = created;
+                this.ownsContainer = true;
+            }
+            this.container.addMessageListener(this, new ChannelTopic(INVALIDATION_CHANNEL));
+            this.subscribed = true;
+        }
+    }
+
+    protected TieredCache createCache(String name) {
+        TieredCacheConfig config = this.cacheConfigs.getOrDefault(name, this.defaultConfig);
+        RedisCacheConfiguration redisConfig = RedisCacheConfiguration.defaultCacheConfig()
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(this.valueSerializer))
+                .entryTtl(config.getEntryTtl())
+                .prefixCacheNameWith(this.keyPrefix);
+        if (!config.isCacheNullValues()) {
+            redisConfig = redisConfig.disableCachingNullValues();
+        }
+        RedisCache redisCache = new SharedRedisCache(name, this.cacheWriter, redisConfig);
+        return new TieredCache(name, redisCache, config, redisConfig.getConversionService(),
+                localKey -> publish(name, localKey));
+    }
+
+    private void publish(String name, String localKey) {
+        String body = this.nodeId + SEPARATOR + (localKey == null ? CLEAR : EVICT) + SEPARATOR + name +
+                (localKey == null ? "" : SEPARATOR + localKey);
+        try (RedisConnection connection = this.connectionFactory.getConnection()) {
+            connection.publish(RAW_CHANNEL, body.getBytes(StandardCharsets.UTF_8));
+        } catch (RuntimeException e) {
+            // 其他节点的 L1 由 TTL 兜底
+            log.warn("Failed to publish the invalidation of cache \"{}\".", name, e);
+        }
+    }
+
+    /**
+     * 仅用于访问 {@link RedisCache} 的构造方法
+     */
+    private static class SharedRedisCache extends RedisCache {
+        private SharedRedisCache(String name, RedisCacheWriter cacheWriter, RedisCacheConfiguration cacheConfig) {
+            super(name, cacheWriter, cacheConfig);
+        }
+    }
+}
@@ -4,26 +4,101 @@ import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
+import io.github.linna.cy.cache.TieredCacheManager;
 import io.github.linna.cy.databind.BaseJacksonObjectMapper;
+import io.github.linna.cy.helper.SerializableReactiveRedisHelper;
 import io.github.linna.cy.helper.SerializableRedisHelper;
-import lombok.AllArgsConstructor;
+import io.github.linna.cy.helper.WriteBehindBuffer;
+import io.github.linna.cy.helper.impl.ReplicaRoutingRedisHelper;
+import io.github.linna.cy.helper.impl.ShardedRedisHelper;
+import io.github.linna.cy.serializer.CompactRedisSerializer;
+import io.github.linna.cy.serializer.CompressingRedisSerializer;
+import io.github.linna.cy.serializer.RedisKeySerializer;
+import io.github.linna.cy.serializer.RedisKeySerializerMode;
+import io.github.linna.cy.serializer.RedisSerializerMode;
+import io.github.linna.cy.serializer.RedisTypeRegistry;
+import io.github.linna.cy.serializer.RegisteredTypeResolverBuilder;
 import lombok.Getter;
 import org.springframework.cache.annotation.CachingConfigurerSupport;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.RedisSerializer;
 
 import java.io.Serializable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
 
+/**
+ * Redis 的基础配置. 继承的 {@link CachingConfigurerSupport#cacheManager()} 返回 {@code null},
+ * Spring Cache 使用应用中唯一的 {@link org.springframework.cache.CacheManager} Bean.
+ * 需要两级缓存时, 在子类的 Bean 方法中调用 {@link BaseRedisConfig#createCacheManager} 声明该 Bean
+ */
 @Configuration
-@AllArgsConstructor
 public class BaseRedisConfig extends CachingConfigurerSupport {
     @Getter
     private ObjectMapper objectMapper;
 
+    /**
+     * 值的序列化方式, 默认为 {@link RedisSerializerMode#JSON}
+     */
+    @Getter
+    private RedisSerializerMode serializerMode = RedisSerializerMode.JSON;
+
+    /**
+     * Key 的序列化方式, 默认为 {@link RedisKeySerializerMode#JSON}
+     */
+    @Getter
+    private RedisKeySerializerMode keySerializerMode = RedisKeySerializerMode.JSON;
+
+    /**
+     * Key 的前缀 (命名空间), 仅在 Key 的序列化方式不为 {@link RedisKeySerializerMode#JSON} 时生效
+     */
+    @Getter
+    private String keyPrefix = "";
+
+    /**
+     * 值的压缩阈值 (单位: 字节). 为负数时不压缩 (默认)
+     */
+    @Getter
+    private int compressionThreshold = -1;
+
+    /**
+     * 异步方法完成时所使用的线程池, 为 {@code null} 时在 Lettuce 的 I/O 线程中完成 (默认)
+     */
+    @Getter
+    private Executor asyncExecutor;
+
+    /**
+     * 写回模式下缓冲的写入最多停留的时间, 为 {@code null} 时不开启写回模式 (默认)
+     */
+    @Getter
+    private Duration writeBehindStaleness;
+
+    /**
+     * 写回模式下最多缓冲的 Key 数量
+     */
+    @Getter
+    private int writeBehindMaxPendingKeys = WriteBehindBuffer.DEFAULT_MAX_PENDING_KEYS;
+
+    /**
+     * {@link RedisSerializerMode#COMPACT} 模式下使用整数 ID 代替类名的类型注册表
+     */
+    @Getter
+    private final RedisTypeRegistry typeRegistry = new RedisTypeRegistry();
+
+    private RedisSerializer<Object> jsonKeySerializer;
+
     /**
      * 初始化 {@link BaseRedisConfig}, 并设置默认的 {@link BaseRedisConfig#setObjectMapper(ObjectMapper)}
      * 为 {@link BaseJacksonObjectMapper}
@@ -32,31 +107,140 @@ public class BaseRedisConfig extends CachingConfigurerSupport {
         this.objectMapper = new BaseJacksonObjectMapper();
     }
 
+    public BaseRedisConfig(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
     @Bean
     public RedisSerializer<Object> generateDefaultRedisSerializer() {
-        // Json 序列化器
-        Jackson2JsonRedisSerializer<Object> jsonRedisSerializer = new Jackson2JsonRedisSerializer<>(Object.class);
+        RedisSerializer<Object> redisSerializer = generateValueSerializer();
+        if (this.compressionThreshold < 0) {
+            return redisSerializer;
+        }
+        // 超过阈值的值进行压缩
+        return new CompressingRedisSerializer<>(redisSerializer, this.compressionThreshold);
+    }
+
+    /**
+     * 根据 {@link BaseRedisConfig#getSerializerMode()} 生成值的序列化器 (不含压缩)
+     */
+    protected RedisSerializer<Object> generateValueSerializer() {
         // Json 映射器 (不要直接使用, 应该拷贝后再设置到 Json 序列化器中)
         this.objectMapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
-        this.objectMapper.activateDefaultTyping(LaissezFaireSubTypeValidator.instance,
-                ObjectMapper.DefaultTyping.NON_FINAL);
-        jsonRedisSerializer.setObjectMapper(this.objectMapper);
+        if (this.serializerMode == RedisSerializerMode.COMPACT) {
+            // 二进制序列化器, 已注册的类型使用整数 ID
+            RegisteredTypeResolverBuilder.activate(this.objectMapper, LaissezFaireSubTypeValidator.instance,
+                    ObjectMapper.DefaultTyping.NON_FINAL, this.typeRegistry);
+            warmUpObjectMapper();
+            return new CompactRedisSerializer(this.objectMapper);
+        }
 
+        // Json 序列化器
+        RedisSerializer<Object> jsonRedisSerializer = createJsonSerializer(this.objectMapper);
+        warmUpObjectMapper();
+
+        return jsonRedisSerializer;
+    }
+
+    private static RedisSerializer<Object> createJsonSerializer(ObjectMapper objectMapper) {
+        Jackson2JsonRedisSerializer<Object> jsonRedisSerializer = new Jackson2JsonRedisSerializer<>(Object.class);
+        objectMapper.activateDefaultTyping(LaissezFaireSubTypeValidator.instance, ObjectMapper.DefaultTyping.NON_FINAL);
+        jsonRedisSerializer.setObjectMapper(objectMapper);
         return jsonRedisSerializer;
     }
 
+    /**
+     * Key 与 Hash 的 Key 所使用的序列化器 (不压缩). 值使用 {@link RedisSerializerMode#COMPACT} 时 Key 仍然使用 Json,
+     * 只有值切换格式, 因此已有的 Key 与字段仍然可以访问, SCAN MATCH 与 redis-cli 也照常可用
+     */
+    private RedisSerializer<Object> keyJsonSerializer(RedisSerializer<Object> redisSerializer) {
+        RedisSerializer<Object> uncompressedSerializer = uncompressed(redisSerializer);
+        if (!(uncompressedSerializer instanceof CompactRedisSerializer)) {
+            return uncompressedSerializer;
+        }
+        if (this.jsonKeySerializer == null) {
+            // 拷贝的映射器重新启用默认的类型信息 (完整类名), 与切换前写入的 Key 一致
+            this.jsonKeySerializer = createJsonSerializer(this.objectMapper.copy());
+        }
+        return this.jsonKeySerializer;
+    }
+
+    /**
+     * 配置完成后预热 {@link BaseJacksonObjectMapper#getWarmUpTypes()}, 使首次读写不再构建序列化器
+     */
+    private void warmUpObjectMapper() {
+        if (this.objectMapper instanceof BaseJacksonObjectMapper) {
+            ((BaseJacksonObjectMapper) this.objectMapper).warmUp();
+        }
+    }
+
     @Bean
     public RedisTemplate<Serializable, Object> generateDefaultRedisTemplate(RedisConnectionFactory connectionFactory,
                                                                             RedisSerializer<Object> redisSerializer) {
+        return createRedisTemplate(connectionFactory, redisSerializer);
+    }
+
+    @Bean
+    public SerializableRedisHelper<Object> generateDefaultRedisHelper(RedisTemplate<Serializable, Object> redisTemplate) {
+        return createRedisHelper(redisTemplate, true);
+    }
+
+    /**
+     * 读取方法路由到只读副本的 helper. 每个副本使用与 {@link BaseRedisConfig#generateDefaultRedisTemplate} 相同配置的模板,
+     * 写入使用 {@code primary}.
+     * <p>
+     * NOTES: 不是 Bean, 需要在子类的 Bean 方法中调用; 副本上不能迁移 Key, 因此不支持 {@link RedisKeySerializerMode#MIGRATION}.
+     * </p>
+     *
+     * @param replicaFactories 每个副本一个连接工厂
+     * @see ReplicaRoutingRedisHelper
+     */
+    public ReplicaRoutingRedisHelper<Serializable, Object> createReplicaRoutingRedisHelper(
+            SerializableRedisHelper<Object> primary, RedisSerializer<Object> redisSerializer,
+            List<RedisConnectionFactory> replicaFactories, ReplicaRoutingRedisHelper.ReadStrategy strategy,
+            Duration maxStaleness) {
+        if (this.keySerializerMode == RedisKeySerializerMode.MIGRATION) {
+            throw new IllegalStateException("Replica reads are not supported while migrating keys.");
+        }
+        List<SerializableRedisHelper<Object>> replicas = new ArrayList<>(replicaFactories.size());
+        for (RedisConnectionFactory factory : replicaFactories) {
+            replicas.add(createRedisHelper(createRedisTemplate(factory, redisSerializer), false));
+        }
+        return new ReplicaRoutingRedisHelper<>(primary, replicas, strategy,
+                ReplicaRoutingRedisHelper.DEFAULT_PROBE_INTERVAL, maxStaleness);
+    }
+
+    /**
+     * 按一致性哈希分布到多个独立 Redis 实例的 helper. 每个分片使用与 {@link BaseRedisConfig#generateDefaultRedisTemplate}
+     * 及 {@link BaseRedisConfig#generateDefaultRedisHelper} 相同的配置.
+     * <p>
+     * NOTES: 不是 Bean, 需要在子类的 Bean 方法中调用; 分片可能开启了写回模式, 不作为 Bean 使用时需要调用
+     * {@link ShardedRedisHelper#destroy()} 写入剩余的写入.
+     * </p>
+     *
+     * @param shardFactories 分片名称与对应的连接工厂, 名称决定分片在哈希环上的位置, 需要保持稳定
+     * @see ShardedRedisHelper
+     */
+    public ShardedRedisHelper<Serializable, Object> createShardedRedisHelper(
+            RedisSerializer<Object> redisSerializer, Map<String, RedisConnectionFactory> shardFactories) {
+        Map<String, SerializableRedisHelper<Object>> shards = new LinkedHashMap<>();
+        shardFactories.forEach((name, factory) ->
+                shards.put(name, createRedisHelper(createRedisTemplate(factory, redisSerializer), true)));
+        return new ShardedRedisHelper<>(shards);
+    }
+
+    private RedisTemplate<Serializable, Object> createRedisTemplate(RedisConnectionFactory connectionFactory,
+                                                                   RedisSerializer<Object> redisSerializer) {
         RedisTemplate<Serializable, Object> redisTemplate = new RedisTemplate<>();
 
         redisTemplate.setConnectionFactory(connectionFactory);
         // 默认序列化方式
         redisTemplate.setDefaultSerializer(redisSerializer);
 
-        // Key 序列化方式
-        redisTemplate.setKeySerializer(redisSerializer);
-        redisTemplate.setHashKeySerializer(redisSerializer);
+        // Key 序列化方式 (Key 不压缩, 且不随值的格式变化)
+        RedisSerializer<Object> keySerializer = keyJsonSerializer(redisSerializer);
+        redisTemplate.setKeySerializer(generateRedisKeySerializer(keySerializer));
+        redisTemplate.setHashKeySerializer(keySerializer);
 
         // Value 序列化方式
         redisTemplate.setValueSerializer(redisSerializer);
@@ -66,14 +250,183 @@ public class BaseRedisConfig extends CachingConfigurerSupport {
         return redisTemplate;
     }
 
+    /**
+     * @param writeBehind 是否按配置开启写回模式
+     */
+    private SerializableRedisHelper<Object> createRedisHelper(RedisTemplate<Serializable, Object> redisTemplate,
+                                                              boolean writeBehind) {
+        SerializableRedisHelper<Object> redisHelper;
+        if (this.keySerializerMode == RedisKeySerializerMode.MIGRATION) {
+            // 旧的 Key 与 Hash Key 使用相同的序列化器
+            redisHelper = new SerializableRedisHelper<>(redisTemplate, uncompressed(redisTemplate.getHashKeySerializer()));
+        } else {
+            redisHelper = new SerializableRedisHelper<>(redisTemplate);
+        }
+        redisHelper.setAsyncExecutor(this.asyncExecutor);
+        redisHelper.setObjectMapper(this.objectMapper);
+        if (writeBehind && this.writeBehindStaleness != null) {
+            redisHelper.enableWriteBehind(this.writeBehindStaleness, this.writeBehindMaxPendingKeys);
+        }
+        return redisHelper;
+    }
+
+    /**
+     * 两级缓存 (本地 + Redis) 的 {@link org.springframework.cache.CacheManager}, 值使用与
+     * {@link BaseRedisConfig#generateDefaultRedisTemplate} 相同的序列化器.
+     * 各缓存的配置通过重写 {@link BaseRedisConfig#configureCaches(TieredCacheManager)} 设置
+     * <p>
+     * NOTES: 不是 Bean, 需要在子类的 Bean 方法中调用, 以免与应用自身的 {@link org.springframework.cache.CacheManager} 冲突.
+     * </p>
+     */
+    public TieredCacheManager createCacheManager(RedisConnectionFactory connectionFactory,
+                                                 RedisSerializer<Object> redisSerializer) {
+        TieredCacheManager cacheManager = new TieredCacheManager(connectionFactory, redisSerializer);
+        if (this.keySerializerMode != RedisKeySerializerMode.JSON) {
+            cacheManager.setKeyPrefix(this.keyPrefix);
+        }
+        configureCaches(cacheManager);
+        return cacheManager;
+    }
+
+    /**
+     * 设置 {@link BaseRedisConfig#createCacheManager} 的默认配置与各缓存的配置, 默认不做任何修改
+     *
+     * @see TieredCacheManager#setDefaultConfig
+     * @see TieredCacheManager#setCacheConfig
+     */
+    protected void configureCaches(TieredCacheManager cacheManager) {
+    }
+
+    /**
+     * 与 {@link BaseRedisConfig#generateDefaultRedisTemplate} 使用相同序列化器的非阻塞模板.
+     * 延迟创建, 未使用时不要求存在 {@link ReactiveRedisConnectionFactory}
+     */
+    @Lazy
     @Bean
-    public SerializableRedisHelper<Object> generateDefaultRedisHelper(RedisTemplate<Serializable, Object> redisTemplate) {
-        return new SerializableRedisHelper<>(redisTemplate);
+    @SuppressWarnings("unchecked")
+    public ReactiveRedisTemplate<Serializable, Object> generateDefaultReactiveRedisTemplate(
+            ReactiveRedisConnectionFactory connectionFactory, RedisSerializer<Object> redisSerializer) {
+        RedisSerializer<Object> keySerializer = keyJsonSerializer(redisSerializer);
+        RedisSerializationContext<Serializable, Object> serializationContext = RedisSerializationContext
+                .<Serializable, Object>newSerializationContext(redisSerializer)
+                .key((RedisSerializer<Serializable>) generateRedisKeySerializer(keySerializer))
+                .hashKey(keySerializer)
+                .value(redisSerializer)
+                .hashValue(redisSerializer)
+                .build();
+        return new ReactiveRedisTemplate<>(connectionFactory, serializationContext);
+    }
+
+    @Lazy
+    @Bean
+    public SerializableReactiveRedisHelper<Object> generateDefaultReactiveRedisHelper(
+            ReactiveRedisTemplate<Serializable, Object> reactiveRedisTemplate) {
+        if (this.keySerializerMode == RedisKeySerializerMode.MIGRATION) {
+            // 旧的 Key 与 Hash Key 使用相同的序列化器
+            return new SerializableReactiveRedisHelper<>(reactiveRedisTemplate,
+                    reactiveRedisTemplate.getSerializationContext().getHashKeySerializationPair());
+        }
+        return new SerializableReactiveRedisHelper<>(reactiveRedisTemplate);
+    }
+
+    /**
+     * 根据 {@link BaseRedisConfig#getKeySerializerMode()} 生成 Key 的序列化器
+     *
+     * @param redisSerializer Key 的 Json 序列化器, {@link RedisKeySerializerMode#JSON} 模式下直接使用
+     */
+    protected RedisSerializer<?> generateRedisKeySerializer(RedisSerializer<Object> redisSerializer) {
+        if (this.keySerializerMode == RedisKeySerializerMode.JSON) {
+            return redisSerializer;
+        }
+        return new RedisKeySerializer(this.keyPrefix);
     }
 
 
+    /**
+     * 去掉 {@link CompressingRedisSerializer} 包装, Key 与 Hash 的 Key 不压缩
+     */
+    @SuppressWarnings("unchecked")
+    private static RedisSerializer<Object> uncompressed(RedisSerializer<?> redisSerializer) {
+        if (redisSerializer instanceof CompressingRedisSerializer) {
+            return ((CompressingRedisSerializer<Object>) redisSerializer).getDelegate();
+        }
+        return (RedisSerializer<Object>) redisSerializer;
+    }
+
     public BaseRedisConfig setObjectMapper(ObjectMapper objectMapper) {
         this.objectMapper = objectMapper.copy();
         return this;
     }
+
+    /**
+     * 设置 Key 的序列化方式. 需要在 {@link BaseRedisConfig#generateDefaultRedisTemplate} 之前调用
+     */
+    public BaseRedisConfig setKeySerializerMode(RedisKeySerializerMode keySerializerMode) {
+        this.keySerializerMode = keySerializerMode;
+        return this;
+    }
+
+    /**
+     * 设置 Key 的前缀 (命名空间). 需要在 {@link BaseRedisConfig#generateDefaultRedisTemplate} 之前调用
+     */
+    public BaseRedisConfig setKeyPrefix(String keyPrefix) {
+        this.keyPrefix = keyPrefix == null ? "" : keyPrefix;
+        return this;
+    }
+
+    /**
+     * 设置值的压缩阈值 (单位: 字节), 为负数时不压缩. 需要在 {@link BaseRedisConfig#generateDefaultRedisSerializer()} 之前调用
+     *
+     * @see CompressingRedisSerializer
+     */
+    public BaseRedisConfig setCompressionThreshold(int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+        return this;
+    }
+
+    /**
+     * 设置异步方法完成时所使用的线程池. 需要在 {@link BaseRedisConfig#generateDefaultRedisHelper} 之前调用
+     *
+     * @see io.github.linna.cy.helper.RedisAsync#virtualThreadExecutor()
+     */
+    public BaseRedisConfig setAsyncExecutor(Executor asyncExecutor) {
+        this.asyncExecutor = asyncExecutor;
+        return this;
+    }
+
+    /**
+     * 开启写回模式. 需要在 {@link BaseRedisConfig#generateDefaultRedisHelper} 之前调用
+     *
+     * @param maxStaleness   缓冲的写入最多停留的时间, 为 {@code null} 时不开启
+     * @param maxPendingKeys 最多缓冲的 Key 数量
+     * @see io.github.linna.cy.helper.impl.BaseRedisHelperImpl#enableWriteBehind(Duration, int)
+     */
+    public BaseRedisConfig setWriteBehind(Duration maxStaleness, int maxPendingKeys) {
+        this.writeBehindStaleness = maxStaleness;
+        this.writeBehindMaxPendingKeys = maxPendingKeys;
+        return this;
+    }
+
+    /**
+     * 注册需要预热的类型, 在 {@link BaseRedisConfig#generateDefaultRedisSerializer()} 中完成配置后预热.
+     * 需要在 {@link BaseRedisConfig#generateDefaultRedisSerializer()} 之前调用
+     *
+     * @throws IllegalStateException {@link BaseRedisConfig#getObjectMapper()} 不是 {@link BaseJacksonObjectMapper}
+     * @see BaseJacksonObjectMapper#registerWarmUpTypes(Class[])
+     */
+    public BaseRedisConfig addWarmUpTypes(Class<?>... types) {
+        if (!(this.objectMapper instanceof BaseJacksonObjectMapper)) {
+            throw new IllegalStateException("Warm-up requires a BaseJacksonObjectMapper.");
+        }
+        ((BaseJacksonObjectMapper) this.objectMapper).registerWarmUpTypes(types);
+        return this;
+    }
+
+    /**
+     * 设置值的序列化方式. 需要在 {@link BaseRedisConfig#generateDefaultRedisSerializer()} 之前调用
+     */
+    public BaseRedisConfig setSerializerMode(RedisSerializerMode serializerMode) {
+        this.serializerMode = serializerMode;
+        return this;
+    }
 }
@@ -0,0 +1,161 @@
+package io.github.linna.cy.helper;
+
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMember;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMethod;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.databind.util.ClassUtil;
+import io.github.linna.cy.databind.BaseJacksonObjectMapper;
+import lombok.Getter;
+import org.springframework.data.redis.hash.HashMapper;
+
+import javax.validation.constraints.NotNull;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 实体与 Redis Hash 之间的映射: 每个属性对应一个 Hash 字段, 字段名为属性的 Json 名称.
+ * <p>
+ * 属性的发现 (包括 {@link com.fasterxml.jackson.annotation.JsonIgnore} / {@link com.fasterxml.jackson.annotation.JsonProperty})
+ * 由 {@link ObjectMapper} 完成; 属性值本身由 {@link org.springframework.data.redis.core.RedisTemplate}
+ * 的 Hash 值序列化器逐个序列化, 因此修改一个属性只需要写入该属性的值.
+ * 读取时, 与属性类型不一致的值 (例如序列化为字符串的 {@link Long}) 通过 {@link ObjectMapper#convertValue} 转换.
+ * </p>
+ * 实体需要有无参构造方法才能从 Hash 中读取. 值为 {@code null} 的属性不写入 Hash.
+ */
+public class EntityHashMapper<T> implements HashMapper<T, String, Object> {
+    private static final ObjectMapper DEFAULT_OBJECT_MAPPER = new BaseJacksonObjectMapper();
+    private static final ConcurrentMap<Class<?>, EntityHashMapper<?>> DEFAULT_MAPPERS = new ConcurrentHashMap<>();
+
+    @Getter
+    private final Class<T> type;
+    private final ObjectMapper objectMapper;
+    private final BeanDescription description;
+    private final boolean fixAccess;
+    private final Map<String, Property> properties;
+
+    /**
+     * @param objectMapper 用于发现属性与转换属性值, 应与值的序列化器使用相同的配置
+     */
+    public EntityHashMapper(@NotNull Class<T> type, @NotNull ObjectMapper objectMapper) {
+        this.type = type;
+        this.objectMapper = objectMapper;
+        JavaType javaType = objectMapper.constructType(type);
+        this.description = objectMapper.getDeserializationConfig().introspect(javaType);
+        this.fixAccess = objectMapper.getDeserializationConfig().canOverrideAccessModifiers();
+
+        Map<String, AnnotatedMember> mutators = new HashMap<>();
+        for (BeanPropertyDefinition definition : this.description.findProperties()) {
+            AnnotatedMember mutator = definition.getNonConstructorMutator();
+            if (mutator != null) {
+                mutators.put(definition.getName(), mutator);
+            }
+        }
+        Map<String, Property> properties = new LinkedHashMap<>();
+        for (BeanPropertyDefinition definition : objectMapper.getSerializationConfig().introspect(javaType)
+                .findProperties()) {
+            AnnotatedMember accessor = definition.getAccessor();
+            if (accessor == null) {
+                continue;
+            }
+            AnnotatedMember mutator = mutators.get(definition.getName());
+            accessor.fixAccess(this.fixAccess);
+            if (mutator != null) {
+                mutator.fixAccess(this.fixAccess);
+            }
+            properties.put(definition.getName(), new Property(accessor, mutator));
+        }
+        this.properties = Collections.unmodifiableMap(properties);
+    }
+
+    /**
+     * 获取使用默认 {@link BaseJacksonObjectMapper} 的映射器 (按类型缓存)
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> EntityHashMapper<T> of(@NotNull Class<T> type) {
+        return (EntityHashMapper<T>) DEFAULT_MAPPERS.computeIfAbsent(type,
+                clazz -> new EntityHashMapper<>(clazz, DEFAULT_OBJECT_MAPPER));
+    }
+
+    /**
+     * 所有属性 (Hash 字段) 的名称
+     */
+    public Set<String> getFieldNames() {
+        return this.properties.keySet();
+    }
+
+    /**
+     * @throws IllegalArgumentException {@code fieldName} 不是 {@link EntityHashMapper#getType()} 的属性
+     */
+    public void checkFieldName(String fieldName) {
+        if (!this.properties.containsKey(fieldName)) {
+            throw new IllegalArgumentException("\"" + fieldName + "\" is not a property of " + this.type.getName() + ".");
+        }
+    }
+
+    /**
+     * 将 {@code object} 中值不为 {@code null} 的属性转换为 Hash
+     */
+    @Override
+    public Map<String, Object> toHash(T object) {
+        Map<String, Object> hash = new LinkedHashMap<>();
+        this.properties.forEach((name, property) -> {
+            Object value = property.accessor.getValue(object);
+            if (value != null) {
+                hash.put(name, value);
+            }
+        });
+        return hash;
+    }
+
+    /**
+     * 从 Hash 中创建实体, 只设置 {@code hash} 中存在的属性; 未知或只读的字段被忽略
+     *
+     * @throws IllegalArgumentException 实体没有无参构造方法, 或字段的值无法转换为属性的类型
+     */
+    @Override
+    public T fromHash(Map<String, Object> hash) {
+        Object instance = this.description.instantiateBean(this.fixAccess);
+        if (instance == null) {
+            throw new IllegalArgumentException(this.type.getName() + " has no default constructor.");
+        }
+        hash.forEach((name, value) -> {
+            Property property = this.properties.get(name);
+            if (property == null || property.mutator == null) {
+                return;
+            }
+            property.mutator.setValue(instance, convert(value, property.valueType()));
+        });
+        return this.type.cast(instance);
+    }
+
+    private Object convert(Object value, JavaType valueType) {
+        Class<?> rawType = valueType.getRawClass();
+        if (value == null || (rawType.isPrimitive() ? ClassUtil.wrapperType(rawType) : rawType).isInstance(value)) {
+            return value;
+        }
+        return this.objectMapper.convertValue(value, valueType);
+    }
+
+    private static class Property {
+        private final AnnotatedMember accessor;
+        private final AnnotatedMember mutator;
+
+        private Property(AnnotatedMember accessor, AnnotatedMember mutator) {
+            this.accessor = accessor;
+            this.mutator = mutator;
+        }
+
+        private JavaType valueType() {
+            return this.mutator instanceof AnnotatedMethod
+                    ? ((AnnotatedMethod) this.mutator).getParameterType(0) : this.mutator.getType();
+        }
+    }
+}
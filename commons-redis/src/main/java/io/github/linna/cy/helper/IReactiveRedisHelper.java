@@ -0,0 +1,323 @@
+package io.github.linna.cy.helper;
+
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.collections4.MapUtils;
+import org.springframework.data.redis.connection.DataType;
+import org.springframework.data.redis.core.ReactiveRedisCallback;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.validation.constraints.NotNull;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link IRedisHelper} 的非阻塞版本, 基于 {@link org.springframework.data.redis.core.ReactiveRedisTemplate}.
+ * <p>
+ * 所有方法都返回 {@link Mono} / {@link Flux}, 在订阅之前不会发送任何命令.
+ * </p>
+ */
+public interface IReactiveRedisHelper<K, V> extends ReactiveRedisOperationsHelper<K, V> {
+
+    /**
+     * 通过指定的参数 {@code key} 从 Redis 中获取值
+     */
+    default Mono<V> get(K key) {
+        return this.opsForValue().get(key);
+    }
+
+    /**
+     * 为指定的参数 {@code key} 设置 {@code value}
+     */
+    default Mono<Boolean> set(K key, V value) {
+        return this.opsForValue().set(key, value);
+    }
+
+    /**
+     * 设置键的同时为其设置 过期时间点
+     *
+     * @param expiration 过期时间点. 这个时间点必须在当前时间之后, 否则参数 {@code value} 将不会被设置.
+     */
+    default Mono<Boolean> setWithExpirationAt(K key, V value, @NotNull Date expiration) {
+        return setWithExpirationAt(key, value, expiration.toInstant());
+    }
+
+    /**
+     * 设置键的同时为其设置 过期时间点
+     *
+     * @param expiration 过期时间点. 这个时间点必须在当前时间之后, 否则参数 {@code value} 将不会被设置, 并返回 {@code false}.
+     */
+    default Mono<Boolean> setWithExpirationAt(K key, V value, @NotNull Instant expiration) {
+        // 在订阅时计算剩余时间, 延迟或重试的订阅使用各自的当前时间
+        return Mono.defer(() -> {
+            Duration duration = Duration.between(new Date().toInstant(), expiration);
+            if (duration.isNegative()) {
+                return Mono.just(false);
+            }
+            return this.opsForValue().set(key, value, duration);
+        });
+    }
+
+    /**
+     * 设置键的同时为其设置 过期时间
+     *
+     * @param expiration 过期时间 (单位: min), 与 {@link IRedisHelper#setWithExpiration(Object, Object, long)} 一致
+     */
+    default Mono<Boolean> setWithExpiration(K key, V value, long expiration) {
+        return setWithExpiration(key, value, expiration, TimeUnit.MINUTES);
+    }
+
+    /**
+     * 设置键的同时为其设置 过期时间
+     *
+     * @param expiration 过期时间
+     * @param timeUnit   过期时间的单位
+     */
+    default Mono<Boolean> setWithExpiration(K key, V value, long expiration, @NotNull TimeUnit timeUnit) {
+        if (expiration <= 0) {
+            return Mono.just(false);
+        }
+        return this.opsForValue().set(key, value, Duration.ofNanos(timeUnit.toNanos(expiration)));
+    }
+
+    /**
+     * 批量获取 {@code keys} 对应的值 (MGET)
+     *
+     * @return 与 {@code keys} 的迭代顺序一一对应的值, 不存在的 Key 对应 {@code null}
+     */
+    default Mono<List<V>> getAll(Collection<K> keys) {
+        if (CollectionUtils.isEmpty(keys)) {
+            return Mono.just(new ArrayList<>());
+        }
+        return this.opsForValue().multiGet(keys);
+    }
+
+    /**
+     * 批量设置 {@code map} 中的键值对 (MSET)
+     */
+    default Mono<Boolean> setAll(Map<K, V> map) {
+        if (MapUtils.isEmpty(map)) {
+            return Mono.just(true);
+        }
+        return this.opsForValue().multiSet(map);
+    }
+
+    /**
+     * 从 {@code key} 指定的 Hash 中获取 {@code field} 的值
+     *
+     * @param field Hash 字段
+     */
+    default Mono<Object> get(K key, Serializable field) {
+        return this.opsForHash().get(key, field);
+    }
+
+    /**
+     * 从 {@code key} 指定的 Hash 中获取 {@code field} 的值,
+     * 并根据 {@code clazz} 进行类型转换
+     *
+     * @param field Hash 字段
+     * @return 类型无法转换时发出 {@link ClassCastException}
+     */
+    default <T> Mono<T> get(K key, Object field, @NotNull Class<T> clazz) {
+        return this.opsForHash().get(key, field).flatMap(obj -> {
+            if (!clazz.isAssignableFrom(obj.getClass())) {  // 类型无法转换
+                return Mono.error(new ClassCastException("The \"" + obj.getClass() + "\" is not equal to \"" + clazz +
+                        "\" and does not inherit from \"" + clazz + "\"."));
+            }
+            return Mono.just(clazz.cast(obj));
+        });
+    }
+
+    /**
+     * 从 {@code key} 指定的 Hash 中获取所有的字段和值
+     */
+    default Mono<Map<Object, Object>> getAll(K key) {
+        return this.opsForHash().entries(key).collectMap(Map.Entry::getKey, Map.Entry::getValue);
+    }
+
+    /**
+     * 将 {@code value} 写入 {@code key} 所指定的 Hash 中的 {@code field}
+     *
+     * @param field Hash 字段
+     */
+    default Mono<Boolean> put(K key, Serializable field, Object value) {
+        return this.opsForHash().put(key, field, value);
+    }
+
+    /**
+     * 将 {@code map} {@code put} 到 {@code key} 指定的 Hash 中
+     */
+    default Mono<Boolean> put(K key, Map<Serializable, ?> map) {
+        return this.opsForHash().putAll(key, map);
+    }
+
+    /**
+     * 当 {@code key} 所指定的 Hash 中的 {@code field} 不存在时, 将 {@code value} 写入
+     *
+     * @param field Hash 字段
+     */
+    default Mono<Boolean> putIfAbsent(K key, Serializable field, Object value) {
+        return this.opsForHash().putIfAbsent(key, field, value);
+    }
+
+    /**
+     * 从 {@code key} 中获取所有的 {@code fields}
+     */
+    default Flux<Object> fields(K key) {
+        return this.opsForHash().keys(key);
+    }
+
+    /**
+     * 设置键的同时为其设置 过期时间点
+     *
+     * @param expiration 过期时间点
+     */
+    default Mono<Boolean> expireAt(K key, @NotNull Date expiration) {
+        return this.getTemplate().expireAt(key, expiration.toInstant());
+    }
+
+    /**
+     * 设置键的同时为其设置 过期时间
+     *
+     * @param timestamp 过期时间戳 (单位: ms)
+     */
+    default Mono<Boolean> expire(K key, long timestamp) {
+        return this.expire(key, timestamp, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 设置的 过期时间
+     *
+     * @param expiration 过期时间
+     * @param timeUnit   时间单位
+     */
+    default Mono<Boolean> expire(K key, long expiration, @NotNull TimeUnit timeUnit) {
+        return this.getTemplate().expire(key, Duration.ofNanos(timeUnit.toNanos(expiration)));
+    }
+
+    /**
+     * 获取指定键的过期时间 (Tome to Live, TTL)
+     *
+     * @return 过期时间 (单位: s).
+     * 当 {@code key} 永不过期时, 将返回 {@link IRedisHelper#EXPIRE_PERPETUAL}; 当 {@code key} 不存在时, 将返回 {@code -2}.
+     */
+    default Mono<Long> getExpire(K key) {
+        return this.getTemplate().createMono((ReactiveRedisCallback<Long>) connection -> {
+            ByteBuffer rawKey = this.getTemplate().getSerializationContext().getKeySerializationPair().write(key);
+            return connection.keyCommands().ttl(rawKey);
+        });
+    }
+
+    /**
+     * 删除指定的 {@code key}
+     */
+    default Mono<Boolean> delete(K key) {
+        return this.getTemplate().delete(key).map(count -> count > 0);
+    }
+
+    /**
+     * 删除指定的 {@code keys}
+     *
+     * @return 成功删除的 {@code key} 的数量
+     */
+    default Mono<Long> delete(Collection<K> keys) {
+        if (CollectionUtils.isEmpty(keys)) {
+            return Mono.just(0L);
+        }
+        return this.getTemplate().delete(Flux.fromIterable(keys));
+    }
+
+    /**
+     * 删除指定 {@code key} 中的 {@code field}
+     */
+    default Mono<Boolean> delete(K key, Object field) {
+        return this.opsForHash().remove(key, field).map(count -> count > 0);
+    }
+
+    /**
+     * 删除指定 {@code key} 中的 {@code fields}
+     *
+     * @return 成功删除的 {@code field} 的数量
+     */
+    default Mono<Long> delete(K key, Collection<Object> fields) {
+        if (CollectionUtils.isEmpty(fields)) {
+            return Mono.just(0L);
+        }
+        return this.opsForHash().remove(key, fields.toArray());
+    }
+
+    /**
+     * 获取指定 {@code key} 的类型
+     */
+    default Mono<DataType> type(K key) {
+        return this.getTemplate().type(key);
+    }
+
+    /**
+     * 对指定 {@code key} 的值执行原子性的递增/递减操作
+     * <p>
+     * NOTES: 当指定 {@code key} 所关联的 {@code value} 的类型是整数时才可使用
+     * </p>
+     *
+     * @param delta 可以为非正数
+     * @return 递增或递减操作之后 {@code key} 所对应的值
+     */
+    default Mono<Long> increment(K key, long delta) {
+        return this.opsForValue().increment(key, delta);
+    }
+
+    /**
+     * 对指定 {@code key} 的值执行原子性的递增/递减操作
+     *
+     * @param delta 可以为非正数
+     * @return 递增或递减操作之后 {@code key} 所对应的值
+     */
+    default Mono<Double> increment(K key, double delta) {
+        return this.opsForValue().increment(key, delta);
+    }
+
+    /**
+     * 对指定 {@code key} 中的 {@code field} 的值执行原子性的递增/递减操作
+     * <p>
+     * NOTES: 当指定 {@code key} 所关联的 {@code value} 的类型是整数时才可使用
+     * </p>
+     *
+     * @param delta 可以为非正数
+     * @return 递增或递减操作之后 {@code field} 所对应的值
+     */
+    default Mono<Long> increment(K key, Object field, long delta) {
+        return this.opsForHash().increment(key, field, delta);
+    }
+
+    /**
+     * 对指定 {@code key} 中的 {@code field} 的值执行原子性的递增/递减操作
+     *
+     * @param delta 可以为非正数
+     * @return 递增或递减操作之后 {@code field} 所对应的值
+     */
+    default Mono<Double> increment(K key, Object field, double delta) {
+        return this.opsForHash().increment(key, field, delta);
+    }
+
+    /**
+     * 检查 {@code key} 是否存在
+     */
+    default Mono<Boolean> hasKey(K key) {
+        return this.getTemplate().hasKey(key);
+    }
+
+    /**
+     * 检查 {@code key} 中指定的 {@code field} 是否存在
+     */
+    default Mono<Boolean> hasKey(K key, Serializable field) {
+        return this.opsForHash().hasKey(key, field);
+    }
+}
@@ -1,18 +1,39 @@
 package io.github.linna.cy.helper;
 
+import io.github.linna.cy.script.RedisScripts;
+import io.lettuce.core.KeyValue;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
 import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.collections4.MapUtils;
 import org.apache.commons.lang.BooleanUtils;
 import org.springframework.data.redis.connection.DataType;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
 
 import javax.validation.constraints.NotNull;
 import java.io.Serializable;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 public interface IRedisHelper<K, V> extends RedisOperationsHelper<K, V> {
 
@@ -21,6 +42,11 @@ public interface IRedisHelper<K, V> extends RedisOperationsHelper<K, V> {
      */
     long EXPIRE_PERPETUAL = -1;
 
+    /**
+     * 管道默认的自动发送批次大小
+     */
+    int DEFAULT_PIPELINE_FLUSH_SIZE = 1000;
+
     /**
      * 通过指定的参数 {@code key} 从 Redis 中获取值
      */
@@ -82,6 +108,267 @@ public interface IRedisHelper<K, V> extends RedisOperationsHelper<K, V> {
         return true;
     }
 
+    /**
+     * 获取 {@code key} 的值, 不存在时通过 {@code loader} 加载并以 {@code ttl} 写入.
+     * <p>
+     * NOTES: 默认实现没有并发保护; {@link io.github.linna.cy.helper.impl.BaseRedisHelperImpl} 使用
+     * {@link SingleFlightLoader} 合并并发加载, 并支持跨节点协调与概率性提前刷新.
+     * </p>
+     *
+     * @param loader 加载值, 返回 {@code null} 时不写入
+     * @param ttl    过期时间
+     */
+    default V getOrLoad(K key, @NotNull Supplier<V> loader, @NotNull Duration ttl) {
+        V value = this.get(key);
+        if (value != null) {
+            return value;
+        }
+        value = loader.get();
+        if (value != null) {
+            this.setWithExpiration(key, value, ttl.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        return value;
+    }
+
+    /**
+     * 批量获取 {@code keys} 对应的值 (MGET).
+     * 集群模式下按 Hash Slot 分组, 各组的 MGET 不等待响应连续发送 (优先使用共享的原生异步连接, 否则使用一次管道).
+     *
+     * @return 与 {@code keys} 的迭代顺序一一对应的值, 不存在的 Key 对应 {@code null}.
+     * 当在事务或管道中使用时, 返回值为 {@code null}.
+     */
+    @SuppressWarnings("unchecked")
+    default List<V> getAll(Collection<K> keys) {
+        if (CollectionUtils.isEmpty(keys)) {
+            return new ArrayList<>();
+        }
+        List<K> keyList = new ArrayList<>(keys);
+        if (!RedisKeySlots.isCluster(this.getTemplate())) {
+            return this.opsForValue().multiGet(keyList);
+        }
+        RedisSerializer<K> keySerializer = (RedisSerializer<K>) this.getTemplate().getKeySerializer();
+        RedisSerializer<V> valueSerializer = (RedisSerializer<V>) this.getTemplate().getValueSerializer();
+        List<List<Integer>> groups = new ArrayList<>(RedisKeySlots.groupIndexesBySlot(this.getTemplate(), keyList));
+        List<byte[][]> rawGroups = new ArrayList<>(groups.size());
+        for (List<Integer> indexes : groups) {
+            byte[][] rawKeys = new byte[indexes.size()][];
+            for (int i = 0; i < indexes.size(); i++) {
+                rawKeys[i] = keySerializer.serialize(keyList.get(indexes.get(i)));
+            }
+            rawGroups.add(rawKeys);
+        }
+        List<V> values = new ArrayList<>(Collections.nCopies(keyList.size(), null));
+        RedisClusterAsyncCommands<byte[], byte[]> commands = RedisAsync.nativeCommands(this.getTemplate());
+        if (commands != null) {
+            List<RedisFuture<List<KeyValue<byte[], byte[]>>>> futures = new ArrayList<>(rawGroups.size());
+            rawGroups.forEach(rawKeys -> futures.add(commands.mget(rawKeys)));
+            List<List<KeyValue<byte[], byte[]>>> results = RedisAsync.awaitAll(this.getTemplate(), futures);
+            for (int group = 0; group < groups.size(); group++) {
+                List<Integer> indexes = groups.get(group);
+                List<KeyValue<byte[], byte[]>> pairs = results.get(group);
+                for (int i = 0; i < indexes.size(); i++) {
+                    values.set(indexes.get(i), valueSerializer.deserialize(pairs.get(i).getValueOrElse(null)));
+                }
+            }
+            return values;
+        }
+        List<Object> results = this.getTemplate().executePipelined((RedisCallback<Object>) connection -> {
+            rawGroups.forEach(rawKeys -> connection.stringCommands().mGet(rawKeys));
+            return null;
+        }, valueSerializer);
+        if (results.size() != groups.size()) {
+            return null;
+        }
+        for (int group = 0; group < groups.size(); group++) {
+            List<Integer> indexes = groups.get(group);
+            List<V> groupValues = (List<V>) results.get(group);
+            for (int i = 0; i < indexes.size(); i++) {
+                values.set(indexes.get(i), groupValues.get(i));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * 批量设置 {@code map} 中的键值对 (MSET).
+     * 集群模式下按 Hash Slot 分组, 各组的 MSET 不等待响应连续发送 (优先使用共享的原生异步连接, 否则使用一次管道).
+     */
+    @SuppressWarnings("unchecked")
+    default IRedisHelper<K, V> setAll(Map<K, V> map) {
+        if (MapUtils.isEmpty(map)) {
+            return this;
+        }
+        if (!RedisKeySlots.isCluster(this.getTemplate())) {
+            this.opsForValue().multiSet(map);
+            return this;
+        }
+        RedisSerializer<K> keySerializer = (RedisSerializer<K>) this.getTemplate().getKeySerializer();
+        RedisSerializer<V> valueSerializer = (RedisSerializer<V>) this.getTemplate().getValueSerializer();
+        List<K> keyList = new ArrayList<>(map.keySet());
+        List<Map<byte[], byte[]>> rawGroups = new ArrayList<>();
+        for (List<Integer> indexes : RedisKeySlots.groupIndexesBySlot(this.getTemplate(), keyList)) {
+            Map<byte[], byte[]> group = new LinkedHashMap<>(indexes.size());
+            indexes.forEach(index -> group.put(keySerializer.serialize(keyList.get(index)),
+                    valueSerializer.serialize(map.get(keyList.get(index)))));
+            rawGroups.add(group);
+        }
+        RedisClusterAsyncCommands<byte[], byte[]> commands = RedisAsync.nativeCommands(this.getTemplate());
+        if (commands != null) {
+            List<RedisFuture<String>> futures = new ArrayList<>(rawGroups.size());
+            rawGroups.forEach(group -> futures.add(commands.mset(group)));
+            RedisAsync.awaitAll(this.getTemplate(), futures);
+            return this;
+        }
+        this.getTemplate().executePipelined((RedisCallback<Object>) connection -> {
+            rawGroups.forEach(group -> connection.stringCommands().mSet(group));
+            return null;
+        });
+        return this;
+    }
+
+    /**
+     * 批量设置 {@code map} 中的键值对, 并为每个键设置相同的 过期时间.
+     * 所有 SET 命令不等待响应连续发送 (优先使用共享的原生异步连接, 否则使用一次管道), 集群模式下按 Key 路由到各个节点.
+     *
+     * @param expiration 过期时间. 必须为正数, 否则不会设置任何值, 并返回 {@code false}.
+     */
+    @SuppressWarnings("unchecked")
+    default boolean setAllWithExpiration(Map<K, V> map, @NotNull Duration expiration) {
+        if (expiration.isNegative() || expiration.isZero()) {
+            return false;
+        }
+        if (MapUtils.isEmpty(map)) {
+            return true;
+        }
+        RedisSerializer<K> keySerializer = (RedisSerializer<K>) this.getTemplate().getKeySerializer();
+        RedisSerializer<V> valueSerializer = (RedisSerializer<V>) this.getTemplate().getValueSerializer();
+        RedisClusterAsyncCommands<byte[], byte[]> commands = RedisAsync.nativeCommands(this.getTemplate());
+        if (commands != null) {
+            SetArgs args = SetArgs.Builder.px(expiration.toMillis());
+            List<RedisFuture<String>> futures = new ArrayList<>(map.size());
+            map.forEach((key, value) -> futures.add(commands.set(keySerializer.serialize(key),
+                    valueSerializer.serialize(value), args)));
+            RedisAsync.awaitAll(this.getTemplate(), futures);
+            return true;
+        }
+        Expiration ttl = Expiration.from(expiration);
+        this.getTemplate().executePipelined((RedisCallback<Object>) connection -> {
+            map.forEach((key, value) -> connection.stringCommands().set(keySerializer.serialize(key),
+                    valueSerializer.serialize(value), ttl, RedisStringCommands.SetOption.upsert()));
+            return null;
+        });
+        return true;
+    }
+
+    /**
+     * 以管道方式执行 {@code action} 中的所有操作,
+     * 每 {@link IRedisHelper#DEFAULT_PIPELINE_FLUSH_SIZE} 个操作发送一次
+     *
+     * @see IRedisHelper#pipeline(int, Consumer)
+     */
+    default void pipeline(@NotNull Consumer<RedisPipeline<K, V>> action) {
+        pipeline(DEFAULT_PIPELINE_FLUSH_SIZE, action);
+    }
+
+    /**
+     * 以管道方式执行 {@code action} 中的所有操作.
+     * 每个操作返回的 {@link java.util.concurrent.CompletableFuture} 在其所属批次发送后完成,
+     * 方法返回前会发送所有剩余的操作.
+     *
+     * @param flushSize 缓冲的操作数量达到该值时自动发送一次
+     */
+    default void pipeline(int flushSize, @NotNull Consumer<RedisPipeline<K, V>> action) {
+        RedisPipeline.execute(this.getTemplate(), flushSize, null, action);
+    }
+
+    /**
+     * 异步方法 (以 Async 结尾) 完成时所使用的线程池. 返回 {@code null} 时在 Lettuce 的 I/O 线程中完成
+     *
+     * @see RedisAsync#virtualThreadExecutor()
+     */
+    default Executor getAsyncExecutor() {
+        return null;
+    }
+
+    /**
+     * {@link IRedisHelper#get(Object)} 的异步版本, 直接使用 Lettuce 的原生异步连接
+     *
+     * @see RedisAsync
+     */
+    @SuppressWarnings("unchecked")
+    default CompletableFuture<V> getAsync(K key) {
+        RedisSerializer<K> keySerializer = (RedisSerializer<K>) this.getTemplate().getKeySerializer();
+        RedisSerializer<V> valueSerializer = (RedisSerializer<V>) this.getTemplate().getValueSerializer();
+        byte[] rawKey = keySerializer.serialize(key);
+        return RedisAsync.execute(this.getTemplate(), this.getAsyncExecutor(), commands -> commands.get(rawKey),
+                valueSerializer::deserialize, () -> this.get(key));
+    }
+
+    /**
+     * {@link IRedisHelper#set(Object, Object)} 的异步版本, 直接使用 Lettuce 的原生异步连接
+     *
+     * @see RedisAsync
+     */
+    @SuppressWarnings("unchecked")
+    default CompletableFuture<Boolean> setAsync(K key, V value) {
+        RedisSerializer<K> keySerializer = (RedisSerializer<K>) this.getTemplate().getKeySerializer();
+        RedisSerializer<V> valueSerializer = (RedisSerializer<V>) this.getTemplate().getValueSerializer();
+        byte[] rawKey = keySerializer.serialize(key);
+        byte[] rawValue = valueSerializer.serialize(value);
+        return RedisAsync.execute(this.getTemplate(), this.getAsyncExecutor(), commands -> commands.set(rawKey, rawValue),
+                "OK"::equals, () -> {
+                    this.set(key, value);
+                    return true;
+                });
+    }
+
+    /**
+     * 设置键的同时为其设置 过期时间 的异步版本, 直接使用 Lettuce 的原生异步连接
+     *
+     * @param expiration 过期时间, 必须为正数, 否则参数 {@code value} 将不会被设置, 并返回 {@code false}
+     * @see RedisAsync
+     */
+    @SuppressWarnings("unchecked")
+    default CompletableFuture<Boolean> setAsync(K key, V value, @NotNull Duration expiration) {
+        if (expiration.isNegative() || expiration.isZero()) {
+            return CompletableFuture.completedFuture(false);
+        }
+        RedisSerializer<K> keySerializer = (RedisSerializer<K>) this.getTemplate().getKeySerializer();
+        RedisSerializer<V> valueSerializer = (RedisSerializer<V>) this.getTemplate().getValueSerializer();
+        byte[] rawKey = keySerializer.serialize(key);
+        byte[] rawValue = valueSerializer.serialize(value);
+        return RedisAsync.execute(this.getTemplate(), this.getAsyncExecutor(),
+                commands -> commands.set(rawKey, rawValue, SetArgs.Builder.px(expiration.toMillis())),
+                "OK"::equals, () -> this.setWithExpiration(key, value, expiration.toMillis(), TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * {@link IRedisHelper#delete(Object)} 的异步版本, 直接使用 Lettuce 的原生异步连接
+     *
+     * @see RedisAsync
+     */
+    @SuppressWarnings("unchecked")
+    default CompletableFuture<Boolean> deleteAsync(K key) {
+        RedisSerializer<K> keySerializer = (RedisSerializer<K>) this.getTemplate().getKeySerializer();
+        byte[] rawKey = keySerializer.serialize(key);
+        return RedisAsync.execute(this.getTemplate(), this.getAsyncExecutor(), commands -> commands.del(rawKey),
+                count -> count != null && count > 0, () -> this.delete(key));
+    }
+
+    /**
+     * {@link IRedisHelper#increment(Object, long)} 的异步版本, 直接使用 Lettuce 的原生异步连接
+     *
+     * @param delta 可以为非正数
+     * @see RedisAsync
+     */
+    @SuppressWarnings("unchecked")
+    default CompletableFuture<Long> incrementAsync(K key, long delta) {
+        RedisSerializer<K> keySerializer = (RedisSerializer<K>) this.getTemplate().getKeySerializer();
+        byte[] rawKey = keySerializer.serialize(key);
+        return RedisAsync.execute(this.getTemplate(), this.getAsyncExecutor(), commands -> commands.incrby(rawKey, delta),
+                Function.identity(), () -> this.increment(key, delta));
+    }
+
     /**
      * 从 {@code key} 指定的 Hash 中获取 {@code field} 的值
      *
@@ -116,6 +403,47 @@ public interface IRedisHelper<K, V> extends RedisOperationsHelper<K, V> {
         return this.opsForHash().entries(key);
     }
 
+    /**
+     * 从 {@code keys} 指定的多个 Hash 中获取同一个 {@code field} 的值.
+     * 所有 HGET 命令不等待响应连续发送 (优先使用共享的原生异步连接, 否则使用一次管道), 集群模式下按 Key 路由到各个节点.
+     *
+     * @param field Hash 字段
+     * @return 与 {@code keys} 的迭代顺序一一对应的值, 不存在的 Key 或字段对应 {@code null}.
+     * 当在事务或管道中使用时, 返回值为 {@code null}.
+     */
+    @SuppressWarnings("unchecked")
+    default List<Object> getAll(Collection<K> keys, Serializable field) {
+        if (CollectionUtils.isEmpty(keys)) {
+            return new ArrayList<>();
+        }
+        RedisSerializer<K> keySerializer = (RedisSerializer<K>) this.getTemplate().getKeySerializer();
+        RedisSerializer<Object> fieldSerializer = (RedisSerializer<Object>) this.getTemplate().getHashKeySerializer();
+        byte[] rawField = fieldSerializer.serialize(field);
+        RedisClusterAsyncCommands<byte[], byte[]> commands = RedisAsync.nativeCommands(this.getTemplate());
+        if (commands != null) {
+            RedisSerializer<Object> valueSerializer = (RedisSerializer<Object>) this.getTemplate().getHashValueSerializer();
+            List<RedisFuture<byte[]>> futures = new ArrayList<>(keys.size());
+            keys.forEach(key -> futures.add(commands.hget(keySerializer.serialize(key), rawField)));
+            List<Object> values = new ArrayList<>(futures.size());
+            RedisAsync.awaitAll(this.getTemplate(), futures).forEach(raw -> values.add(valueSerializer.deserialize(raw)));
+            return values;
+        }
+        return this.getTemplate().executePipelined((RedisCallback<Object>) connection -> {
+            keys.forEach(key -> connection.hashCommands().hGet(keySerializer.serialize(key), rawField));
+            return null;
+        }, this.getTemplate().getHashValueSerializer());
+    }
+
+    /**
+     * 从 {@code key} 指定的 Hash 中获取多个 {@code fields} 的值 (HMGET)
+     *
+     * @return 与 {@code fields} 的迭代顺序一一对应的值, 不存在的字段对应 {@code null}.
+     * 当在事务或管道中使用时, 返回值为 {@code null}.
+     */
+    default List<Object> multiGet(K key, Collection<Object> fields) {
+        return this.opsForHash().multiGet(key, fields);
+    }
+
     /**
      * 将 {@code value} 写入 {@code key} 所指定的 Hash 中的 {@code field}
      *
@@ -143,6 +471,97 @@ public interface IRedisHelper<K, V> extends RedisOperationsHelper<K, V> {
         return this.opsForHash().putIfAbsent(key, field, value);
     }
 
+    /**
+     * 获取 {@code clazz} 与 Hash 之间的映射器, 用于 {@link IRedisHelper#putEntity(Object, Object)} 等实体方法
+     */
+    default <T> EntityHashMapper<T> entityMapper(@NotNull Class<T> clazz) {
+        return EntityHashMapper.of(clazz);
+    }
+
+    /**
+     * 将 {@code entity} 以 Hash 的形式写入 {@code key}, 每个属性对应一个字段; 值为 {@code null} 的属性对应的字段会被删除.
+     * <p>
+     * NOTES: 写入与删除字段是两条命令, 期间其他客户端可能读取到旧的字段.
+     * </p>
+     *
+     * @see EntityHashMapper
+     */
+    @SuppressWarnings("unchecked")
+    default <T> IRedisHelper<K, V> putEntity(K key, @NotNull T entity) {
+        EntityHashMapper<T> mapper = this.entityMapper((Class<T>) entity.getClass());
+        Map<String, Object> hash = mapper.toHash(entity);
+        if (!hash.isEmpty()) {
+            this.put(key, new LinkedHashMap<Serializable, Object>(hash));
+        }
+        List<Object> nullFields = new ArrayList<>();
+        for (String fieldName : mapper.getFieldNames()) {
+            if (!hash.containsKey(fieldName)) {
+                nullFields.add(fieldName);
+            }
+        }
+        if (!nullFields.isEmpty()) {
+            this.delete(key, nullFields);
+        }
+        return this;
+    }
+
+    /**
+     * 从 {@code key} 指定的 Hash 中读取整个实体
+     *
+     * @return Hash 不存在时返回 {@code null}
+     */
+    default <T> T getEntity(K key, @NotNull Class<T> clazz) {
+        Map<Object, Object> entries = this.getAll(key);
+        if (MapUtils.isEmpty(entries)) {
+            return null;
+        }
+        Map<String, Object> hash = new LinkedHashMap<>();
+        entries.forEach((field, value) -> hash.put(String.valueOf(field), value));
+        return this.entityMapper(clazz).fromHash(hash);
+    }
+
+    /**
+     * 从 {@code key} 指定的 Hash 中只读取 {@code fieldNames} 对应的属性 (HMGET), 其余属性保持默认值.
+     * 不指定 {@code fieldNames} 时读取整个实体
+     *
+     * @param fieldNames 属性 (Hash 字段) 的名称
+     * @return 所有字段都不存在时返回 {@code null}
+     * @throws IllegalArgumentException {@code fieldNames} 中包含 {@code clazz} 不存在的属性
+     */
+    default <T> T getFields(K key, @NotNull Class<T> clazz, String... fieldNames) {
+        if (fieldNames == null || fieldNames.length == 0) {
+            return this.getEntity(key, clazz);
+        }
+        EntityHashMapper<T> mapper = this.entityMapper(clazz);
+        for (String fieldName : fieldNames) {
+            mapper.checkFieldName(fieldName);
+        }
+        List<Object> values = this.multiGet(key, Arrays.asList((Object[]) fieldNames));
+        if (values == null) {
+            return null;
+        }
+        Map<String, Object> hash = new LinkedHashMap<>();
+        for (int i = 0; i < fieldNames.length; i++) {
+            if (values.get(i) != null) {
+                hash.put(fieldNames[i], values.get(i));
+            }
+        }
+        return hash.isEmpty() ? null : mapper.fromHash(hash);
+    }
+
+    /**
+     * 只将 {@code partial} 中值不为 {@code null} 的属性写入 {@code key} 指定的 Hash, 其余字段保持不变.
+     * 修改一个属性只需要传输该属性序列化后的值; 需要清空字段时使用 {@link IRedisHelper#delete(Object, Object)}
+     */
+    @SuppressWarnings("unchecked")
+    default <T> IRedisHelper<K, V> updateFields(K key, @NotNull T partial) {
+        Map<String, Object> hash = this.entityMapper((Class<T>) partial.getClass()).toHash(partial);
+        if (!hash.isEmpty()) {
+            this.put(key, new LinkedHashMap<Serializable, Object>(hash));
+        }
+        return this;
+    }
+
     /**
      * 从 {@code key} 中获取所有的 {@code fields}
      *
@@ -152,6 +571,49 @@ public interface IRedisHelper<K, V> extends RedisOperationsHelper<K, V> {
         return this.opsForHash().keys(key);
     }
 
+    /**
+     * 通过 HSCAN 以流的方式遍历 {@code key} 指定的 Hash 中的字段和值, 每次只从 Redis 拉取一批,
+     * 适用于 {@link IRedisHelper#getAll(Object)} / {@link IRedisHelper#fields(Object)} 会占用大量内存或阻塞 Redis 的大 Hash.
+     * <p>
+     * NOTES: 返回的流持有连接, 使用完毕后必须关闭 (例如使用 try-with-resources); 遍历期间被修改的字段可能重复返回或不返回.
+     * </p>
+     *
+     * @param pattern   字段的匹配模式 (MATCH), 匹配的是序列化后的字段; 为 {@code null} 时匹配所有字段
+     * @param batchSize 每批次的数量提示 (COUNT), 不大于 {@code 0} 时使用 Redis 的默认值
+     */
+    default Stream<Map.Entry<Object, Object>> scanFields(K key, String pattern, int batchSize) {
+        return this.opsForHash().scan(key, RedisScans.scanOptions(pattern, batchSize)).stream();
+    }
+
+    /**
+     * 通过 SCAN 以流的方式遍历所有匹配 {@code pattern} 的 Key, 代替 KEYS 命令. 集群模式下依次遍历每一个主节点
+     * <p>
+     * NOTES: 返回的流持有连接, 使用完毕后必须关闭 (例如使用 try-with-resources).
+     * 流中的 Key 由 Key 序列化器反序列化得到, 使用 {@link io.github.linna.cy.serializer.RedisKeySerializer} 时
+     * 返回的是去掉前缀后的 {@link String}, 而不是写入时的 Key 类型.
+     * </p>
+     *
+     * @param pattern Key 的匹配模式 (MATCH), 匹配的是序列化后的 Key; 为 {@code null} 时匹配所有 Key
+     */
+    default Stream<K> scanKeys(String pattern) {
+        return scanKeys(pattern, 0);
+    }
+
+    /**
+     * 通过 SCAN 以流的方式遍历所有匹配 {@code pattern} 的 Key, 代替 KEYS 命令. 集群模式下依次遍历每一个主节点
+     * <p>
+     * NOTES: 返回的流持有连接, 使用完毕后必须关闭 (例如使用 try-with-resources).
+     * 流中的 Key 由 Key 序列化器反序列化得到, 使用 {@link io.github.linna.cy.serializer.RedisKeySerializer} 时
+     * 返回的是去掉前缀后的 {@link String}, 而不是写入时的 Key 类型.
+     * </p>
+     *
+     * @param pattern   Key 的匹配模式 (MATCH), 匹配的是序列化后的 Key; 为 {@code null} 时匹配所有 Key
+     * @param batchSize 每批次的数量提示 (COUNT), 不大于 {@code 0} 时使用 Redis 的默认值
+     */
+    default Stream<K> scanKeys(String pattern, int batchSize) {
+        return RedisScans.scanKeys(this.getTemplate(), RedisScans.scanOptions(pattern, batchSize));
+    }
+
     /**
      * 设置键的同时为其设置 过期时间点
      *
@@ -233,7 +695,7 @@ public interface IRedisHelper<K, V> extends RedisOperationsHelper<K, V> {
         if (CollectionUtils.isEmpty(fields)) {
             return 0L;
         }
-        return this.opsForHash().delete(key, fields);
+        return this.opsForHash().delete(key, fields.toArray());
     }
 
     /**
@@ -257,6 +719,16 @@ public interface IRedisHelper<K, V> extends RedisOperationsHelper<K, V> {
         return this.opsForValue().increment(key, delta);
     }
 
+    /**
+     * 不需要结果的 {@link IRedisHelper#increment(Object, long)}. 实现可以先在内存中合并再批量写入,
+     * 因此返回时递增不一定已经生效; 默认直接执行 {@link IRedisHelper#increment(Object, long)}
+     *
+     * @param delta 可以为非正数
+     */
+    default void incrementLater(K key, long delta) {
+        increment(key, delta);
+    }
+
     /**
      * 对指定 {@code key} 的值执行原子性的递增/递减操作
      * <p>
@@ -285,6 +757,16 @@ public interface IRedisHelper<K, V> extends RedisOperationsHelper<K, V> {
         return this.opsForHash().increment(key, field, delta);
     }
 
+    /**
+     * 不需要结果的 {@link IRedisHelper#increment(Object, Object, long)}. 实现可以先在内存中合并再批量写入,
+     * 因此返回时递增不一定已经生效; 默认直接执行 {@link IRedisHelper#increment(Object, Object, long)}
+     *
+     * @param delta 可以为非正数
+     */
+    default void incrementLater(K key, Object field, long delta) {
+        increment(key, field, delta);
+    }
+
     /**
      * 对指定 {@code key} 中的 {@code field} 的值执行原子性的递增/递减操作
      * <p>
@@ -299,6 +781,107 @@ public interface IRedisHelper<K, V> extends RedisOperationsHelper<K, V> {
         return this.opsForHash().increment(key, field, delta);
     }
 
+    /**
+     * 对指定 {@code key} 的值执行原子性的递增/递减操作, 并在 {@code key} 没有过期时间时 (例如新建时) 设置过期时间.
+     * 通过 {@link RedisScripts#INCREMENT_WITH_EXPIRATION} 在一次请求中完成, 适用于固定窗口计数器
+     *
+     * @param delta      可以为非正数
+     * @param expiration 过期时间, 必须为正数
+     * @return 递增或递减操作之后 {@code key} 所对应的值
+     * @throws IllegalArgumentException {@code expiration} 不是正数 (精确到毫秒) 时
+     */
+    @SuppressWarnings("unchecked")
+    default Long incrementWithExpiration(K key, long delta, @NotNull Duration expiration) {
+        if (expiration.toMillis() <= 0) {
+            throw new IllegalArgumentException("The expiration must be positive.");
+        }
+        RedisSerializer<K> keySerializer = (RedisSerializer<K>) this.getTemplate().getKeySerializer();
+        return RedisScripts.INCREMENT_WITH_EXPIRATION.execute(this.getTemplate(), 1, keySerializer.serialize(key),
+                RedisScripts.toArgument(delta), RedisScripts.toArgument(expiration.toMillis()));
+    }
+
+    /**
+     * 当 {@code key} 的值等于 {@code expected} (按序列化后的内容比较) 时删除 {@code key}.
+     * 通过 {@link RedisScripts#COMPARE_AND_DELETE} 在一次请求中完成
+     *
+     * @return 是否已删除
+     */
+    @SuppressWarnings("unchecked")
+    default boolean compareAndDelete(K key, V expected) {
+        RedisSerializer<K> keySerializer = (RedisSerializer<K>) this.getTemplate().getKeySerializer();
+        RedisSerializer<V> valueSerializer = (RedisSerializer<V>) this.getTemplate().getValueSerializer();
+        Long deleted = RedisScripts.COMPARE_AND_DELETE.execute(this.getTemplate(), 1, keySerializer.serialize(key),
+                valueSerializer.serialize(expected));
+        return deleted != null && deleted > 0;
+    }
+
+    /**
+     * 将 {@code map} {@code put} 到 {@code key} 指定的 Hash 中, 同时设置整个 Hash 的过期时间.
+     * 通过 {@link RedisScripts#PUT_WITH_EXPIRATION} 在一次请求中完成
+     *
+     * @param expiration 过期时间, 必须为正数
+     * @return 新增的字段数量
+     * @throws IllegalArgumentException {@code expiration} 不是正数 (精确到毫秒) 时
+     */
+    @SuppressWarnings("unchecked")
+    default Long putWithExpiration(K key, Map<Serializable, ?> map, @NotNull Duration expiration) {
+        if (expiration.toMillis() <= 0) {
+            throw new IllegalArgumentException("The expiration must be positive.");
+        }
+        if (MapUtils.isEmpty(map)) {
+            return 0L;
+        }
+        RedisSerializer<K> keySerializer = (RedisSerializer<K>) this.getTemplate().getKeySerializer();
+        RedisSerializer<Object> hashKeySerializer = (RedisSerializer<Object>) this.getTemplate().getHashKeySerializer();
+        RedisSerializer<Object> hashValueSerializer = (RedisSerializer<Object>) this.getTemplate().getHashValueSerializer();
+        byte[][] keysAndArgs = new byte[2 + map.size() * 2][];
+        keysAndArgs[0] = keySerializer.serialize(key);
+        keysAndArgs[1] = RedisScripts.toArgument(expiration.toMillis());
+        int index = 2;
+        for (Map.Entry<Serializable, ?> entry : map.entrySet()) {
+            keysAndArgs[index++] = hashKeySerializer.serialize(entry.getKey());
+            keysAndArgs[index++] = hashValueSerializer.serialize(entry.getValue());
+        }
+        return RedisScripts.PUT_WITH_EXPIRATION.execute(this.getTemplate(), 1, keysAndArgs);
+    }
+
+    /**
+     * 将 {@code value} 写入 {@code key} 指定的 List 的头部, 并只保留最新的 {@code capacity} 个元素
+     *
+     * @return 写入后 List 的长度
+     * @see IRedisHelper#pushCapped(Object, Collection, long, Duration)
+     */
+    default Long pushCapped(K key, V value, long capacity) {
+        return pushCapped(key, Collections.singletonList(value), capacity, null);
+    }
+
+    /**
+     * 依次将 {@code values} 写入 {@code key} 指定的 List 的头部, 并只保留最新的 {@code capacity} 个元素.
+     * 通过 {@link RedisScripts#PUSH_CAPPED} 在一次请求中完成
+     *
+     * @param capacity   List 的最大长度, 必须为正数
+     * @param expiration 过期时间, 为 {@code null} 时不修改过期时间
+     * @return 写入后 List 的长度
+     */
+    @SuppressWarnings("unchecked")
+    default Long pushCapped(K key, Collection<V> values, long capacity, Duration expiration) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The capacity must be positive.");
+        }
+        RedisSerializer<K> keySerializer = (RedisSerializer<K>) this.getTemplate().getKeySerializer();
+        RedisSerializer<V> valueSerializer = (RedisSerializer<V>) this.getTemplate().getValueSerializer();
+        Collection<V> elements = values == null ? Collections.emptyList() : values;
+        byte[][] keysAndArgs = new byte[3 + elements.size()][];
+        keysAndArgs[0] = keySerializer.serialize(key);
+        keysAndArgs[1] = RedisScripts.toArgument(capacity);
+        keysAndArgs[2] = RedisScripts.toArgument(expiration == null ? 0 : expiration.toMillis());
+        int index = 3;
+        for (V value : elements) {
+            keysAndArgs[index++] = valueSerializer.serialize(value);
+        }
+        return RedisScripts.PUSH_CAPPED.execute(this.getTemplate(), 1, keysAndArgs);
+    }
+
     /**
      * 检查 {@code key} 是否存在, 存在则返回 true; 否则返回 false
      * <p>在事务或管道中将会返回 null</p>
@@ -0,0 +1,7 @@
+package io.github.linna.cy.helper;
+
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+
+public interface ReactiveRedisBaseHelper<K, V> {
+    ReactiveRedisTemplate<K, V> getTemplate();
+}
@@ -0,0 +1,69 @@
+package io.github.linna.cy.helper;
+
+import org.springframework.data.redis.core.*;
+import org.springframework.data.redis.hash.HashMapper;
+
+public interface ReactiveRedisOperationsHelper<K, V> extends ReactiveRedisBaseHelper<K, V> {
+    /**
+     * @see ReactiveRedisTemplate#opsForValue()
+     */
+    default ReactiveValueOperations<K, V> opsForValue() {
+        return this.getTemplate().opsForValue();
+    }
+
+    /**
+     * @see ReactiveRedisTemplate#opsForHash()
+     */
+    default <HK, HV> ReactiveHashOperations<K, HK, HV> opsForHash() {
+        return this.getTemplate().opsForHash();
+    }
+
+    /**
+     * @see ReactiveRedisTemplate#opsForSet()
+     */
+    default ReactiveSetOperations<K, V> opsForSet() {
+        return this.getTemplate().opsForSet();
+    }
+
+    /**
+     * @see ReactiveRedisTemplate#opsForList()
+     */
+    default ReactiveListOperations<K, V> opsForList() {
+        return this.getTemplate().opsForList();
+    }
+
+    /**
+     * @see ReactiveRedisTemplate#opsForZSet()
+     */
+    default ReactiveZSetOperations<K, V> opsForZSet() {
+        return this.getTemplate().opsForZSet();
+    }
+
+    /**
+     * @see ReactiveRedisTemplate#opsForGeo()
+     */
+    default ReactiveGeoOperations<K, V> opsForGeo() {
+        return this.getTemplate().opsForGeo();
+    }
+
+    /**
+     * @see ReactiveRedisTemplate#opsForHyperLogLog()
+     */
+    default ReactiveHyperLogLogOperations<K, V> opsForHyperLogLog() {
+        return this.getTemplate().opsForHyperLogLog();
+    }
+
+    /**
+     * @see ReactiveRedisTemplate#opsForStream()
+     */
+    default <HK, HV> ReactiveStreamOperations<K, HK, HV> opsForStream() {
+        return this.getTemplate().opsForStream();
+    }
+
+    /**
+     * @see ReactiveRedisTemplate#opsForStream(HashMapper)
+     */
+    default <HK, HV> ReactiveStreamOperations<K, HK, HV> opsForStream(HashMapper<? super K, ? super HK, ? super HV> hashMapper) {
+        return this.getTemplate().opsForStream(hashMapper);
+    }
+}
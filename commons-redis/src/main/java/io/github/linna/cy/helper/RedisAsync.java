@@ -0,0 +1,161 @@
+package io.github.linna.cy.helper;
+
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 基于 Lettuce 原生异步连接执行命令的工具.
+ * <p>
+ * 只有当 {@link RedisTemplate} 使用共享原生连接的 {@link LettuceConnectionFactory} 时 (默认配置),
+ * 命令才会直接写入 Lettuce 的异步连接, 多个请求会在同一个连接上并发发送, 不占用调用线程;
+ * 否则退化为在 {@link Executor} 中执行阻塞调用.
+ * </p>
+ */
+public final class RedisAsync {
+
+    private RedisAsync() {
+    }
+
+    /**
+     * 获取 Lettuce 的原生异步命令. 不满足条件时返回 {@code null}
+     */
+    @SuppressWarnings("unchecked")
+    public static RedisClusterAsyncCommands<byte[], byte[]> nativeCommands(RedisTemplate<?, ?> template) {
+        RedisConnectionFactory connectionFactory = template.getConnectionFactory();
+        if (!(connectionFactory instanceof LettuceConnectionFactory)
+                || !((LettuceConnectionFactory) connectionFactory).getShareNativeConnection()) {
+            // 独占连接在 execute 结束后会被归还, 不能在回调之外使用
+            return null;
+        }
+        Object nativeConnection = template.execute((RedisCallback<Object>) RedisConnection::getNativeConnection);
+        return nativeConnection instanceof RedisClusterAsyncCommands ?
+                (RedisClusterAsyncCommands<byte[], byte[]>) nativeConnection : null;
+    }
+
+    /**
+     * 执行异步命令
+     *
+     * @param executor  完成 (包括反序列化) 所使用的线程池; 为 {@code null} 时在 Lettuce 的 I/O 线程中完成
+     * @param command   使用原生异步命令发送请求
+     * @param converter 将原生结果转换为返回值 (例如反序列化)
+     * @param fallback  无法使用原生异步连接时的阻塞实现
+     */
+    public static <T, R> CompletableFuture<R> execute(RedisTemplate<?, ?> template, Executor executor,
+                                                      Function<RedisClusterAsyncCommands<byte[], byte[]>, ? extends CompletionStage<T>> command,
+                                                      Function<T, R> converter, Supplier<R> fallback) {
+        RedisClusterAsyncCommands<byte[], byte[]> commands;
+        try {
+            commands = nativeCommands(template);
+        } catch (RuntimeException e) {
+            return failed(e);
+        }
+        if (commands == null) {
+            return CompletableFuture.supplyAsync(fallback, executor == null ? ForkJoinPool.commonPool() : executor);
+        }
+
+        CompletableFuture<R> result = new CompletableFuture<>();
+        BiConsumer<T, Throwable> completion = (value, error) -> {
+            if (error != null) {
+                result.completeExceptionally(translate(template.getConnectionFactory(), error));
+                return;
+            }
+            try {
+                result.complete(converter.apply(value));
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        };
+        try {
+            CompletionStage<T> stage = command.apply(commands);
+            if (executor == null) {
+                stage.whenComplete(completion);
+            } else {
+                stage.whenCompleteAsync(completion, executor);
+            }
+        } catch (RuntimeException e) {
+            result.completeExceptionally(translate(template.getConnectionFactory(), e));
+        }
+        return result;
+    }
+
+    /**
+     * 等待在原生异步连接上发送的所有命令完成. 命令在发送时已经写入连接, 不等待前一个命令的响应, 相当于一次管道
+     *
+     * @return 与 {@code futures} 一一对应的原生结果
+     * @throws DataAccessException 任意一个命令失败时
+     */
+    public static <T> List<T> awaitAll(RedisTemplate<?, ?> template, List<? extends CompletionStage<T>> futures) {
+        List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (CompletionStage<T> future : futures) {
+                results.add(future.toCompletableFuture().join());
+            }
+        } catch (CompletionException | CancellationException e) {
+            Throwable error = translate(template.getConnectionFactory(), e);
+            throw error instanceof RuntimeException ? (RuntimeException) error :
+                    new RedisSystemException(error.getMessage(), error);
+        }
+        return results;
+    }
+
+    /**
+     * 在 JDK 21+ 上返回为每个任务创建虚拟线程的 {@link Executor}, 否则返回 {@link ForkJoinPool#commonPool()}.
+     * 每次调用返回同一个实例
+     */
+    public static Executor virtualThreadExecutor() {
+        return VirtualThreadExecutorHolder.INSTANCE;
+    }
+
+    private static final class VirtualThreadExecutorHolder {
+        private static final Executor INSTANCE = create();
+
+        private static Executor create() {
+            try {
+                Method method = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                return (Executor) method.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                return ForkJoinPool.commonPool();
+            }
+        }
+    }
+
+    /**
+     * 将 Lettuce 的异常转换为 Spring 的 {@link DataAccessException}
+     */
+    private static Throwable translate(RedisConnectionFactory connectionFactory, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof RuntimeException && connectionFactory instanceof LettuceConnectionFactory) {
+            DataAccessException translated = ((LettuceConnectionFactory) connectionFactory)
+                    .translateExceptionIfPossible((RuntimeException) cause);
+            if (translated != null) {
+                return translated;
+            }
+        }
+        return cause;
+    }
+
+    private static <R> CompletableFuture<R> failed(Throwable error) {
+        CompletableFuture<R> result = new CompletableFuture<>();
+        result.completeExceptionally(error);
+        return result;
+    }
+}
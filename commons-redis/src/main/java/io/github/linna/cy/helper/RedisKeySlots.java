@@ -0,0 +1,71 @@
+package io.github.linna.cy.helper;
+
+import org.springframework.data.redis.connection.ClusterSlotHashUtil;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import javax.validation.constraints.NotNull;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * 集群模式下按 Hash Slot 对 Key 进行分组的工具类
+ */
+public final class RedisKeySlots {
+
+    /**
+     * 每个 {@link RedisTemplate} 是否为集群连接, 只在第一次判断时获取连接
+     */
+    private static final Map<RedisTemplate<?, ?>, Boolean> CLUSTER = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private RedisKeySlots() {
+    }
+
+    /**
+     * 判断 {@code template} 所使用的连接是否为集群连接. 结果按 {@code template} 缓存
+     */
+    public static boolean isCluster(@NotNull RedisTemplate<?, ?> template) {
+        Boolean cached = CLUSTER.get(template);
+        if (cached != null) {
+            return cached;
+        }
+        Boolean cluster = template.execute((RedisCallback<Boolean>)
+                connection -> connection instanceof RedisClusterConnection);
+        if (cluster == null) {
+            // 无法判断时不缓存
+            return false;
+        }
+        CLUSTER.put(template, cluster);
+        return cluster;
+    }
+
+    /**
+     * 使用 {@code template} 的 Key 序列化器计算 {@code key} 所在的 Hash Slot
+     */
+    @SuppressWarnings("unchecked")
+    public static <K> int slotOf(@NotNull RedisTemplate<K, ?> template, K key) {
+        RedisSerializer<K> keySerializer = (RedisSerializer<K>) template.getKeySerializer();
+        return ClusterSlotHashUtil.calculateSlot(keySerializer.serialize(key));
+    }
+
+    /**
+     * 将 {@code keys} 按 Hash Slot 分组
+     *
+     * @return 每一组 Key 在 {@code keys} 中的下标, 组内下标保持输入顺序
+     */
+    public static <K> Collection<List<Integer>> groupIndexesBySlot(@NotNull RedisTemplate<K, ?> template,
+                                                                   @NotNull List<K> keys) {
+        Map<Integer, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            groups.computeIfAbsent(slotOf(template, keys.get(i)), slot -> new ArrayList<>()).add(i);
+        }
+        return groups.values();
+    }
+}
@@ -71,7 +71,7 @@ public interface RedisOperationsHelper<K, V> extends RedisBaseHelper<K, V> {
      * @see RedisTemplate#opsForStream(HashMapper)
      */
     default <HK, HV> StreamOperations<K, HK, HV> opsForStream(HashMapper<? super K, ? super HK, ? super HV> hashMapper) {
-        return this.getTemplate().opsForStream();
+        return this.getTemplate().opsForStream(hashMapper);
     }
 
 
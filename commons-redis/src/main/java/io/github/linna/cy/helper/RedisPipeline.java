@@ -0,0 +1,417 @@
+package io.github.linna.cy.helper;
+
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import javax.validation.constraints.NotNull;
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * 基于同一个连接的管道. 由 {@link IRedisHelper#pipeline(int, Consumer)} 创建, 只能在回调中使用.
+ * <p>
+ * 每个操作都会立即写入管道并返回一个 {@link CompletableFuture}, 在所属批次发送并收到响应后完成.
+ * 当缓冲的操作数量达到 {@code flushSize} 时自动发送, 因此内存占用与操作总数无关.
+ * </p>
+ * <p>
+ * 由 {@link RedisPipeline#routing(List, ToIntFunction)} 创建的管道不持有连接, 而是将每个操作按 Key 转交给多个管道中的一个
+ * (例如每个分片一个).
+ * </p>
+ * <p>
+ * NOTES: 集群连接不支持管道, 此时每个操作都会立即执行, 返回的 {@link CompletableFuture} 也已经完成.
+ * </p>
+ */
+public class RedisPipeline<K, V> {
+    private final RedisConnection connection;
+    private final int flushSize;
+    private final Consumer<K> keyVerifier;
+
+    private final RedisSerializer<K> keySerializer;
+    private final RedisSerializer<V> valueSerializer;
+    private final RedisSerializer<Object> hashKeySerializer;
+    private final RedisSerializer<Object> hashValueSerializer;
+
+    private final boolean pipelined;
+    private List<PendingOperation<?>> pending;
+
+    private final List<RedisPipeline<K, V>> routes;
+    private final ToIntFunction<K> router;
+
+    @SuppressWarnings("unchecked")
+    private RedisPipeline(RedisTemplate<K, V> template, RedisConnection connection, int flushSize,
+                          Consumer<K> keyVerifier) {
+        this.connection = connection;
+        this.flushSize = flushSize;
+        this.keyVerifier = keyVerifier;
+        this.keySerializer = (RedisSerializer<K>) template.getKeySerializer();
+        this.valueSerializer = (RedisSerializer<V>) template.getValueSerializer();
+        this.hashKeySerializer = (RedisSerializer<Object>) template.getHashKeySerializer();
+        this.hashValueSerializer = (RedisSerializer<Object>) template.getHashValueSerializer();
+        this.pipelined = openPipeline(connection);
+        this.pending = new ArrayList<>(this.pipelined ? flushSize : 0);
+        this.routes = null;
+        this.router = null;
+    }
+
+    private RedisPipeline(List<RedisPipeline<K, V>> routes, ToIntFunction<K> router) {
+        this.connection = null;
+        this.flushSize = 0;
+        this.keyVerifier = null;
+        this.keySerializer = null;
+        this.valueSerializer = null;
+        this.hashKeySerializer = null;
+        this.hashValueSerializer = null;
+        this.pipelined = false;
+        this.routes = routes;
+        this.router = router;
+    }
+
+    /**
+     * 在同一个连接上以管道方式执行 {@code action} 中的所有操作, 返回前发送所有剩余的操作.
+     * {@code action} 抛出异常时丢弃尚未发送的批次, 其中的操作对应的 {@link CompletableFuture} 以该异常完成
+     *
+     * @param flushSize   自动发送的批次大小
+     * @param keyVerifier 写入操作前对 Key 的验证, 可以为 {@code null}
+     */
+    public static <K, V> void execute(@NotNull RedisTemplate<K, V> template, int flushSize, Consumer<K> keyVerifier,
+                                      @NotNull Consumer<RedisPipeline<K, V>> action) {
+        if (flushSize <= 0) {
+            throw new IllegalArgumentException("The flush size of pipeline must be positive.");
+        }
+        template.execute((RedisCallback<Object>) connection -> {
+            RedisPipeline<K, V> pipeline = new RedisPipeline<>(template, connection, flushSize, keyVerifier);
+            try {
+                action.accept(pipeline);
+                pipeline.flush();
+            } catch (RuntimeException | Error e) {
+                pipeline.discard(e);
+                throw e;
+            } finally {
+                pipeline.close();
+            }
+            return null;
+        }, true);
+    }
+
+    /**
+     * 将每个操作按 {@code router} 返回的下标转交给 {@code routes} 中的管道, 只能在这些管道的回调中使用.
+     * {@link RedisPipeline#flush()} 发送所有管道中已缓冲的操作
+     *
+     * @param routes 例如每个分片一个管道
+     * @param router 返回 Key 对应的管道在 {@code routes} 中的下标
+     */
+    public static <K, V> RedisPipeline<K, V> routing(@NotNull List<RedisPipeline<K, V>> routes,
+                                                     @NotNull ToIntFunction<K> router) {
+        return new RedisPipeline<>(new ArrayList<>(routes), router);
+    }
+
+    /**
+     * @see IRedisHelper#get(Object)
+     */
+    public CompletableFuture<V> get(K key) {
+        if (this.router != null) {
+            return route(key).get(key);
+        }
+        byte[] rawKey = this.keySerializer.serialize(key);
+        return enqueue(connection -> connection.stringCommands().get(rawKey),
+                raw -> this.valueSerializer.deserialize((byte[]) raw));
+    }
+
+    /**
+     * @see IRedisHelper#set(Object, Object)
+     */
+    public CompletableFuture<Boolean> set(K key, V value) {
+        if (this.router != null) {
+            return route(key).set(key, value);
+        }
+        verifyKey(key);
+        byte[] rawKey = this.keySerializer.serialize(key);
+        byte[] rawValue = this.valueSerializer.serialize(value);
+        return enqueue(connection -> connection.stringCommands().set(rawKey, rawValue), RedisPipeline::toBoolean);
+    }
+
+    /**
+     * 设置键的同时为其设置 过期时间
+     *
+     * @param expiration 过期时间, 必须为正数
+     */
+    public CompletableFuture<Boolean> setWithExpiration(K key, V value, @NotNull Duration expiration) {
+        if (this.router != null) {
+            return route(key).setWithExpiration(key, value, expiration);
+        }
+        verifyKey(key);
+        if (expiration.isNegative() || expiration.isZero()) {
+            return CompletableFuture.completedFuture(false);
+        }
+        byte[] rawKey = this.keySerializer.serialize(key);
+        byte[] rawValue = this.valueSerializer.serialize(value);
+        Expiration ttl = Expiration.from(expiration);
+        return enqueue(connection -> connection.stringCommands().set(rawKey, rawValue, ttl,
+                RedisStringCommands.SetOption.upsert()), RedisPipeline::toBoolean);
+    }
+
+    /**
+     * @see IRedisHelper#get(Object, Serializable)
+     */
+    public CompletableFuture<Object> get(K key, Serializable field) {
+        if (this.router != null) {
+            return route(key).get(key, field);
+        }
+        byte[] rawKey = this.keySerializer.serialize(key);
+        byte[] rawField = this.hashKeySerializer.serialize(field);
+        return enqueue(connection -> connection.hashCommands().hGet(rawKey, rawField),
+                raw -> this.hashValueSerializer.deserialize((byte[]) raw));
+    }
+
+    /**
+     * @see IRedisHelper#put(Object, Serializable, Object)
+     */
+    public CompletableFuture<Boolean> put(K key, Serializable field, Object value) {
+        if (this.router != null) {
+            return route(key).put(key, field, value);
+        }
+        verifyKey(key);
+        byte[] rawKey = this.keySerializer.serialize(key);
+        byte[] rawField = this.hashKeySerializer.serialize(field);
+        byte[] rawValue = this.hashValueSerializer.serialize(value);
+        return enqueue(connection -> connection.hashCommands().hSet(rawKey, rawField, rawValue),
+                RedisPipeline::toBoolean);
+    }
+
+    /**
+     * @see IRedisHelper#putIfAbsent(Object, Serializable, Object)
+     */
+    public CompletableFuture<Boolean> putIfAbsent(K key, Serializable field, Object value) {
+        if (this.router != null) {
+            return route(key).putIfAbsent(key, field, value);
+        }
+        verifyKey(key);
+        byte[] rawKey = this.keySerializer.serialize(key);
+        byte[] rawField = this.hashKeySerializer.serialize(field);
+        byte[] rawValue = this.hashValueSerializer.serialize(value);
+        return enqueue(connection -> connection.hashCommands().hSetNX(rawKey, rawField, rawValue),
+                RedisPipeline::toBoolean);
+    }
+
+    /**
+     * @see IRedisHelper#delete(Object)
+     */
+    public CompletableFuture<Boolean> delete(K key) {
+        if (this.router != null) {
+            return route(key).delete(key);
+        }
+        byte[] rawKey = this.keySerializer.serialize(key);
+        return enqueue(connection -> connection.keyCommands().del(rawKey), RedisPipeline::toBoolean);
+    }
+
+    /**
+     * @see IRedisHelper#delete(Object, Object)
+     */
+    public CompletableFuture<Boolean> delete(K key, Object field) {
+        if (this.router != null) {
+            return route(key).delete(key, field);
+        }
+        byte[] rawKey = this.keySerializer.serialize(key);
+        byte[] rawField = this.hashKeySerializer.serialize(field);
+        return enqueue(connection -> connection.hashCommands().hDel(rawKey, rawField), RedisPipeline::toBoolean);
+    }
+
+    /**
+     * @see IRedisHelper#increment(Object, long)
+     */
+    public CompletableFuture<Long> increment(K key, long delta) {
+        if (this.router != null) {
+            return route(key).increment(key, delta);
+        }
+        byte[] rawKey = this.keySerializer.serialize(key);
+        return enqueue(connection -> connection.stringCommands().incrBy(rawKey, delta), raw -> (Long) raw);
+    }
+
+    /**
+     * @see IRedisHelper#increment(Object, Object, long)
+     */
+    public CompletableFuture<Long> increment(K key, Object field, long delta) {
+        if (this.router != null) {
+            return route(key).increment(key, field, delta);
+        }
+        byte[] rawKey = this.keySerializer.serialize(key);
+        byte[] rawField = this.hashKeySerializer.serialize(field);
+        return enqueue(connection -> connection.hashCommands().hIncrBy(rawKey, rawField, delta), raw -> (Long) raw);
+    }
+
+    /**
+     * 为 {@code key} 设置 过期时间
+     */
+    public CompletableFuture<Boolean> expire(K key, @NotNull Duration expiration) {
+        if (this.router != null) {
+            return route(key).expire(key, expiration);
+        }
+        byte[] rawKey = this.keySerializer.serialize(key);
+        long millis = expiration.toMillis();
+        return enqueue(connection -> connection.keyCommands().pExpire(rawKey, millis), RedisPipeline::toBoolean);
+    }
+
+    /**
+     * @see IRedisHelper#hasKey(Object)
+     */
+    public CompletableFuture<Boolean> hasKey(K key) {
+        if (this.router != null) {
+            return route(key).hasKey(key);
+        }
+        byte[] rawKey = this.keySerializer.serialize(key);
+        return enqueue(connection -> connection.keyCommands().exists(rawKey), RedisPipeline::toBoolean);
+    }
+
+    /**
+     * 立即发送所有已缓冲的操作, 并完成它们对应的 {@link CompletableFuture}
+     *
+     * @throws RedisPipelineException 当管道中有操作执行失败时抛出. 失败的操作对应的 {@link CompletableFuture} 将异常完成.
+     */
+    public void flush() {
+        if (this.router != null) {
+            flushRoutes();
+            return;
+        }
+        if (!this.pipelined || this.pending.isEmpty()) {
+            return;
+        }
+        List<PendingOperation<?>> operations = this.pending;
+        this.pending = new ArrayList<>(this.flushSize);
+
+        List<Object> results;
+        RedisPipelineException failure = null;
+        try {
+            results = this.connection.closePipeline();
+        } catch (RedisPipelineException e) {
+            failure = e;
+            results = e.getPipelineResult();
+        } finally {
+            this.connection.openPipeline();
+        }
+        for (int i = 0; i < operations.size(); i++) {
+            Object raw = results != null && i < results.size() ? results.get(i) : null;
+            operations.get(i).complete(raw);
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * 发送每个管道中的操作, 其中一个失败时仍然发送其余的管道, 最后抛出第一个异常
+     */
+    private void flushRoutes() {
+        RuntimeException failure = null;
+        for (RedisPipeline<K, V> route : this.routes) {
+            try {
+                route.flush();
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private RedisPipeline<K, V> route(K key) {
+        return this.routes.get(this.router.applyAsInt(key));
+    }
+
+    /**
+     * 丢弃当前批次, 以 {@code cause} 完成其中所有操作对应的 {@link CompletableFuture}.
+     * 连接可能已经写出了部分命令, 但它们的结果不再被读取
+     */
+    private void discard(Throwable cause) {
+        List<PendingOperation<?>> operations = this.pending;
+        this.pending = new ArrayList<>(0);
+        operations.forEach(operation -> operation.future.completeExceptionally(cause));
+        if (this.pipelined && this.connection.isPipelined()) {
+            try {
+                this.connection.closePipeline();
+            } catch (RuntimeException ignored) {
+                // 结果已被丢弃, 保留原始异常
+            }
+        }
+    }
+
+    private void close() {
+        if (this.pipelined && this.connection.isPipelined()) {
+            this.connection.closePipeline();
+        }
+    }
+
+    private <T> CompletableFuture<T> enqueue(Function<RedisConnection, Object> command, Function<Object, T> decoder) {
+        PendingOperation<T> operation = new PendingOperation<>(decoder);
+        if (!this.pipelined) {
+            operation.complete(command.apply(this.connection));
+            return operation.future;
+        }
+        command.apply(this.connection);
+        this.pending.add(operation);
+        if (this.pending.size() >= this.flushSize) {
+            flush();
+        }
+        return operation.future;
+    }
+
+    private void verifyKey(K key) {
+        if (this.keyVerifier != null) {
+            this.keyVerifier.accept(key);
+        }
+    }
+
+    private static boolean openPipeline(RedisConnection connection) {
+        try {
+            connection.openPipeline();
+            return true;
+        } catch (UnsupportedOperationException e) {
+            // 集群连接不支持管道
+            return false;
+        }
+    }
+
+    private static Boolean toBoolean(Object raw) {
+        if (raw == null || raw instanceof Boolean) {
+            return (Boolean) raw;
+        }
+        if (raw instanceof Number) {
+            return ((Number) raw).longValue() > 0;
+        }
+        return "OK".equals(raw.toString());
+    }
+
+    private static final class PendingOperation<T> {
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private final Function<Object, T> decoder;
+
+        private PendingOperation(Function<Object, T> decoder) {
+            this.decoder = decoder;
+        }
+
+        private void complete(Object raw) {
+            if (raw instanceof Throwable) {
+                this.future.completeExceptionally((Throwable) raw);
+                return;
+            }
+            try {
+                this.future.complete(this.decoder.apply(raw));
+            } catch (RuntimeException e) {
+                this.future.completeExceptionally(e);
+            }
+        }
+    }
+}
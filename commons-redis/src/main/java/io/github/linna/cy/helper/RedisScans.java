@@ -0,0 +1,132 @@
+package io.github.linna.cy.helper;
+
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisClusterNode;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import javax.validation.constraints.NotNull;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 基于游标 (SCAN / HSCAN) 的流式遍历工具类.
+ * <p>
+ * 返回的 {@link Stream} 按批次从 Redis 拉取数据, 内存占用与数据总量无关; 使用完毕后必须关闭 (例如使用 try-with-resources),
+ * 以释放游标所占用的连接.
+ * </p>
+ */
+public final class RedisScans {
+    private RedisScans() {
+    }
+
+    /**
+     * 构建 SCAN 参数
+     *
+     * @param pattern   匹配的是序列化后的 Key / 字段, 为 {@code null} 时匹配所有
+     * @param batchSize 每批次的数量提示 (COUNT), 不大于 {@code 0} 时使用 Redis 的默认值
+     */
+    public static ScanOptions scanOptions(String pattern, int batchSize) {
+        ScanOptions.ScanOptionsBuilder builder = ScanOptions.scanOptions();
+        if (pattern != null) {
+            builder.match(pattern);
+        }
+        if (batchSize > 0) {
+            builder.count(batchSize);
+        }
+        return builder.build();
+    }
+
+    /**
+     * 遍历所有匹配的 Key. 集群模式下依次遍历每一个主节点
+     */
+    @SuppressWarnings("unchecked")
+    public static <K> Stream<K> scanKeys(@NotNull RedisTemplate<K, ?> template, @NotNull ScanOptions options) {
+        if (!RedisKeySlots.isCluster(template)) {
+            return template.scan(options).stream();
+        }
+
+        RedisSerializer<K> keySerializer = (RedisSerializer<K>) template.getKeySerializer();
+        RedisClusterConnection connection = template.getRequiredConnectionFactory().getClusterConnection();
+        List<RedisClusterNode> masters = new ArrayList<>();
+        try {
+            for (RedisClusterNode node : connection.clusterGetNodes()) {
+                if (node.isMaster()) {
+                    masters.add(node);
+                }
+            }
+        } catch (RuntimeException e) {
+            connection.close();
+            throw e;
+        }
+        ClusterCursor cursor = new ClusterCursor(connection, masters, options);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(cursor, Spliterator.NONNULL), false)
+                .onClose(cursor::close)
+                .map(keySerializer::deserialize);
+    }
+
+    /**
+     * 依次打开每个主节点的游标, 当前节点遍历完毕后立即关闭其游标
+     */
+    private static class ClusterCursor implements Iterator<byte[]> {
+        private final RedisClusterConnection connection;
+        private final Iterator<RedisClusterNode> nodes;
+        private final ScanOptions options;
+        private Cursor<byte[]> current;
+        private boolean closed;
+
+        private ClusterCursor(RedisClusterConnection connection, List<RedisClusterNode> nodes, ScanOptions options) {
+            this.connection = connection;
+            this.nodes = nodes.iterator();
+            this.options = options;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!this.closed) {
+                if (this.current != null && this.current.hasNext()) {
+                    return true;
+                }
+                if (this.current != null) {
+                    this.current.close();
+                    this.current = null;
+                }
+                if (!this.nodes.hasNext()) {
+                    return false;
+                }
+                this.current = this.connection.scan(this.nodes.next(), this.options);
+            }
+            return false;
+        }
+
+        @Override
+        public byte[] next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return this.current.next();
+        }
+
+        private void close() {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+            try {
+                if (this.current != null) {
+                    this.current.close();
+                }
+            } finally {
+                this.connection.close();
+            }
+        }
+    }
+}
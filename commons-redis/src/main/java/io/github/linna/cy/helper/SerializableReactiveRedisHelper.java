@@ -0,0 +1,304 @@
+package io.github.linna.cy.helper;
+
+import io.github.linna.cy.helper.impl.BaseReactiveRedisHelperImpl;
+import io.github.linna.cy.script.RedisScripts;
+import org.apache.commons.collections4.MapUtils;
+import org.springframework.data.redis.connection.ClusterSlotHashUtil;
+import org.springframework.data.redis.connection.DataType;
+import org.springframework.data.redis.connection.ReactiveRedisClusterConnection;
+import org.springframework.data.redis.core.ReactiveRedisCallback;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SerializableRedisHelper} 的非阻塞版本
+ */
+public class SerializableReactiveRedisHelper<V> extends BaseReactiveRedisHelperImpl<Serializable, V>
+        implements IReactiveRedisHelper<Serializable, V> {
+
+    /**
+     * 迁移模式下旧 Key 的序列化方式; 为 {@code null} 时不进行迁移
+     */
+    private final RedisSerializationContext.SerializationPair<Object> legacyKeySerializationPair;
+
+    public SerializableReactiveRedisHelper(ReactiveRedisTemplate<Serializable, V> template) {
+        this(template, null);
+    }
+
+    /**
+     * 开启 Key 迁移模式, 与 {@link SerializableRedisHelper} 的迁移模式相同: 读取时当前格式的 Key 不存在,
+     * 则将旧 Key 迁移为当前格式后重试; 写入或删除前先迁移或删除旧 Key.
+     * <p>
+     * NOTES: 集群中两个 Key 位于不同的 Hash Slot 时无法在一个脚本中迁移, 非阻塞连接也不支持 DUMP / RESTORE,
+     * 此时旧 Key 不会被迁移, 需要通过 {@link SerializableRedisHelper#migrateKey(Serializable)} 迁移.
+     * </p>
+     *
+     * @param legacyKeySerializationPair 旧 Key 的序列化方式, 为 {@code null} 时不进行迁移
+     */
+    @SuppressWarnings("unchecked")
+    public SerializableReactiveRedisHelper(ReactiveRedisTemplate<Serializable, V> template,
+                                           RedisSerializationContext.SerializationPair<?> legacyKeySerializationPair) {
+        super(template);
+        this.legacyKeySerializationPair = (RedisSerializationContext.SerializationPair<Object>) legacyKeySerializationPair;
+    }
+
+    /**
+     * 是否处于 Key 迁移模式
+     */
+    public boolean isMigrating() {
+        return this.legacyKeySerializationPair != null;
+    }
+
+    /**
+     * 当旧格式的 {@code key} 存在时, 将其迁移为当前格式 (保留过期时间). 当前格式的 Key 已存在时保留当前格式的值.
+     *
+     * @return 是否找到并迁移了旧 Key
+     * @see SerializableRedisHelper#migrateKey(Serializable)
+     */
+    public Mono<Boolean> migrateKey(Serializable key) {
+        if (!isMigrating() || key == null) {
+            return Mono.just(false);
+        }
+        return this.getTemplate().createMono((ReactiveRedisCallback<Boolean>) connection -> {
+            ByteBuffer legacyKey = this.legacyKeySerializationPair.write(key);
+            ByteBuffer currentKey = this.getTemplate().getSerializationContext().getKeySerializationPair().write(key);
+            if (legacyKey.equals(currentKey) || (connection instanceof ReactiveRedisClusterConnection
+                    && !ClusterSlotHashUtil.isSameSlotForAllKeys(legacyKey.duplicate(), currentKey.duplicate()))) {
+                return Mono.just(false);
+            }
+            return RedisScripts.MIGRATE_KEY.<Long>execute(connection, 2, legacyKey, currentKey)
+                    .next()
+                    .map(migrated -> migrated == 1);
+        });
+    }
+
+    /**
+     * 删除旧格式的 {@code key}
+     */
+    private Mono<Boolean> deleteLegacyKey(Serializable key) {
+        if (!isMigrating() || key == null) {
+            return Mono.just(false);
+        }
+        return this.getTemplate().createMono((ReactiveRedisCallback<Boolean>) connection ->
+                connection.keyCommands().del(this.legacyKeySerializationPair.write(key)).map(count -> count > 0));
+    }
+
+    private Mono<Boolean> deleteLegacyKeys(Collection<Serializable> keys) {
+        if (!isMigrating() || keys == null) {
+            return Mono.just(false);
+        }
+        return Flux.fromIterable(keys).concatMap(this::deleteLegacyKey).then(Mono.just(true));
+    }
+
+    /**
+     * {@code value} 为空时迁移旧 Key, 迁移成功后通过 {@code retry} 重新读取
+     */
+    private <T> Mono<T> orMigrate(Serializable key, Mono<T> value, Mono<T> retry) {
+        if (!isMigrating()) {
+            return value;
+        }
+        return value.switchIfEmpty(Mono.defer(() -> migrateKey(key)
+                .flatMap(migrated -> migrated ? retry : Mono.empty())));
+    }
+
+    /**
+     * 执行 {@code action} 前先迁移旧 Key
+     */
+    private <T> Mono<T> afterMigrate(Serializable key, Mono<T> action) {
+        return isMigrating() ? migrateKey(key).then(action) : action;
+    }
+
+    /**
+     * 执行 {@code action} 前先删除旧 Key
+     */
+    private <T> Mono<T> afterDeleteLegacy(Serializable key, Mono<T> action) {
+        return isMigrating() ? deleteLegacyKey(key).then(action) : action;
+    }
+
+    @Override
+    public Mono<V> get(Serializable key) {
+        return orMigrate(key, super.get(key), super.get(key));
+    }
+
+    @Override
+    public Mono<List<V>> getAll(Collection<Serializable> keys) {
+        Mono<List<V>> values = super.getAll(keys);
+        if (!isMigrating()) {
+            return values;
+        }
+        return values.flatMap(list -> {
+            List<Serializable> keyList = new ArrayList<>(keys);
+            return Flux.range(0, keyList.size())
+                    .concatMap(index -> list.get(index) != null ? Mono.empty() :
+                            migrateKey(keyList.get(index))
+                                    .filter(Boolean::booleanValue)
+                                    .flatMap(migrated -> super.get(keyList.get(index)))
+                                    .doOnNext(value -> list.set(index, value)))
+                    .then(Mono.just(list));
+        });
+    }
+
+    @Override
+    public Mono<Object> get(Serializable key, Serializable field) {
+        return orMigrate(key, super.get(key, field), super.get(key, field));
+    }
+
+    @Override
+    public <T> Mono<T> get(Serializable key, Object field, Class<T> clazz) {
+        return orMigrate(key, super.get(key, field, clazz), super.get(key, field, clazz));
+    }
+
+    @Override
+    public Mono<Map<Object, Object>> getAll(Serializable key) {
+        Mono<Map<Object, Object>> entries = super.getAll(key);
+        return orMigrate(key, entries.filter(MapUtils::isNotEmpty), super.getAll(key))
+                .switchIfEmpty(entries);
+    }
+
+    @Override
+    public Flux<Object> fields(Serializable key) {
+        if (!isMigrating()) {
+            return super.fields(key);
+        }
+        return super.fields(key).switchIfEmpty(Flux.defer(() -> migrateKey(key)
+                .flatMapMany(migrated -> migrated ? super.fields(key) : Flux.empty())));
+    }
+
+    @Override
+    public Mono<Boolean> hasKey(Serializable key) {
+        return orMigrate(key, super.hasKey(key).filter(Boolean::booleanValue), Mono.just(true))
+                .defaultIfEmpty(false);
+    }
+
+    @Override
+    public Mono<Boolean> hasKey(Serializable key, Serializable field) {
+        return orMigrate(key, super.hasKey(key, field).filter(Boolean::booleanValue), super.hasKey(key, field))
+                .defaultIfEmpty(false);
+    }
+
+    @Override
+    public Mono<Long> getExpire(Serializable key) {
+        return orMigrate(key, super.getExpire(key).filter(expire -> expire != -2), super.getExpire(key))
+                .defaultIfEmpty(-2L);
+    }
+
+    @Override
+    public Mono<DataType> type(Serializable key) {
+        return orMigrate(key, super.type(key).filter(type -> type != DataType.NONE), super.type(key))
+                .defaultIfEmpty(DataType.NONE);
+    }
+
+    @Override
+    public Mono<Boolean> set(Serializable key, V value) {
+        return afterDeleteLegacy(key, super.set(key, value));
+    }
+
+    @Override
+    public Mono<Boolean> setWithExpirationAt(Serializable key, V value, Date expiration) {
+        return afterDeleteLegacy(key, super.setWithExpirationAt(key, value, expiration));
+    }
+
+    @Override
+    public Mono<Boolean> setWithExpirationAt(Serializable key, V value, Instant expiration) {
+        return afterDeleteLegacy(key, super.setWithExpirationAt(key, value, expiration));
+    }
+
+    @Override
+    public Mono<Boolean> setWithExpiration(Serializable key, V value, long expiration) {
+        return afterDeleteLegacy(key, super.setWithExpiration(key, value, expiration));
+    }
+
+    @Override
+    public Mono<Boolean> setWithExpiration(Serializable key, V value, long expiration, TimeUnit timeUnit) {
+        return afterDeleteLegacy(key, super.setWithExpiration(key, value, expiration, timeUnit));
+    }
+
+    @Override
+    public Mono<Boolean> setAll(Map<Serializable, V> map) {
+        Mono<Boolean> action = super.setAll(map);
+        return isMigrating() && map != null ? deleteLegacyKeys(map.keySet()).then(action) : action;
+    }
+
+    @Override
+    public Mono<Boolean> put(Serializable key, Serializable field, Object value) {
+        return afterMigrate(key, super.put(key, field, value));
+    }
+
+    @Override
+    public Mono<Boolean> put(Serializable key, Map<Serializable, ?> map) {
+        return afterMigrate(key, super.put(key, map));
+    }
+
+    @Override
+    public Mono<Boolean> putIfAbsent(Serializable key, Serializable field, Object value) {
+        return afterMigrate(key, super.putIfAbsent(key, field, value));
+    }
+
+    @Override
+    public Mono<Boolean> expireAt(Serializable key, Date expiration) {
+        return afterMigrate(key, super.expireAt(key, expiration));
+    }
+
+    @Override
+    public Mono<Boolean> expire(Serializable key, long timestamp) {
+        return afterMigrate(key, super.expire(key, timestamp));
+    }
+
+    @Override
+    public Mono<Boolean> expire(Serializable key, long expiration, TimeUnit timeUnit) {
+        return afterMigrate(key, super.expire(key, expiration, timeUnit));
+    }
+
+    @Override
+    public Mono<Boolean> delete(Serializable key) {
+        return afterDeleteLegacy(key, super.delete(key));
+    }
+
+    @Override
+    public Mono<Long> delete(Collection<Serializable> keys) {
+        Mono<Long> action = super.delete(keys);
+        return isMigrating() && keys != null ? deleteLegacyKeys(keys).then(action) : action;
+    }
+
+    @Override
+    public Mono<Boolean> delete(Serializable key, Object field) {
+        return afterMigrate(key, super.delete(key, field));
+    }
+
+    @Override
+    public Mono<Long> delete(Serializable key, Collection<Object> fields) {
+        return afterMigrate(key, super.delete(key, fields));
+    }
+
+    @Override
+    public Mono<Long> increment(Serializable key, long delta) {
+        return afterMigrate(key, super.increment(key, delta));
+    }
+
+    @Override
+    public Mono<Double> increment(Serializable key, double delta) {
+        return afterMigrate(key, super.increment(key, delta));
+    }
+
+    @Override
+    public Mono<Long> increment(Serializable key, Object field, long delta) {
+        return afterMigrate(key, super.increment(key, field, delta));
+    }
+
+    @Override
+    public Mono<Double> increment(Serializable key, Object field, double delta) {
+        return afterMigrate(key, super.increment(key, field, delta));
+    }
+}
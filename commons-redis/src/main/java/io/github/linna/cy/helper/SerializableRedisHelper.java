@@ -1,12 +1,482 @@
 package io.github.linna.cy.helper;
 
 import io.github.linna.cy.helper.impl.BaseRedisHelperImpl;
+import io.github.linna.cy.lock.RedisLockLease;
+import io.github.linna.cy.lock.RedisLockManager;
+import io.github.linna.cy.script.RedisScripts;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.collections4.MapUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.ClusterSlotHashUtil;
+import org.springframework.data.redis.connection.DataType;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
 
 import java.io.Serializable;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
+@Slf4j
 public class SerializableRedisHelper<V> extends BaseRedisHelperImpl<Serializable, V> implements IRedisHelper<Serializable, V> {
+
+    /**
+     * 迁移模式下旧 Key 的序列化器; 为 {@code null} 时不进行迁移
+     */
+    private final RedisSerializer<Object> legacyKeySerializer;
+
+    /**
+     * 分布式锁的管理器, 在第一次使用时创建
+     */
+    private volatile RedisLockManager lockManager;
+
+    /**
+     * {@link SerializableRedisHelper#lockManager} 是否由本对象创建, 由本对象创建的管理器在 {@link SerializableRedisHelper#destroy()} 时关闭
+     */
+    private boolean ownsLockManager;
+
     public SerializableRedisHelper(RedisTemplate<Serializable, V> template) {
+        this(template, null);
+    }
+
+    /**
+     * 开启 Key 迁移模式.
+     * <p>
+     * 读取时当前格式的 Key 不存在, 则将 {@code legacyKeySerializer} 格式的旧 Key 迁移 (脚本中的 RENAMENX) 为当前格式后重试;
+     * 写入或删除前先迁移或删除旧 Key, 因此迁移模式下每次写入都会多一次请求, 只应在迁移期间开启.
+     * </p>
+     *
+     * @param legacyKeySerializer 旧 Key 的序列化器, 为 {@code null} 时不进行迁移
+     */
+    @SuppressWarnings("unchecked")
+    public SerializableRedisHelper(RedisTemplate<Serializable, V> template, RedisSerializer<?> legacyKeySerializer) {
         super(template);
+        this.legacyKeySerializer = (RedisSerializer<Object>) legacyKeySerializer;
+    }
+
+    /**
+     * 获取分布式锁的管理器, 未设置时以默认配置创建
+     */
+    public RedisLockManager getLockManager() {
+        RedisLockManager manager = this.lockManager;
+        if (manager == null) {
+            synchronized (this) {
+                if (this.lockManager == null) {
+                    this.lockManager = new RedisLockManager(this);
+                    this.ownsLockManager = true;
+                }
+                manager = this.lockManager;
+            }
+        }
+        return manager;
+    }
+
+    /**
+     * 设置分布式锁的管理器, 例如使用共享的订阅容器或自定义的租约时间
+     */
+    public synchronized void setLockManager(RedisLockManager lockManager) {
+        this.lockManager = lockManager;
+        this.ownsLockManager = false;
+    }
+
+    /**
+     * 写入写回缓冲区中的所有写入, 并关闭自行创建的分布式锁管理器 (及其订阅容器)
+     */
+    @Override
+    public void destroy() {
+        try {
+            super.destroy();
+        } finally {
+            RedisLockManager manager;
+            synchronized (this) {
+                manager = this.ownsLockManager ? this.lockManager : null;
+                this.lockManager = null;
+                this.ownsLockManager = false;
+            }
+            if (manager != null) {
+                try {
+                    manager.destroy();
+                } catch (Exception e) {
+                    log.warn("Failed to close the lock manager.", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * 尝试立即获取名为 {@code name} 的分布式锁
+     *
+     * @return 获取失败时返回 {@code null}
+     * @see RedisLockManager
+     */
+    public RedisLockLease tryLock(String name) {
+        return getLockManager().tryLock(name);
+    }
+
+    /**
+     * 在 {@code waitTime} 内尝试获取名为 {@code name} 的分布式锁, 等待期间通过订阅释放通知唤醒
+     *
+     * @return 超时时返回 {@code null}
+     * @throws InterruptedException 等待时被中断
+     * @see RedisLockManager
+     */
+    public RedisLockLease tryLock(String name, Duration waitTime) throws InterruptedException {
+        return getLockManager().tryLock(name, waitTime);
+    }
+
+    /**
+     * 获取名为 {@code name} 的分布式锁, 必要时一直等待
+     *
+     * @throws InterruptedException 等待时被中断
+     * @see RedisLockManager
+     */
+    public RedisLockLease lock(String name) throws InterruptedException {
+        return getLockManager().lock(name);
+    }
+
+    /**
+     * 是否处于 Key 迁移模式
+     */
+    public boolean isMigrating() {
+        return this.legacyKeySerializer != null;
+    }
+
+    /**
+     * 当旧格式的 {@code key} 存在时, 将其迁移为当前格式 (保留过期时间). 当前格式的 Key 已存在时保留当前格式的值.
+     * <p>
+     * 迁移通过 {@link RedisScripts#MIGRATE_KEY} 原子地完成; 集群中两个 Key 位于不同的 Hash Slot 时无法在一个脚本中执行,
+     * 此时退化为 DUMP / RESTORE / DEL, 期间对旧 Key 的并发写入可能丢失.
+     * </p>
+     *
+     * @return 是否找到并迁移了旧 Key
+     */
+    @SuppressWarnings("unchecked")
+    public boolean migrateKey(Serializable key) {
+        if (!isMigrating() || key == null) {
+            return false;
+        }
+        byte[] legacyKey = this.legacyKeySerializer.serialize(key);
+        byte[] currentKey = ((RedisSerializer<Serializable>) this.getTemplate().getKeySerializer()).serialize(key);
+        if (Arrays.equals(legacyKey, currentKey)) {
+            return false;
+        }
+        if (!RedisKeySlots.isCluster(this.getTemplate())
+                || ClusterSlotHashUtil.isSameSlotForAllKeys(legacyKey, currentKey)) {
+            Long migrated = RedisScripts.MIGRATE_KEY.execute(this.getTemplate(), 2, legacyKey, currentKey);
+            return migrated != null && migrated == 1;
+        }
+        Boolean migrated = this.getTemplate().execute((RedisCallback<Boolean>) connection -> {
+            byte[] dump = connection.keyCommands().dump(legacyKey);
+            if (dump == null) {
+                return false;
+            }
+            Long ttl = connection.keyCommands().pTtl(legacyKey);
+            try {
+                connection.keyCommands().restore(currentKey, ttl == null || ttl < 0 ? 0 : ttl, dump, false);
+            } catch (DataAccessException e) {
+                // 当前格式的 Key 已被写入 (BUSYKEY), 以当前格式的值为准
+            }
+            connection.keyCommands().del(legacyKey);
+            return true;
+        });
+        return migrated != null && migrated;
+    }
+
+    /**
+     * 删除旧格式的 {@code key}
+     */
+    private void deleteLegacyKey(Serializable key) {
+        if (!isMigrating() || key == null) {
+            return;
+        }
+        byte[] legacyKey = this.legacyKeySerializer.serialize(key);
+        this.getTemplate().execute((RedisCallback<Long>) connection -> connection.keyCommands().del(legacyKey));
+    }
+
+    @Override
+    public V get(Serializable key) {
+        V value = super.get(key);
+        return value == null && migrateKey(key) ? super.get(key) : value;
+    }
+
+    @Override
+    public List<V> getAll(Collection<Serializable> keys) {
+        List<V> values = super.getAll(keys);
+        if (!isMigrating() || values == null) {
+            return values;
+        }
+        int index = 0;
+        for (Serializable key : keys) {
+            if (values.get(index) == null && migrateKey(key)) {
+                values.set(index, super.get(key));
+            }
+            index++;
+        }
+        return values;
+    }
+
+    @Override
+    public Object get(Serializable key, Serializable field) {
+        Object value = super.get(key, field);
+        return value == null && migrateKey(key) ? super.get(key, field) : value;
+    }
+
+    @Override
+    public <T> T get(Serializable key, Object field, Class<T> clazz) {
+        T value = super.get(key, field, clazz);
+        return value == null && migrateKey(key) ? super.get(key, field, clazz) : value;
+    }
+
+    @Override
+    public List<Object> multiGet(Serializable key, Collection<Object> fields) {
+        List<Object> values = super.multiGet(key, fields);
+        if (values == null || values.stream().anyMatch(Objects::nonNull) || !migrateKey(key)) {
+            return values;
+        }
+        return super.multiGet(key, fields);
+    }
+
+    @Override
+    public Map<Object, Object> getAll(Serializable key) {
+        Map<Object, Object> entries = super.getAll(key);
+        return MapUtils.isEmpty(entries) && migrateKey(key) ? super.getAll(key) : entries;
+    }
+
+    @Override
+    public Set<Object> fields(Serializable key) {
+        Set<Object> fields = super.fields(key);
+        return fields != null && fields.isEmpty() && migrateKey(key) ? super.fields(key) : fields;
+    }
+
+    @Override
+    public boolean hasKey(Serializable key) {
+        return super.hasKey(key) || migrateKey(key);
+    }
+
+    @Override
+    public boolean hasKey(Serializable key, Serializable field) {
+        return super.hasKey(key, field) || (migrateKey(key) && super.hasKey(key, field));
+    }
+
+    @Override
+    public Long getExpire(Serializable key) {
+        Long expire = super.getExpire(key);
+        return expire != null && expire == -2 && migrateKey(key) ? super.getExpire(key) : expire;
+    }
+
+    @Override
+    public DataType type(Serializable key) {
+        DataType type = super.type(key);
+        return type == DataType.NONE && migrateKey(key) ? super.type(key) : type;
+    }
+
+    @Override
+    public IRedisHelper<Serializable, V> set(Serializable key, V value) {
+        deleteLegacyKey(key);
+        return super.set(key, value);
+    }
+
+    @Override
+    public IRedisHelper<Serializable, V> setAll(Map<Serializable, V> map) {
+        if (isMigrating() && map != null) {
+            map.keySet().forEach(this::deleteLegacyKey);
+        }
+        return super.setAll(map);
+    }
+
+    @Override
+    public boolean setAllWithExpiration(Map<Serializable, V> map, Duration expiration) {
+        if (isMigrating() && map != null) {
+            map.keySet().forEach(this::deleteLegacyKey);
+        }
+        return super.setAllWithExpiration(map, expiration);
+    }
+
+    @Override
+    public boolean setWithExpirationAt(Serializable key, V value, Date expiration) {
+        deleteLegacyKey(key);
+        return super.setWithExpirationAt(key, value, expiration);
+    }
+
+    @Override
+    public boolean setWithExpirationAt(Serializable key, V value, Instant expiration) {
+        deleteLegacyKey(key);
+        return super.setWithExpirationAt(key, value, expiration);
+    }
+
+    @Override
+    public boolean setWithExpiration(Serializable key, V value, long expiration) {
+        deleteLegacyKey(key);
+        return super.setWithExpiration(key, value, expiration);
+    }
+
+    @Override
+    public boolean setWithExpiration(Serializable key, V value, long expiration, TimeUnit timeUnit) {
+        deleteLegacyKey(key);
+        return super.setWithExpiration(key, value, expiration, timeUnit);
+    }
+
+    @Override
+    public IRedisHelper<Serializable, V> put(Serializable key, Serializable field, Object value) {
+        migrateKey(key);
+        return super.put(key, field, value);
+    }
+
+    @Override
+    public IRedisHelper<Serializable, V> put(Serializable key, Map<Serializable, ?> map) {
+        migrateKey(key);
+        return super.put(key, map);
+    }
+
+    @Override
+    public boolean putIfAbsent(Serializable key, Serializable field, Object value) {
+        migrateKey(key);
+        return super.putIfAbsent(key, field, value);
+    }
+
+    @Override
+    public Boolean expireAt(Serializable key, Date expiration) {
+        migrateKey(key);
+        return super.expireAt(key, expiration);
+    }
+
+    @Override
+    public Boolean expire(Serializable key, long timestamp) {
+        migrateKey(key);
+        return super.expire(key, timestamp);
+    }
+
+    @Override
+    public Boolean expire(Serializable key, long expiration, TimeUnit timeUnit) {
+        migrateKey(key);
+        return super.expire(key, expiration, timeUnit);
+    }
+
+    @Override
+    public boolean delete(Serializable key) {
+        deleteLegacyKey(key);
+        return super.delete(key);
+    }
+
+    @Override
+    public Long delete(Collection<Serializable> keys) {
+        if (isMigrating() && keys != null) {
+            keys.forEach(this::deleteLegacyKey);
+        }
+        return super.delete(keys);
+    }
+
+    @Override
+    public Boolean delete(Serializable key, Object field) {
+        migrateKey(key);
+        return super.delete(key, field);
+    }
+
+    @Override
+    public Long delete(Serializable key, Collection<Object> fields) {
+        migrateKey(key);
+        return super.delete(key, fields);
+    }
+
+    /**
+     * 与 {@link SerializableRedisHelper#get(Serializable)} 不同, 发送请求前总是先迁移旧 Key
+     */
+    @Override
+    public CompletableFuture<V> getAsync(Serializable key) {
+        migrateKey(key);
+        return super.getAsync(key);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> setAsync(Serializable key, V value) {
+        deleteLegacyKey(key);
+        return super.setAsync(key, value);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> setAsync(Serializable key, V value, Duration expiration) {
+        deleteLegacyKey(key);
+        return super.setAsync(key, value, expiration);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> deleteAsync(Serializable key) {
+        deleteLegacyKey(key);
+        return super.deleteAsync(key);
+    }
+
+    @Override
+    public CompletableFuture<Long> incrementAsync(Serializable key, long delta) {
+        migrateKey(key);
+        return super.incrementAsync(key, delta);
+    }
+
+    @Override
+    public Long increment(Serializable key, long delta) {
+        migrateKey(key);
+        return super.increment(key, delta);
+    }
+
+    @Override
+    public Double increment(Serializable key, double delta) {
+        migrateKey(key);
+        return super.increment(key, delta);
+    }
+
+    @Override
+    public Long increment(Serializable key, Object field, long delta) {
+        migrateKey(key);
+        return super.increment(key, field, delta);
+    }
+
+    @Override
+    public void incrementLater(Serializable key, long delta) {
+        migrateKey(key);
+        super.incrementLater(key, delta);
+    }
+
+    @Override
+    public void incrementLater(Serializable key, Object field, long delta) {
+        migrateKey(key);
+        super.incrementLater(key, field, delta);
+    }
+
+    @Override
+    public Double increment(Serializable key, Object field, double delta) {
+        migrateKey(key);
+        return super.increment(key, field, delta);
+    }
+
+    @Override
+    public Long incrementWithExpiration(Serializable key, long delta, Duration expiration) {
+        migrateKey(key);
+        return super.incrementWithExpiration(key, delta, expiration);
+    }
+
+    @Override
+    public boolean compareAndDelete(Serializable key, V expected) {
+        boolean deleted = super.compareAndDelete(key, expected);
+        return deleted || (migrateKey(key) && super.compareAndDelete(key, expected));
+    }
+
+    @Override
+    public Long putWithExpiration(Serializable key, Map<Serializable, ?> map, Duration expiration) {
+        migrateKey(key);
+        return super.putWithExpiration(key, map, expiration);
+    }
+
+    @Override
+    public Long pushCapped(Serializable key, Collection<V> values, long capacity, Duration expiration) {
+        migrateKey(key);
+        return super.pushCapped(key, values, capacity, expiration);
     }
 }
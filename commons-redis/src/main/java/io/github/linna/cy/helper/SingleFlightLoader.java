@@ -0,0 +1,230 @@
+package io.github.linna.cy.helper;
+
+import io.github.linna.cy.cache.NearCache;
+import io.github.linna.cy.script.RedisScripts;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import javax.validation.constraints.NotNull;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * {@link IRedisHelper#getOrLoad(Object, Supplier, Duration)} 的防击穿实现.
+ * <ul>
+ *     <li>同一个 JVM 中对同一个 Key 的并发调用共享一次读取 / 加载 (single-flight)</li>
+ *     <li>缓存缺失时, 多个节点通过 {@code Key + ":lock"} 上的短期锁 (SET NX PX) 协调, 只有持有锁的节点执行加载,
+ *     其余节点等待其写入, 并在等待期间不断尝试获取锁. 加载方失败或宕机时, 锁最迟在
+ *     {@link SingleFlightLoader#getLockTimeout()} 后过期, 由下一个获得锁的节点加载; 任何节点都不会在未持有锁时加载</li>
+ *     <li>XFetch 概率性提前刷新: 值仍然有效时, 以 {@code -delta * beta * ln(random) >= 剩余 TTL} 的概率提前重新加载,
+ *     其中 {@code delta} 为本节点观测到的加载耗时. 提前刷新同样需要持有锁, 未获得锁时直接返回当前值</li>
+ * </ul>
+ * 值与剩余 TTL 通过 {@link RedisScripts#GET_WITH_TTL} 在一次请求中读取; 未命中时再通过 {@code helper} 读取一次
+ * (例如迁移模式下的旧 Key), 加载的值同样通过 {@code helper} 写入, 因此会经过其 Key 验证, 迁移与写回等处理.
+ * <p>
+ * NOTES: {@code loader} 返回 {@code null} 时不会写入缓存.
+ * </p>
+ */
+public class SingleFlightLoader<K, V> {
+
+    /**
+     * 默认的 XFetch 系数, 越大越倾向于提前刷新
+     */
+    public static final double DEFAULT_BETA = 1.0;
+
+    /**
+     * 默认的加载锁过期时间
+     */
+    public static final Duration DEFAULT_LOCK_TIMEOUT = Duration.ofSeconds(10);
+
+    /**
+     * 默认的等待其他节点加载时的轮询间隔
+     */
+    public static final Duration DEFAULT_WAIT_INTERVAL = Duration.ofMillis(50);
+
+    private static final byte[] LOCK_SUFFIX = ":lock".getBytes(StandardCharsets.UTF_8);
+    private static final Object NOT_ACQUIRED = new Object();
+
+    private final IRedisHelper<K, V> helper;
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * 本节点观测到的加载耗时 (单位: ms)
+     */
+    private final NearCache<K, Long> deltas = new NearCache<>(10_000, Duration.ofHours(1));
+
+    /**
+     * XFetch 系数, 为 {@code 0} 时不提前刷新
+     */
+    @Getter
+    @Setter
+    private double beta = DEFAULT_BETA;
+
+    /**
+     * 加载锁的过期时间, 也是加载方失败或宕机时其他节点最多需要等待的时间. 应大于加载的耗时
+     */
+    @Getter
+    @Setter
+    private Duration lockTimeout = DEFAULT_LOCK_TIMEOUT;
+
+    /**
+     * 等待其他节点加载时的轮询间隔
+     */
+    @Getter
+    @Setter
+    private Duration waitInterval = DEFAULT_WAIT_INTERVAL;
+
+    /**
+     * @param helper 用于读取与写入值, 写入时会经过其 Key 验证
+     */
+    public SingleFlightLoader(@NotNull IRedisHelper<K, V> helper) {
+        this.helper = helper;
+    }
+
+    /**
+     * 获取 {@code key} 的值, 不存在或需要提前刷新时通过 {@code loader} 加载并以 {@code ttl} 写入
+     *
+     * @throws IllegalStateException 等待其他节点加载时被中断, 线程的中断状态会被保留
+     */
+    public V getOrLoad(@NotNull K key, @NotNull Supplier<V> loader, @NotNull Duration ttl) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = this.inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            // 共享正在进行的读取 / 加载
+            return join(existing);
+        }
+        try {
+            V value = load(key, loader, ttl);
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            this.inFlight.remove(key, flight);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private V load(K key, Supplier<V> loader, Duration ttl) {
+        byte[] rawKey = ((RedisSerializer<K>) this.helper.getTemplate().getKeySerializer()).serialize(key);
+        List<Object> cached = RedisScripts.GET_WITH_TTL.execute(this.helper.getTemplate(), 1, rawKey);
+        byte[] rawValue = cached == null || cached.isEmpty() ? null : (byte[]) cached.get(0);
+        if (rawValue != null) {
+            V value = ((RedisSerializer<V>) this.helper.getTemplate().getValueSerializer()).deserialize(rawValue);
+            long ttlMillis = cached.size() > 1 && cached.get(1) instanceof Long ? (Long) cached.get(1) : -1;
+            if (!shouldRefreshEarly(key, ttlMillis)) {
+                return value;
+            }
+            Object refreshed = loadWithLock(key, rawKey, loader, ttl, false);
+            return refreshed == NOT_ACQUIRED ? value : (V) refreshed;
+        }
+        // 脚本只能读取当前格式的 Key, 通过 helper 读取其能看到的值
+        V current = this.helper.get(key);
+        if (current != null) {
+            return current;
+        }
+
+        while (true) {
+            // 加载方超时或已失败时锁会过期, 由下一次获得锁的调用加载
+            Object loaded = loadWithLock(key, rawKey, loader, ttl, true);
+            if (loaded != NOT_ACQUIRED) {
+                return (V) loaded;
+            }
+            // 其他节点正在加载, 等待其写入
+            try {
+                TimeUnit.NANOSECONDS.sleep(this.waitInterval.toNanos());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the value of key " + key
+                        + " to be loaded.", e);
+            }
+            V value = this.helper.get(key);
+            if (value != null) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * 持有 {@code key} 的加载锁时加载并写入
+     *
+     * @param recheck 获得锁之后是否先检查值是否已被其他节点写入
+     * @return 未获得锁时返回 {@link SingleFlightLoader#NOT_ACQUIRED}
+     */
+    private Object loadWithLock(K key, byte[] rawKey, Supplier<V> loader, Duration ttl, boolean recheck) {
+        byte[] lockKey = new byte[rawKey.length + LOCK_SUFFIX.length];
+        System.arraycopy(rawKey, 0, lockKey, 0, rawKey.length);
+        System.arraycopy(LOCK_SUFFIX, 0, lockKey, rawKey.length, LOCK_SUFFIX.length);
+        byte[] token = UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8);
+
+        Boolean acquired = this.helper.getTemplate().execute((RedisCallback<Boolean>) connection ->
+                connection.stringCommands().set(lockKey, token, Expiration.from(this.lockTimeout),
+                        RedisStringCommands.SetOption.ifAbsent()));
+        if (acquired == null || !acquired) {
+            return NOT_ACQUIRED;
+        }
+        try {
+            if (recheck) {
+                V value = this.helper.get(key);
+                if (value != null) {
+                    return value;
+                }
+            }
+            return loadAndStore(key, loader, ttl);
+        } finally {
+            RedisScripts.COMPARE_AND_DELETE.execute(this.helper.getTemplate(), 1, lockKey, token);
+        }
+    }
+
+    private V loadAndStore(K key, Supplier<V> loader, Duration ttl) {
+        long start = System.nanoTime();
+        V value = loader.get();
+        this.deltas.put(key, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        if (value != null) {
+            this.helper.setWithExpiration(key, value, ttl.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        return value;
+    }
+
+    /**
+     * XFetch: {@code -delta * beta * ln(random) >= 剩余 TTL} 时提前刷新
+     */
+    private boolean shouldRefreshEarly(K key, long ttlMillis) {
+        if (ttlMillis < 0 || this.beta <= 0) {
+            return false;
+        }
+        Long delta = this.deltas.peek(key);
+        if (delta == null) {
+            return false;
+        }
+        return -Math.max(delta, 1) * this.beta * Math.log(ThreadLocalRandom.current().nextDouble()) >= ttlMillis;
+    }
+
+    private static <V> V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
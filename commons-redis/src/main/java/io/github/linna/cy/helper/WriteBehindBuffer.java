@@ -0,0 +1,397 @@
+package io.github.linna.cy.helper;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import javax.validation.constraints.NotNull;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 写回 (write-behind) 缓冲区: 在内存中按 Key 合并高频的写入, 再以管道批量写入 Redis.
+ * <ul>
+ *     <li>{@code set}: 只保留最后一次写入的值, 同时丢弃该 Key 之前缓冲的递增</li>
+ *     <li>{@code increment}: 同一个 Key (或 Hash 字段) 的增量累加为一次 INCRBY / HINCRBY</li>
+ * </ul>
+ * 缓冲的 Key 数量达到 {@code batchSize} 时立即在后台写入, 否则最迟在 {@code maxStaleness} 后写入;
+ * 缓冲的 Key 数量达到 {@code maxPendingKeys} 时, 新的 Key 不再缓冲而是直接写入 (由调用方执行).
+ * <p>
+ * NOTES: 缓冲的写入在写入 Redis 之前对其他节点不可见; 写入失败时会记录日志并丢弃, 进程异常退出时未写入的数据会丢失.
+ * 只应用于可以容忍这些情况的计数器与 "最后访问时间" 等数据.
+ * </p>
+ */
+@Slf4j
+public class WriteBehindBuffer<K, V> implements AutoCloseable {
+
+    /**
+     * 默认的最大缓冲 Key 数量
+     */
+    public static final int DEFAULT_MAX_PENDING_KEYS = 100_000;
+
+    private final RedisTemplate<K, V> template;
+    private final ConcurrentMap<K, PendingWrites<V>> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private volatile boolean closed;
+
+    /**
+     * 缓冲的写入在写入 Redis 之前最多停留的时间
+     */
+    @Getter
+    private final Duration maxStaleness;
+
+    /**
+     * 最大缓冲 Key 数量, 限制内存占用
+     */
+    @Getter
+    private final int maxPendingKeys;
+
+    /**
+     * 每个管道批次的大小, 也是触发立即写入的缓冲 Key 数量
+     */
+    @Getter
+    private final int batchSize;
+
+    private final LongAdder bufferedWrites = new LongAdder();
+    private final LongAdder flushedCommands = new LongAdder();
+    private final LongAdder failedCommands = new LongAdder();
+
+    /**
+     * @param maxStaleness 缓冲的写入最多停留的时间, 必须为正数
+     */
+    public WriteBehindBuffer(@NotNull RedisTemplate<K, V> template, @NotNull Duration maxStaleness) {
+        this(template, maxStaleness, DEFAULT_MAX_PENDING_KEYS, IRedisHelper.DEFAULT_PIPELINE_FLUSH_SIZE);
+    }
+
+    /**
+     * @param maxStaleness   缓冲的写入最多停留的时间, 必须为正数
+     * @param maxPendingKeys 最大缓冲 Key 数量, 必须为正数
+     * @param batchSize      每个管道批次的大小, 必须为正数
+     */
+    public WriteBehindBuffer(@NotNull RedisTemplate<K, V> template, @NotNull Duration maxStaleness,
+                             int maxPendingKeys, int batchSize) {
+        if (maxStaleness.isNegative() || maxStaleness.isZero() || maxPendingKeys <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("The max staleness, max pending keys and batch size must be positive.");
+        }
+        this.template = template;
+        this.maxStaleness = maxStaleness;
+        this.maxPendingKeys = maxPendingKeys;
+        this.batchSize = batchSize;
+
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "redis-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        this.scheduler = executor;
+        long period = maxStaleness.toNanos();
+        this.scheduler.scheduleWithFixedDelay(this::flushQuietly, period, period, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 缓冲 {@link IRedisHelper#set(Object, Object)}
+     *
+     * @return 是否已缓冲; 返回 {@code false} 时需要由调用方直接写入
+     */
+    public boolean set(K key, V value) {
+        if (value == null) {
+            return false;
+        }
+        return buffer(key, writes -> {
+            writes.value = value;
+            writes.delta = 0;
+            writes.hasDelta = false;
+            return true;
+        });
+    }
+
+    /**
+     * 缓冲不需要结果的 {@link IRedisHelper#increment(Object, long)}. 该 Key 已缓冲了 {@code set} 时先将其写入
+     *
+     * @return 是否已缓冲; 返回 {@code false} 时需要由调用方直接写入
+     */
+    public boolean increment(K key, long delta) {
+        return buffer(key, writes -> {
+            if (writes.value != null) {
+                return false;
+            }
+            writes.delta += delta;
+            writes.hasDelta = true;
+            return true;
+        });
+    }
+
+    /**
+     * 缓冲不需要结果的 {@link IRedisHelper#increment(Object, Object, long)}
+     *
+     * @return 是否已缓冲; 返回 {@code false} 时需要由调用方直接写入
+     */
+    public boolean increment(K key, Object field, long delta) {
+        return buffer(key, writes -> {
+            if (writes.fieldDeltas == null) {
+                writes.fieldDeltas = new LinkedHashMap<>();
+            }
+            writes.fieldDeltas.merge(field, delta, Long::sum);
+            return true;
+        });
+    }
+
+    /**
+     * 获取 {@code key} 缓冲中的 {@code set} 的值, 没有时返回 {@code null}
+     */
+    public V pendingValue(K key) {
+        PendingWrites<V> writes = this.pending.get(key);
+        if (writes == null) {
+            return null;
+        }
+        synchronized (writes) {
+            // 封存的写入在写入完成之前仍保留在缓冲区中
+            return writes.value;
+        }
+    }
+
+    /**
+     * {@code key} 是否有缓冲中 (或正在写入) 的写入, 这些写入完成后该 Key 一定存在
+     */
+    public boolean hasPendingWrites(K key) {
+        PendingWrites<V> writes = this.pending.get(key);
+        if (writes == null) {
+            return false;
+        }
+        synchronized (writes) {
+            return writes.value != null || writes.hasDelta || writes.fieldDeltas != null;
+        }
+    }
+
+    /**
+     * 立即写入 {@code key} 缓冲的所有写入. 在对 {@code key} 执行其他写入之前调用, 以保证写入顺序;
+     * 该 Key 正在被后台写入时等待其完成
+     */
+    public void flush(K key) {
+        PendingWrites<V> writes = this.pending.get(key);
+        if (writes == null) {
+            return;
+        }
+        if (seal(writes)) {
+            write(Collections.singletonMap(key, writes));
+        } else {
+            writes.awaitWritten();
+        }
+    }
+
+    /**
+     * 立即写入所有缓冲的写入
+     */
+    public void flush() {
+        Map<K, PendingWrites<V>> batch = new LinkedHashMap<>();
+        for (Map.Entry<K, PendingWrites<V>> entry : this.pending.entrySet()) {
+            if (seal(entry.getValue())) {
+                batch.put(entry.getKey(), entry.getValue());
+            }
+            if (batch.size() >= this.batchSize) {
+                write(batch);
+                batch = new LinkedHashMap<>();
+            }
+        }
+        write(batch);
+    }
+
+    /**
+     * 当前缓冲的 Key 数量
+     */
+    public int pendingKeys() {
+        return this.pending.size();
+    }
+
+    /**
+     * 已缓冲的写入次数
+     */
+    public long bufferedWrites() {
+        return this.bufferedWrites.sum();
+    }
+
+    /**
+     * 合并后实际写入 Redis 的命令数量
+     */
+    public long flushedCommands() {
+        return this.flushedCommands.sum();
+    }
+
+    /**
+     * 写入失败而被丢弃的命令数量
+     */
+    public long failedCommands() {
+        return this.failedCommands.sum();
+    }
+
+    /**
+     * 停止后台写入, 并写入所有剩余的写入. 之后的写入将不再缓冲
+     */
+    @Override
+    public void close() {
+        this.closed = true;
+        this.scheduler.shutdown();
+        flush();
+    }
+
+    private boolean buffer(K key, Mutation<V> mutation) {
+        if (this.closed) {
+            return false;
+        }
+        while (true) {
+            PendingWrites<V> writes = this.pending.get(key);
+            if (writes == null) {
+                if (this.pending.size() >= this.maxPendingKeys) {
+                    // 超出内存上限, 新的 Key 直接写入
+                    requestFlush();
+                    return false;
+                }
+                PendingWrites<V> created = new PendingWrites<>();
+                writes = this.pending.putIfAbsent(key, created);
+                if (writes == null) {
+                    writes = created;
+                    if (this.pending.size() >= this.batchSize) {
+                        requestFlush();
+                    }
+                }
+            }
+            synchronized (writes) {
+                if (!writes.sealed) {
+                    if (mutation.apply(writes)) {
+                        this.bufferedWrites.increment();
+                        return true;
+                    }
+                }
+            }
+            if (writes.isSealed()) {
+                // 正在被写入, 等待其完成后重新缓冲
+                writes.awaitWritten();
+                continue;
+            }
+            // 与缓冲中的写入冲突, 先写入该 Key 再由调用方直接写入
+            flush(key);
+            return false;
+        }
+    }
+
+    /**
+     * @return 是否由本次调用封存 (即由调用方负责写入)
+     */
+    private boolean seal(PendingWrites<V> writes) {
+        synchronized (writes) {
+            if (writes.sealed) {
+                return false;
+            }
+            writes.sealed = true;
+            return true;
+        }
+    }
+
+    private void write(Map<K, PendingWrites<V>> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        long[] commands = {0};
+        try {
+            RedisPipeline.execute(this.template, this.batchSize, null, pipeline -> batch.forEach((key, writes) -> {
+                if (writes.value != null) {
+                    pipeline.set(key, writes.value);
+                    commands[0]++;
+                }
+                if (writes.hasDelta) {
+                    pipeline.increment(key, writes.delta);
+                    commands[0]++;
+                }
+                if (writes.fieldDeltas != null) {
+                    writes.fieldDeltas.forEach((field, delta) -> {
+                        pipeline.increment(key, field, delta);
+                        commands[0]++;
+                    });
+                }
+            }));
+            this.flushedCommands.add(commands[0]);
+        } catch (RuntimeException e) {
+            this.failedCommands.add(commands[0]);
+            log.error("Failed to flush {} buffered redis writes, they are discarded.", commands[0], e);
+        } finally {
+            // 写入完成后才移除, 在此之前该 Key 的其他写入会等待
+            batch.forEach((key, writes) -> {
+                this.pending.remove(key, writes);
+                writes.markWritten();
+            });
+        }
+    }
+
+    private void requestFlush() {
+        if (this.closed || !this.flushRequested.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            this.scheduler.execute(this::flushQuietly);
+        } catch (RuntimeException e) {
+            this.flushRequested.set(false);
+        }
+    }
+
+    private void flushQuietly() {
+        this.flushRequested.set(false);
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Failed to flush buffered redis writes.", e);
+        }
+    }
+
+    private interface Mutation<V> {
+        /**
+         * @return 为 {@code false} 时表示与缓冲中的写入冲突
+         */
+        boolean apply(PendingWrites<V> writes);
+    }
+
+    /**
+     * 一个 Key 缓冲的写入, 所有访问都需要持有其监视器. 封存后不再修改, 直到写入完成后从缓冲区中移除
+     */
+    private static class PendingWrites<V> {
+        private V value;
+        private long delta;
+        private boolean hasDelta;
+        private Map<Object, Long> fieldDeltas;
+        private boolean sealed;
+        private boolean written;
+
+        private synchronized boolean isSealed() {
+            return this.sealed;
+        }
+
+        private synchronized void markWritten() {
+            this.written = true;
+            notifyAll();
+        }
+
+        private synchronized void awaitWritten() {
+            boolean interrupted = false;
+            while (!this.written) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package io.github.linna.cy.helper.impl;
+
+import io.github.linna.cy.helper.IReactiveRedisHelper;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import reactor.core.publisher.Mono;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+@Slf4j
+@Getter
+@RequiredArgsConstructor
+public class BaseReactiveRedisHelperImpl<K, V> implements IReactiveRedisHelper<K, V> {
+    private final ReactiveRedisTemplate<K, V> template;
+
+    /**
+     * 在调用以 set / put 开头的方法前, 对 {@code key} 进行验证
+     *
+     * @return 当返回值为 {@code true} 时, 以 set 开头的方法可以正常调用;
+     * 当返回值为 {@code false} 时, 以 set 开头的方法将发出 {@link IllegalArgumentException} 异常
+     */
+    protected boolean verifyKeyBeforeSet(K key) {
+        return key != null;
+    }
+
+    private <T> Mono<T> verifyKey(K key, Supplier<Mono<T>> action) {
+        return verifyKeys(Collections.singleton(key), action);
+    }
+
+    private <T> Mono<T> verifyKeys(Collection<K> keys, Supplier<Mono<T>> action) {
+        for (K key : keys) {
+            if (!verifyKeyBeforeSet(key)) {
+                log.error("IllegalArgumentException: The key of redis can't pass verification.");
+                return Mono.error(new IllegalArgumentException("The key of redis can't pass verification."));
+            }
+        }
+        return action.get();
+    }
+
+    @Override
+    public Mono<Boolean> set(K key, V value) {
+        return verifyKey(key, () -> IReactiveRedisHelper.super.set(key, value));
+    }
+
+    @Override
+    public Mono<Boolean> setWithExpirationAt(K key, V value, Date expiration) {
+        return verifyKey(key, () -> IReactiveRedisHelper.super.setWithExpirationAt(key, value, expiration));
+    }
+
+    @Override
+    public Mono<Boolean> setWithExpirationAt(K key, V value, Instant expiration) {
+        return verifyKey(key, () -> IReactiveRedisHelper.super.setWithExpirationAt(key, value, expiration));
+    }
+
+    @Override
+    public Mono<Boolean> setWithExpiration(K key, V value, long expiration) {
+        return verifyKey(key, () -> IReactiveRedisHelper.super.setWithExpiration(key, value, expiration));
+    }
+
+    @Override
+    public Mono<Boolean> setWithExpiration(K key, V value, long expiration, TimeUnit timeUnit) {
+        return verifyKey(key, () -> IReactiveRedisHelper.super.setWithExpiration(key, value, expiration, timeUnit));
+    }
+
+    @Override
+    public Mono<Boolean> setAll(Map<K, V> map) {
+        if (map == null) {
+            return IReactiveRedisHelper.super.setAll(null);
+        }
+        return verifyKeys(map.keySet(), () -> IReactiveRedisHelper.super.setAll(map));
+    }
+
+    @Override
+    public Mono<Boolean> put(K key, Serializable field, Object value) {
+        return verifyKey(key, () -> IReactiveRedisHelper.super.put(key, field, value));
+    }
+
+    @Override
+    public Mono<Boolean> put(K key, Map<Serializable, ?> map) {
+        return verifyKey(key, () -> IReactiveRedisHelper.super.put(key, map));
+    }
+
+    @Override
+    public Mono<Boolean> putIfAbsent(K key, Serializable field, Object value) {
+        return verifyKey(key, () -> IReactiveRedisHelper.super.putIfAbsent(key, field, value));
+    }
+}
@@ -1,23 +1,79 @@
 package io.github.linna.cy.helper.impl;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.linna.cy.helper.EntityHashMapper;
 import io.github.linna.cy.helper.IRedisHelper;
+import io.github.linna.cy.helper.RedisPipeline;
+import io.github.linna.cy.helper.SingleFlightLoader;
+import io.github.linna.cy.helper.WriteBehindBuffer;
+import io.github.linna.cy.monitor.SlowOperationDetector;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
 
+import javax.validation.constraints.NotNull;
 import java.io.Serializable;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
 
 @Slf4j
 @Getter
 @RequiredArgsConstructor
-public class BaseRedisHelperImpl<K, V> implements IRedisHelper<K, V> {
+public class BaseRedisHelperImpl<K, V> implements IRedisHelper<K, V>, DisposableBean {
     private final RedisTemplate<K, V> template;
 
+    /**
+     * 异步方法完成时所使用的线程池, 为 {@code null} 时在 Lettuce 的 I/O 线程中完成
+     */
+    @Setter
+    private Executor asyncExecutor;
+
+    /**
+     * {@link BaseRedisHelperImpl#getOrLoad(Object, Supplier, Duration)} 的实现, 可以调整其锁超时与提前刷新系数
+     */
+    private final SingleFlightLoader<K, V> singleFlightLoader = new SingleFlightLoader<>(this);
+
+    /**
+     * 慢操作与大 Key 检测器, 为 {@code null} 时不检测 (默认)
+     */
+    @Setter
+    private SlowOperationDetector detector;
+
+    /**
+     * 实体与 Hash 之间映射所使用的 {@link ObjectMapper}, 为 {@code null} 时使用 {@link EntityHashMapper#of(Class)}
+     */
+    private volatile ObjectMapper objectMapper;
+
+    @Getter(AccessLevel.NONE)
+    private final ConcurrentMap<Class<?>, EntityHashMapper<?>> entityMappers = new ConcurrentHashMap<>();
+
+    /**
+     * 写回缓冲区, 为 {@code null} 时不缓冲 (默认)
+     *
+     * @see BaseRedisHelperImpl#enableWriteBehind(Duration, int)
+     */
+    private volatile WriteBehindBuffer<K, V> writeBehind;
+
     /**
      * 在调用以 set / put 开头的方法前, 对 {@code key} 进行验证
      *
@@ -35,51 +91,427 @@ public class BaseRedisHelperImpl<K, V> implements IRedisHelper<K, V> {
         }
     }
 
+    /**
+     * 验证 {@code key}, 并先写入其在写回缓冲区中的写入, 以保证写入顺序
+     */
+    private void beforeWrite(K key) {
+        verifyKey(key);
+        flushPending(key);
+    }
+
+    private void flushPending(K key) {
+        WriteBehindBuffer<K, V> buffer = this.writeBehind;
+        if (buffer != null) {
+            buffer.flush(key);
+        }
+    }
+
+    /**
+     * 设置实体与 Hash 之间映射所使用的 {@link ObjectMapper}, 应与值的序列化器使用相同的配置
+     *
+     * @see BaseRedisHelperImpl#entityMapper(Class)
+     */
+    public void setObjectMapper(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.entityMappers.clear();
+    }
+
+    /**
+     * 开启写回模式: {@link BaseRedisHelperImpl#set(Object, Object)}, {@link BaseRedisHelperImpl#incrementLater(Object, long)}
+     * 与 {@link BaseRedisHelperImpl#incrementLater(Object, Object, long)} 先在内存中按 Key 合并, 再批量写入 Redis.
+     * 本节点的 {@code get}, {@code getAll} 与 {@code hasKey} 可以读取到缓冲中的值, 其他读取 (以及其他节点) 最多延迟 {@code maxStaleness}.
+     * 对同一个 Key 的其他写入 (包括需要返回结果的 {@code increment}) 会先写入缓冲中的写入.
+     *
+     * @param maxStaleness   缓冲的写入最多停留的时间
+     * @param maxPendingKeys 最多缓冲的 Key 数量, 超出时直接写入
+     * @see WriteBehindBuffer
+     */
+    public synchronized void enableWriteBehind(@NotNull Duration maxStaleness, int maxPendingKeys) {
+        WriteBehindBuffer<K, V> previous = this.writeBehind;
+        this.writeBehind = new WriteBehindBuffer<>(this.template, maxStaleness, maxPendingKeys,
+                DEFAULT_PIPELINE_FLUSH_SIZE);
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    /**
+     * 关闭写回模式, 并写入所有缓冲的写入
+     */
+    public synchronized void disableWriteBehind() {
+        WriteBehindBuffer<K, V> buffer = this.writeBehind;
+        this.writeBehind = null;
+        if (buffer != null) {
+            buffer.close();
+        }
+    }
+
+    /**
+     * 关闭时写入写回缓冲区中的所有写入
+     */
+    @Override
+    public void destroy() {
+        disableWriteBehind();
+    }
+
+    /**
+     * 执行 {@code call}, 开启检测时将耗时, 值的大小与字段数量交给 {@link BaseRedisHelperImpl#getDetector()}
+     *
+     * @param payload    根据结果获取序列化后的值, 只在抽样时调用; 可以为 {@code null}
+     * @param fieldCount 根据结果获取 Hash 字段数量; 可以为 {@code null}
+     */
+    private <T> T detect(String operation, K key, Supplier<T> call, Function<T, byte[]> payload,
+                         ToLongFunction<T> fieldCount) {
+        SlowOperationDetector detector = this.detector;
+        if (detector == null) {
+            return call.get();
+        }
+        long start = System.nanoTime();
+        T result = call.get();
+        long latency = System.nanoTime() - start;
+        detector.record(operation, key, latency, payload == null || result == null ? null : () -> payload.apply(result),
+                fieldCount == null || result == null ? 0 : fieldCount.applyAsLong(result));
+        return result;
+    }
+
+    /**
+     * {@link BaseRedisHelperImpl#detect} 的异步版本, 在 {@code call} 返回的 {@link CompletableFuture} 成功完成时记录
+     */
+    private <T> CompletableFuture<T> detectAsync(String operation, K key, Supplier<CompletableFuture<T>> call,
+                                                 Function<T, byte[]> payload) {
+        SlowOperationDetector detector = this.detector;
+        if (detector == null) {
+            return call.get();
+        }
+        long start = System.nanoTime();
+        CompletableFuture<T> future = call.get();
+        future.whenComplete((result, error) -> {
+            if (error == null) {
+                detector.record(operation, key, System.nanoTime() - start,
+                        result == null ? null : () -> payload.apply(result), 0);
+            }
+        });
+        return future;
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] rawValue(Object value) {
+        return ((RedisSerializer<Object>) this.template.getValueSerializer()).serialize(value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] rawHashValue(Object value) {
+        return ((RedisSerializer<Object>) this.template.getHashValueSerializer()).serialize(value);
+    }
+
+    @Override
+    public V get(K key) {
+        WriteBehindBuffer<K, V> buffer = this.writeBehind;
+        V pending = buffer == null ? null : buffer.pendingValue(key);
+        if (pending != null) {
+            return pending;
+        }
+        return detect("get", key, () -> IRedisHelper.super.get(key), this::rawValue, null);
+    }
+
     @Override
     public IRedisHelper<K, V> set(K key, V value) {
         verifyKey(key);
-        return IRedisHelper.super.set(key, value);
+        WriteBehindBuffer<K, V> buffer = this.writeBehind;
+        if (buffer != null && buffer.set(key, value)) {
+            return this;
+        }
+        return detect("set", key, () -> IRedisHelper.super.set(key, value), result -> rawValue(value), null);
     }
 
     @Override
     public boolean setWithExpirationAt(K key, V value, Date expiration) {
-        verifyKey(key);
+        beforeWrite(key);
         return IRedisHelper.super.setWithExpirationAt(key, value, expiration);
     }
 
     @Override
     public boolean setWithExpirationAt(K key, V value, Instant expiration) {
-        verifyKey(key);
-        return IRedisHelper.super.setWithExpirationAt(key, value, expiration);
+        beforeWrite(key);
+        return detect("set", key, () -> IRedisHelper.super.setWithExpirationAt(key, value, expiration),
+                result -> rawValue(value), null);
     }
 
     @Override
     public boolean setWithExpiration(K key, V value, long expiration) {
-        verifyKey(key);
+        beforeWrite(key);
         return IRedisHelper.super.setWithExpiration(key, value, expiration);
     }
 
     @Override
     public boolean setWithExpiration(K key, V value, long expiration, TimeUnit timeUnit) {
-        verifyKey(key);
-        return IRedisHelper.super.setWithExpiration(key, value, expiration, timeUnit);
+        beforeWrite(key);
+        return detect("set", key, () -> IRedisHelper.super.setWithExpiration(key, value, expiration, timeUnit),
+                result -> rawValue(value), null);
+    }
+
+    @Override
+    public List<V> getAll(Collection<K> keys) {
+        List<V> values = IRedisHelper.super.getAll(keys);
+        WriteBehindBuffer<K, V> buffer = this.writeBehind;
+        if (buffer == null || values == null || buffer.pendingKeys() == 0) {
+            return values;
+        }
+        List<V> merged = new ArrayList<>(values);
+        int index = 0;
+        for (K key : keys) {
+            V pending = buffer.pendingValue(key);
+            if (pending != null) {
+                merged.set(index, pending);
+            }
+            index++;
+        }
+        return merged;
+    }
+
+    @Override
+    public IRedisHelper<K, V> setAll(Map<K, V> map) {
+        if (map != null) {
+            map.keySet().forEach(this::beforeWrite);
+        }
+        return IRedisHelper.super.setAll(map);
+    }
+
+    @Override
+    public boolean setAllWithExpiration(Map<K, V> map, Duration expiration) {
+        if (map != null) {
+            map.keySet().forEach(this::beforeWrite);
+        }
+        return IRedisHelper.super.setAllWithExpiration(map, expiration);
+    }
+
+    @Override
+    public void pipeline(int flushSize, Consumer<RedisPipeline<K, V>> action) {
+        WriteBehindBuffer<K, V> buffer = this.writeBehind;
+        if (buffer != null) {
+            // 管道中的写入无法逐个追踪, 先写入所有缓冲的写入
+            buffer.flush();
+        }
+        RedisPipeline.execute(this.template, flushSize, this::verifyKey, action);
+    }
+
+    @Override
+    public Object get(K key, Serializable field) {
+        return detect("hget", key, () -> IRedisHelper.super.get(key, field), this::rawHashValue, null);
+    }
+
+    @Override
+    public List<Object> multiGet(K key, Collection<Object> fields) {
+        return detect("hmget", key, () -> IRedisHelper.super.multiGet(key, fields), null,
+                values -> fields == null ? 0 : fields.size());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> EntityHashMapper<T> entityMapper(@NotNull Class<T> clazz) {
+        ObjectMapper mapper = this.objectMapper;
+        if (mapper == null) {
+            return IRedisHelper.super.entityMapper(clazz);
+        }
+        return (EntityHashMapper<T>) this.entityMappers.computeIfAbsent(clazz,
+                type -> new EntityHashMapper<>(type, mapper));
+    }
+
+    @Override
+    public Map<Object, Object> getAll(K key) {
+        return detect("hgetall", key, () -> IRedisHelper.super.getAll(key), null, Map::size);
+    }
+
+    @Override
+    public Set<Object> fields(K key) {
+        return detect("hkeys", key, () -> IRedisHelper.super.fields(key), null, Set::size);
     }
 
     @Override
     public IRedisHelper<K, V> put(K key, Serializable field, Object value) {
-        verifyKey(key);
-        return IRedisHelper.super.put(key, field, value);
+        beforeWrite(key);
+        return detect("hset", key, () -> IRedisHelper.super.put(key, field, value), result -> rawHashValue(value), null);
     }
 
     @Override
     public IRedisHelper<K, V> put(K key, Map<Serializable, ?> map) {
-        verifyKey(key);
-        return IRedisHelper.super.put(key, map);
+        beforeWrite(key);
+        return detect("hmset", key, () -> IRedisHelper.super.put(key, map), null,
+                result -> map == null ? 0 : map.size());
     }
 
     @Override
     public boolean putIfAbsent(K key, Serializable field, Object value) {
+        beforeWrite(key);
+        return detect("hsetnx", key, () -> IRedisHelper.super.putIfAbsent(key, field, value),
+                result -> rawHashValue(value), null);
+    }
+
+    @Override
+    public Long putWithExpiration(K key, Map<Serializable, ?> map, Duration expiration) {
+        beforeWrite(key);
+        return detect("hmset", key, () -> IRedisHelper.super.putWithExpiration(key, map, expiration), null,
+                result -> map == null ? 0 : map.size());
+    }
+
+    @Override
+    public Long incrementWithExpiration(K key, long delta, Duration expiration) {
+        beforeWrite(key);
+        return IRedisHelper.super.incrementWithExpiration(key, delta, expiration);
+    }
+
+    @Override
+    public Long pushCapped(K key, Collection<V> values, long capacity, Duration expiration) {
+        beforeWrite(key);
+        return IRedisHelper.super.pushCapped(key, values, capacity, expiration);
+    }
+
+    @Override
+    public CompletableFuture<V> getAsync(K key) {
+        WriteBehindBuffer<K, V> buffer = this.writeBehind;
+        V pending = buffer == null ? null : buffer.pendingValue(key);
+        if (pending != null) {
+            return CompletableFuture.completedFuture(pending);
+        }
+        return detectAsync("get", key, () -> IRedisHelper.super.getAsync(key), this::rawValue);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> setAsync(K key, V value) {
+        beforeWrite(key);
+        return detectAsync("set", key, () -> IRedisHelper.super.setAsync(key, value), result -> rawValue(value));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> setAsync(K key, V value, Duration expiration) {
+        beforeWrite(key);
+        return detectAsync("set", key, () -> IRedisHelper.super.setAsync(key, value, expiration),
+                result -> rawValue(value));
+    }
+
+    @Override
+    public V getOrLoad(K key, Supplier<V> loader, Duration ttl) {
+        beforeWrite(key);
+        return this.singleFlightLoader.getOrLoad(key, loader, ttl);
+    }
+
+    @Override
+    public Long increment(K key, long delta) {
+        flushPending(key);
+        return IRedisHelper.super.increment(key, delta);
+    }
+
+    @Override
+    public Long increment(K key, Object field, long delta) {
+        flushPending(key);
+        return IRedisHelper.super.increment(key, field, delta);
+    }
+
+    /**
+     * 不需要结果的 {@link BaseRedisHelperImpl#increment(Object, long)}: 开启写回模式时先在内存中合并, 否则直接写入
+     *
+     * @param delta 可以为非正数
+     * @see BaseRedisHelperImpl#enableWriteBehind(Duration, int)
+     */
+    @Override
+    public void incrementLater(K key, long delta) {
         verifyKey(key);
-        return IRedisHelper.super.putIfAbsent(key, field, value);
+        WriteBehindBuffer<K, V> buffer = this.writeBehind;
+        if (buffer == null || !buffer.increment(key, delta)) {
+            IRedisHelper.super.increment(key, delta);
+        }
+    }
+
+    /**
+     * 不需要结果的 {@link BaseRedisHelperImpl#increment(Object, Object, long)}: 开启写回模式时先在内存中合并, 否则直接写入
+     *
+     * @param delta 可以为非正数
+     * @see BaseRedisHelperImpl#enableWriteBehind(Duration, int)
+     */
+    @Override
+    public void incrementLater(K key, Object field, long delta) {
+        verifyKey(key);
+        WriteBehindBuffer<K, V> buffer = this.writeBehind;
+        if (buffer == null || !buffer.increment(key, field, delta)) {
+            IRedisHelper.super.increment(key, field, delta);
+        }
+    }
+
+    @Override
+    public Double increment(K key, double delta) {
+        flushPending(key);
+        return IRedisHelper.super.increment(key, delta);
+    }
+
+    @Override
+    public Double increment(K key, Object field, double delta) {
+        flushPending(key);
+        return IRedisHelper.super.increment(key, field, delta);
+    }
+
+    @Override
+    public CompletableFuture<Long> incrementAsync(K key, long delta) {
+        flushPending(key);
+        return IRedisHelper.super.incrementAsync(key, delta);
+    }
+
+    @Override
+    public Boolean expireAt(K key, Date expiration) {
+        flushPending(key);
+        return IRedisHelper.super.expireAt(key, expiration);
+    }
+
+    @Override
+    public Boolean expire(K key, long expiration, TimeUnit timeUnit) {
+        flushPending(key);
+        return IRedisHelper.super.expire(key, expiration, timeUnit);
+    }
+
+    @Override
+    public boolean delete(K key) {
+        flushPending(key);
+        return IRedisHelper.super.delete(key);
+    }
+
+    @Override
+    public Long delete(Collection<K> keys) {
+        if (keys != null) {
+            keys.forEach(this::flushPending);
+        }
+        return IRedisHelper.super.delete(keys);
+    }
+
+    @Override
+    public Boolean delete(K key, Object field) {
+        flushPending(key);
+        return IRedisHelper.super.delete(key, field);
+    }
+
+    @Override
+    public Long delete(K key, Collection<Object> fields) {
+        flushPending(key);
+        return IRedisHelper.super.delete(key, fields);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> deleteAsync(K key) {
+        flushPending(key);
+        return IRedisHelper.super.deleteAsync(key);
+    }
+
+    @Override
+    public boolean hasKey(K key) {
+        WriteBehindBuffer<K, V> buffer = this.writeBehind;
+        if (buffer != null && buffer.hasPendingWrites(key)) {
+            // 缓冲的写入写入后该 Key 一定存在
+            return true;
+        }
+        return IRedisHelper.super.hasKey(key);
+    }
+
+    @Override
+    public boolean compareAndDelete(K key, V expected) {
+        flushPending(key);
+        return IRedisHelper.super.compareAndDelete(key, expected);
     }
 }
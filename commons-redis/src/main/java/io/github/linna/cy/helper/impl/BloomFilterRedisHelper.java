@@ -0,0 +1,531 @@
+package io.github.linna.cy.helper.impl;
+
+import io.github.linna.cy.cache.BloomFilter;
+import io.github.linna.cy.helper.IRedisHelper;
+import io.github.linna.cy.script.LuaScript;
+import io.github.linna.cy.script.RedisScripts;
+import org.apache.commons.collections4.CollectionUtils;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import javax.validation.constraints.NotNull;
+import java.io.Serializable;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * 在 {@link IRedisHelper} 前增加布隆过滤器的装饰器, 用于拦截对不存在的 Key 的查询 (缓存穿透).
+ * <p>
+ * {@code get} / {@code hasKey} 等读取方法先检查进程内的 {@link BloomFilter}, 一定不存在的 Key 直接返回空结果,
+ * 不再访问 Redis; set / put / increment 等会创建 Key 的写入在写入 Redis 之前将 Key 加入过滤器.
+ * 已有的 Key 通过 {@link BloomFilterRedisHelper#populate(String, int)} 批量加入.
+ * </p>
+ * <p>
+ * 过滤器可以镜像到一个 Redis 位图中, 以便多个节点共享 (见 {@link BloomFilterRedisHelper#enableMirror(Object, boolean)}):
+ * 加入 Key 时先 SETBIT 再更新本地, 因此本地的位始终是位图的子集; 本地判断不存在时, 可以再以一次 GETBIT
+ * 脚本向位图确认, 以发现其他节点写入的 Key.
+ * </p>
+ * <p>
+ * NOTES: 元素无法从过滤器中删除, 已删除或已过期的 Key 只会被放行. 不经过本装饰器的写入 (其他服务、
+ * {@code pipeline} 中的写入) 需要调用 {@link BloomFilterRedisHelper#add(Object)}, 否则会被误判为不存在.
+ * 共享同一个位图的节点必须使用相同的预期元素数量与误判率.
+ * </p>
+ */
+public class BloomFilterRedisHelper<K, V> extends DelegatingRedisHelper<K, V> {
+
+    /**
+     * KEYS[1]: 位图; ARGV: 各个位的偏移量. 将所有位设置为 {@code 1}
+     */
+    public static final LuaScript MIRROR_SET = new LuaScript("bloomFilterSet",
+            "for i = 1, #ARGV do\n" +
+                    "    redis.call('SETBIT', KEYS[1], ARGV[i], 1)\n" +
+                    "end\n" +
+                    "return #ARGV", ReturnType.INTEGER);
+
+    /**
+     * KEYS[1]: 位图; ARGV: 各个位的偏移量. 所有位都为 {@code 1} 时返回 {@code 1}, 否则返回 {@code 0}
+     */
+    public static final LuaScript MIRROR_CHECK = new LuaScript("bloomFilterCheck",
+            "for i = 1, #ARGV do\n" +
+                    "    if redis.call('GETBIT', KEYS[1], ARGV[i]) == 0 then\n" +
+                    "        return 0\n" +
+                    "    end\n" +
+                    "end\n" +
+                    "return 1", ReturnType.INTEGER);
+
+    /**
+     * 批量加入时每次脚本调用设置的最大位数
+     */
+    private static final int MIRROR_BATCH_POSITIONS = 4096;
+
+    private final BloomFilter filter;
+    private final RedisSerializer<K> keySerializer;
+
+    private volatile byte[] rawMirrorKey;
+    private volatile boolean verifyNegatives;
+    private volatile boolean guardLoads;
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder passed = new LongAdder();
+
+    /**
+     * @param expectedInsertions 预期的 Key 数量
+     * @param fpp                期望的误判率, 取值范围 {@code (0, 1)}
+     */
+    @SuppressWarnings("unchecked")
+    public BloomFilterRedisHelper(IRedisHelper<K, V> delegate, long expectedInsertions, double fpp) {
+        super(delegate);
+        this.filter = new BloomFilter(expectedInsertions, fpp);
+        this.keySerializer = (RedisSerializer<K>) delegate.getTemplate().getKeySerializer();
+    }
+
+    /**
+     * 将过滤器镜像到 Redis 位图 {@code mirrorKey} 中, 并合并位图中已有的数据
+     *
+     * @param verifyNegatives 本地判断不存在时是否向位图确认. 为 {@code false} 时不增加请求,
+     *                        但其他节点新写入的 Key 只有在 {@link BloomFilterRedisHelper#syncFromMirror()} 之后才可见
+     */
+    public BloomFilterRedisHelper<K, V> enableMirror(@NotNull K mirrorKey, boolean verifyNegatives) {
+        this.rawMirrorKey = this.keySerializer.serialize(mirrorKey);
+        this.verifyNegatives = verifyNegatives;
+        syncFromMirror();
+        return this;
+    }
+
+    /**
+     * 是否同时拦截 {@code getOrLoad}: 一定不存在的 Key 不再调用 {@code loader}.
+     * 只有在过滤器包含所有有效的 Key (例如加载数据源中的所有 ID 时调用了 {@link BloomFilterRedisHelper#add(Object)}) 时才能开启
+     */
+    public BloomFilterRedisHelper<K, V> setGuardLoads(boolean guardLoads) {
+        this.guardLoads = guardLoads;
+        return this;
+    }
+
+    /**
+     * 将 Redis 位图中的数据合并到本地, 未开启镜像时不执行任何操作
+     */
+    public void syncFromMirror() {
+        byte[] mirrorKey = this.rawMirrorKey;
+        if (mirrorKey == null) {
+            return;
+        }
+        byte[] bitmap = this.getTemplate().execute((RedisCallback<byte[]>) connection ->
+                connection.stringCommands().get(mirrorKey));
+        if (bitmap != null) {
+            this.filter.merge(bitmap);
+        }
+    }
+
+    /**
+     * 遍历 Redis 中所有匹配的 Key 并加入过滤器
+     *
+     * @param pattern   匹配的是序列化后的 Key, 为 {@code null} 时匹配所有
+     * @param batchSize 每批次的数量提示 (COUNT), 不大于 {@code 0} 时使用 Redis 的默认值
+     * @return 遍历的 Key 的数量
+     */
+    public long populate(String pattern, int batchSize) {
+        long count = 0;
+        List<long[]> pending = new ArrayList<>();
+        int pendingPositions = 0;
+        try (Stream<K> keys = this.scanKeys(pattern, batchSize)) {
+            Iterator<K> iterator = keys.iterator();
+            while (iterator.hasNext()) {
+                byte[] rawKey = this.keySerializer.serialize(iterator.next());
+                count++;
+                if (rawKey == null) {
+                    continue;
+                }
+                long[] positions = this.filter.positions(rawKey);
+                if (this.filter.mightContain(positions)) {
+                    continue;
+                }
+                pending.add(positions);
+                pendingPositions += positions.length;
+                if (pendingPositions >= MIRROR_BATCH_POSITIONS) {
+                    addAll(pending);
+                    pending.clear();
+                    pendingPositions = 0;
+                }
+            }
+        }
+        addAll(pending);
+        return count;
+    }
+
+    /**
+     * 将 {@code key} 加入过滤器
+     */
+    public void add(K key) {
+        byte[] rawKey = key == null ? null : this.keySerializer.serialize(key);
+        if (rawKey == null) {
+            return;
+        }
+        long[] positions = this.filter.positions(rawKey);
+        if (!this.filter.mightContain(positions)) {
+            addAll(Collections.singletonList(positions));
+        }
+    }
+
+    /**
+     * {@code key} 是否可能存在. 返回 {@code false} 时一定不存在
+     */
+    public boolean mightExist(K key) {
+        byte[] rawKey = key == null ? null : this.keySerializer.serialize(key);
+        if (rawKey == null) {
+            // 交由被装饰的 helper 验证
+            return true;
+        }
+        long[] positions = this.filter.positions(rawKey);
+        if (this.filter.mightContain(positions)) {
+            this.passed.increment();
+            return true;
+        }
+        byte[] mirrorKey = this.rawMirrorKey;
+        if (mirrorKey != null && this.verifyNegatives) {
+            Long found = MIRROR_CHECK.execute(this.getTemplate(), 1, arguments(mirrorKey, positions));
+            if (found != null && found == 1) {
+                this.filter.set(positions);
+                this.passed.increment();
+                return true;
+            }
+        }
+        this.rejected.increment();
+        return false;
+    }
+
+    /**
+     * 本地的过滤器
+     */
+    public BloomFilter filter() {
+        return this.filter;
+    }
+
+    /**
+     * 被判断为不存在而直接返回的查询次数
+     */
+    public long rejectedCount() {
+        return this.rejected.sum();
+    }
+
+    /**
+     * 被放行的查询次数
+     */
+    public long passedCount() {
+        return this.passed.sum();
+    }
+
+    @Override
+    public V get(K key) {
+        return mightExist(key) ? super.get(key) : null;
+    }
+
+    /**
+     * 加载到的值在写入 Redis 之前加入过滤器
+     */
+    @Override
+    public V getOrLoad(K key, Supplier<V> loader, Duration ttl) {
+        if (this.guardLoads && !mightExist(key)) {
+            return null;
+        }
+        return super.getOrLoad(key, () -> {
+            V value = loader.get();
+            if (value != null) {
+                add(key);
+            }
+            return value;
+        }, ttl);
+    }
+
+    @Override
+    public CompletableFuture<V> getAsync(K key) {
+        return mightExist(key) ? super.getAsync(key) : CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public List<V> getAll(Collection<K> keys) {
+        return getExisting(keys, super::getAll);
+    }
+
+    @Override
+    public Object get(K key, Serializable field) {
+        return mightExist(key) ? super.get(key, field) : null;
+    }
+
+    @Override
+    public <T> T get(K key, Object field, Class<T> clazz) {
+        return mightExist(key) ? super.get(key, field, clazz) : null;
+    }
+
+    @Override
+    public Map<Object, Object> getAll(K key) {
+        return mightExist(key) ? super.getAll(key) : new HashMap<>();
+    }
+
+    @Override
+    public List<Object> getAll(Collection<K> keys, Serializable field) {
+        return getExisting(keys, existing -> super.getAll(existing, field));
+    }
+
+    @Override
+    public List<Object> multiGet(K key, Collection<Object> fields) {
+        if (CollectionUtils.isEmpty(fields) || mightExist(key)) {
+            return super.multiGet(key, fields);
+        }
+        return new ArrayList<>(Collections.nCopies(fields.size(), null));
+    }
+
+    @Override
+    public <T> T getEntity(K key, Class<T> clazz) {
+        return mightExist(key) ? super.getEntity(key, clazz) : null;
+    }
+
+    @Override
+    public <T> T getFields(K key, Class<T> clazz, String... fieldNames) {
+        return mightExist(key) ? super.getFields(key, clazz, fieldNames) : null;
+    }
+
+    @Override
+    public boolean hasKey(K key) {
+        return mightExist(key) && super.hasKey(key);
+    }
+
+    @Override
+    public boolean hasKey(K key, Serializable field) {
+        return mightExist(key) && super.hasKey(key, field);
+    }
+
+    @Override
+    public IRedisHelper<K, V> set(K key, V value) {
+        add(key);
+        return super.set(key, value);
+    }
+
+    @Override
+    public boolean setWithExpirationAt(K key, V value, Date expiration) {
+        add(key);
+        return super.setWithExpirationAt(key, value, expiration);
+    }
+
+    @Override
+    public boolean setWithExpirationAt(K key, V value, Instant expiration) {
+        add(key);
+        return super.setWithExpirationAt(key, value, expiration);
+    }
+
+    @Override
+    public boolean setWithExpiration(K key, V value, long expiration) {
+        add(key);
+        return super.setWithExpiration(key, value, expiration);
+    }
+
+    @Override
+    public boolean setWithExpiration(K key, V value, long expiration, TimeUnit timeUnit) {
+        add(key);
+        return super.setWithExpiration(key, value, expiration, timeUnit);
+    }
+
+    @Override
+    public IRedisHelper<K, V> setAll(Map<K, V> map) {
+        if (map != null) {
+            map.keySet().forEach(this::add);
+        }
+        return super.setAll(map);
+    }
+
+    @Override
+    public boolean setAllWithExpiration(Map<K, V> map, Duration expiration) {
+        if (map != null) {
+            map.keySet().forEach(this::add);
+        }
+        return super.setAllWithExpiration(map, expiration);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> setAsync(K key, V value) {
+        add(key);
+        return super.setAsync(key, value);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> setAsync(K key, V value, Duration expiration) {
+        add(key);
+        return super.setAsync(key, value, expiration);
+    }
+
+    @Override
+    public CompletableFuture<Long> incrementAsync(K key, long delta) {
+        add(key);
+        return super.incrementAsync(key, delta);
+    }
+
+    @Override
+    public IRedisHelper<K, V> put(K key, Serializable field, Object value) {
+        add(key);
+        return super.put(key, field, value);
+    }
+
+    @Override
+    public IRedisHelper<K, V> put(K key, Map<Serializable, ?> map) {
+        add(key);
+        return super.put(key, map);
+    }
+
+    @Override
+    public boolean putIfAbsent(K key, Serializable field, Object value) {
+        add(key);
+        return super.putIfAbsent(key, field, value);
+    }
+
+    @Override
+    public <T> IRedisHelper<K, V> putEntity(K key, T entity) {
+        add(key);
+        return super.putEntity(key, entity);
+    }
+
+    @Override
+    public <T> IRedisHelper<K, V> updateFields(K key, T partial) {
+        add(key);
+        return super.updateFields(key, partial);
+    }
+
+    @Override
+    public Long putWithExpiration(K key, Map<Serializable, ?> map, Duration expiration) {
+        add(key);
+        return super.putWithExpiration(key, map, expiration);
+    }
+
+    @Override
+    public Long increment(K key, long delta) {
+        add(key);
+        return super.increment(key, delta);
+    }
+
+    @Override
+    public void incrementLater(K key, long delta) {
+        add(key);
+        super.incrementLater(key, delta);
+    }
+
+    @Override
+    public Double increment(K key, double delta) {
+        add(key);
+        return super.increment(key, delta);
+    }
+
+    @Override
+    public Long increment(K key, Object field, long delta) {
+        add(key);
+        return super.increment(key, field, delta);
+    }
+
+    @Override
+    public void incrementLater(K key, Object field, long delta) {
+        add(key);
+        super.incrementLater(key, field, delta);
+    }
+
+    @Override
+    public Double increment(K key, Object field, double delta) {
+        add(key);
+        return super.increment(key, field, delta);
+    }
+
+    @Override
+    public Long incrementWithExpiration(K key, long delta, Duration expiration) {
+        add(key);
+        return super.incrementWithExpiration(key, delta, expiration);
+    }
+
+    @Override
+    public Long pushCapped(K key, V value, long capacity) {
+        add(key);
+        return super.pushCapped(key, value, capacity);
+    }
+
+    @Override
+    public Long pushCapped(K key, Collection<V> values, long capacity, Duration expiration) {
+        add(key);
+        return super.pushCapped(key, values, capacity, expiration);
+    }
+
+    /**
+     * 只对可能存在的 Key 执行批量读取, 其余位置为 {@code null}
+     */
+    private <T> List<T> getExisting(Collection<K> keys, Function<Collection<K>, List<T>> loader) {
+        if (CollectionUtils.isEmpty(keys)) {
+            return loader.apply(keys);
+        }
+        List<T> result = new ArrayList<>(keys.size());
+        List<K> existingKeys = new ArrayList<>();
+        List<Integer> existingIndexes = new ArrayList<>();
+        for (K key : keys) {
+            if (mightExist(key)) {
+                existingKeys.add(key);
+                existingIndexes.add(result.size());
+            }
+            result.add(null);
+        }
+        if (existingKeys.isEmpty()) {
+            return result;
+        }
+        if (existingKeys.size() == keys.size()) {
+            return loader.apply(keys);
+        }
+        List<T> loaded = loader.apply(existingKeys);
+        if (loaded == null) {
+            return null;
+        }
+        for (int i = 0; i < existingKeys.size(); i++) {
+            result.set(existingIndexes.get(i), loaded.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * 镜像开启时先写入位图再更新本地, 保证本地的位是位图的子集
+     */
+    private void addAll(List<long[]> positionsList) {
+        if (positionsList.isEmpty()) {
+            return;
+        }
+        byte[] mirrorKey = this.rawMirrorKey;
+        if (mirrorKey != null) {
+            int total = 0;
+            for (long[] positions : positionsList) {
+                total += positions.length;
+            }
+            long[] all = new long[total];
+            int offset = 0;
+            for (long[] positions : positionsList) {
+                System.arraycopy(positions, 0, all, offset, positions.length);
+                offset += positions.length;
+            }
+            MIRROR_SET.execute(this.getTemplate(), 1, arguments(mirrorKey, all));
+        }
+        positionsList.forEach(this.filter::set);
+    }
+
+    private static byte[][] arguments(byte[] mirrorKey, long[] positions) {
+        byte[][] keysAndArgs = new byte[positions.length + 1][];
+        keysAndArgs[0] = mirrorKey;
+        for (int i = 0; i < positions.length; i++) {
+            keysAndArgs[i + 1] = RedisScripts.toArgument(positions[i]);
+        }
+        return keysAndArgs;
+    }
+}
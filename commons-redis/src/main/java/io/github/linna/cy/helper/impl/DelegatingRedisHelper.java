@@ -0,0 +1,340 @@
+package io.github.linna.cy.helper.impl;
+
+import io.github.linna.cy.helper.EntityHashMapper;
+import io.github.linna.cy.helper.IRedisHelper;
+import io.github.linna.cy.helper.RedisPipeline;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.connection.DataType;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * 将所有 {@link IRedisHelper} 的方法转发给 {@link DelegatingRedisHelper#getDelegate()} 的装饰器基类.
+ * <p>
+ * 子类只需要覆盖需要增强的方法即可, 其余方法 (包括 {@code delegate} 中的 Key 验证) 保持原有行为.
+ * </p>
+ */
+@RequiredArgsConstructor
+public abstract class DelegatingRedisHelper<K, V> implements IRedisHelper<K, V> {
+    private final IRedisHelper<K, V> delegate;
+
+    /**
+     * 获取被装饰的 {@link IRedisHelper}
+     */
+    protected IRedisHelper<K, V> getDelegate() {
+        return this.delegate;
+    }
+
+    /**
+     * 获取操作单个 {@code key} 时所使用的 {@link IRedisHelper}, 默认为 {@link DelegatingRedisHelper#getDelegate()}.
+     * 子类可以覆盖此方法按 Key 路由 (例如分片)
+     */
+    protected IRedisHelper<K, V> getDelegate(K key) {
+        return getDelegate();
+    }
+
+    @Override
+    public RedisTemplate<K, V> getTemplate() {
+        return getDelegate().getTemplate();
+    }
+
+    @Override
+    public V get(K key) {
+        return getDelegate(key).get(key);
+    }
+
+    @Override
+    public V getOrLoad(K key, Supplier<V> loader, Duration ttl) {
+        return getDelegate(key).getOrLoad(key, loader, ttl);
+    }
+
+    @Override
+    public Executor getAsyncExecutor() {
+        return getDelegate().getAsyncExecutor();
+    }
+
+    @Override
+    public CompletableFuture<V> getAsync(K key) {
+        return getDelegate(key).getAsync(key);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> setAsync(K key, V value) {
+        return getDelegate(key).setAsync(key, value);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> setAsync(K key, V value, Duration expiration) {
+        return getDelegate(key).setAsync(key, value, expiration);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> deleteAsync(K key) {
+        return getDelegate(key).deleteAsync(key);
+    }
+
+    @Override
+    public CompletableFuture<Long> incrementAsync(K key, long delta) {
+        return getDelegate(key).incrementAsync(key, delta);
+    }
+
+    @Override
+    public IRedisHelper<K, V> set(K key, V value) {
+        getDelegate(key).set(key, value);
+        return this;
+    }
+
+    @Override
+    public boolean setWithExpirationAt(K key, V value, Date expiration) {
+        return getDelegate(key).setWithExpirationAt(key, value, expiration);
+    }
+
+    @Override
+    public boolean setWithExpirationAt(K key, V value, Instant expiration) {
+        return getDelegate(key).setWithExpirationAt(key, value, expiration);
+    }
+
+    @Override
+    public boolean setWithExpiration(K key, V value, long expiration) {
+        return getDelegate(key).setWithExpiration(key, value, expiration);
+    }
+
+    @Override
+    public boolean setWithExpiration(K key, V value, long expiration, TimeUnit timeUnit) {
+        return getDelegate(key).setWithExpiration(key, value, expiration, timeUnit);
+    }
+
+    @Override
+    public List<V> getAll(Collection<K> keys) {
+        return getDelegate().getAll(keys);
+    }
+
+    @Override
+    public IRedisHelper<K, V> setAll(Map<K, V> map) {
+        getDelegate().setAll(map);
+        return this;
+    }
+
+    @Override
+    public boolean setAllWithExpiration(Map<K, V> map, Duration expiration) {
+        return getDelegate().setAllWithExpiration(map, expiration);
+    }
+
+    @Override
+    public void pipeline(int flushSize, Consumer<RedisPipeline<K, V>> action) {
+        getDelegate().pipeline(flushSize, action);
+    }
+
+    @Override
+    public Object get(K key, Serializable field) {
+        return getDelegate(key).get(key, field);
+    }
+
+    @Override
+    public <T> T get(K key, Object field, Class<T> clazz) {
+        return getDelegate(key).get(key, field, clazz);
+    }
+
+    @Override
+    public Map<Object, Object> getAll(K key) {
+        return getDelegate(key).getAll(key);
+    }
+
+    @Override
+    public List<Object> getAll(Collection<K> keys, Serializable field) {
+        return getDelegate().getAll(keys, field);
+    }
+
+    @Override
+    public IRedisHelper<K, V> put(K key, Serializable field, Object value) {
+        getDelegate(key).put(key, field, value);
+        return this;
+    }
+
+    @Override
+    public List<Object> multiGet(K key, Collection<Object> fields) {
+        return getDelegate(key).multiGet(key, fields);
+    }
+
+    @Override
+    public <T> EntityHashMapper<T> entityMapper(Class<T> clazz) {
+        return getDelegate().entityMapper(clazz);
+    }
+
+    @Override
+    public <T> IRedisHelper<K, V> putEntity(K key, T entity) {
+        getDelegate(key).putEntity(key, entity);
+        return this;
+    }
+
+    @Override
+    public <T> T getEntity(K key, Class<T> clazz) {
+        return getDelegate(key).getEntity(key, clazz);
+    }
+
+    @Override
+    public <T> T getFields(K key, Class<T> clazz, String... fieldNames) {
+        return getDelegate(key).getFields(key, clazz, fieldNames);
+    }
+
+    @Override
+    public <T> IRedisHelper<K, V> updateFields(K key, T partial) {
+        getDelegate(key).updateFields(key, partial);
+        return this;
+    }
+
+    @Override
+    public IRedisHelper<K, V> put(K key, Map<Serializable, ?> map) {
+        getDelegate(key).put(key, map);
+        return this;
+    }
+
+    @Override
+    public boolean putIfAbsent(K key, Serializable field, Object value) {
+        return getDelegate(key).putIfAbsent(key, field, value);
+    }
+
+    @Override
+    public Set<Object> fields(K key) {
+        return getDelegate(key).fields(key);
+    }
+
+    @Override
+    public Stream<Map.Entry<Object, Object>> scanFields(K key, String pattern, int batchSize) {
+        return getDelegate(key).scanFields(key, pattern, batchSize);
+    }
+
+    @Override
+    public Stream<K> scanKeys(String pattern) {
+        return getDelegate().scanKeys(pattern);
+    }
+
+    @Override
+    public Stream<K> scanKeys(String pattern, int batchSize) {
+        return getDelegate().scanKeys(pattern, batchSize);
+    }
+
+    @Override
+    public Boolean expireAt(K key, Date expiration) {
+        return getDelegate(key).expireAt(key, expiration);
+    }
+
+    @Override
+    public Boolean expire(K key, long timestamp) {
+        return getDelegate(key).expire(key, timestamp);
+    }
+
+    @Override
+    public Boolean expire(K key, long expiration, TimeUnit timeUnit) {
+        return getDelegate(key).expire(key, expiration, timeUnit);
+    }
+
+    @Override
+    public Long getExpire(K key) {
+        return getDelegate(key).getExpire(key);
+    }
+
+    @Override
+    public boolean delete(K key) {
+        return getDelegate(key).delete(key);
+    }
+
+    @Override
+    public Long delete(Collection<K> keys) {
+        return getDelegate().delete(keys);
+    }
+
+    @Override
+    public Boolean delete(K key, Object field) {
+        return getDelegate(key).delete(key, field);
+    }
+
+    @Override
+    public Long delete(K key, Collection<Object> fields) {
+        return getDelegate(key).delete(key, fields);
+    }
+
+    @Override
+    public DataType type(K key) {
+        return getDelegate(key).type(key);
+    }
+
+    @Override
+    public Long increment(K key, long delta) {
+        return getDelegate(key).increment(key, delta);
+    }
+
+    @Override
+    public void incrementLater(K key, long delta) {
+        getDelegate(key).incrementLater(key, delta);
+    }
+
+    @Override
+    public Double increment(K key, double delta) {
+        return getDelegate(key).increment(key, delta);
+    }
+
+    @Override
+    public Long increment(K key, Object field, long delta) {
+        return getDelegate(key).increment(key, field, delta);
+    }
+
+    @Override
+    public void incrementLater(K key, Object field, long delta) {
+        getDelegate(key).incrementLater(key, field, delta);
+    }
+
+    @Override
+    public Double increment(K key, Object field, double delta) {
+        return getDelegate(key).increment(key, field, delta);
+    }
+
+    @Override
+    public Long incrementWithExpiration(K key, long delta, Duration expiration) {
+        return getDelegate(key).incrementWithExpiration(key, delta, expiration);
+    }
+
+    @Override
+    public boolean compareAndDelete(K key, V expected) {
+        return getDelegate(key).compareAndDelete(key, expected);
+    }
+
+    @Override
+    public Long putWithExpiration(K key, Map<Serializable, ?> map, Duration expiration) {
+        return getDelegate(key).putWithExpiration(key, map, expiration);
+    }
+
+    @Override
+    public Long pushCapped(K key, V value, long capacity) {
+        return getDelegate(key).pushCapped(key, value, capacity);
+    }
+
+    @Override
+    public Long pushCapped(K key, Collection<V> values, long capacity, Duration expiration) {
+        return getDelegate(key).pushCapped(key, values, capacity, expiration);
+    }
+
+    @Override
+    public boolean hasKey(K key) {
+        return getDelegate(key).hasKey(key);
+    }
+
+    @Override
+    public boolean hasKey(K key, Serializable field) {
+        return getDelegate(key).hasKey(key, field);
+    }
+}
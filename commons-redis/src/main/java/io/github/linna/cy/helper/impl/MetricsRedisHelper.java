@@ -0,0 +1,570 @@
+package io.github.linna.cy.helper.impl;
+
+import io.github.linna.cy.helper.IRedisHelper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import javax.validation.constraints.NotNull;
+import java.io.Serializable;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 为 {@link IRedisHelper} 的操作记录 Micrometer 指标的装饰器 (需要自行引入 {@code micrometer-core}).
+ * <ul>
+ *     <li>{@code redis.helper.operations}: 每种操作 ({@code get}, {@code set}, {@code put}, {@code delete},
+ *     {@code increment}, {@code expire}, {@code ttl}, {@code exists}, {@code push}) 的耗时直方图</li>
+ *     <li>{@code redis.helper.errors}: 失败次数, 以异常的类名作为 {@code exception} 标签</li>
+ *     <li>{@code redis.helper.gets}: {@code get} 的命中 ({@code result=hit}) 与未命中 ({@code result=miss}) 次数</li>
+ *     <li>{@code redis.helper.payload.size}: 值序列化后的大小 (单位: 字节), 按 {@link MetricsRedisHelper#getPayloadSampleInterval()} 抽样</li>
+ * </ul>
+ * 所有指标都带有 {@code namespace} 标签, 默认取 Key 中第一个 {@code ':'} 之前的部分;
+ * 批量操作的 Key 属于不同命名空间时, 耗时记为 {@link MetricsRedisHelper#MIXED_NAMESPACE}, 命中次数仍按各自的命名空间记录.
+ * 不同命名空间的数量超过 {@link MetricsRedisHelper#getMaximumNamespaces()} 后, 新的命名空间统一记为 {@link MetricsRedisHelper#OTHER_NAMESPACE}.
+ * <p>
+ * NOTES: 只统计通过本装饰器的方法调用, 直接使用 {@code opsForXxx()} 或管道的操作不会被记录.
+ * </p>
+ */
+public class MetricsRedisHelper<K, V> extends DelegatingRedisHelper<K, V> {
+
+    /**
+     * 默认的命名空间数量上限
+     */
+    public static final int DEFAULT_MAXIMUM_NAMESPACES = 100;
+
+    /**
+     * 默认每 100 次写入 / 读取统计一次值的大小
+     */
+    public static final int DEFAULT_PAYLOAD_SAMPLE_INTERVAL = 100;
+
+    /**
+     * 超过命名空间数量上限后使用的命名空间
+     */
+    public static final String OTHER_NAMESPACE = "other";
+
+    /**
+     * Key 中没有命名空间时使用的命名空间
+     */
+    public static final String NO_NAMESPACE = "none";
+
+    /**
+     * 批量操作的 Key 属于不同命名空间时使用的命名空间
+     */
+    public static final String MIXED_NAMESPACE = "mixed";
+
+    private static final String OPERATION_GET = "get";
+    private static final String OPERATION_SET = "set";
+    private static final String OPERATION_PUT = "put";
+    private static final String OPERATION_DELETE = "delete";
+    private static final String OPERATION_INCREMENT = "increment";
+    private static final String OPERATION_EXPIRE = "expire";
+    private static final String OPERATION_TTL = "ttl";
+    private static final String OPERATION_EXISTS = "exists";
+    private static final String OPERATION_PUSH = "push";
+
+    private final MeterRegistry registry;
+    private final Function<K, String> namespaceResolver;
+    private final int maximumNamespaces;
+    private final int payloadSampleInterval;
+
+    private final ConcurrentMap<String, Boolean> namespaces = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Timer> timers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, DistributionSummary> payloadSizes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<>();
+    private final AtomicLong payloadSequence = new AtomicLong();
+
+    public MetricsRedisHelper(@NotNull IRedisHelper<K, V> delegate, @NotNull MeterRegistry registry) {
+        this(delegate, registry, MetricsRedisHelper::defaultNamespace, DEFAULT_MAXIMUM_NAMESPACES,
+                DEFAULT_PAYLOAD_SAMPLE_INTERVAL);
+    }
+
+    /**
+     * @param namespaceResolver     从 Key 中解析命名空间, 返回 {@code null} 时记为 {@link MetricsRedisHelper#NO_NAMESPACE}
+     * @param maximumNamespaces     命名空间数量上限
+     * @param payloadSampleInterval 每多少次读取 / 写入统计一次值的大小, 不大于 {@code 0} 时不统计
+     */
+    public MetricsRedisHelper(@NotNull IRedisHelper<K, V> delegate, @NotNull MeterRegistry registry,
+                              @NotNull Function<K, String> namespaceResolver, int maximumNamespaces,
+                              int payloadSampleInterval) {
+        super(delegate);
+        this.registry = registry;
+        this.namespaceResolver = namespaceResolver;
+        this.maximumNamespaces = maximumNamespaces;
+        this.payloadSampleInterval = payloadSampleInterval;
+    }
+
+    public int getMaximumNamespaces() {
+        return this.maximumNamespaces;
+    }
+
+    public int getPayloadSampleInterval() {
+        return this.payloadSampleInterval;
+    }
+
+    /**
+     * 默认的命名空间: Key 中第一个 {@code ':'} 之前的部分
+     */
+    public static String defaultNamespace(Object key) {
+        if (key == null) {
+            return null;
+        }
+        String text = key.toString();
+        int index = text.indexOf(':');
+        return index <= 0 ? null : text.substring(0, index);
+    }
+
+    @Override
+    public V get(K key) {
+        return recordGet(key, () -> super.get(key), false);
+    }
+
+    @Override
+    public V getOrLoad(K key, Supplier<V> loader, Duration ttl) {
+        return record(OPERATION_GET, namespace(key), () -> super.getOrLoad(key, loader, ttl));
+    }
+
+    @Override
+    public CompletableFuture<V> getAsync(K key) {
+        String namespace = namespace(key);
+        long start = System.nanoTime();
+        return super.getAsync(key).whenComplete((value, error) -> {
+            complete(OPERATION_GET, namespace, start, error);
+            if (error == null) {
+                recordHit(namespace, value != null);
+                recordPayload(OPERATION_GET, namespace, value, false);
+            }
+        });
+    }
+
+    @Override
+    public CompletableFuture<Boolean> setAsync(K key, V value) {
+        String namespace = namespace(key);
+        recordPayload(OPERATION_SET, namespace, value, false);
+        return recordAsync(OPERATION_SET, namespace, super.setAsync(key, value));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> setAsync(K key, V value, Duration expiration) {
+        String namespace = namespace(key);
+        recordPayload(OPERATION_SET, namespace, value, false);
+        return recordAsync(OPERATION_SET, namespace, super.setAsync(key, value, expiration));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> deleteAsync(K key) {
+        return recordAsync(OPERATION_DELETE, namespace(key), super.deleteAsync(key));
+    }
+
+    @Override
+    public CompletableFuture<Long> incrementAsync(K key, long delta) {
+        return recordAsync(OPERATION_INCREMENT, namespace(key), super.incrementAsync(key, delta));
+    }
+
+    @Override
+    public IRedisHelper<K, V> set(K key, V value) {
+        recordSet(key, value, () -> super.set(key, value));
+        return this;
+    }
+
+    @Override
+    public boolean setWithExpirationAt(K key, V value, Date expiration) {
+        return recordSet(key, value, () -> super.setWithExpirationAt(key, value, expiration));
+    }
+
+    @Override
+    public boolean setWithExpirationAt(K key, V value, Instant expiration) {
+        return recordSet(key, value, () -> super.setWithExpirationAt(key, value, expiration));
+    }
+
+    @Override
+    public boolean setWithExpiration(K key, V value, long expiration) {
+        return recordSet(key, value, () -> super.setWithExpiration(key, value, expiration));
+    }
+
+    @Override
+    public boolean setWithExpiration(K key, V value, long expiration, TimeUnit timeUnit) {
+        return recordSet(key, value, () -> super.setWithExpiration(key, value, expiration, timeUnit));
+    }
+
+    @Override
+    public List<V> getAll(Collection<K> keys) {
+        List<V> values = record(OPERATION_GET, namespace(keys), () -> super.getAll(keys));
+        recordHits(keys, values);
+        return values;
+    }
+
+    @Override
+    public IRedisHelper<K, V> setAll(Map<K, V> map) {
+        record(OPERATION_SET, namespace(map == null ? null : map.keySet()), () -> super.setAll(map));
+        return this;
+    }
+
+    @Override
+    public boolean setAllWithExpiration(Map<K, V> map, Duration expiration) {
+        return record(OPERATION_SET, namespace(map == null ? null : map.keySet()),
+                () -> super.setAllWithExpiration(map, expiration));
+    }
+
+    @Override
+    public Object get(K key, Serializable field) {
+        return recordGet(key, () -> super.get(key, field), true);
+    }
+
+    @Override
+    public <T> T get(K key, Object field, Class<T> clazz) {
+        return recordGet(key, () -> super.get(key, field, clazz), true);
+    }
+
+    @Override
+    public Map<Object, Object> getAll(K key) {
+        String namespace = namespace(key);
+        Map<Object, Object> entries = record(OPERATION_GET, namespace, () -> super.getAll(key));
+        recordHit(namespace, entries != null && !entries.isEmpty());
+        return entries;
+    }
+
+    @Override
+    public List<Object> getAll(Collection<K> keys, Serializable field) {
+        List<Object> values = record(OPERATION_GET, namespace(keys), () -> super.getAll(keys, field));
+        recordHits(keys, values);
+        return values;
+    }
+
+    @Override
+    public Set<Object> fields(K key) {
+        String namespace = namespace(key);
+        Set<Object> fields = record(OPERATION_GET, namespace, () -> super.fields(key));
+        recordHit(namespace, fields != null && !fields.isEmpty());
+        return fields;
+    }
+
+    @Override
+    public IRedisHelper<K, V> put(K key, Serializable field, Object value) {
+        String namespace = namespace(key);
+        recordPayload(OPERATION_PUT, namespace, value, true);
+        record(OPERATION_PUT, namespace, () -> super.put(key, field, value));
+        return this;
+    }
+
+    @Override
+    public List<Object> multiGet(K key, Collection<Object> fields) {
+        String namespace = namespace(key);
+        List<Object> values = record(OPERATION_GET, namespace, () -> super.multiGet(key, fields));
+        if (values != null) {
+            for (Object value : values) {
+                recordHit(namespace, value != null);
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public <T> IRedisHelper<K, V> putEntity(K key, T entity) {
+        record(OPERATION_PUT, namespace(key), () -> super.putEntity(key, entity));
+        return this;
+    }
+
+    @Override
+    public <T> T getEntity(K key, Class<T> clazz) {
+        return recordGet(key, () -> super.getEntity(key, clazz), true);
+    }
+
+    @Override
+    public <T> T getFields(K key, Class<T> clazz, String... fieldNames) {
+        return recordGet(key, () -> super.getFields(key, clazz, fieldNames), true);
+    }
+
+    @Override
+    public <T> IRedisHelper<K, V> updateFields(K key, T partial) {
+        record(OPERATION_PUT, namespace(key), () -> super.updateFields(key, partial));
+        return this;
+    }
+
+    @Override
+    public IRedisHelper<K, V> put(K key, Map<Serializable, ?> map) {
+        record(OPERATION_PUT, namespace(key), () -> super.put(key, map));
+        return this;
+    }
+
+    @Override
+    public boolean putIfAbsent(K key, Serializable field, Object value) {
+        String namespace = namespace(key);
+        recordPayload(OPERATION_PUT, namespace, value, true);
+        return record(OPERATION_PUT, namespace, () -> super.putIfAbsent(key, field, value));
+    }
+
+    @Override
+    public Boolean expireAt(K key, Date expiration) {
+        return record(OPERATION_EXPIRE, namespace(key), () -> super.expireAt(key, expiration));
+    }
+
+    @Override
+    public Boolean expire(K key, long timestamp) {
+        return record(OPERATION_EXPIRE, namespace(key), () -> super.expire(key, timestamp));
+    }
+
+    @Override
+    public Boolean expire(K key, long expiration, TimeUnit timeUnit) {
+        return record(OPERATION_EXPIRE, namespace(key), () -> super.expire(key, expiration, timeUnit));
+    }
+
+    @Override
+    public Long getExpire(K key) {
+        return record(OPERATION_TTL, namespace(key), () -> super.getExpire(key));
+    }
+
+    @Override
+    public boolean delete(K key) {
+        return record(OPERATION_DELETE, namespace(key), () -> super.delete(key));
+    }
+
+    @Override
+    public Long delete(Collection<K> keys) {
+        return record(OPERATION_DELETE, namespace(keys), () -> super.delete(keys));
+    }
+
+    @Override
+    public Boolean delete(K key, Object field) {
+        return record(OPERATION_DELETE, namespace(key), () -> super.delete(key, field));
+    }
+
+    @Override
+    public Long delete(K key, Collection<Object> fields) {
+        return record(OPERATION_DELETE, namespace(key), () -> super.delete(key, fields));
+    }
+
+    @Override
+    public Long increment(K key, long delta) {
+        return record(OPERATION_INCREMENT, namespace(key), () -> super.increment(key, delta));
+    }
+
+    @Override
+    public void incrementLater(K key, long delta) {
+        record(OPERATION_INCREMENT, namespace(key), () -> {
+            super.incrementLater(key, delta);
+            return null;
+        });
+    }
+
+    @Override
+    public Double increment(K key, double delta) {
+        return record(OPERATION_INCREMENT, namespace(key), () -> super.increment(key, delta));
+    }
+
+    @Override
+    public Long increment(K key, Object field, long delta) {
+        return record(OPERATION_INCREMENT, namespace(key), () -> super.increment(key, field, delta));
+    }
+
+    @Override
+    public void incrementLater(K key, Object field, long delta) {
+        record(OPERATION_INCREMENT, namespace(key), () -> {
+            super.incrementLater(key, field, delta);
+            return null;
+        });
+    }
+
+    @Override
+    public Double increment(K key, Object field, double delta) {
+        return record(OPERATION_INCREMENT, namespace(key), () -> super.increment(key, field, delta));
+    }
+
+    @Override
+    public Long incrementWithExpiration(K key, long delta, Duration expiration) {
+        return record(OPERATION_INCREMENT, namespace(key), () -> super.incrementWithExpiration(key, delta, expiration));
+    }
+
+    @Override
+    public boolean compareAndDelete(K key, V expected) {
+        return record(OPERATION_DELETE, namespace(key), () -> super.compareAndDelete(key, expected));
+    }
+
+    @Override
+    public Long putWithExpiration(K key, Map<Serializable, ?> map, Duration expiration) {
+        return record(OPERATION_PUT, namespace(key), () -> super.putWithExpiration(key, map, expiration));
+    }
+
+    @Override
+    public Long pushCapped(K key, V value, long capacity) {
+        return record(OPERATION_PUSH, namespace(key), () -> super.pushCapped(key, value, capacity));
+    }
+
+    @Override
+    public Long pushCapped(K key, Collection<V> values, long capacity, Duration expiration) {
+        return record(OPERATION_PUSH, namespace(key), () -> super.pushCapped(key, values, capacity, expiration));
+    }
+
+    @Override
+    public boolean hasKey(K key) {
+        return record(OPERATION_EXISTS, namespace(key), () -> super.hasKey(key));
+    }
+
+    @Override
+    public boolean hasKey(K key, Serializable field) {
+        return record(OPERATION_EXISTS, namespace(key), () -> super.hasKey(key, field));
+    }
+
+    /**
+     * @param hash 是否为 Hash 中的值, 决定统计大小时使用的序列化器
+     */
+    private <T> T recordGet(K key, Supplier<T> call, boolean hash) {
+        String namespace = namespace(key);
+        T value = record(OPERATION_GET, namespace, call);
+        recordHit(namespace, value != null);
+        recordPayload(OPERATION_GET, namespace, value, hash);
+        return value;
+    }
+
+    private <T> T recordSet(K key, V value, Supplier<T> call) {
+        String namespace = namespace(key);
+        recordPayload(OPERATION_SET, namespace, value, false);
+        return record(OPERATION_SET, namespace, call);
+    }
+
+    /**
+     * 按各 Key 的命名空间记录批量读取的命中情况
+     */
+    private void recordHits(Collection<K> keys, List<?> values) {
+        if (keys == null || values == null) {
+            return;
+        }
+        int index = 0;
+        for (K key : keys) {
+            if (index >= values.size()) {
+                break;
+            }
+            recordHit(namespace(key), values.get(index++) != null);
+        }
+    }
+
+    private <T> T record(String operation, String namespace, Supplier<T> call) {
+        long start = System.nanoTime();
+        Throwable error = null;
+        try {
+            return call.get();
+        } catch (RuntimeException | Error e) {
+            error = e;
+            throw e;
+        } finally {
+            complete(operation, namespace, start, error);
+        }
+    }
+
+    private <T> CompletableFuture<T> recordAsync(String operation, String namespace, CompletableFuture<T> future) {
+        long start = System.nanoTime();
+        return future.whenComplete((result, error) -> complete(operation, namespace, start, error));
+    }
+
+    private void complete(String operation, String namespace, long start, Throwable error) {
+        timer(operation, namespace).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (error != null) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ?
+                    error.getCause() : error;
+            this.counters.computeIfAbsent("error:" + operation + ":" + namespace + ":" + cause.getClass().getName(),
+                    name -> Counter.builder("redis.helper.errors")
+                            .tag("operation", operation)
+                            .tag("namespace", namespace)
+                            .tag("exception", cause.getClass().getSimpleName())
+                            .register(this.registry))
+                    .increment();
+        }
+    }
+
+    private void recordHit(String namespace, boolean hit) {
+        String result = hit ? "hit" : "miss";
+        this.counters.computeIfAbsent("get:" + namespace + ":" + result,
+                name -> Counter.builder("redis.helper.gets")
+                        .tag("namespace", namespace)
+                        .tag("result", result)
+                        .register(this.registry))
+                .increment();
+    }
+
+    /**
+     * @param hash 是否为 Hash 中的值, 为 {@code true} 时使用 Hash 值的序列化器
+     */
+    @SuppressWarnings("unchecked")
+    private void recordPayload(String operation, String namespace, Object value, boolean hash) {
+        if (value == null || this.payloadSampleInterval <= 0
+                || this.payloadSequence.getAndIncrement() % this.payloadSampleInterval != 0) {
+            return;
+        }
+        RedisSerializer<Object> serializer = (RedisSerializer<Object>) (hash ?
+                getTemplate().getHashValueSerializer() : getTemplate().getValueSerializer());
+        if (serializer == null) {
+            return;
+        }
+        byte[] bytes = serializer.serialize(value);
+        this.payloadSizes.computeIfAbsent(operation + ":" + namespace,
+                name -> DistributionSummary.builder("redis.helper.payload.size")
+                        .baseUnit("bytes")
+                        .tag("operation", operation)
+                        .tag("namespace", namespace)
+                        .register(this.registry))
+                .record(bytes == null ? 0 : bytes.length);
+    }
+
+    private Timer timer(String operation, String namespace) {
+        return this.timers.computeIfAbsent(operation + ":" + namespace,
+                name -> Timer.builder("redis.helper.operations")
+                        .tag("operation", operation)
+                        .tag("namespace", namespace)
+                        .publishPercentileHistogram()
+                        .register(this.registry));
+    }
+
+    /**
+     * 解析命名空间, 超过数量上限时返回 {@link MetricsRedisHelper#OTHER_NAMESPACE}
+     */
+    private String namespace(K key) {
+        String namespace = key == null ? null : this.namespaceResolver.apply(key);
+        if (namespace == null || namespace.isEmpty()) {
+            return NO_NAMESPACE;
+        }
+        if (this.namespaces.containsKey(namespace)) {
+            return namespace;
+        }
+        synchronized (this.namespaces) {
+            if (this.namespaces.size() >= this.maximumNamespaces && !this.namespaces.containsKey(namespace)) {
+                return OTHER_NAMESPACE;
+            }
+            this.namespaces.put(namespace, Boolean.TRUE);
+            return namespace;
+        }
+    }
+
+    /**
+     * 批量操作的命名空间: 所有 Key 的命名空间相同时返回该命名空间, 否则返回 {@link MetricsRedisHelper#MIXED_NAMESPACE}
+     */
+    private String namespace(Collection<K> keys) {
+        if (keys == null || keys.isEmpty()) {
+            return NO_NAMESPACE;
+        }
+        String namespace = null;
+        for (K key : keys) {
+            String current = namespace(key);
+            if (namespace == null) {
+                namespace = current;
+            } else if (!namespace.equals(current)) {
+                return MIXED_NAMESPACE;
+            }
+        }
+        return namespace;
+    }
+}
@@ -0,0 +1,597 @@
+package io.github.linna.cy.helper.impl;
+
+import io.github.linna.cy.cache.NearCache;
+import io.github.linna.cy.cache.NearCacheStats;
+import io.github.linna.cy.helper.IRedisHelper;
+import io.github.linna.cy.helper.RedisPipeline;
+import org.apache.commons.collections4.CollectionUtils;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.PatternTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.listener.Topic;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import javax.validation.constraints.NotNull;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 在 {@link IRedisHelper} 前增加一层进程内缓存 (Near Cache) 的装饰器.
+ * <p>
+ * {@code get(K)} 与 {@code get(K, field)} 优先从本地读取; 本地的 set / put / delete / increment / expire
+ * 在写入 Redis 后立即使对应的本地条目失效. 其他节点的修改通过 Redis Keyspace 通知感知,
+ * 需要在 Redis 中开启 {@code notify-keyspace-events} (至少包含 {@code K} 与 {@code A}),
+ * 并调用 {@link NearCacheRedisHelper#subscribe(RedisMessageListenerContainer)} 订阅.
+ * </p>
+ * <p>
+ * 本地条目以 {@link org.springframework.data.redis.core.RedisTemplate#getKeySerializer()} 序列化后的 Key 为键,
+ * 因此通知中的 Key 无需反序列化即可精确失效 (与 Key 的 Java 类型无关).
+ * </p>
+ * <p>
+ * NOTES: 订阅断开期间的修改仅由本地 TTL 兜底.
+ * </p>
+ */
+public class NearCacheRedisHelper<K, V> extends DelegatingRedisHelper<K, V> implements MessageListener {
+
+    /**
+     * 所有数据库的 Keyspace 通知
+     */
+    public static final Topic KEYSPACE_TOPIC = new PatternTopic("__keyspace@*__:*");
+
+    /**
+     * 每个 Hash 默认最多缓存的字段数量
+     */
+    public static final int DEFAULT_MAXIMUM_FIELDS_PER_KEY = 1024;
+
+    private static final byte[] KEYSPACE_CHANNEL_SEPARATOR = "__:".getBytes(StandardCharsets.UTF_8);
+
+    private final NearCache<ByteBuffer, V> values;
+    private final NearCache<ByteBuffer, ConcurrentMap<Object, Object>> hashes;
+    private final int maximumFieldsPerKey;
+
+    private final LongAdder hashHits = new LongAdder();
+    private final LongAdder hashMisses = new LongAdder();
+
+    /**
+     * @param maximumSize 本地最多缓存的 Key 数量 (值与 Hash 分别计算)
+     * @param ttl         本地条目的存活时间, 同时也是未收到失效通知时的最大不一致时间
+     */
+    public NearCacheRedisHelper(IRedisHelper<K, V> delegate, int maximumSize, @NotNull Duration ttl) {
+        this(delegate, maximumSize, ttl, DEFAULT_MAXIMUM_FIELDS_PER_KEY);
+    }
+
+    /**
+     * @param maximumSize         本地最多缓存的 Key 数量 (值与 Hash 分别计算)
+     * @param ttl                 本地条目的存活时间, 同时也是未收到失效通知时的最大不一致时间
+     * @param maximumFieldsPerKey 每个 Hash 最多缓存的字段数量
+     */
+    public NearCacheRedisHelper(IRedisHelper<K, V> delegate, int maximumSize, @NotNull Duration ttl,
+                                int maximumFieldsPerKey) {
+        super(delegate);
+        this.values = new NearCache<>(maximumSize, ttl);
+        this.hashes = new NearCache<>(maximumSize, ttl);
+        this.maximumFieldsPerKey = maximumFieldsPerKey;
+    }
+
+    /**
+     * 订阅 Redis 的 Keyspace 通知, 以便其他节点修改 Key 时使本地条目失效
+     */
+    public void subscribe(@NotNull RedisMessageListenerContainer container) {
+        container.addMessageListener(this, KEYSPACE_TOPIC);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        byte[] channel = message.getChannel();
+        int index = indexOf(channel, KEYSPACE_CHANNEL_SEPARATOR);
+        if (index < 0) {
+            return;
+        }
+        byte[] rawKey = Arrays.copyOfRange(channel, index + KEYSPACE_CHANNEL_SEPARATOR.length, channel.length);
+        invalidate(ByteBuffer.wrap(rawKey));
+    }
+
+    /**
+     * 使 {@code key} 对应的本地条目 (值与 Hash) 失效
+     */
+    public void invalidate(K key) {
+        invalidate(localKey(key));
+    }
+
+    private void invalidate(ByteBuffer localKey) {
+        this.values.invalidate(localKey);
+        this.hashes.invalidate(localKey);
+    }
+
+    /**
+     * 使所有本地条目失效
+     */
+    public void invalidateAll() {
+        this.values.invalidateAll();
+        this.hashes.invalidateAll();
+    }
+
+    /**
+     * {@code get(K)} 的本地缓存统计
+     */
+    public NearCacheStats stats() {
+        return this.values.stats();
+    }
+
+    /**
+     * {@code get(K, field)} 的本地缓存统计
+     */
+    public NearCacheStats hashStats() {
+        NearCacheStats stats = this.hashes.stats();
+        return new NearCacheStats(this.hashHits.sum(), this.hashMisses.sum(), stats.getEvictionCount(),
+                stats.getExpirationCount());
+    }
+
+    @Override
+    public V get(K key) {
+        ByteBuffer localKey = localKey(key);
+        V value = this.values.get(localKey);
+        if (value != null) {
+            return value;
+        }
+        long version = this.values.currentVersion(localKey);
+        value = super.get(key);
+        this.values.putIfCurrent(localKey, value, version);
+        return value;
+    }
+
+    /**
+     * 本地命中时直接返回, 否则交给被装饰的 {@link IRedisHelper} 读取或加载, 并将结果放入本地缓存
+     */
+    @Override
+    public V getOrLoad(K key, Supplier<V> loader, Duration ttl) {
+        ByteBuffer localKey = localKey(key);
+        V value = this.values.get(localKey);
+        if (value != null) {
+            return value;
+        }
+        long version = this.values.currentVersion(localKey);
+        value = super.getOrLoad(key, loader, ttl);
+        this.values.putIfCurrent(localKey, value, version);
+        return value;
+    }
+
+    @Override
+    public CompletableFuture<V> getAsync(K key) {
+        ByteBuffer localKey = localKey(key);
+        V value = this.values.get(localKey);
+        if (value != null) {
+            return CompletableFuture.completedFuture(value);
+        }
+        long version = this.values.currentVersion(localKey);
+        return super.getAsync(key).thenApply(loaded -> {
+            this.values.putIfCurrent(localKey, loaded, version);
+            return loaded;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Boolean> setAsync(K key, V value) {
+        return invalidateOnComplete(key, super.setAsync(key, value));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> setAsync(K key, V value, Duration expiration) {
+        return invalidateOnComplete(key, super.setAsync(key, value, expiration));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> deleteAsync(K key) {
+        return invalidateOnComplete(key, super.deleteAsync(key));
+    }
+
+    @Override
+    public CompletableFuture<Long> incrementAsync(K key, long delta) {
+        return invalidateOnComplete(key, super.incrementAsync(key, delta));
+    }
+
+    /**
+     * 异步写入完成 (无论成功与否) 后使 {@code key} 的本地缓存失效
+     */
+    private <T> CompletableFuture<T> invalidateOnComplete(K key, CompletableFuture<T> future) {
+        this.invalidate(key);
+        return future.whenComplete((result, error) -> this.invalidate(key));
+    }
+
+    @Override
+    public List<V> getAll(Collection<K> keys) {
+        if (CollectionUtils.isEmpty(keys)) {
+            return new ArrayList<>();
+        }
+        List<V> result = new ArrayList<>(keys.size());
+        List<K> missingKeys = new ArrayList<>();
+        List<ByteBuffer> missingLocalKeys = new ArrayList<>();
+        List<Integer> missingIndexes = new ArrayList<>();
+        for (K key : keys) {
+            ByteBuffer localKey = localKey(key);
+            V value = this.values.get(localKey);
+            if (value == null) {
+                missingKeys.add(key);
+                missingLocalKeys.add(localKey);
+                missingIndexes.add(result.size());
+            }
+            result.add(value);
+        }
+        if (missingKeys.isEmpty()) {
+            return result;
+        }
+
+        long[] versions = new long[missingLocalKeys.size()];
+        for (int i = 0; i < versions.length; i++) {
+            versions[i] = this.values.currentVersion(missingLocalKeys.get(i));
+        }
+        List<V> loaded = super.getAll(missingKeys);
+        if (loaded == null) {
+            return null;
+        }
+        for (int i = 0; i < missingKeys.size(); i++) {
+            V value = loaded.get(i);
+            result.set(missingIndexes.get(i), value);
+            this.values.putIfCurrent(missingLocalKeys.get(i), value, versions[i]);
+        }
+        return result;
+    }
+
+    @Override
+    public IRedisHelper<K, V> setAll(Map<K, V> map) {
+        try {
+            return super.setAll(map);
+        } finally {
+            if (map != null) {
+                map.keySet().forEach(key -> this.values.invalidate(localKey(key)));
+            }
+        }
+    }
+
+    @Override
+    public boolean setAllWithExpiration(Map<K, V> map, Duration expiration) {
+        try {
+            return super.setAllWithExpiration(map, expiration);
+        } finally {
+            if (map != null) {
+                map.keySet().forEach(key -> this.values.invalidate(localKey(key)));
+            }
+        }
+    }
+
+    /**
+     * 管道中的写入无法逐个追踪, 执行后使所有本地条目失效
+     */
+    @Override
+    public void pipeline(int flushSize, Consumer<RedisPipeline<K, V>> action) {
+        try {
+            super.pipeline(flushSize, action);
+        } finally {
+            this.invalidateAll();
+        }
+    }
+
+    @Override
+    public Object get(K key, Serializable field) {
+        ByteBuffer localKey = localKey(key);
+        ConcurrentMap<Object, Object> fields = this.hashes.peek(localKey);
+        if (fields != null) {
+            Object value = fields.get(field);
+            if (value != null) {
+                this.hashHits.increment();
+                return value;
+            }
+        }
+        this.hashMisses.increment();
+
+        long version = this.hashes.currentVersion(localKey);
+        Object value = super.get(key, field);
+        if (value == null) {
+            return null;
+        }
+        if (fields == null) {
+            fields = new ConcurrentHashMap<>();
+            if (!this.hashes.putIfCurrent(localKey, fields, version)) {
+                return value;
+            }
+        } else if (this.hashes.currentVersion(localKey) != version) {
+            return value;
+        }
+        if (fields.size() < this.maximumFieldsPerKey) {
+            fields.put(field, value);
+        }
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(K key, Object field, Class<T> clazz) {
+        if (!(field instanceof Serializable)) {
+            return super.get(key, field, clazz);
+        }
+        Object obj = this.get(key, (Serializable) field);
+        if (obj == null) {
+            return null;
+        }
+        if (!clazz.isAssignableFrom(obj.getClass())) {  // 类型无法转换
+            throw new ClassCastException("The \"" + obj.getClass() + "\" is not equal to \"" + clazz +
+                    "\" and does not inherit from \"" + clazz + "\".");
+        }
+        return (T) obj;
+    }
+
+    @Override
+    public IRedisHelper<K, V> set(K key, V value) {
+        try {
+            return super.set(key, value);
+        } finally {
+            this.values.invalidate(localKey(key));
+        }
+    }
+
+    @Override
+    public boolean setWithExpirationAt(K key, V value, Date expiration) {
+        try {
+            return super.setWithExpirationAt(key, value, expiration);
+        } finally {
+            this.values.invalidate(localKey(key));
+        }
+    }
+
+    @Override
+    public boolean setWithExpirationAt(K key, V value, Instant expiration) {
+        try {
+            return super.setWithExpirationAt(key, value, expiration);
+        } finally {
+            this.values.invalidate(localKey(key));
+        }
+    }
+
+    @Override
+    public boolean setWithExpiration(K key, V value, long expiration) {
+        try {
+            return super.setWithExpiration(key, value, expiration);
+        } finally {
+            this.values.invalidate(localKey(key));
+        }
+    }
+
+    @Override
+    public boolean setWithExpiration(K key, V value, long expiration, TimeUnit timeUnit) {
+        try {
+            return super.setWithExpiration(key, value, expiration, timeUnit);
+        } finally {
+            this.values.invalidate(localKey(key));
+        }
+    }
+
+    @Override
+    public IRedisHelper<K, V> put(K key, Serializable field, Object value) {
+        try {
+            return super.put(key, field, value);
+        } finally {
+            this.hashes.invalidate(localKey(key));
+        }
+    }
+
+    @Override
+    public IRedisHelper<K, V> put(K key, Map<Serializable, ?> map) {
+        try {
+            return super.put(key, map);
+        } finally {
+            this.hashes.invalidate(localKey(key));
+        }
+    }
+
+    @Override
+    public <T> IRedisHelper<K, V> putEntity(K key, T entity) {
+        try {
+            return super.putEntity(key, entity);
+        } finally {
+            this.hashes.invalidate(localKey(key));
+        }
+    }
+
+    @Override
+    public <T> IRedisHelper<K, V> updateFields(K key, T partial) {
+        try {
+            return super.updateFields(key, partial);
+        } finally {
+            this.hashes.invalidate(localKey(key));
+        }
+    }
+
+    @Override
+    public boolean putIfAbsent(K key, Serializable field, Object value) {
+        try {
+            return super.putIfAbsent(key, field, value);
+        } finally {
+            this.hashes.invalidate(localKey(key));
+        }
+    }
+
+    @Override
+    public Boolean expireAt(K key, Date expiration) {
+        try {
+            return super.expireAt(key, expiration);
+        } finally {
+            this.invalidate(key);
+        }
+    }
+
+    @Override
+    public Boolean expire(K key, long timestamp) {
+        try {
+            return super.expire(key, timestamp);
+        } finally {
+            this.invalidate(key);
+        }
+    }
+
+    @Override
+    public Boolean expire(K key, long expiration, TimeUnit timeUnit) {
+        try {
+            return super.expire(key, expiration, timeUnit);
+        } finally {
+            this.invalidate(key);
+        }
+    }
+
+    @Override
+    public boolean delete(K key) {
+        try {
+            return super.delete(key);
+        } finally {
+            this.invalidate(key);
+        }
+    }
+
+    @Override
+    public Long delete(Collection<K> keys) {
+        try {
+            return super.delete(keys);
+        } finally {
+            if (keys != null) {
+                keys.forEach(this::invalidate);
+            }
+        }
+    }
+
+    @Override
+    public Boolean delete(K key, Object field) {
+        try {
+            return super.delete(key, field);
+        } finally {
+            this.hashes.invalidate(localKey(key));
+        }
+    }
+
+    @Override
+    public Long delete(K key, Collection<Object> fields) {
+        try {
+            return super.delete(key, fields);
+        } finally {
+            this.hashes.invalidate(localKey(key));
+        }
+    }
+
+    @Override
+    public Long increment(K key, long delta) {
+        try {
+            return super.increment(key, delta);
+        } finally {
+            this.values.invalidate(localKey(key));
+        }
+    }
+
+    @Override
+    public void incrementLater(K key, long delta) {
+        try {
+            super.incrementLater(key, delta);
+        } finally {
+            this.values.invalidate(localKey(key));
+        }
+    }
+
+    @Override
+    public Double increment(K key, double delta) {
+        try {
+            return super.increment(key, delta);
+        } finally {
+            this.values.invalidate(localKey(key));
+        }
+    }
+
+    @Override
+    public Long increment(K key, Object field, long delta) {
+        try {
+            return super.increment(key, field, delta);
+        } finally {
+            this.hashes.invalidate(localKey(key));
+        }
+    }
+
+    @Override
+    public void incrementLater(K key, Object field, long delta) {
+        try {
+            super.incrementLater(key, field, delta);
+        } finally {
+            this.hashes.invalidate(localKey(key));
+        }
+    }
+
+    @Override
+    public Double increment(K key, Object field, double delta) {
+        try {
+            return super.increment(key, field, delta);
+        } finally {
+            this.hashes.invalidate(localKey(key));
+        }
+    }
+
+    @Override
+    public Long incrementWithExpiration(K key, long delta, Duration expiration) {
+        try {
+            return super.incrementWithExpiration(key, delta, expiration);
+        } finally {
+            this.values.invalidate(localKey(key));
+        }
+    }
+
+    @Override
+    public boolean compareAndDelete(K key, V expected) {
+        try {
+            return super.compareAndDelete(key, expected);
+        } finally {
+            this.invalidate(key);
+        }
+    }
+
+    @Override
+    public Long putWithExpiration(K key, Map<Serializable, ?> map, Duration expiration) {
+        try {
+            return super.putWithExpiration(key, map, expiration);
+        } finally {
+            this.hashes.invalidate(localKey(key));
+        }
+    }
+
+    /**
+     * 本地条目的键: 序列化后的 Key, 与 Keyspace 通知中的 Key 一致
+     */
+    @SuppressWarnings("unchecked")
+    private ByteBuffer localKey(K key) {
+        byte[] rawKey = ((RedisSerializer<K>) this.getTemplate().getKeySerializer()).serialize(key);
+        return ByteBuffer.wrap(rawKey == null ? new byte[0] : rawKey);
+    }
+
+    private static int indexOf(byte[] source, byte[] target) {
+        outer:
+        for (int i = 0; i <= source.length - target.length; i++) {
+            for (int j = 0; j < target.length; j++) {
+                if (source[i + j] != target[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+}
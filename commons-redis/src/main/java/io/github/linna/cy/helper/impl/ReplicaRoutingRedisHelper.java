@@ -0,0 +1,450 @@
+package io.github.linna.cy.helper.impl;
+
+import io.github.linna.cy.helper.IRedisHelper;
+import io.github.linna.cy.script.RedisScripts;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.DataType;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.types.Expiration;
+
+import javax.validation.constraints.NotNull;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * 将只读方法路由到只读副本 (Replica) 的装饰器, 写入与其他方法仍使用被装饰的主节点 helper.
+ * <p>
+ * 路由的方法: {@code get} / {@code getAsync} / {@code getAll} / Hash 的读取 / {@code getEntity} / {@code getFields} /
+ * {@code fields} / {@code scanFields} / {@code scanKeys} / {@code getExpire} / {@code type} / {@code hasKey};
+ * {@code getOrLoad} 先读取副本, 未命中时再由主节点加载.
+ * </p>
+ * <p>
+ * 每隔 {@code probeInterval} 探测一次各副本: 先在副本上读取本节点的心跳 Key 并记录往返延迟 (EWMA),
+ * 再在主节点上写入新的心跳 (当前时间). 副本的延迟 (staleness) 为主节点上一次写入的心跳与副本读到的心跳之差,
+ * 精度为 {@code probeInterval}. 每次读取从延迟不超过容忍值的可用副本中按 {@link ReadStrategy} 选择一个,
+ * 没有时读取主节点; 访问副本失败 ({@link DataAccessException}) 时该副本被标记为不可用 (直到下一次探测成功), 并改为读取主节点.
+ * </p>
+ * <p>
+ * NOTES: 心跳 Key 为 {@code replica:heartbeat:<节点 ID>} (不经过 Key 序列化器), 过期时间为 {@code probeInterval} 的
+ * 10 倍 (至少 1 分钟). 副本上的读取看不到本节点刚写入的数据, 需要读己之写时使用
+ * {@code withMaxStaleness(Duration.ZERO)} 读取主节点. 不再使用时应调用 {@link ReplicaRoutingRedisHelper#close()}.
+ * </p>
+ */
+@Slf4j
+public class ReplicaRoutingRedisHelper<K, V> extends DelegatingRedisHelper<K, V> implements AutoCloseable, DisposableBean {
+
+    /**
+     * 默认的探测间隔
+     */
+    public static final Duration DEFAULT_PROBE_INTERVAL = Duration.ofMillis(500);
+
+    /**
+     * 默认的最大延迟容忍值
+     */
+    public static final Duration DEFAULT_MAX_STALENESS = Duration.ofSeconds(1);
+
+    /**
+     * 副本的选择策略
+     */
+    public enum ReadStrategy {
+        /**
+         * 往返延迟最低的副本
+         */
+        NEAREST,
+        /**
+         * 依次轮询各个副本
+         */
+        ROUND_ROBIN
+    }
+
+    private final Routing<K, V> routing;
+    private final long maxStalenessMillis;
+
+    /**
+     * 使用 {@link ReadStrategy#NEAREST}, {@link ReplicaRoutingRedisHelper#DEFAULT_PROBE_INTERVAL} 与
+     * {@link ReplicaRoutingRedisHelper#DEFAULT_MAX_STALENESS}
+     *
+     * @param primary  主节点, 用于写入以及没有合适副本时的读取
+     * @param replicas 各个副本, 需要与主节点使用相同的序列化器
+     */
+    public ReplicaRoutingRedisHelper(@NotNull IRedisHelper<K, V> primary, @NotNull List<? extends IRedisHelper<K, V>> replicas) {
+        this(primary, replicas, ReadStrategy.NEAREST, DEFAULT_PROBE_INTERVAL, DEFAULT_MAX_STALENESS);
+    }
+
+    /**
+     * @param primary       主节点, 用于写入以及没有合适副本时的读取
+     * @param replicas      各个副本, 需要与主节点使用相同的序列化器
+     * @param strategy      副本的选择策略
+     * @param probeInterval 探测间隔, 必须为正数
+     * @param maxStaleness  默认的最大延迟容忍值, 可以通过 {@link ReplicaRoutingRedisHelper#withMaxStaleness(Duration)} 按调用覆盖
+     */
+    public ReplicaRoutingRedisHelper(@NotNull IRedisHelper<K, V> primary, @NotNull List<? extends IRedisHelper<K, V>> replicas,
+                                     @NotNull ReadStrategy strategy, @NotNull Duration probeInterval,
+                                     @NotNull Duration maxStaleness) {
+        this(new Routing<>(primary, replicas, strategy, probeInterval), maxStaleness);
+    }
+
+    private ReplicaRoutingRedisHelper(Routing<K, V> routing, Duration maxStaleness) {
+        super(routing.primary);
+        this.routing = routing;
+        this.maxStalenessMillis = maxStaleness.isNegative() ? 0 : maxStaleness.toMillis();
+    }
+
+    /**
+     * 返回使用 {@code maxStaleness} 作为最大延迟容忍值的视图, 与本实例共享副本与探测.
+     * 为 {@code 0} 时始终读取主节点
+     */
+    public ReplicaRoutingRedisHelper<K, V> withMaxStaleness(@NotNull Duration maxStaleness) {
+        return new ReplicaRoutingRedisHelper<>(this.routing, maxStaleness);
+    }
+
+    /**
+     * 最大延迟容忍值
+     */
+    public Duration getMaxStaleness() {
+        return Duration.ofMillis(this.maxStalenessMillis);
+    }
+
+    /**
+     * 各副本最近一次探测得到的延迟, 副本不可用或尚未探测时为 {@code null}
+     */
+    public List<Duration> replicaStaleness() {
+        List<Duration> result = new ArrayList<>(this.routing.replicas.size());
+        for (Replica<K, V> replica : this.routing.replicas) {
+            long staleness = replica.stalenessMillis;
+            result.add(replica.available && staleness != Long.MAX_VALUE ? Duration.ofMillis(staleness) : null);
+        }
+        return result;
+    }
+
+    /**
+     * 在副本上执行的读取次数
+     */
+    public long replicaReadCount() {
+        return this.routing.replicaReads.sum();
+    }
+
+    /**
+     * 在主节点上执行的读取次数 (包括在副本上失败后重试的读取)
+     */
+    public long primaryReadCount() {
+        return this.routing.primaryReads.sum();
+    }
+
+    /**
+     * 停止探测. 所有视图共享探测, 关闭后所有读取都使用主节点
+     */
+    @Override
+    public void close() {
+        this.routing.close();
+    }
+
+    @Override
+    public void destroy() {
+        close();
+    }
+
+    @Override
+    public V get(K key) {
+        return read(helper -> helper.get(key));
+    }
+
+    /**
+     * 副本上未命中时由主节点加载 (包括并发合并与写入)
+     */
+    @Override
+    public V getOrLoad(K key, Supplier<V> loader, Duration ttl) {
+        Replica<K, V> replica = this.routing.select(this.maxStalenessMillis);
+        if (replica != null) {
+            try {
+                V value = replica.helper.get(key);
+                this.routing.replicaReads.increment();
+                if (value != null) {
+                    return value;
+                }
+            } catch (DataAccessException e) {
+                replica.markUnavailable(e);
+            }
+        }
+        return super.getOrLoad(key, loader, ttl);
+    }
+
+    @Override
+    public CompletableFuture<V> getAsync(K key) {
+        Replica<K, V> replica = this.routing.select(this.maxStalenessMillis);
+        if (replica == null) {
+            this.routing.primaryReads.increment();
+            return super.getAsync(key);
+        }
+        this.routing.replicaReads.increment();
+        return replica.helper.getAsync(key).handle((value, error) -> {
+            if (error == null) {
+                return CompletableFuture.completedFuture(value);
+            }
+            replica.markUnavailable(error);
+            this.routing.primaryReads.increment();
+            return super.getAsync(key);
+        }).thenCompose(Function.identity());
+    }
+
+    @Override
+    public List<V> getAll(Collection<K> keys) {
+        return read(helper -> helper.getAll(keys));
+    }
+
+    @Override
+    public Object get(K key, Serializable field) {
+        return read(helper -> helper.get(key, field));
+    }
+
+    @Override
+    public <T> T get(K key, Object field, Class<T> clazz) {
+        return read(helper -> helper.get(key, field, clazz));
+    }
+
+    @Override
+    public Map<Object, Object> getAll(K key) {
+        return read(helper -> helper.getAll(key));
+    }
+
+    @Override
+    public List<Object> getAll(Collection<K> keys, Serializable field) {
+        return read(helper -> helper.getAll(keys, field));
+    }
+
+    @Override
+    public List<Object> multiGet(K key, Collection<Object> fields) {
+        return read(helper -> helper.multiGet(key, fields));
+    }
+
+    @Override
+    public <T> T getEntity(K key, Class<T> clazz) {
+        return read(helper -> helper.getEntity(key, clazz));
+    }
+
+    @Override
+    public <T> T getFields(K key, Class<T> clazz, String... fieldNames) {
+        return read(helper -> helper.getFields(key, clazz, fieldNames));
+    }
+
+    @Override
+    public Set<Object> fields(K key) {
+        return read(helper -> helper.fields(key));
+    }
+
+    @Override
+    public Stream<Map.Entry<Object, Object>> scanFields(K key, String pattern, int batchSize) {
+        return read(helper -> helper.scanFields(key, pattern, batchSize));
+    }
+
+    @Override
+    public Stream<K> scanKeys(String pattern) {
+        return read(helper -> helper.scanKeys(pattern));
+    }
+
+    @Override
+    public Stream<K> scanKeys(String pattern, int batchSize) {
+        return read(helper -> helper.scanKeys(pattern, batchSize));
+    }
+
+    @Override
+    public Long getExpire(K key) {
+        return read(helper -> helper.getExpire(key));
+    }
+
+    @Override
+    public DataType type(K key) {
+        return read(helper -> helper.type(key));
+    }
+
+    @Override
+    public boolean hasKey(K key) {
+        return read(helper -> helper.hasKey(key));
+    }
+
+    @Override
+    public boolean hasKey(K key, Serializable field) {
+        return read(helper -> helper.hasKey(key, field));
+    }
+
+    /**
+     * 在选中的副本上读取, 没有合适的副本或访问副本失败 ({@link DataAccessException}) 时读取主节点.
+     * 其他异常 (例如反序列化失败) 在主节点上同样会发生, 因此直接抛出
+     */
+    private <T> T read(Function<IRedisHelper<K, V>, T> reader) {
+        Replica<K, V> replica = this.routing.select(this.maxStalenessMillis);
+        if (replica != null) {
+            try {
+                T result = reader.apply(replica.helper);
+                this.routing.replicaReads.increment();
+                return result;
+            } catch (DataAccessException e) {
+                replica.markUnavailable(e);
+            }
+        }
+        this.routing.primaryReads.increment();
+        return reader.apply(getDelegate());
+    }
+
+    /**
+     * 所有视图共享的副本状态与探测
+     */
+    private static class Routing<K, V> {
+        private final IRedisHelper<K, V> primary;
+        private final List<Replica<K, V>> replicas;
+        private final ReadStrategy strategy;
+        private final byte[] heartbeatKey;
+        private final Expiration heartbeatExpiration;
+        private final ScheduledExecutorService scheduler;
+        private final AtomicLong counter = new AtomicLong();
+        private final LongAdder replicaReads = new LongAdder();
+        private final LongAdder primaryReads = new LongAdder();
+        private volatile long lastHeartbeat = -1;
+        private volatile boolean closed;
+
+        private Routing(IRedisHelper<K, V> primary, List<? extends IRedisHelper<K, V>> replicas, ReadStrategy strategy,
+                        Duration probeInterval) {
+            if (probeInterval.isNegative() || probeInterval.isZero()) {
+                throw new IllegalArgumentException("The probe interval must be positive.");
+            }
+            this.primary = primary;
+            List<Replica<K, V>> list = new ArrayList<>(replicas.size());
+            for (int i = 0; i < replicas.size(); i++) {
+                list.add(new Replica<>(i, replicas.get(i)));
+            }
+            this.replicas = Collections.unmodifiableList(list);
+            this.strategy = strategy;
+            this.heartbeatKey = ("replica:heartbeat:" + UUID.randomUUID()).getBytes(StandardCharsets.UTF_8);
+            this.heartbeatExpiration = Expiration.milliseconds(Math.max(probeInterval.toMillis() * 10,
+                    TimeUnit.MINUTES.toMillis(1)));
+
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+                Thread thread = new Thread(runnable, "redis-replica-probe");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+            this.scheduler = executor;
+            if (!this.replicas.isEmpty()) {
+                long period = probeInterval.toNanos();
+                this.scheduler.scheduleWithFixedDelay(this::probe, 0, period, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        /**
+         * @return 没有合适的副本时返回 {@code null}
+         */
+        private Replica<K, V> select(long maxStalenessMillis) {
+            int size = this.replicas.size();
+            if (size == 0 || maxStalenessMillis <= 0 || this.closed) {
+                return null;
+            }
+            if (this.strategy == ReadStrategy.ROUND_ROBIN) {
+                int start = (int) ((this.counter.getAndIncrement() & Long.MAX_VALUE) % size);
+                for (int i = 0; i < size; i++) {
+                    Replica<K, V> replica = this.replicas.get((start + i) % size);
+                    if (replica.isEligible(maxStalenessMillis)) {
+                        return replica;
+                    }
+                }
+                return null;
+            }
+            Replica<K, V> nearest = null;
+            for (Replica<K, V> replica : this.replicas) {
+                if (replica.isEligible(maxStalenessMillis)
+                        && (nearest == null || replica.latencyNanos < nearest.latencyNanos)) {
+                    nearest = replica;
+                }
+            }
+            return nearest;
+        }
+
+        /**
+         * 先读取各副本上的心跳, 再写入新的心跳, 使副本有一个探测间隔的时间复制上一次的心跳
+         */
+        private void probe() {
+            long written = this.lastHeartbeat;
+            for (Replica<K, V> replica : this.replicas) {
+                replica.probe(this.heartbeatKey, written);
+            }
+            long now = System.currentTimeMillis();
+            try {
+                this.primary.getTemplate().execute((RedisCallback<Boolean>) connection -> connection.stringCommands()
+                        .set(this.heartbeatKey, RedisScripts.toArgument(now), this.heartbeatExpiration,
+                                RedisStringCommands.SetOption.UPSERT));
+                this.lastHeartbeat = now;
+            } catch (RuntimeException e) {
+                log.warn("Failed to write the replica heartbeat to the primary.", e);
+            }
+        }
+
+        private void close() {
+            this.closed = true;
+            this.scheduler.shutdownNow();
+        }
+    }
+
+    private static class Replica<K, V> {
+        private final int index;
+        private final IRedisHelper<K, V> helper;
+        private volatile boolean available;
+        private volatile long stalenessMillis = Long.MAX_VALUE;
+        private volatile long latencyNanos = Long.MAX_VALUE;
+
+        private Replica(int index, IRedisHelper<K, V> helper) {
+            this.index = index;
+            this.helper = helper;
+        }
+
+        private boolean isEligible(long maxStalenessMillis) {
+            return this.available && this.stalenessMillis <= maxStalenessMillis;
+        }
+
+        private void probe(byte[] heartbeatKey, long written) {
+            try {
+                long start = System.nanoTime();
+                byte[] raw = this.helper.getTemplate().execute((RedisCallback<byte[]>) connection ->
+                        connection.stringCommands().get(heartbeatKey));
+                long rtt = System.nanoTime() - start;
+                long latency = this.latencyNanos;
+                this.latencyNanos = latency == Long.MAX_VALUE ? rtt : (latency * 4 + rtt) / 5;
+                if (written < 0) {
+                    // 尚未写入过心跳
+                    return;
+                }
+                long seen = raw == null ? -1 : Long.parseLong(new String(raw, StandardCharsets.UTF_8));
+                this.stalenessMillis = seen < 0 ? Long.MAX_VALUE : Math.max(0, written - seen);
+                this.available = true;
+            } catch (RuntimeException e) {
+                markUnavailable(e);
+            }
+        }
+
+        private void markUnavailable(Throwable error) {
+            if (this.available) {
+                log.warn("The redis replica #{} is unavailable, read from the primary instead.", this.index, error);
+            }
+            this.available = false;
+        }
+    }
+}
@@ -0,0 +1,432 @@
+package io.github.linna.cy.helper.impl;
+
+import io.github.linna.cy.helper.IRedisHelper;
+import io.github.linna.cy.helper.RedisPipeline;
+import lombok.extern.slf4j.Slf4j;
+import net.jpountz.xxhash.XXHash64;
+import net.jpountz.xxhash.XXHashFactory;
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.collections4.MapUtils;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.core.BoundGeoOperations;
+import org.springframework.data.redis.core.BoundHashOperations;
+import org.springframework.data.redis.core.BoundListOperations;
+import org.springframework.data.redis.core.BoundSetOperations;
+import org.springframework.data.redis.core.BoundStreamOperations;
+import org.springframework.data.redis.core.BoundValueOperations;
+import org.springframework.data.redis.core.BoundZSetOperations;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import javax.validation.constraints.NotNull;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 在客户端按一致性哈希将 Key 分布到多个相互独立的 Redis 实例 (分片) 上的 {@link IRedisHelper}.
+ * <p>
+ * 每个分片在哈希环上有 {@code virtualNodes} 个虚拟节点, 位置由分片名称决定, 与分片的顺序无关;
+ * 增加或移除一个分片时只有约 {@code 1 / 分片数} 的 Key 需要迁移. Key 的位置由序列化后的 Key 决定,
+ * 包含非空 Hash Tag ({@code {...}}) 时只使用 Hash Tag, 以便将相关的 Key 放在同一个分片上.
+ * </p>
+ * <ul>
+ *     <li>单个 Key 的操作 (包括 {@code boundXxxOps(key)}) 路由到 Key 所在的分片</li>
+ *     <li>{@code getAll} / {@code setAll} / {@code delete} 等多 Key 操作按分片分组后分别执行, 结果保持输入顺序</li>
+ *     <li>{@code scanKeys} 依次遍历每一个分片, 当前分片遍历完毕后才打开下一个分片的游标; 与
+ *     {@link IRedisHelper#scanKeys(String)} 相同, 使用 {@link io.github.linna.cy.serializer.RedisKeySerializer}
+ *     时返回的是去掉前缀后的 {@link String}</li>
+ *     <li>{@code pipeline} 在每个分片上各打开一个管道, 其中的操作按 Key 转交给所在分片的管道</li>
+ * </ul>
+ * <p>
+ * NOTES: 各分片必须使用相同的序列化器. {@link ShardedRedisHelper#getTemplate()} 与不带 Key 的
+ * {@code opsForXxx()} 只访问第一个分片 (主要用于获取序列化器). 跨分片的多 Key 操作不是原子的.
+ * 作为 Spring Bean 使用时, 关闭时一并关闭各分片 (例如写入写回缓冲区中的写入).
+ * </p>
+ */
+@Slf4j
+public class ShardedRedisHelper<K, V> extends DelegatingRedisHelper<K, V> implements DisposableBean {
+
+    /**
+     * 默认的每个分片的虚拟节点数量
+     */
+    public static final int DEFAULT_VIRTUAL_NODES = 160;
+
+    private static final XXHash64 HASH = XXHashFactory.fastestInstance().hash64();
+
+    private final List<String> names;
+    private final List<IRedisHelper<K, V>> shards;
+    private final RedisSerializer<K> keySerializer;
+    private final long[] ring;
+    private final int[] ringShards;
+
+    /**
+     * @param shards 分片名称与对应的 helper, 名称决定分片在哈希环上的位置, 需要保持稳定
+     */
+    public ShardedRedisHelper(@NotNull Map<String, ? extends IRedisHelper<K, V>> shards) {
+        this(shards, DEFAULT_VIRTUAL_NODES);
+    }
+
+    /**
+     * @param shards       分片名称与对应的 helper, 名称决定分片在哈希环上的位置, 需要保持稳定
+     * @param virtualNodes 每个分片的虚拟节点数量, 越多分布越均匀
+     */
+    @SuppressWarnings("unchecked")
+    public ShardedRedisHelper(@NotNull Map<String, ? extends IRedisHelper<K, V>> shards, int virtualNodes) {
+        super(firstShard(shards));
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("The virtual nodes must be positive.");
+        }
+        this.names = Collections.unmodifiableList(new ArrayList<>(shards.keySet()));
+        this.shards = Collections.unmodifiableList(new ArrayList<>(shards.values()));
+        this.keySerializer = (RedisSerializer<K>) getDelegate().getTemplate().getKeySerializer();
+
+        int size = this.shards.size() * virtualNodes;
+        long[] points = new long[size];
+        Integer[] order = new Integer[size];
+        for (int shard = 0; shard < this.shards.size(); shard++) {
+            for (int i = 0; i < virtualNodes; i++) {
+                int index = shard * virtualNodes + i;
+                points[index] = hash((this.names.get(shard) + "#" + i).getBytes(StandardCharsets.UTF_8));
+                order[index] = index;
+            }
+        }
+        // 按位置排序, 相同位置按分片的顺序
+        Arrays.sort(order, Comparator.comparingLong((Integer index) -> points[index]).thenComparingInt(index -> index));
+        this.ring = new long[size];
+        this.ringShards = new int[size];
+        for (int i = 0; i < size; i++) {
+            this.ring[i] = points[order[i]];
+            this.ringShards[i] = order[i] / virtualNodes;
+        }
+    }
+
+    /**
+     * 所有分片的名称, 顺序与构造时一致
+     */
+    public List<String> shardNames() {
+        return this.names;
+    }
+
+    /**
+     * 所有分片, 顺序与构造时一致
+     */
+    public List<IRedisHelper<K, V>> shards() {
+        return this.shards;
+    }
+
+    /**
+     * 获取 {@code key} 所在的分片
+     */
+    public IRedisHelper<K, V> shardFor(K key) {
+        return this.shards.get(shardIndex(key));
+    }
+
+    @Override
+    protected IRedisHelper<K, V> getDelegate(K key) {
+        return shardFor(key);
+    }
+
+    @Override
+    public List<V> getAll(Collection<K> keys) {
+        return groupedGet(keys, IRedisHelper::getAll);
+    }
+
+    @Override
+    public List<Object> getAll(Collection<K> keys, Serializable field) {
+        return groupedGet(keys, (shard, shardKeys) -> shard.getAll(shardKeys, field));
+    }
+
+    @Override
+    public IRedisHelper<K, V> setAll(Map<K, V> map) {
+        if (MapUtils.isEmpty(map)) {
+            return this;
+        }
+        groupByShard(map).forEach((shard, shardMap) -> this.shards.get(shard).setAll(shardMap));
+        return this;
+    }
+
+    @Override
+    public boolean setAllWithExpiration(Map<K, V> map, Duration expiration) {
+        if (MapUtils.isEmpty(map)) {
+            return true;
+        }
+        boolean success = true;
+        for (Map.Entry<Integer, Map<K, V>> entry : groupByShard(map).entrySet()) {
+            success &= this.shards.get(entry.getKey()).setAllWithExpiration(entry.getValue(), expiration);
+        }
+        return success;
+    }
+
+    @Override
+    public Long delete(Collection<K> keys) {
+        if (CollectionUtils.isEmpty(keys)) {
+            return 0L;
+        }
+        List<K> list = new ArrayList<>(keys);
+        long deleted = 0;
+        for (Map.Entry<Integer, List<Integer>> entry : groupIndexesByShard(list).entrySet()) {
+            List<K> shardKeys = new ArrayList<>(entry.getValue().size());
+            entry.getValue().forEach(index -> shardKeys.add(list.get(index)));
+            Long count = this.shards.get(entry.getKey()).delete(shardKeys);
+            if (count == null) {
+                return null;
+            }
+            deleted += count;
+        }
+        return deleted;
+    }
+
+    @Override
+    public Stream<K> scanKeys(String pattern) {
+        return scanKeys(pattern, 0);
+    }
+
+    @Override
+    public Stream<K> scanKeys(String pattern, int batchSize) {
+        ShardCursor<K, V> cursor = new ShardCursor<>(this.shards, shard -> shard.scanKeys(pattern, batchSize));
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(cursor, Spliterator.NONNULL), false)
+                .onClose(cursor::close);
+    }
+
+    /**
+     * 通过每个分片自身的 {@code pipeline} 打开管道 (因此会经过其 Key 验证与写回等处理), 再按 Key 路由其中的操作.
+     * 每个分片的管道各自按 {@code flushSize} 发送
+     */
+    @Override
+    public void pipeline(int flushSize, Consumer<RedisPipeline<K, V>> action) {
+        openPipelines(flushSize, new ArrayList<>(this.shards.size()), action);
+    }
+
+    /**
+     * 关闭所有实现了 {@link DisposableBean} 的分片, 其中一个失败时仍然关闭其余的分片
+     */
+    @Override
+    public void destroy() {
+        for (int i = 0; i < this.shards.size(); i++) {
+            IRedisHelper<K, V> shard = this.shards.get(i);
+            if (!(shard instanceof DisposableBean)) {
+                continue;
+            }
+            try {
+                ((DisposableBean) shard).destroy();
+            } catch (Exception e) {
+                log.warn("Failed to close the redis shard \"{}\".", this.names.get(i), e);
+            }
+        }
+    }
+
+    @Override
+    public BoundGeoOperations<K, V> boundGeoOps(K key) {
+        return shardFor(key).boundGeoOps(key);
+    }
+
+    @Override
+    public <HK, HV> BoundHashOperations<K, HK, HV> boundHashOps(K key) {
+        return shardFor(key).boundHashOps(key);
+    }
+
+    @Override
+    public BoundListOperations<K, V> boundListOps(K key) {
+        return shardFor(key).boundListOps(key);
+    }
+
+    @Override
+    public BoundSetOperations<K, V> boundSetOps(K key) {
+        return shardFor(key).boundSetOps(key);
+    }
+
+    @Override
+    public <HK, HV> BoundStreamOperations<K, HK, HV> boundStreamOps(K key) {
+        return shardFor(key).boundStreamOps(key);
+    }
+
+    @Override
+    public BoundValueOperations<K, V> boundValueOps(K key) {
+        return shardFor(key).boundValueOps(key);
+    }
+
+    @Override
+    public BoundZSetOperations<K, V> boundZSetOps(K key) {
+        return shardFor(key).boundZSetOps(key);
+    }
+
+    /**
+     * 依次在每个分片上打开管道, 全部打开后以按 Key 路由的管道执行 {@code action}
+     */
+    private void openPipelines(int flushSize, List<RedisPipeline<K, V>> pipelines,
+                               Consumer<RedisPipeline<K, V>> action) {
+        if (pipelines.size() == this.shards.size()) {
+            action.accept(RedisPipeline.routing(pipelines, this::shardIndex));
+            return;
+        }
+        this.shards.get(pipelines.size()).pipeline(flushSize, pipeline -> {
+            pipelines.add(pipeline);
+            openPipelines(flushSize, pipelines, action);
+        });
+    }
+
+    private int shardIndex(K key) {
+        if (this.shards.size() == 1) {
+            return 0;
+        }
+        byte[] rawKey = key == null ? null : this.keySerializer.serialize(key);
+        if (rawKey == null) {
+            // 交由第一个分片验证
+            return 0;
+        }
+        long hash = hash(hashTag(rawKey));
+        int index = Arrays.binarySearch(this.ring, hash);
+        if (index < 0) {
+            index = -index - 1;
+        } else {
+            // 相同位置取第一个
+            while (index > 0 && this.ring[index - 1] == hash) {
+                index--;
+            }
+        }
+        return this.ringShards[index == this.ring.length ? 0 : index];
+    }
+
+    /**
+     * 按分片分组后分别读取, 并按输入顺序合并结果
+     */
+    private <T> List<T> groupedGet(Collection<K> keys, BiFunction<IRedisHelper<K, V>, List<K>, List<T>> getter) {
+        if (CollectionUtils.isEmpty(keys)) {
+            return new ArrayList<>();
+        }
+        List<K> list = new ArrayList<>(keys);
+        Map<Integer, List<Integer>> groups = groupIndexesByShard(list);
+        if (groups.size() == 1) {
+            return getter.apply(this.shards.get(groups.keySet().iterator().next()), list);
+        }
+        List<T> result = new ArrayList<>(Collections.nCopies(list.size(), null));
+        for (Map.Entry<Integer, List<Integer>> entry : groups.entrySet()) {
+            List<Integer> indexes = entry.getValue();
+            List<K> shardKeys = new ArrayList<>(indexes.size());
+            indexes.forEach(index -> shardKeys.add(list.get(index)));
+            List<T> values = getter.apply(this.shards.get(entry.getKey()), shardKeys);
+            if (values == null) {
+                return null;
+            }
+            for (int i = 0; i < indexes.size(); i++) {
+                result.set(indexes.get(i), values.get(i));
+            }
+        }
+        return result;
+    }
+
+    private Map<Integer, List<Integer>> groupIndexesByShard(List<K> keys) {
+        Map<Integer, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            groups.computeIfAbsent(shardIndex(keys.get(i)), shard -> new ArrayList<>()).add(i);
+        }
+        return groups;
+    }
+
+    private Map<Integer, Map<K, V>> groupByShard(Map<K, V> map) {
+        Map<Integer, Map<K, V>> groups = new LinkedHashMap<>();
+        map.forEach((key, value) -> groups.computeIfAbsent(shardIndex(key), shard -> new LinkedHashMap<>())
+                .put(key, value));
+        return groups;
+    }
+
+    /**
+     * 与 Redis 集群相同的规则: 第一个 {@code {} 与其后第一个 {@code }} 之间非空时只使用其中的内容
+     */
+    private static byte[] hashTag(byte[] rawKey) {
+        for (int start = 0; start < rawKey.length; start++) {
+            if (rawKey[start] == '{') {
+                for (int end = start + 1; end < rawKey.length; end++) {
+                    if (rawKey[end] == '}') {
+                        return end == start + 1 ? rawKey : Arrays.copyOfRange(rawKey, start + 1, end);
+                    }
+                }
+                return rawKey;
+            }
+        }
+        return rawKey;
+    }
+
+    private static long hash(byte[] bytes) {
+        return HASH.hash(bytes, 0, bytes.length, 0);
+    }
+
+    /**
+     * 依次打开每个分片的游标, 当前分片遍历完毕后立即关闭其游标
+     */
+    private static class ShardCursor<K, V> implements Iterator<K> {
+        private final Iterator<IRedisHelper<K, V>> shards;
+        private final Function<IRedisHelper<K, V>, Stream<K>> scan;
+        private Stream<K> current;
+        private Iterator<K> keys;
+        private boolean closed;
+
+        private ShardCursor(List<IRedisHelper<K, V>> shards, Function<IRedisHelper<K, V>, Stream<K>> scan) {
+            this.shards = shards.iterator();
+            this.scan = scan;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!this.closed) {
+                if (this.keys != null && this.keys.hasNext()) {
+                    return true;
+                }
+                if (this.current != null) {
+                    this.current.close();
+                    this.current = null;
+                    this.keys = null;
+                }
+                if (!this.shards.hasNext()) {
+                    return false;
+                }
+                this.current = this.scan.apply(this.shards.next());
+                this.keys = this.current.iterator();
+            }
+            return false;
+        }
+
+        @Override
+        public K next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return this.keys.next();
+        }
+
+        private void close() {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+            if (this.current != null) {
+                this.current.close();
+                this.current = null;
+            }
+        }
+    }
+
+    private static <K, V> IRedisHelper<K, V> firstShard(Map<String, ? extends IRedisHelper<K, V>> shards) {
+        if (MapUtils.isEmpty(shards)) {
+            throw new IllegalArgumentException("At least one shard is required.");
+        }
+        return shards.values().iterator().next();
+    }
+}
@@ -0,0 +1,184 @@
+package io.github.linna.cy.limiter;
+
+import lombok.Getter;
+
+import javax.validation.constraints.NotNull;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 本地预分配 (租约) 的限流器装饰器: 本地配额不足时, 一次从 {@code delegate} 获取至多 {@code leaseSize} 个许可,
+ * 之后的检查直接在本地扣减, 从而将 Redis 的请求量降低约 {@code leaseSize} 倍.
+ * <p>
+ * 每次预取的许可在 {@code leaseTime} 后失效, 未使用的许可被丢弃而不会归还, 因此限流只会更严格而不会超发.
+ * 续租不会延长之前预取的许可的有效时间, 扣减时优先使用最早预取的许可.
+ * 代价是精度: 最多 {@code 节点数 * leaseSize} 个许可会被各节点预先占用, 低流量的节点可能占着配额直到租约失效.
+ * {@code leaseSize} 应远小于 {@code delegate} 在一个窗口内的配额, {@code leaseTime} 应不大于其窗口长度.
+ * </p>
+ *
+ * @param <K> Key 的类型
+ */
+public class LeasedRateLimiter<K> implements RateLimiter<K> {
+    private static final int CLEANUP_INTERVAL = 1024;
+
+    @Getter
+    private final RateLimiter<K> delegate;
+
+    /**
+     * 每次向 {@code delegate} 预取的许可数量
+     */
+    @Getter
+    private final long leaseSize;
+
+    /**
+     * 租约的有效时间
+     */
+    @Getter
+    private final Duration leaseTime;
+
+    private final ConcurrentMap<K, Lease> leases = new ConcurrentHashMap<>();
+    private final AtomicLong acquisitions = new AtomicLong();
+
+    /**
+     * @param leaseSize 每次预取的许可数量, 必须为正数
+     * @param leaseTime 租约的有效时间, 必须为正数
+     */
+    public LeasedRateLimiter(@NotNull RateLimiter<K> delegate, long leaseSize, @NotNull Duration leaseTime) {
+        if (leaseSize <= 0 || leaseTime.isNegative() || leaseTime.isZero()) {
+            throw new IllegalArgumentException("The lease size and lease time must be positive.");
+        }
+        this.delegate = delegate;
+        this.leaseSize = leaseSize;
+        this.leaseTime = leaseTime;
+    }
+
+    @Override
+    public boolean tryAcquire(K key, long permits) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("The permits must be positive.");
+        }
+        if (permits > this.leaseSize) {
+            // 超过租约大小的请求直接访问 Redis
+            return this.delegate.tryAcquire(key, permits);
+        }
+        return acquire(key, permits, false) == permits;
+    }
+
+    @Override
+    public long tryAcquireUpTo(K key, long permits) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("The permits must be positive.");
+        }
+        if (permits > this.leaseSize) {
+            return this.delegate.tryAcquireUpTo(key, permits);
+        }
+        return acquire(key, permits, true);
+    }
+
+    /**
+     * 本地剩余的 (未失效的) 许可数量
+     */
+    public long localPermits(K key) {
+        Lease lease = this.leases.get(key);
+        if (lease == null) {
+            return 0;
+        }
+        synchronized (lease) {
+            return lease.remaining(System.nanoTime());
+        }
+    }
+
+    private long acquire(K key, long permits, boolean partial) {
+        if (this.acquisitions.incrementAndGet() % CLEANUP_INTERVAL == 0) {
+            long now = System.nanoTime();
+            this.leases.values().removeIf(lease -> lease.isExpired(now));
+        }
+
+        Lease lease = this.leases.computeIfAbsent(key, k -> new Lease());
+        // 同一个 Key 在本节点同时只有一个线程续租, 其余线程等待其结果
+        synchronized (lease) {
+            long now = System.nanoTime();
+            long remaining = lease.remaining(now);
+            if (remaining < permits) {
+                long granted = this.delegate.tryAcquireUpTo(key, this.leaseSize);
+                if (granted > 0) {
+                    lease.grant(granted, now + this.leaseTime.toNanos());
+                    remaining += granted;
+                }
+            }
+            long acquired = Math.min(remaining, permits);
+            if (acquired < permits && !partial) {
+                return 0;
+            }
+            lease.take(acquired);
+            return acquired;
+        }
+    }
+
+    /**
+     * 一个 Key 在本节点的租约, 由各次预取的许可组成, 每次预取的许可有各自的失效时间. 除 {@code expiresAt} 外只能在持有锁时访问
+     */
+    private static class Lease {
+        private final Deque<Grant> grants = new ArrayDeque<>();
+
+        /**
+         * 最近一次预取的失效时间, 此后所有许可都已失效
+         */
+        private volatile long expiresAt;
+
+        private boolean isExpired(long now) {
+            return now - this.expiresAt >= 0;
+        }
+
+        /**
+         * 丢弃已失效的许可, 返回剩余的许可数量
+         */
+        private long remaining(long now) {
+            long remaining = 0;
+            for (Iterator<Grant> iterator = this.grants.iterator(); iterator.hasNext(); ) {
+                Grant grant = iterator.next();
+                if (now - grant.expiresAt >= 0 || grant.remaining == 0) {
+                    iterator.remove();
+                } else {
+                    remaining += grant.remaining;
+                }
+            }
+            return remaining;
+        }
+
+        private void grant(long permits, long expiresAt) {
+            this.grants.addLast(new Grant(permits, expiresAt));
+            this.expiresAt = expiresAt;
+        }
+
+        /**
+         * 从最早预取的许可开始扣减 {@code permits} 个许可, 调用前需要确认剩余数量足够
+         */
+        private void take(long permits) {
+            while (permits > 0) {
+                Grant grant = this.grants.peekFirst();
+                long taken = Math.min(grant.remaining, permits);
+                grant.remaining -= taken;
+                permits -= taken;
+                if (grant.remaining == 0) {
+                    this.grants.pollFirst();
+                }
+            }
+        }
+    }
+
+    private static class Grant {
+        private long remaining;
+        private final long expiresAt;
+
+        private Grant(long remaining, long expiresAt) {
+            this.remaining = remaining;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package io.github.linna.cy.limiter;
+
+/**
+ * 限流器. 每个 {@code key} 独立计算配额
+ *
+ * @param <K> Key 的类型
+ */
+public interface RateLimiter<K> {
+
+    /**
+     * 尝试获取 1 个许可
+     *
+     * @return 是否获取成功
+     */
+    default boolean tryAcquire(K key) {
+        return tryAcquire(key, 1);
+    }
+
+    /**
+     * 尝试一次性获取 {@code permits} 个许可, 配额不足时不获取任何许可
+     *
+     * @param permits 必须为正数
+     * @return 是否获取成功
+     */
+    boolean tryAcquire(K key, long permits);
+
+    /**
+     * 尝试获取至多 {@code permits} 个许可, 配额不足时获取剩余的全部许可
+     *
+     * @param permits 必须为正数
+     * @return 实际获取的许可数量, 介于 {@code 0} 与 {@code permits} 之间
+     */
+    long tryAcquireUpTo(K key, long permits);
+}
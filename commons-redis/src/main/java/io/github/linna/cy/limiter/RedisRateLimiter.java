@@ -0,0 +1,68 @@
+package io.github.linna.cy.limiter;
+
+import io.github.linna.cy.helper.RedisBaseHelper;
+import io.github.linna.cy.script.LuaScript;
+import io.github.linna.cy.script.RedisScripts;
+import lombok.Getter;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import javax.validation.constraints.NotNull;
+import java.util.List;
+
+/**
+ * 基于 Lua 脚本的分布式限流器, 每次检查只发送一次原子的 EVALSHA 请求.
+ * <p>
+ * 时间取自 Redis 服务端 (TIME), 与各节点的本地时钟无关. Key 使用 {@link RedisBaseHelper#getTemplate()}
+ * 的 Key 序列化器 (即 {@link io.github.linna.cy.config.BaseRedisConfig} 中配置的前缀与模式) 序列化,
+ * 状态以 Hash 的形式保存在该 Key 中, 并在不再需要时自动过期.
+ * </p>
+ *
+ * @param <K> Key 的类型
+ */
+public abstract class RedisRateLimiter<K> implements RateLimiter<K> {
+    private static final byte[] ALL_OR_NOTHING = RedisScripts.toArgument(0);
+    private static final byte[] UP_TO = RedisScripts.toArgument(1);
+
+    @Getter
+    private final RedisBaseHelper<K, ?> helper;
+
+    protected RedisRateLimiter(@NotNull RedisBaseHelper<K, ?> helper) {
+        this.helper = helper;
+    }
+
+    @Override
+    public boolean tryAcquire(K key, long permits) {
+        return acquire(key, permits, false) == permits;
+    }
+
+    @Override
+    public long tryAcquireUpTo(K key, long permits) {
+        return acquire(key, permits, true);
+    }
+
+    /**
+     * 限流脚本. 约定 KEYS[1] 为状态 Key, ARGV[1] 为请求的许可数量, ARGV[2] 为 {@code 1} 时允许部分获取,
+     * 其余参数由 {@link RedisRateLimiter#arguments()} 提供; 返回的列表第一个元素为实际获取的许可数量
+     */
+    protected abstract LuaScript script();
+
+    /**
+     * 追加在 ARGV[3] 之后的算法参数
+     */
+    protected abstract byte[][] arguments();
+
+    @SuppressWarnings("unchecked")
+    private long acquire(K key, long permits, boolean partial) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("The permits must be positive.");
+        }
+        byte[][] arguments = arguments();
+        byte[][] keysAndArgs = new byte[3 + arguments.length][];
+        keysAndArgs[0] = ((RedisSerializer<K>) this.helper.getTemplate().getKeySerializer()).serialize(key);
+        keysAndArgs[1] = RedisScripts.toArgument(permits);
+        keysAndArgs[2] = partial ? UP_TO : ALL_OR_NOTHING;
+        System.arraycopy(arguments, 0, keysAndArgs, 3, arguments.length);
+        List<Object> result = script().execute(this.helper.getTemplate(), 1, keysAndArgs);
+        return result == null || result.isEmpty() ? 0 : (Long) result.get(0);
+    }
+}
@@ -0,0 +1,94 @@
+package io.github.linna.cy.limiter;
+
+import io.github.linna.cy.helper.RedisBaseHelper;
+import io.github.linna.cy.script.LuaScript;
+import io.github.linna.cy.script.RedisScripts;
+import lombok.AccessLevel;
+import lombok.Getter;
+import org.springframework.data.redis.connection.ReturnType;
+
+import javax.validation.constraints.NotNull;
+import java.time.Duration;
+
+/**
+ * 滑动窗口限流器: 任意长度为 {@code window} 的时间段内最多 {@code limit} 个许可.
+ * <p>
+ * 使用滑动窗口计数 (sliding window counter) 近似: 只保存当前与上一个固定窗口的计数,
+ * 已用配额为 {@code 上一个窗口的计数 * 其与滑动窗口重叠的比例 + 当前窗口的计数}. 每个 Key 只占用一个很小的 Hash,
+ * 与 {@code limit} 的大小无关, 也不存在固定窗口在边界处的双倍突发.
+ * </p>
+ *
+ * @param <K> Key 的类型
+ */
+@Getter
+public class SlidingWindowRateLimiter<K> extends RedisRateLimiter<K> {
+
+    /**
+     * KEYS[1]: 状态; ARGV[1]: 许可数量; ARGV[2]: 是否允许部分获取; ARGV[3]: limit; ARGV[4]: 窗口长度 (ms).
+     * 返回 {@code [获取的许可数量, 剩余配额]}
+     */
+    public static final LuaScript SCRIPT = new LuaScript("slidingWindowRateLimiter",
+            "redis.replicate_commands()\n" +
+                    "local permits = tonumber(ARGV[1])\n" +
+                    "local limit = tonumber(ARGV[3])\n" +
+                    "local window = tonumber(ARGV[4])\n" +
+                    "local time = redis.call('TIME')\n" +
+                    "local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)\n" +
+                    "local index = math.floor(now / window)\n" +
+                    "local state = redis.call('HMGET', KEYS[1], 'w', 'c', 'p')\n" +
+                    "local current = tonumber(state[2]) or 0\n" +
+                    "local previous = tonumber(state[3]) or 0\n" +
+                    "local stored = tonumber(state[1])\n" +
+                    "if stored ~= index then\n" +
+                    "    if stored == index - 1 then previous = current else previous = 0 end\n" +
+                    "    current = 0\n" +
+                    "end\n" +
+                    "local used = math.ceil(previous * (window - now % window) / window) + current\n" +
+                    "local available = math.max(limit - used, 0)\n" +
+                    "local granted = permits\n" +
+                    "if available < permits then\n" +
+                    "    if ARGV[2] == '1' then granted = available else granted = 0 end\n" +
+                    "end\n" +
+                    "if granted > 0 or stored ~= index then\n" +
+                    "    redis.call('HMSET', KEYS[1], 'w', index, 'c', current + granted, 'p', previous)\n" +
+                    "    redis.call('PEXPIRE', KEYS[1], window * 2)\n" +
+                    "end\n" +
+                    "return {granted, available - granted}", ReturnType.MULTI);
+
+    /**
+     * 每个窗口的许可数量
+     */
+    private final long limit;
+
+    /**
+     * 窗口长度
+     */
+    private final Duration window;
+
+    @Getter(AccessLevel.NONE)
+    private final byte[][] arguments;
+
+    /**
+     * @param limit  每个窗口的许可数量, 必须为正数
+     * @param window 窗口长度, 至少为 1ms
+     */
+    public SlidingWindowRateLimiter(@NotNull RedisBaseHelper<K, ?> helper, long limit, @NotNull Duration window) {
+        super(helper);
+        if (limit <= 0 || window.toMillis() <= 0) {
+            throw new IllegalArgumentException("The limit must be positive and the window must be at least 1ms.");
+        }
+        this.limit = limit;
+        this.window = window;
+        this.arguments = new byte[][]{RedisScripts.toArgument(limit), RedisScripts.toArgument(window.toMillis())};
+    }
+
+    @Override
+    protected LuaScript script() {
+        return SCRIPT;
+    }
+
+    @Override
+    protected byte[][] arguments() {
+        return this.arguments;
+    }
+}
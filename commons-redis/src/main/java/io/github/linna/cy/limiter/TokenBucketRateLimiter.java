@@ -0,0 +1,91 @@
+package io.github.linna.cy.limiter;
+
+import io.github.linna.cy.helper.RedisBaseHelper;
+import io.github.linna.cy.script.LuaScript;
+import io.github.linna.cy.script.RedisScripts;
+import lombok.AccessLevel;
+import lombok.Getter;
+import org.springframework.data.redis.connection.ReturnType;
+
+import javax.validation.constraints.NotNull;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 令牌桶限流器: 桶的容量为 {@code capacity}, 每秒补充 {@code refillPerSecond} 个令牌, 每个许可消耗一个令牌.
+ * <p>
+ * 允许最多 {@code capacity} 的突发, 长期平均速率为 {@code refillPerSecond}. 令牌数量在每次请求时根据服务端时间惰性计算,
+ * 桶被补满后状态 Key 自动过期.
+ * </p>
+ *
+ * @param <K> Key 的类型
+ */
+@Getter
+public class TokenBucketRateLimiter<K> extends RedisRateLimiter<K> {
+
+    /**
+     * KEYS[1]: 状态; ARGV[1]: 许可数量; ARGV[2]: 是否允许部分获取; ARGV[3]: 容量; ARGV[4]: 每秒补充的令牌数量.
+     * 返回 {@code [获取的许可数量, 剩余令牌数量 (向下取整)]}
+     */
+    public static final LuaScript SCRIPT = new LuaScript("tokenBucketRateLimiter",
+            "redis.replicate_commands()\n" +
+                    "local permits = tonumber(ARGV[1])\n" +
+                    "local capacity = tonumber(ARGV[3])\n" +
+                    "local rate = tonumber(ARGV[4]) / 1000\n" +
+                    "local time = redis.call('TIME')\n" +
+                    "local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)\n" +
+                    "local state = redis.call('HMGET', KEYS[1], 't', 'ts')\n" +
+                    "local tokens = tonumber(state[1])\n" +
+                    "local updated = tonumber(state[2])\n" +
+                    "if tokens == nil or updated == nil then\n" +
+                    "    tokens = capacity\n" +
+                    "else\n" +
+                    "    tokens = math.min(capacity, tokens + math.max(now - updated, 0) * rate)\n" +
+                    "end\n" +
+                    "local available = math.floor(tokens)\n" +
+                    "local granted = permits\n" +
+                    "if available < permits then\n" +
+                    "    if ARGV[2] == '1' then granted = available else granted = 0 end\n" +
+                    "end\n" +
+                    "tokens = tokens - granted\n" +
+                    "redis.call('HMSET', KEYS[1], 't', tostring(tokens), 'ts', now)\n" +
+                    "redis.call('PEXPIRE', KEYS[1], math.ceil((capacity - tokens) / rate) + 1000)\n" +
+                    "return {granted, math.floor(tokens)}", ReturnType.MULTI);
+
+    /**
+     * 桶的容量, 即允许的最大突发
+     */
+    private final long capacity;
+
+    /**
+     * 每秒补充的令牌数量
+     */
+    private final double refillPerSecond;
+
+    @Getter(AccessLevel.NONE)
+    private final byte[][] arguments;
+
+    /**
+     * @param capacity        桶的容量, 必须为正数
+     * @param refillPerSecond 每秒补充的令牌数量, 必须为正数
+     */
+    public TokenBucketRateLimiter(@NotNull RedisBaseHelper<K, ?> helper, long capacity, double refillPerSecond) {
+        super(helper);
+        if (capacity <= 0 || !(refillPerSecond > 0)) {
+            throw new IllegalArgumentException("The capacity and refill rate must be positive.");
+        }
+        this.capacity = capacity;
+        this.refillPerSecond = refillPerSecond;
+        this.arguments = new byte[][]{RedisScripts.toArgument(capacity),
+                Double.toString(refillPerSecond).getBytes(StandardCharsets.UTF_8)};
+    }
+
+    @Override
+    protected LuaScript script() {
+        return SCRIPT;
+    }
+
+    @Override
+    protected byte[][] arguments() {
+        return this.arguments;
+    }
+}
@@ -0,0 +1,91 @@
+package io.github.linna.cy.lock;
+
+import lombok.Getter;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 一次成功获取的分布式锁. 通过 {@link RedisLockLease#unlock()} 或 try-with-resources 释放
+ * <p>
+ * NOTES: 持有期间租约在后台自动续期; 续期失败 (例如与 Redis 的连接长时间中断) 时锁可能已被其他节点获取,
+ * 此时 {@link RedisLockLease#isHeld()} 返回 {@code false}. 对外部资源的写入应携带 {@link RedisLockLease#getFencingToken()},
+ * 由资源拒绝比已见过的令牌更小的请求.
+ * </p>
+ */
+public class RedisLockLease implements AutoCloseable {
+    private final RedisLockManager manager;
+
+    /**
+     * 锁的名称
+     */
+    @Getter
+    private final String name;
+
+    /**
+     * 本次持有锁的唯一标识, 释放与续期时用于校验持有者
+     */
+    @Getter
+    private final String token;
+
+    /**
+     * 隔离令牌 (fencing token), 同一个锁每次被获取时单调递增
+     */
+    @Getter
+    private final long fencingToken;
+
+    final byte[] rawLockKey;
+    final byte[] rawToken;
+    volatile ScheduledFuture<?> renewal;
+    volatile long lastRenewedNanos;
+    private volatile boolean held = true;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    RedisLockLease(RedisLockManager manager, String name, String token, long fencingToken, byte[] rawLockKey,
+                   byte[] rawToken) {
+        this.manager = manager;
+        this.name = name;
+        this.token = token;
+        this.fencingToken = fencingToken;
+        this.rawLockKey = rawLockKey;
+        this.rawToken = rawToken;
+        this.lastRenewedNanos = System.nanoTime();
+    }
+
+    /**
+     * 是否仍持有锁 (未释放, 且续期没有失败)
+     */
+    public boolean isHeld() {
+        return this.held;
+    }
+
+    /**
+     * 释放锁. 重复调用或锁已失效时不会删除其他持有者的锁
+     *
+     * @return 是否由本次调用释放了锁
+     */
+    public boolean unlock() {
+        if (!this.released.compareAndSet(false, true)) {
+            return false;
+        }
+        lost();
+        // 续期失败的锁也尝试释放, 失败只意味着已被其他节点获取或已过期
+        return this.manager.release(this);
+    }
+
+    @Override
+    public void close() {
+        unlock();
+    }
+
+    /**
+     * 停止续期并标记为不再持有
+     */
+    void lost() {
+        this.held = false;
+        ScheduledFuture<?> future = this.renewal;
+        if (future != null) {
+            future.cancel(false);
+        }
+    }
+}
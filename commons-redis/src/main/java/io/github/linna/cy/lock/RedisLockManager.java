@@ -0,0 +1,328 @@
+package io.github.linna.cy.lock;
+
+import io.github.linna.cy.helper.RedisBaseHelper;
+import io.github.linna.cy.script.LuaScript;
+import io.github.linna.cy.script.RedisScripts;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import javax.validation.constraints.NotNull;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 基于 Redis 的分布式锁.
+ * <ul>
+ *     <li>获取: 一个 Lua 脚本中执行 {@code SET NX PX} 并递增隔离令牌 (fencing token) 计数器, 二者原子完成</li>
+ *     <li>释放: 只有 Value 等于本次持有的随机令牌时才删除, 并通过 PUBLISH 通知等待者</li>
+ *     <li>续期: 持有期间在共享的调度线程池中每 {@code leaseTime / 3} 续期一次</li>
+ *     <li>等待: 订阅释放通知后阻塞, 收到通知或锁的剩余 TTL 耗尽时才重试, 不会轮询 Redis</li>
+ * </ul>
+ * 锁 {@code name} 对应的 Key 为 {@code lock:{name}}, 隔离令牌计数器为 {@code lock:{name}:fencing} (永不过期),
+ * 二者通过 Hash Tag 位于同一个槽; Key 由 {@link RedisBaseHelper#getTemplate()} 的 Key 序列化器序列化.
+ * 释放通知统一发布到频道 {@code lock:released}, 消息内容为锁的 Key.
+ * <p>
+ * NOTES: 锁不可重入. 使用自行创建的订阅容器时, 不再使用后应调用 {@link RedisLockManager#destroy()}.
+ * </p>
+ */
+@Slf4j
+public class RedisLockManager implements MessageListener, DisposableBean {
+
+    /**
+     * 默认的租约时间
+     */
+    public static final Duration DEFAULT_LEASE_TIME = Duration.ofSeconds(30);
+
+    /**
+     * KEYS[1]: 锁; KEYS[2]: 隔离令牌计数器; ARGV[1]: 令牌; ARGV[2]: 租约时间 (ms).
+     * 获取成功时返回 {@code [1, 隔离令牌]}, 否则返回 {@code [0, 锁的剩余 TTL (ms)]}
+     */
+    public static final LuaScript ACQUIRE = new LuaScript("lockAcquire",
+            "if redis.call('SET', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2]) then\n" +
+                    "    return {1, redis.call('INCR', KEYS[2])}\n" +
+                    "end\n" +
+                    "return {0, redis.call('PTTL', KEYS[1])}", ReturnType.MULTI);
+
+    /**
+     * KEYS[1]: 锁; ARGV[1]: 令牌; ARGV[2]: 通知频道. 释放成功时返回 {@code 1}
+     */
+    public static final LuaScript RELEASE = new LuaScript("lockRelease",
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then\n" +
+                    "    redis.call('DEL', KEYS[1])\n" +
+                    "    redis.call('PUBLISH', ARGV[2], KEYS[1])\n" +
+                    "    return 1\n" +
+                    "end\n" +
+                    "return 0", ReturnType.INTEGER);
+
+    /**
+     * KEYS[1]: 锁; ARGV[1]: 令牌; ARGV[2]: 租约时间 (ms). 续期成功时返回 {@code 1}
+     */
+    public static final LuaScript RENEW = new LuaScript("lockRenew",
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then\n" +
+                    "    return redis.call('PEXPIRE', KEYS[1], ARGV[2])\n" +
+                    "end\n" +
+                    "return 0", ReturnType.INTEGER);
+
+    private static final String KEY_PREFIX = "lock:{";
+    private static final String FENCING_SUFFIX = "}:fencing";
+    private static final String CHANNEL = "lock:released";
+    private static final byte[] RAW_CHANNEL = CHANNEL.getBytes(StandardCharsets.UTF_8);
+
+    private static volatile ScheduledExecutorService sharedScheduler;
+
+    private final RedisBaseHelper<Serializable, ?> helper;
+    private final ConcurrentMap<ByteBuffer, Set<CountDownLatch>> waiters = new ConcurrentHashMap<>();
+
+    /**
+     * 租约时间. 持有者失联时, 锁最多在该时间后被自动释放
+     */
+    @Getter
+    @Setter
+    private Duration leaseTime = DEFAULT_LEASE_TIME;
+
+    /**
+     * 续期所使用的调度线程池, 默认为所有 {@link RedisLockManager} 共享的单线程守护线程池
+     */
+    @Setter
+    private ScheduledExecutorService scheduler;
+
+    private RedisMessageListenerContainer container;
+    private final boolean ownsContainer;
+    private volatile boolean subscribed;
+
+    /**
+     * 在第一次等待获取锁 ({@link RedisLockManager#tryLock(String, Duration)} 或 {@link RedisLockManager#lock(String)})
+     * 时自行创建订阅容器
+     */
+    public RedisLockManager(@NotNull RedisBaseHelper<Serializable, ?> helper) {
+        this(helper, null);
+    }
+
+    /**
+     * @param container 用于订阅释放通知的容器, 为 {@code null} 时在第一次等待获取锁时自行创建
+     */
+    public RedisLockManager(@NotNull RedisBaseHelper<Serializable, ?> helper, RedisMessageListenerContainer container) {
+        this.helper = helper;
+        this.container = container;
+        this.ownsContainer = container == null;
+    }
+
+    /**
+     * 尝试立即获取锁
+     *
+     * @return 获取失败时返回 {@code null}
+     */
+    public RedisLockLease tryLock(@NotNull String name) {
+        return attempt(name, lockKey(name), fencingKey(name), UUID.randomUUID().toString()).lease;
+    }
+
+    /**
+     * 在 {@code waitTime} 内尝试获取锁
+     *
+     * @return 超时时返回 {@code null}
+     * @throws InterruptedException 等待时被中断
+     */
+    public RedisLockLease tryLock(@NotNull String name, @NotNull Duration waitTime) throws InterruptedException {
+        return acquire(name, System.nanoTime() + waitTime.toNanos(), true);
+    }
+
+    /**
+     * 获取锁, 必要时一直等待
+     *
+     * @throws InterruptedException 等待时被中断
+     */
+    public RedisLockLease lock(@NotNull String name) throws InterruptedException {
+        return acquire(name, 0, false);
+    }
+
+    /**
+     * 收到释放通知时唤醒等待同一个锁的线程
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        Set<CountDownLatch> latches = this.waiters.get(ByteBuffer.wrap(message.getBody()));
+        if (latches != null) {
+            latches.forEach(CountDownLatch::countDown);
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        RedisMessageListenerContainer owned;
+        synchronized (this) {
+            owned = this.ownsContainer ? this.container : null;
+            this.container = null;
+            this.subscribed = false;
+        }
+        if (owned != null) {
+            owned.destroy();
+        }
+    }
+
+    private RedisLockLease acquire(String name, long deadline, boolean timed) throws InterruptedException {
+        byte[] lockKey = lockKey(name);
+        byte[] fencingKey = fencingKey(name);
+        String token = UUID.randomUUID().toString();
+        ByteBuffer waiterKey = ByteBuffer.wrap(lockKey);
+        // 在第一次尝试前完成订阅, 否则在尝试与订阅完成之间发布的释放通知会被错过
+        subscribe();
+        while (true) {
+            // 先登记再尝试, 避免在尝试与等待之间错过通知
+            CountDownLatch latch = new CountDownLatch(1);
+            this.waiters.computeIfAbsent(waiterKey, k -> ConcurrentHashMap.newKeySet()).add(latch);
+            try {
+                Attempt attempt = attempt(name, lockKey, fencingKey, token);
+                if (attempt.lease != null) {
+                    return attempt.lease;
+                }
+                long waitNanos = attempt.ttlMillis > 0 ? TimeUnit.MILLISECONDS.toNanos(attempt.ttlMillis) :
+                        TimeUnit.MILLISECONDS.toNanos(100);
+                if (timed) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        return null;
+                    }
+                    waitNanos = Math.min(waitNanos, remaining);
+                }
+                latch.await(waitNanos, TimeUnit.NANOSECONDS);
+            } finally {
+                this.waiters.computeIfPresent(waiterKey, (k, latches) -> {
+                    latches.remove(latch);
+                    return latches.isEmpty() ? null : latches;
+                });
+            }
+        }
+    }
+
+    private Attempt attempt(String name, byte[] lockKey, byte[] fencingKey, String token) {
+        byte[] rawToken = token.getBytes(StandardCharsets.UTF_8);
+        long leaseMillis = this.leaseTime.toMillis();
+        List<Object> result = ACQUIRE.execute(this.helper.getTemplate(), 2, lockKey, fencingKey, rawToken,
+                RedisScripts.toArgument(leaseMillis));
+        if (result == null || result.size() < 2) {
+            return new Attempt(null, -1);
+        }
+        long value = (Long) result.get(1);
+        if ((Long) result.get(0) != 1) {
+            return new Attempt(null, value);
+        }
+        RedisLockLease lease = new RedisLockLease(this, name, token, value, lockKey, rawToken);
+        long period = Math.max(leaseMillis / 3, 1);
+        lease.renewal = scheduler().scheduleAtFixedRate(() -> renew(lease, leaseMillis), period, period,
+                TimeUnit.MILLISECONDS);
+        return new Attempt(lease, 0);
+    }
+
+    boolean release(RedisLockLease lease) {
+        Long released = RELEASE.execute(this.helper.getTemplate(), 1, lease.rawLockKey, lease.rawToken,
+                RAW_CHANNEL);
+        return released != null && released == 1;
+    }
+
+    private void renew(RedisLockLease lease, long leaseMillis) {
+        if (!lease.isHeld()) {
+            return;
+        }
+        try {
+            Long renewed = RENEW.execute(this.helper.getTemplate(), 1, lease.rawLockKey, lease.rawToken,
+                    RedisScripts.toArgument(leaseMillis));
+            if (renewed != null && renewed == 1) {
+                lease.lastRenewedNanos = System.nanoTime();
+                return;
+            }
+            log.warn("The lock \"{}\" has been lost before it was released.", lease.getName());
+            lease.lost();
+        } catch (RuntimeException e) {
+            if (System.nanoTime() - lease.lastRenewedNanos >= TimeUnit.MILLISECONDS.toNanos(leaseMillis)) {
+                log.warn("Failed to renew the lock \"{}\" within its lease time.", lease.getName(), e);
+                lease.lost();
+            } else {
+                log.debug("Failed to renew the lock \"{}\", will retry.", lease.getName(), e);
+            }
+        }
+    }
+
+    private void subscribe() {
+        if (this.subscribed) {
+            return;
+        }
+        synchronized (this) {
+            if (this.subscribed) {
+                return;
+            }
+            if (this.container == null) {
+                RedisMessageListenerContainer created = new RedisMessageListenerContainer();
+                created.setConnectionFactory(this.helper.getTemplate().getRequiredConnectionFactory());
+                created.afterPropertiesSet();
+                created.start();
+                this.container = created;
+            }
+            // 容器运行时, 添加监听器会等待订阅完成
+            this.container.addMessageListener(this, new ChannelTopic(CHANNEL));
+            this.subscribed = true;
+        }
+    }
+
+    private ScheduledExecutorService scheduler() {
+        if (this.scheduler != null) {
+            return this.scheduler;
+        }
+        if (sharedScheduler == null) {
+            synchronized (RedisLockManager.class) {
+                if (sharedScheduler == null) {
+                    AtomicInteger count = new AtomicInteger();
+                    ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+                        Thread thread = new Thread(runnable, "redis-lock-renewal-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    executor.setRemoveOnCancelPolicy(true);
+                    sharedScheduler = executor;
+                }
+            }
+        }
+        return sharedScheduler;
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] lockKey(String name) {
+        return ((RedisSerializer<Serializable>) this.helper.getTemplate().getKeySerializer())
+                .serialize(KEY_PREFIX + name + "}");
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] fencingKey(String name) {
+        return ((RedisSerializer<Serializable>) this.helper.getTemplate().getKeySerializer())
+                .serialize(KEY_PREFIX + name + FENCING_SUFFIX);
+    }
+
+    private static class Attempt {
+        private final RedisLockLease lease;
+        private final long ttlMillis;
+
+        private Attempt(RedisLockLease lease, long ttlMillis) {
+            this.lease = lease;
+            this.ttlMillis = ttlMillis;
+        }
+    }
+}
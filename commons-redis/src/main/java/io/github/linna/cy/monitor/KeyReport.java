@@ -0,0 +1,42 @@
+package io.github.linna.cy.monitor;
+
+import lombok.Value;
+
+/**
+ * {@link SlowOperationDetector} 中一个被标记的 Key 的统计快照
+ */
+@Value
+public class KeyReport {
+    /**
+     * Key ({@link String#valueOf(Object)})
+     */
+    String key;
+    /**
+     * 最近一次被标记的操作
+     */
+    String operation;
+    /**
+     * 被标记的次数
+     */
+    long occurrences;
+    /**
+     * 观测到的最大耗时 (单位: ns)
+     */
+    long maxLatencyNanos;
+    /**
+     * 观测到的最大的值的大小 (单位: 字节), 未抽样到时为 {@code 0}
+     */
+    long maxPayloadSize;
+    /**
+     * 观测到的最大的 Hash 字段数量, 非 Hash 操作为 {@code 0}
+     */
+    long maxFieldCount;
+    /**
+     * 严重程度: 耗时 / 大小 / 字段数量与各自阈值之比的最大值, 不小于 {@code 1}
+     */
+    double severity;
+    /**
+     * 最近一次被标记的时间戳 (单位: ms)
+     */
+    long lastSeenMillis;
+}
@@ -0,0 +1,220 @@
+package io.github.linna.cy.monitor;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 慢操作与大 Key 检测器.
+ * <p>
+ * 每次操作都会检查耗时; 值的大小 (需要序列化) 按 {@link SlowOperationDetector#getSampleInterval()} 抽样,
+ * Hash 的字段数量在 {@code getAll(K)} / {@code fields(K)} / {@code put(K, Map)} 时直接取结果的大小.
+ * 超过任一阈值的 Key 会被记入报告, 报告最多保留 {@link SlowOperationDetector#getCapacity()} 个
+ * 严重程度最高的 Key, 通过 {@link SlowOperationDetector#report()} 获取. 报告已满时, 严重程度不高于其中最低者的新 Key
+ * 直接忽略 (只计入 {@link SlowOperationDetector#flaggedCount()}); 只有新记入报告的 Key 会输出一次警告日志.
+ * </p>
+ *
+ * @see io.github.linna.cy.helper.impl.BaseRedisHelperImpl#setDetector(SlowOperationDetector)
+ */
+@Slf4j
+@Getter
+public class SlowOperationDetector {
+
+    public static final Duration DEFAULT_LATENCY_THRESHOLD = Duration.ofMillis(10);
+    public static final long DEFAULT_PAYLOAD_SIZE_THRESHOLD = 64 * 1024;
+    public static final long DEFAULT_FIELD_COUNT_THRESHOLD = 5000;
+    public static final int DEFAULT_SAMPLE_INTERVAL = 100;
+    public static final int DEFAULT_CAPACITY = 100;
+
+    private static final Comparator<MutableReport> SEVERITY_ORDER =
+            Comparator.<MutableReport>comparingDouble(report -> report.severity).thenComparing(report -> report.key);
+
+    /**
+     * 耗时阈值 (单位: ns)
+     */
+    private final long latencyThresholdNanos;
+    /**
+     * 值的大小阈值 (单位: 字节)
+     */
+    private final long payloadSizeThreshold;
+    /**
+     * Hash 字段数量阈值
+     */
+    private final long fieldCountThreshold;
+    /**
+     * 每多少次操作抽样一次值的大小, 不大于 {@code 0} 时不统计值的大小
+     */
+    private final int sampleInterval;
+    /**
+     * 报告中最多保留的 Key 的数量
+     */
+    private final int capacity;
+
+    /**
+     * 只在持有 {@link SlowOperationDetector#bySeverity} 的锁时修改, 读取 (判断 Key 是否已在报告中) 不需要加锁
+     */
+    @Getter(AccessLevel.NONE)
+    private final Map<String, MutableReport> reports = new ConcurrentHashMap<>();
+    /**
+     * 按严重程度从低到高排序, 用于在 O(log n) 内找到并淘汰严重程度最低的 Key
+     */
+    @Getter(AccessLevel.NONE)
+    private final TreeSet<MutableReport> bySeverity = new TreeSet<>(SEVERITY_ORDER);
+    /**
+     * 报告已满时为其中最低的严重程度, 否则为 {@code 0}. 用于在加锁之前过滤不会被记入报告的新 Key
+     */
+    @Getter(AccessLevel.NONE)
+    private volatile double admissionFloor;
+    @Getter(AccessLevel.NONE)
+    private final AtomicLong sequence = new AtomicLong();
+    @Getter(AccessLevel.NONE)
+    private final LongAdder flagged = new LongAdder();
+
+    public SlowOperationDetector() {
+        this(DEFAULT_LATENCY_THRESHOLD, DEFAULT_PAYLOAD_SIZE_THRESHOLD, DEFAULT_FIELD_COUNT_THRESHOLD,
+                DEFAULT_SAMPLE_INTERVAL, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param latencyThreshold     耗时阈值
+     * @param payloadSizeThreshold 值的大小阈值 (单位: 字节)
+     * @param fieldCountThreshold  Hash 字段数量阈值
+     * @param sampleInterval       每多少次操作抽样一次值的大小, 不大于 {@code 0} 时不统计值的大小
+     * @param capacity             报告中最多保留的 Key 的数量
+     */
+    public SlowOperationDetector(Duration latencyThreshold, long payloadSizeThreshold, long fieldCountThreshold,
+                                 int sampleInterval, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The capacity must be positive.");
+        }
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.payloadSizeThreshold = payloadSizeThreshold;
+        this.fieldCountThreshold = fieldCountThreshold;
+        this.sampleInterval = sampleInterval;
+        this.capacity = capacity;
+    }
+
+    /**
+     * 记录一次操作
+     *
+     * @param latencyNanos 耗时 (单位: ns)
+     * @param payload      抽样时调用, 返回序列化后的值; 可以为 {@code null}
+     * @param fieldCount   Hash 字段数量, 非 Hash 操作传入 {@code 0}
+     */
+    public void record(String operation, Object key, long latencyNanos, Supplier<byte[]> payload, long fieldCount) {
+        long payloadSize = 0;
+        if (payload != null && this.sampleInterval > 0 && this.sequence.getAndIncrement() % this.sampleInterval == 0) {
+            byte[] bytes = payload.get();
+            payloadSize = bytes == null ? 0 : bytes.length;
+        }
+        double severity = Math.max((double) latencyNanos / this.latencyThresholdNanos,
+                Math.max((double) payloadSize / this.payloadSizeThreshold, (double) fieldCount / this.fieldCountThreshold));
+        if (severity < 1) {
+            return;
+        }
+        this.flagged.increment();
+        String name = String.valueOf(key);
+        if (severity <= this.admissionFloor && !this.reports.containsKey(name)) {
+            return;
+        }
+        synchronized (this.bySeverity) {
+            MutableReport report = this.reports.get(name);
+            if (report != null) {
+                // 严重程度是排序的依据, 修改前先移出
+                this.bySeverity.remove(report);
+            } else {
+                if (this.reports.size() >= this.capacity) {
+                    MutableReport least = this.bySeverity.first();
+                    if (severity <= least.severity) {
+                        return;
+                    }
+                    this.bySeverity.pollFirst();
+                    this.reports.remove(least.key);
+                }
+                report = new MutableReport(name);
+                this.reports.put(name, report);
+            }
+            report.update(operation, latencyNanos, payloadSize, fieldCount, severity);
+            this.bySeverity.add(report);
+            this.admissionFloor = this.reports.size() >= this.capacity ? this.bySeverity.first().severity : 0;
+            if (report.occurrences > 1) {
+                return;
+            }
+        }
+        log.warn("Redis key \"{}\" flagged on {}: latency={}us, payloadSize={}, fieldCount={}",
+                name, operation, latencyNanos / 1000, payloadSize, fieldCount);
+    }
+
+    /**
+     * 获取按严重程度从高到低排序的报告
+     */
+    public List<KeyReport> report() {
+        List<KeyReport> result = new ArrayList<>();
+        synchronized (this.bySeverity) {
+            for (MutableReport report : this.bySeverity.descendingSet()) {
+                result.add(report.snapshot());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 被标记的操作总数
+     */
+    public long flaggedCount() {
+        return this.flagged.sum();
+    }
+
+    /**
+     * 清空报告
+     */
+    public void reset() {
+        synchronized (this.bySeverity) {
+            this.reports.clear();
+            this.bySeverity.clear();
+            this.admissionFloor = 0;
+        }
+        this.flagged.reset();
+    }
+
+    private static class MutableReport {
+        private final String key;
+        private String operation;
+        private long occurrences;
+        private long maxLatencyNanos;
+        private long maxPayloadSize;
+        private long maxFieldCount;
+        private double severity;
+        private long lastSeenMillis;
+
+        private MutableReport(String key) {
+            this.key = key;
+        }
+
+        private void update(String operation, long latencyNanos, long payloadSize, long fieldCount, double severity) {
+            this.operation = operation;
+            this.occurrences++;
+            this.maxLatencyNanos = Math.max(this.maxLatencyNanos, latencyNanos);
+            this.maxPayloadSize = Math.max(this.maxPayloadSize, payloadSize);
+            this.maxFieldCount = Math.max(this.maxFieldCount, fieldCount);
+            this.severity = Math.max(this.severity, severity);
+            this.lastSeenMillis = System.currentTimeMillis();
+        }
+
+        private KeyReport snapshot() {
+            return new KeyReport(this.key, this.operation, this.occurrences, this.maxLatencyNanos, this.maxPayloadSize,
+                    this.maxFieldCount, this.severity, this.lastSeenMillis);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package io.github.linna.cy.script;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.ReactiveRedisConnection;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import reactor.core.publisher.Flux;
+
+import javax.validation.constraints.NotNull;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * 一个 Lua 脚本. SHA1 在本地计算, 执行时优先使用 EVALSHA, 服务端尚未缓存该脚本 (NOSCRIPT) 时退化为 EVAL,
+ * EVAL 同时会使服务端缓存该脚本, 之后的调用只需发送 SHA1.
+ * <p>
+ * NOTES: 集群模式下脚本访问的所有 Key 必须位于同一个槽 (可使用 Hash Tag); 在管道或事务中执行时 NOSCRIPT 无法退化,
+ * 需要先通过 {@link RedisScriptRegistry#load(RedisTemplate)} 预加载.
+ * </p>
+ */
+@Getter
+public final class LuaScript {
+    private final String name;
+    private final String source;
+    private final ReturnType returnType;
+    private final String sha1;
+    @Getter(AccessLevel.NONE)
+    private final byte[] rawSource;
+
+    /**
+     * @param name       脚本名称, 用于在 {@link RedisScriptRegistry} 中注册
+     * @param source     Lua 源码
+     * @param returnType 返回值类型, 决定 {@link LuaScript#execute(RedisConnection, int, byte[]...)} 的结果类型
+     */
+    public LuaScript(@NotNull String name, @NotNull String source, @NotNull ReturnType returnType) {
+        this.name = name;
+        this.source = source;
+        this.returnType = returnType;
+        this.rawSource = source.getBytes(StandardCharsets.UTF_8);
+        this.sha1 = sha1Hex(this.rawSource);
+    }
+
+    /**
+     * 在 {@code connection} 上执行脚本
+     *
+     * @param numKeys     {@code keysAndArgs} 中 Key 的数量, 其余为参数
+     * @param keysAndArgs 序列化后的 Key 与参数
+     * @return 由 {@link LuaScript#getReturnType()} 决定: {@code INTEGER} 为 {@link Long}, {@code VALUE} 为 {@code byte[]},
+     * {@code MULTI} 为 {@link java.util.List}, {@code BOOLEAN} 为 {@link Boolean}, {@code STATUS} 为 {@link String}
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(@NotNull RedisConnection connection, int numKeys, byte[]... keysAndArgs) {
+        try {
+            return (T) connection.scriptingCommands().evalSha(this.sha1, this.returnType, numKeys, keysAndArgs);
+        } catch (DataAccessException e) {
+            if (!isNoScript(e)) {
+                throw e;
+            }
+            return (T) connection.scriptingCommands().eval(this.rawSource, this.returnType, numKeys, keysAndArgs);
+        }
+    }
+
+    /**
+     * 通过 {@code template} 获取连接并执行脚本
+     *
+     * @see LuaScript#execute(RedisConnection, int, byte[]...)
+     */
+    public <T> T execute(@NotNull RedisTemplate<?, ?> template, int numKeys, byte[]... keysAndArgs) {
+        return template.execute((RedisCallback<T>) connection -> execute(connection, numKeys, keysAndArgs));
+    }
+
+    /**
+     * 在非阻塞连接上执行脚本, 在订阅时发送
+     *
+     * @see LuaScript#execute(RedisConnection, int, byte[]...)
+     */
+    public <T> Flux<T> execute(@NotNull ReactiveRedisConnection connection, int numKeys, ByteBuffer... keysAndArgs) {
+        return connection.scriptingCommands().<T>evalSha(this.sha1, this.returnType, numKeys, duplicate(keysAndArgs))
+                .onErrorResume(LuaScript::isNoScript, e -> connection.scriptingCommands().eval(
+                        ByteBuffer.wrap(this.rawSource), this.returnType, numKeys, duplicate(keysAndArgs)));
+    }
+
+    /**
+     * UTF-8 编码的源码
+     */
+    byte[] getRawSource() {
+        return this.rawSource;
+    }
+
+    @Override
+    public String toString() {
+        return "LuaScript{name='" + this.name + "', sha1='" + this.sha1 + "'}";
+    }
+
+    private static boolean isNoScript(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            String message = cause.getMessage();
+            if (message != null && message.contains("NOSCRIPT")) {
+                return true;
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 每次发送使用独立的读取位置, 重试时参数不会因为已被读取而为空
+     */
+    private static ByteBuffer[] duplicate(ByteBuffer[] buffers) {
+        ByteBuffer[] copies = new ByteBuffer[buffers.length];
+        for (int i = 0; i < buffers.length; i++) {
+            copies[i] = buffers[i].duplicate();
+        }
+        return copies;
+    }
+
+    private static String sha1Hex(byte[] source) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(source);
+            StringBuilder builder = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                builder.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return builder.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is not supported.", e);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package io.github.linna.cy.script;
+
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import javax.validation.constraints.NotNull;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Lua 脚本注册表, 按名称管理 {@link LuaScript} 并可一次性预加载到服务端 (SCRIPT LOAD).
+ * <p>
+ * 通过 {@link RedisScriptRegistry#withBuiltIns()} 创建的注册表包含 {@link RedisScripts} 中的内置脚本.
+ * </p>
+ */
+public class RedisScriptRegistry {
+    private final ConcurrentMap<String, LuaScript> scripts = new ConcurrentHashMap<>();
+
+    /**
+     * 创建包含所有内置脚本的注册表
+     */
+    public static RedisScriptRegistry withBuiltIns() {
+        RedisScriptRegistry registry = new RedisScriptRegistry();
+        RedisScripts.builtIns().forEach(registry::register);
+        return registry;
+    }
+
+    /**
+     * 注册脚本. 重复注册同名同源码的脚本将被忽略
+     *
+     * @throws IllegalArgumentException 已注册同名但源码不同的脚本
+     */
+    public RedisScriptRegistry register(@NotNull LuaScript script) {
+        LuaScript existing = this.scripts.putIfAbsent(script.getName(), script);
+        if (existing != null && !existing.getSha1().equals(script.getSha1())) {
+            throw new IllegalArgumentException("The script \"" + script.getName() + "\" has already been registered.");
+        }
+        return this;
+    }
+
+    /**
+     * 注册脚本
+     *
+     * @see RedisScriptRegistry#register(LuaScript)
+     */
+    public LuaScript register(@NotNull String name, @NotNull String source,
+                              @NotNull ReturnType returnType) {
+        LuaScript script = new LuaScript(name, source, returnType);
+        register(script);
+        return this.scripts.get(name);
+    }
+
+    /**
+     * 获取已注册的脚本
+     *
+     * @throws IllegalArgumentException 脚本未注册
+     */
+    public LuaScript get(@NotNull String name) {
+        LuaScript script = this.scripts.get(name);
+        if (script == null) {
+            throw new IllegalArgumentException("The script \"" + name + "\" is not registered.");
+        }
+        return script;
+    }
+
+    /**
+     * 所有已注册的脚本
+     */
+    public Collection<LuaScript> getScripts() {
+        return Collections.unmodifiableCollection(new ArrayList<>(this.scripts.values()));
+    }
+
+    /**
+     * 将所有已注册的脚本加载到服务端 (集群模式下加载到所有主节点).
+     * 不是必须的, 未加载的脚本会在第一次执行时由 EVAL 加载; 在管道或事务中执行脚本之前则必须预加载
+     */
+    public void load(@NotNull RedisTemplate<?, ?> template) {
+        Collection<LuaScript> registered = getScripts();
+        template.execute((RedisCallback<Void>) connection -> {
+            for (LuaScript script : registered) {
+                connection.scriptingCommands().scriptLoad(script.getRawSource());
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 执行已注册的脚本
+     *
+     * @see LuaScript#execute(RedisTemplate, int, byte[]...)
+     */
+    public <T> T execute(@NotNull RedisTemplate<?, ?> template, @NotNull String name, int numKeys,
+                         byte[]... keysAndArgs) {
+        return get(name).execute(template, numKeys, keysAndArgs);
+    }
+}
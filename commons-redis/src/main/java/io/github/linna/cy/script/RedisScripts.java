@@ -0,0 +1,123 @@
+package io.github.linna.cy.script;
+
+import org.springframework.data.redis.connection.ReturnType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 内置的 Lua 脚本. 每个脚本都在一次请求中原子地完成原本需要多次往返的复合操作.
+ * <p>
+ * 参数中的时间均为毫秒, 整数以十进制字符串传入.
+ * </p>
+ */
+public final class RedisScripts {
+
+    /**
+     * 递增并在 Key 没有过期时间时设置过期时间 (固定窗口计数器).
+     * <ul>
+     *     <li>KEYS[1]: 计数器</li>
+     *     <li>ARGV[1]: 增量; ARGV[2]: 过期时间 (ms)</li>
+     * </ul>
+     * 返回递增后的值
+     */
+    public static final LuaScript INCREMENT_WITH_EXPIRATION = new LuaScript("incrementWithExpiration",
+            "local value = redis.call('INCRBY', KEYS[1], ARGV[1])\n" +
+                    "if redis.call('PTTL', KEYS[1]) == -1 then\n" +
+                    "    redis.call('PEXPIRE', KEYS[1], ARGV[2])\n" +
+                    "end\n" +
+                    "return value", ReturnType.INTEGER);
+
+    /**
+     * 当值等于期望值时删除 Key.
+     * <ul>
+     *     <li>KEYS[1]: Key</li>
+     *     <li>ARGV[1]: 期望值</li>
+     * </ul>
+     * 删除时返回 {@code 1}, 否则返回 {@code 0}
+     */
+    public static final LuaScript COMPARE_AND_DELETE = new LuaScript("compareAndDelete",
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then\n" +
+                    "    return redis.call('DEL', KEYS[1])\n" +
+                    "end\n" +
+                    "return 0", ReturnType.INTEGER);
+
+    /**
+     * 写入 Hash 的多个字段并设置整个 Hash 的过期时间.
+     * <ul>
+     *     <li>KEYS[1]: Hash</li>
+     *     <li>ARGV[1]: 过期时间 (ms); ARGV[2..]: 依次为字段与值</li>
+     * </ul>
+     * 返回新增的字段数量
+     */
+    public static final LuaScript PUT_WITH_EXPIRATION = new LuaScript("putWithExpiration",
+            "local added = 0\n" +
+                    "for i = 2, #ARGV, 2 do\n" +
+                    "    added = added + redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1])\n" +
+                    "end\n" +
+                    "redis.call('PEXPIRE', KEYS[1], ARGV[1])\n" +
+                    "return added", ReturnType.INTEGER);
+
+    /**
+     * 向 List 头部写入元素并裁剪为固定长度, 可同时设置过期时间.
+     * <ul>
+     *     <li>KEYS[1]: List</li>
+     *     <li>ARGV[1]: 最大长度; ARGV[2]: 过期时间 (ms), 不大于 {@code 0} 时不修改过期时间; ARGV[3..]: 元素</li>
+     * </ul>
+     * 返回裁剪后的长度
+     */
+    public static final LuaScript PUSH_CAPPED = new LuaScript("pushCapped",
+            "for i = 3, #ARGV do\n" +
+                    "    redis.call('LPUSH', KEYS[1], ARGV[i])\n" +
+                    "end\n" +
+                    "redis.call('LTRIM', KEYS[1], 0, tonumber(ARGV[1]) - 1)\n" +
+                    "if tonumber(ARGV[2]) > 0 then\n" +
+                    "    redis.call('PEXPIRE', KEYS[1], ARGV[2])\n" +
+                    "end\n" +
+                    "return redis.call('LLEN', KEYS[1])", ReturnType.INTEGER);
+
+    /**
+     * 在一次请求中读取值与剩余过期时间.
+     * <ul>
+     *     <li>KEYS[1]: Key</li>
+     * </ul>
+     * 返回 {@code [值, PTTL]}
+     */
+    public static final LuaScript GET_WITH_TTL = new LuaScript("getWithTtl",
+            "return {redis.call('GET', KEYS[1]), redis.call('PTTL', KEYS[1])}", ReturnType.MULTI);
+
+    /**
+     * 将旧格式的 Key 重命名为当前格式 (保留过期时间); 当前格式的 Key 已存在时保留当前格式的值并删除旧 Key.
+     * <ul>
+     *     <li>KEYS[1]: 旧 Key; KEYS[2]: 当前格式的 Key</li>
+     * </ul>
+     * 旧 Key 存在时返回 {@code 1}, 否则返回 {@code 0}
+     */
+    public static final LuaScript MIGRATE_KEY = new LuaScript("migrateKey",
+            "if redis.call('EXISTS', KEYS[1]) == 0 then\n" +
+                    "    return 0\n" +
+                    "end\n" +
+                    "if redis.call('RENAMENX', KEYS[1], KEYS[2]) == 0 then\n" +
+                    "    redis.call('DEL', KEYS[1])\n" +
+                    "end\n" +
+                    "return 1", ReturnType.INTEGER);
+
+    private RedisScripts() {
+    }
+
+    /**
+     * 所有内置脚本
+     */
+    public static List<LuaScript> builtIns() {
+        return Arrays.asList(INCREMENT_WITH_EXPIRATION, COMPARE_AND_DELETE, PUT_WITH_EXPIRATION, PUSH_CAPPED,
+                GET_WITH_TTL, MIGRATE_KEY);
+    }
+
+    /**
+     * 将整数编码为脚本参数
+     */
+    public static byte[] toArgument(long value) {
+        return Long.toString(value).getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,82 @@
+package io.github.linna.cy.serializer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.fasterxml.jackson.dataformat.smile.SmileParser;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * 使用 Smile (二进制 Json) 格式的 {@link RedisSerializer}.
+ * <p>
+ * 写入的数据以 {@link CompactRedisSerializer#FORMAT_VERSION} 作为第一个字节, 之后是不带 Smile 头部的数据.
+ * 读取时第一个字节不是该版本号的数据将被当作旧的 Json 数据读取, 因此可以在迁移期间混合读取两种格式.
+ * </p>
+ * <p>
+ * 配合 {@link RegisteredTypeResolverBuilder} 使用时, 已注册的类型将以整数 ID 代替完整类名.
+ * </p>
+ */
+public class CompactRedisSerializer implements RedisSerializer<Object> {
+
+    /**
+     * 格式版本号. Json 文本不会以该字节开头
+     */
+    public static final byte FORMAT_VERSION = 0x01;
+
+    private static final byte[] EMPTY_ARRAY = new byte[0];
+
+    private final ObjectMapper objectMapper;
+    private final SmileFactory smileFactory;
+
+    /**
+     * @param objectMapper 用于 Smile 与旧 Json 数据的映射器, 两种格式共享同一份配置
+     */
+    public CompactRedisSerializer(@NotNull ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.smileFactory = SmileFactory.builder()
+                // 已有版本号字节, 不再写入 Smile 头部
+                .disable(SmileGenerator.Feature.WRITE_HEADER)
+                .disable(SmileParser.Feature.REQUIRE_HEADER)
+                .build();
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return EMPTY_ARRAY;
+        }
+        try (ByteArrayBuilder builder = new ByteArrayBuilder(this.smileFactory._getBufferRecycler())) {
+            builder.write(FORMAT_VERSION);
+            try (JsonGenerator generator = this.smileFactory.createGenerator(builder)) {
+                this.objectMapper.writeValue(generator, value);
+            }
+            return builder.toByteArray();
+        } catch (Exception e) {
+            throw new SerializationException("Could not write Smile: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        try {
+            if (bytes[0] != FORMAT_VERSION) {
+                // 旧的 Json 数据
+                return this.objectMapper.readValue(bytes, Object.class);
+            }
+            try (JsonParser parser = this.smileFactory.createParser(bytes, 1, bytes.length - 1)) {
+                return this.objectMapper.readValue(parser, Object.class);
+            }
+        } catch (Exception e) {
+            throw new SerializationException("Could not read Smile: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package io.github.linna.cy.serializer;
+
+import lombok.Getter;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import javax.validation.constraints.NotNull;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 对 {@code delegate} 序列化后的数据进行 LZ4 压缩的 {@link RedisSerializer}.
+ * <p>
+ * 只有长度不小于 {@link CompressingRedisSerializer#getThreshold()} 且压缩后确实变小的数据才会被压缩,
+ * 压缩后的格式为: {@link CompressingRedisSerializer#MAGIC} (1 字节) + 原始长度 (4 字节, 大端序) + LZ4 数据块.
+ * 读取时不以 {@link CompressingRedisSerializer#MAGIC} 开头的数据直接交给 {@code delegate}, 因此可以读取未压缩的旧数据.
+ * </p>
+ */
+public class CompressingRedisSerializer<T> implements RedisSerializer<T> {
+
+    /**
+     * 压缩数据的标识字节. Json 文本与 {@link CompactRedisSerializer} 的数据都不会以该字节开头
+     */
+    public static final byte MAGIC = 0x1C;
+
+    /**
+     * 默认的压缩阈值 (单位: 字节)
+     */
+    public static final int DEFAULT_THRESHOLD = 4096;
+
+    /**
+     * 默认的最大解压长度 (单位: 字节), 与 Redis 字符串的上限 512MB 一致
+     */
+    public static final int DEFAULT_MAX_DECOMPRESSED_LENGTH = 512 * 1024 * 1024;
+
+    private static final int HEADER_LENGTH = 5;
+
+    @Getter
+    private final RedisSerializer<T> delegate;
+
+    /**
+     * 压缩阈值 (单位: 字节)
+     */
+    @Getter
+    private final int threshold;
+
+    /**
+     * 最大解压长度 (单位: 字节), 头部中的原始长度超过该值的数据被视为损坏
+     */
+    @Getter
+    private final int maxDecompressedLength;
+
+    private final LZ4Compressor compressor;
+    private final LZ4SafeDecompressor decompressor;
+
+    private final LongAdder compressedCount = new LongAdder();
+    private final LongAdder skippedCount = new LongAdder();
+    private final LongAdder incompressibleCount = new LongAdder();
+    private final LongAdder originalBytes = new LongAdder();
+    private final LongAdder compressedBytes = new LongAdder();
+    private final LongAdder compressNanos = new LongAdder();
+    private final LongAdder decompressedCount = new LongAdder();
+    private final LongAdder decompressNanos = new LongAdder();
+
+    public CompressingRedisSerializer(@NotNull RedisSerializer<T> delegate) {
+        this(delegate, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * @param threshold 压缩阈值 (单位: 字节), 小于该长度的数据不压缩
+     */
+    public CompressingRedisSerializer(@NotNull RedisSerializer<T> delegate, int threshold) {
+        this(delegate, threshold, DEFAULT_MAX_DECOMPRESSED_LENGTH);
+    }
+
+    /**
+     * @param threshold             压缩阈值 (单位: 字节), 小于该长度的数据不压缩
+     * @param maxDecompressedLength 最大解压长度 (单位: 字节), 用于拒绝损坏或其他格式的数据
+     */
+    public CompressingRedisSerializer(@NotNull RedisSerializer<T> delegate, int threshold, int maxDecompressedLength) {
+        if (threshold < 0) {
+            throw new IllegalArgumentException("The compression threshold must not be negative.");
+        }
+        if (maxDecompressedLength <= 0) {
+            throw new IllegalArgumentException("The max decompressed length must be positive.");
+        }
+        this.delegate = delegate;
+        this.threshold = threshold;
+        this.maxDecompressedLength = maxDecompressedLength;
+        LZ4Factory factory = LZ4Factory.fastestInstance();
+        this.compressor = factory.fastCompressor();
+        this.decompressor = factory.safeDecompressor();
+    }
+
+    @Override
+    public byte[] serialize(T value) throws SerializationException {
+        byte[] raw = this.delegate.serialize(value);
+        if (raw == null || raw.length == 0 || raw.length < this.threshold || raw.length > this.maxDecompressedLength) {
+            // 超过最大解压长度的数据压缩后将无法读取, 保持原样写入
+            this.skippedCount.increment();
+            return raw;
+        }
+
+        long start = System.nanoTime();
+        byte[] buffer = new byte[HEADER_LENGTH + this.compressor.maxCompressedLength(raw.length)];
+        int length = this.compressor.compress(raw, 0, raw.length, buffer, HEADER_LENGTH);
+        this.compressNanos.add(System.nanoTime() - start);
+        if (HEADER_LENGTH + length >= raw.length) {
+            // 压缩后没有变小
+            this.incompressibleCount.increment();
+            return raw;
+        }
+
+        buffer[0] = MAGIC;
+        buffer[1] = (byte) (raw.length >>> 24);
+        buffer[2] = (byte) (raw.length >>> 16);
+        buffer[3] = (byte) (raw.length >>> 8);
+        buffer[4] = (byte) raw.length;
+        this.compressedCount.increment();
+        this.originalBytes.add(raw.length);
+        this.compressedBytes.add(HEADER_LENGTH + length);
+
+        return Arrays.copyOf(buffer, HEADER_LENGTH + length);
+    }
+
+    @Override
+    public T deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length < HEADER_LENGTH || bytes[0] != MAGIC) {
+            return this.delegate.deserialize(bytes);
+        }
+
+        long start = System.nanoTime();
+        int length = ((bytes[1] & 0xFF) << 24) | ((bytes[2] & 0xFF) << 16) | ((bytes[3] & 0xFF) << 8) | (bytes[4] & 0xFF);
+        if (length < 0 || length > this.maxDecompressedLength) {
+            throw new SerializationException("Invalid LZ4 original length: " + length + ", the max is "
+                    + this.maxDecompressedLength + ".");
+        }
+        byte[] raw = new byte[length];
+        int decompressed;
+        try {
+            // 使用 safe 解压器: 只读取给定范围内的输入, 截断或损坏的数据会抛出异常而不是越界读取
+            decompressed = this.decompressor.decompress(bytes, HEADER_LENGTH, bytes.length - HEADER_LENGTH, raw, 0, length);
+        } catch (LZ4Exception e) {
+            throw new SerializationException("Could not decompress LZ4: " + e.getMessage(), e);
+        }
+        if (decompressed != length) {
+            throw new SerializationException("Invalid LZ4 data: decompressed " + decompressed
+                    + " bytes, but the original length is " + length + ".");
+        }
+        this.decompressNanos.add(System.nanoTime() - start);
+        this.decompressedCount.increment();
+        return this.delegate.deserialize(raw);
+    }
+
+    /**
+     * 获取压缩统计的快照
+     */
+    public CompressionStats stats() {
+        return new CompressionStats(this.compressedCount.sum(), this.skippedCount.sum(),
+                this.incompressibleCount.sum(), this.originalBytes.sum(), this.compressedBytes.sum(),
+                this.compressNanos.sum(), this.decompressedCount.sum(), this.decompressNanos.sum());
+    }
+}
@@ -0,0 +1,64 @@
+package io.github.linna.cy.serializer;
+
+import lombok.Value;
+
+/**
+ * {@link CompressingRedisSerializer} 的统计快照, 用于调整压缩阈值
+ */
+@Value
+public class CompressionStats {
+    /**
+     * 被压缩的次数
+     */
+    long compressedCount;
+    /**
+     * 因小于阈值而未压缩的次数
+     */
+    long skippedCount;
+    /**
+     * 尝试压缩但没有变小的次数
+     */
+    long incompressibleCount;
+    /**
+     * 被压缩数据的原始总字节数
+     */
+    long originalBytes;
+    /**
+     * 被压缩数据压缩后的总字节数 (包含头部)
+     */
+    long compressedBytes;
+    /**
+     * 压缩 (包括没有变小的尝试) 耗费的总时间 (单位: ns)
+     */
+    long compressNanos;
+    /**
+     * 解压的次数
+     */
+    long decompressedCount;
+    /**
+     * 解压耗费的总时间 (单位: ns)
+     */
+    long decompressNanos;
+
+    /**
+     * 压缩率 (压缩后 / 压缩前), 越小越好. 尚未压缩过数据时返回 {@code 1}
+     */
+    public double compressionRatio() {
+        return this.originalBytes == 0 ? 1 : (double) this.compressedBytes / this.originalBytes;
+    }
+
+    /**
+     * 平均每次压缩的时间 (单位: ns)
+     */
+    public double averageCompressNanos() {
+        long count = this.compressedCount + this.incompressibleCount;
+        return count == 0 ? 0 : (double) this.compressNanos / count;
+    }
+
+    /**
+     * 平均每次解压的时间 (单位: ns)
+     */
+    public double averageDecompressNanos() {
+        return this.decompressedCount == 0 ? 0 : (double) this.decompressNanos / this.decompressedCount;
+    }
+}
@@ -0,0 +1,138 @@
+package io.github.linna.cy.serializer;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.github.linna.cy.databind.BaseJacksonObjectMapper;
+import lombok.Getter;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.util.DigestUtils;
+
+import javax.validation.constraints.NotNull;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * 轻量的 Key 序列化器.
+ * <ul>
+ *     <li>{@link CharSequence}, {@link Number}, {@link Character}, {@link Boolean}, {@link UUID} 与枚举直接以 UTF-8 文本写入</li>
+ *     <li>其他的复合 Key 写入为 {@code 类名#MD5}, 其中 MD5 根据类名与按属性名排序的 Json 计算</li>
+ * </ul>
+ * 所有 Key 都会加上 {@link RedisKeySerializer#getPrefix()} 作为命名空间.
+ * <p>
+ * NOTES:
+ * <ul>
+ *     <li>反序列化时总是返回去掉前缀后的 {@link String}, 无论写入时的类型是什么; 复合 Key 无法还原.
+ *     因此通过 {@code scanKeys} 等方法读回的 Key 都是 {@link String}, 而不是原来的 Key 类型</li>
+ *     <li>文本 Key 只保留 {@code toString()} 的结果, 不保留类型: {@code "1"}, {@code 1L} 与 {@code 1}
+ *     会映射为同一个 Key, 枚举与其名称字符串同理. 同一命名空间下请不要混用这些类型作为不同的 Key</li>
+ * </ul>
+ * </p>
+ */
+public class RedisKeySerializer implements RedisSerializer<Object> {
+    private static final byte[] EMPTY_ARRAY = new byte[0];
+
+    /**
+     * Key 的前缀 (命名空间), 例如 {@code "app:"}
+     */
+    @Getter
+    private final String prefix;
+
+    private final byte[] rawPrefix;
+    private final ObjectMapper objectMapper;
+
+    public RedisKeySerializer() {
+        this("");
+    }
+
+    /**
+     * @param prefix Key 的前缀 (命名空间), 例如 {@code "app:"}
+     */
+    public RedisKeySerializer(String prefix) {
+        this(prefix, new BaseJacksonObjectMapper());
+    }
+
+    /**
+     * @param prefix       Key 的前缀 (命名空间), 例如 {@code "app:"}
+     * @param objectMapper 用于计算复合 Key 摘要的映射器 (会被拷贝). 摘要只取决于该映射器, 与值的序列化方式无关
+     */
+    public RedisKeySerializer(String prefix, @NotNull ObjectMapper objectMapper) {
+        this.prefix = prefix == null ? "" : prefix;
+        this.rawPrefix = this.prefix.getBytes(StandardCharsets.UTF_8);
+        ObjectMapper copy;
+        if (objectMapper instanceof JsonMapper) {
+            copy = ((JsonMapper) objectMapper).rebuild()
+                    .configure(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY, true)
+                    .build();
+        } else {
+            // 其他映射器 (例如 BaseJacksonObjectMapper) 无法通过 builder 重建, 直接修改拷贝的序列化配置
+            copy = objectMapper.copy();
+            copy.setConfig(copy.getSerializationConfig().with(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY));
+        }
+        this.objectMapper = copy
+                .setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY)
+                .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+    }
+
+    @Override
+    public byte[] serialize(Object key) throws SerializationException {
+        if (key == null) {
+            return EMPTY_ARRAY;
+        }
+        return (this.prefix + toText(key)).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        int offset = startsWithPrefix(bytes) ? this.rawPrefix.length : 0;
+        return new String(bytes, offset, bytes.length - offset, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 是否可以直接以文本形式写入
+     */
+    public static boolean isTextual(Object key) {
+        return key instanceof CharSequence || key instanceof Number || key instanceof Character
+                || key instanceof Boolean || key instanceof UUID || key instanceof Enum;
+    }
+
+    private String toText(Object key) {
+        if (key instanceof Enum) {
+            return ((Enum<?>) key).name();
+        }
+        if (isTextual(key)) {
+            return key.toString();
+        }
+        // 复合 Key
+        try {
+            byte[] json = this.objectMapper.writeValueAsBytes(key);
+            byte[] type = key.getClass().getName().getBytes(StandardCharsets.UTF_8);
+            byte[] digestInput = new byte[type.length + 1 + json.length];
+            System.arraycopy(type, 0, digestInput, 0, type.length);
+            System.arraycopy(json, 0, digestInput, type.length + 1, json.length);
+            return key.getClass().getSimpleName() + "#" + DigestUtils.md5DigestAsHex(digestInput);
+        } catch (JsonProcessingException e) {
+            throw new SerializationException("Could not write key: " + e.getMessage(), e);
+        }
+    }
+
+    private boolean startsWithPrefix(byte[] bytes) {
+        if (this.rawPrefix.length == 0 || bytes.length < this.rawPrefix.length) {
+            return false;
+        }
+        for (int i = 0; i < this.rawPrefix.length; i++) {
+            if (bytes[i] != this.rawPrefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,20 @@
+package io.github.linna.cy.serializer;
+
+/**
+ * {@link io.github.linna.cy.config.BaseRedisConfig} 中 Key 的序列化方式
+ */
+public enum RedisKeySerializerMode {
+    /**
+     * 与值使用相同的序列化器 (默认, 兼容已有数据)
+     */
+    JSON,
+    /**
+     * 使用 {@link RedisKeySerializer}
+     */
+    STRING,
+    /**
+     * 使用 {@link RedisKeySerializer}, 同时由 {@link io.github.linna.cy.helper.SerializableRedisHelper}
+     * 将仍以 {@link RedisKeySerializerMode#JSON} 格式存储的 Key 按需迁移为新格式
+     */
+    MIGRATION
+}
@@ -0,0 +1,16 @@
+package io.github.linna.cy.serializer;
+
+/**
+ * {@link io.github.linna.cy.config.BaseRedisConfig} 所使用的序列化方式
+ */
+public enum RedisSerializerMode {
+    /**
+     * Json 文本, 类型信息为完整类名
+     */
+    JSON,
+    /**
+     * Smile 二进制格式 ({@link CompactRedisSerializer}), 已注册的类型使用整数 ID. 兼容读取 {@link RedisSerializerMode#JSON} 写入的数据.
+     * 只作用于值, Key 与 Hash 的 Key 仍然与 {@link RedisSerializerMode#JSON} 相同
+     */
+    COMPACT
+}
@@ -0,0 +1,74 @@
+package io.github.linna.cy.serializer;
+
+import javax.validation.constraints.NotNull;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 类型 ID 注册表. 已注册的类型在序列化时使用整数 ID 代替完整类名作为类型信息.
+ * <p>
+ * NOTES: ID 一旦写入 Redis 就必须保持不变, 不同版本之间只能新增注册, 不能修改或复用已有的 ID.
+ * 未注册的类型仍然使用完整类名.
+ * </p>
+ */
+public class RedisTypeRegistry {
+    private final Map<Integer, Class<?>> types = new ConcurrentHashMap<>();
+    private final Map<Class<?>, String> ids = new ConcurrentHashMap<>();
+
+    /**
+     * 为 {@code type} 注册类型 ID
+     *
+     * @param id 非负整数
+     * @throws IllegalArgumentException 当 {@code id} 为负数, 或 {@code id} / {@code type} 已被注册为其他映射时抛出
+     */
+    public synchronized RedisTypeRegistry register(int id, @NotNull Class<?> type) {
+        if (id < 0) {
+            throw new IllegalArgumentException("The type id must not be negative.");
+        }
+        Class<?> registeredType = this.types.get(id);
+        if (registeredType != null && registeredType != type) {
+            throw new IllegalArgumentException("The type id " + id + " has been registered for \"" +
+                    registeredType.getName() + "\".");
+        }
+        String registeredId = this.ids.get(type);
+        if (registeredId != null && !registeredId.equals(String.valueOf(id))) {
+            throw new IllegalArgumentException("The type \"" + type.getName() + "\" has been registered with id " +
+                    registeredId + ".");
+        }
+        this.types.put(id, type);
+        this.ids.put(type, String.valueOf(id));
+        return this;
+    }
+
+    /**
+     * 获取 {@code type} 的类型 ID
+     *
+     * @return 未注册时返回 {@code null}
+     */
+    public String idOf(@NotNull Class<?> type) {
+        return this.ids.get(type);
+    }
+
+    /**
+     * 根据类型 ID 获取类型
+     *
+     * @return 当 {@code id} 不是已注册的整数 ID 时 (例如完整类名) 返回 {@code null}
+     */
+    public Class<?> typeOf(@NotNull String id) {
+        if (id.isEmpty() || !Character.isDigit(id.charAt(0))) {
+            return null;
+        }
+        try {
+            return this.types.get(Integer.parseInt(id));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 是否没有注册任何类型
+     */
+    public boolean isEmpty() {
+        return this.types.isEmpty();
+    }
+}
@@ -0,0 +1,99 @@
+package io.github.linna.cy.serializer;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.DatabindContext;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.cfg.MapperConfig;
+import com.fasterxml.jackson.databind.jsontype.NamedType;
+import com.fasterxml.jackson.databind.jsontype.PolymorphicTypeValidator;
+import com.fasterxml.jackson.databind.jsontype.TypeIdResolver;
+import com.fasterxml.jackson.databind.jsontype.impl.ClassNameIdResolver;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+
+import javax.validation.constraints.NotNull;
+import java.io.IOException;
+import java.util.Collection;
+
+/**
+ * 与 {@link ObjectMapper#activateDefaultTyping(PolymorphicTypeValidator, ObjectMapper.DefaultTyping)} 相同的默认类型处理,
+ * 但对 {@link RedisTypeRegistry} 中已注册的类型使用整数 ID 作为类型信息.
+ * <p>
+ * 读取时同时兼容整数 ID 与完整类名, 因此可以直接读取旧的 Json 数据.
+ * </p>
+ */
+public class RegisteredTypeResolverBuilder extends ObjectMapper.DefaultTypeResolverBuilder {
+    private static final long serialVersionUID = 1L;
+
+    private final RedisTypeRegistry registry;
+
+    public RegisteredTypeResolverBuilder(ObjectMapper.DefaultTyping typing, PolymorphicTypeValidator subtypeValidator,
+                                         @NotNull RedisTypeRegistry registry) {
+        super(typing, subtypeValidator);
+        this.registry = registry;
+        this.init(JsonTypeInfo.Id.CLASS, null);
+        this.inclusion(JsonTypeInfo.As.WRAPPER_ARRAY);
+    }
+
+    protected RegisteredTypeResolverBuilder(RegisteredTypeResolverBuilder base, Class<?> defaultImpl) {
+        super(base, defaultImpl);
+        this.registry = base.registry;
+    }
+
+    /**
+     * 将 {@code objectMapper} 的默认类型处理设置为 {@link RegisteredTypeResolverBuilder}
+     */
+    public static ObjectMapper activate(@NotNull ObjectMapper objectMapper, PolymorphicTypeValidator subtypeValidator,
+                                        ObjectMapper.DefaultTyping typing, @NotNull RedisTypeRegistry registry) {
+        return objectMapper.setDefaultTyping(new RegisteredTypeResolverBuilder(typing, subtypeValidator, registry));
+    }
+
+    @Override
+    public ObjectMapper.DefaultTypeResolverBuilder withDefaultImpl(Class<?> defaultImpl) {
+        if (this._defaultImpl == defaultImpl) {
+            return this;
+        }
+        return new RegisteredTypeResolverBuilder(this, defaultImpl);
+    }
+
+    @Override
+    protected TypeIdResolver idResolver(MapperConfig<?> config, JavaType baseType,
+                                        PolymorphicTypeValidator subtypeValidator, Collection<NamedType> subtypes,
+                                        boolean forSer, boolean forDeser) {
+        if (this._idType != JsonTypeInfo.Id.CLASS) {
+            return super.idResolver(config, baseType, subtypeValidator, subtypes, forSer, forDeser);
+        }
+        return new RegisteredTypeIdResolver(baseType, config.getTypeFactory(), subtypeValidator, this.registry);
+    }
+
+    private static class RegisteredTypeIdResolver extends ClassNameIdResolver {
+        private final RedisTypeRegistry registry;
+
+        private RegisteredTypeIdResolver(JavaType baseType, TypeFactory typeFactory,
+                                         PolymorphicTypeValidator subtypeValidator, RedisTypeRegistry registry) {
+            super(baseType, typeFactory, subtypeValidator);
+            this.registry = registry;
+        }
+
+        @Override
+        public String idFromValue(Object value) {
+            String id = this.registry.idOf(value.getClass());
+            return id != null ? id : super.idFromValue(value);
+        }
+
+        @Override
+        public String idFromValueAndType(Object value, Class<?> type) {
+            String id = this.registry.idOf(type);
+            return id != null ? id : super.idFromValueAndType(value, type);
+        }
+
+        @Override
+        public JavaType typeFromId(DatabindContext context, String id) throws IOException {
+            Class<?> type = this.registry.typeOf(id);
+            if (type == null) {
+                return super.typeFromId(context, id);
+            }
+            return context.getTypeFactory().constructSpecializedType(this._baseType, type);
+        }
+    }
+}
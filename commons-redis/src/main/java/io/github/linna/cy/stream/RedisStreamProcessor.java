@@ -0,0 +1,640 @@
+package io.github.linna.cy.stream;
+
+import io.github.linna.cy.helper.RedisBaseHelper;
+import io.github.linna.cy.script.LuaScript;
+import io.github.linna.cy.script.RedisScripts;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.connection.stream.ByteRecord;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import javax.validation.constraints.NotNull;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 基于 Redis Streams 消费组的消息处理器.
+ * <ul>
+ *     <li>读取: 一个读取线程在独占的连接上以 {@code XREADGROUP COUNT n BLOCK t} 批量读取</li>
+ *     <li>处理: 消息分发到有界的工作线程池 (Java 21+ 使用虚拟线程), 同时处理与排队等待的消息总数不超过
+ *     {@code concurrency + prefetch}; 达到上限时暂停读取, 未读取的消息保留在 Stream 中 (背压)</li>
+ *     <li>确认: 处理成功的消息 ID 在内存中累积, 达到 {@code ackBatchSize} 或每隔 {@code ackInterval} 以一条 XACK 批量确认</li>
+ *     <li>认领: 每隔 {@code claimInterval} 通过 XAUTOCLAIM 认领空闲超过 {@code claimMinIdle} 的待处理消息
+ *     (处理失败的消息, 或已下线消费者未确认的消息) 并重新处理</li>
+ *     <li>裁剪: {@code maxLength} 为正数时每隔 {@code trimInterval} 执行一次 {@code XTRIM MAXLEN ~ maxLength}</li>
+ * </ul>
+ * 消费组不存在时以 {@code startOffset} 创建 (Stream 不存在时同时创建). 消息至少处理一次 (at-least-once),
+ * 处理器需要是幂等的.
+ * <p>
+ * NOTES: 设置需要在 {@link RedisStreamProcessor#start()} 之前完成. MAXLEN 裁剪不区分消息是否已确认,
+ * {@code maxLength} 需要远大于积压的消息数量. 不再使用时应调用 {@link RedisStreamProcessor#close()}.
+ * </p>
+ *
+ * @param <K> Stream Key 的类型
+ */
+@Slf4j
+public class RedisStreamProcessor<K> implements AutoCloseable, DisposableBean {
+
+    /**
+     * 默认的每批次读取的消息数量
+     */
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    /**
+     * 默认的同时处理的消息数量
+     */
+    public static final int DEFAULT_CONCURRENCY = 16;
+
+    /**
+     * Spring Data Redis 2.x 没有提供 XAUTOCLAIM, 且原始命令无法解析其嵌套的返回值, 因此通过脚本执行.
+     * 认领的消息已被删除 (例如被裁剪) 时, Redis 6.2 只返回 {@code nil} 而不返回其 ID, 且不会将其从待处理列表中移除,
+     * 因此以 JUSTID 认领后逐条读取, 并直接确认已被删除的消息.
+     * <ul>
+     *     <li>KEYS[1]: Stream</li>
+     *     <li>ARGV[1]: 消费组; ARGV[2]: 消费者; ARGV[3]: 最小空闲时间 (ms); ARGV[4]: 游标; ARGV[5]: 数量</li>
+     * </ul>
+     * 返回 {@code [下一个游标, [[ID, [字段, 值, ...]], ...]]}
+     */
+    public static final LuaScript AUTO_CLAIM = new LuaScript("streamAutoClaim",
+            "local claimed = redis.call('XAUTOCLAIM', KEYS[1], ARGV[1], ARGV[2], ARGV[3], ARGV[4], 'COUNT', ARGV[5], 'JUSTID')\n" +
+                    "local entries = {}\n" +
+                    "local deleted = {}\n" +
+                    "for _, id in ipairs(claimed[2]) do\n" +
+                    "    local entry = redis.call('XRANGE', KEYS[1], id, id)\n" +
+                    "    if #entry == 0 then\n" +
+                    "        deleted[#deleted + 1] = id\n" +
+                    "    else\n" +
+                    "        entries[#entries + 1] = entry[1]\n" +
+                    "    end\n" +
+                    "end\n" +
+                    "if #deleted > 0 then\n" +
+                    "    redis.call('XACK', KEYS[1], ARGV[1], unpack(deleted))\n" +
+                    "end\n" +
+                    "return {claimed[1], entries}", ReturnType.MULTI);
+
+    private static final byte[] START_CURSOR = "0-0".getBytes(StandardCharsets.UTF_8);
+
+    private final RedisTemplate<K, ?> template;
+    private final byte[] rawStream;
+    private final StreamOffset<byte[]>[] readOffsets;
+    private final RedisSerializer<K> keySerializer;
+    private final RedisSerializer<Object> hashKeySerializer;
+    private final RedisSerializer<Object> hashValueSerializer;
+    private final StreamMessageHandler<K> handler;
+
+    @Getter
+    private final K stream;
+
+    @Getter
+    private final String group;
+
+    @Getter
+    private final String consumer;
+
+    /**
+     * 每批次读取 (以及认领) 的最大消息数量
+     */
+    @Getter
+    @Setter
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    /**
+     * 同时处理的最大消息数量, 即工作线程数
+     */
+    @Getter
+    @Setter
+    private int concurrency = DEFAULT_CONCURRENCY;
+
+    /**
+     * 已读取但尚未开始处理的最大消息数量, 为负数时使用 {@code batchSize}
+     */
+    @Setter
+    private int prefetch = -1;
+
+    /**
+     * XREADGROUP 的阻塞时间, 也是 {@link RedisStreamProcessor#close()} 等待读取线程退出的最长时间
+     */
+    @Getter
+    @Setter
+    private Duration blockTimeout = Duration.ofSeconds(1);
+
+    /**
+     * 触发立即确认的累积消息数量, 为负数时使用 {@code batchSize}
+     */
+    @Setter
+    private int ackBatchSize = -1;
+
+    /**
+     * 累积的确认最多等待的时间
+     */
+    @Getter
+    @Setter
+    private Duration ackInterval = Duration.ofMillis(100);
+
+    /**
+     * 待处理消息空闲超过该时间后才会被认领, 需要大于处理一条消息的最长时间
+     */
+    @Getter
+    @Setter
+    private Duration claimMinIdle = Duration.ofMinutes(1);
+
+    /**
+     * 认领的间隔
+     */
+    @Getter
+    @Setter
+    private Duration claimInterval = Duration.ofSeconds(10);
+
+    /**
+     * Stream 的近似最大长度, 不大于 {@code 0} 时不裁剪
+     */
+    @Getter
+    @Setter
+    private long maxLength;
+
+    /**
+     * 裁剪的间隔
+     */
+    @Getter
+    @Setter
+    private Duration trimInterval = Duration.ofSeconds(10);
+
+    /**
+     * 消费组不存在时创建的起始位置, 默认处理 Stream 中已有的所有消息
+     */
+    @Getter
+    @Setter
+    private ReadOffset startOffset = ReadOffset.from("0");
+
+    /**
+     * 关闭时等待处理中的消息完成的最长时间
+     */
+    @Getter
+    @Setter
+    private Duration shutdownTimeout = Duration.ofSeconds(30);
+
+    /**
+     * 处理消息的线程池, 为 {@code null} 时自行创建 (关闭时一并关闭)
+     */
+    @Setter
+    private ExecutorService executor;
+
+    private boolean ownsExecutor;
+    private Semaphore inFlight;
+    private int maxInFlight;
+    private int resolvedAckBatchSize;
+    private ScheduledExecutorService scheduler;
+    private Thread reader;
+    private volatile boolean running;
+    private boolean closed;
+    private byte[] claimCursor = START_CURSOR;
+
+    private final Queue<RecordId> pendingAcks = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingAckCount = new AtomicInteger();
+    private final AtomicBoolean ackFlushRequested = new AtomicBoolean();
+
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder acknowledged = new LongAdder();
+    private final LongAdder claimed = new LongAdder();
+
+    /**
+     * 消费者名称为当前进程的 {@code pid@host}
+     */
+    public RedisStreamProcessor(@NotNull RedisBaseHelper<K, ?> helper, @NotNull K stream, @NotNull String group,
+                                @NotNull StreamMessageHandler<K> handler) {
+        this(helper, stream, group, ManagementFactory.getRuntimeMXBean().getName(), handler);
+    }
+
+    /**
+     * @param consumer 消费者名称, 同一个消费组中的各个进程需要不同
+     */
+    @SuppressWarnings("unchecked")
+    public RedisStreamProcessor(@NotNull RedisBaseHelper<K, ?> helper, @NotNull K stream, @NotNull String group,
+                                @NotNull String consumer, @NotNull StreamMessageHandler<K> handler) {
+        this.template = helper.getTemplate();
+        this.stream = stream;
+        this.group = group;
+        this.consumer = consumer;
+        this.handler = handler;
+        this.keySerializer = (RedisSerializer<K>) this.template.getKeySerializer();
+        this.hashKeySerializer = (RedisSerializer<Object>) this.template.getHashKeySerializer();
+        this.hashValueSerializer = (RedisSerializer<Object>) this.template.getHashValueSerializer();
+        this.rawStream = this.keySerializer.serialize(stream);
+        this.readOffsets = lastConsumed(this.rawStream);
+    }
+
+    /**
+     * 创建消费组 (如果不存在) 并开始读取
+     */
+    public synchronized void start() {
+        if (this.reader != null || this.closed) {
+            throw new IllegalStateException("The stream processor has already been started or closed.");
+        }
+        int prefetch = this.prefetch < 0 ? this.batchSize : this.prefetch;
+        this.resolvedAckBatchSize = this.ackBatchSize < 0 ? this.batchSize : this.ackBatchSize;
+        if (this.batchSize <= 0 || this.concurrency <= 0 || this.resolvedAckBatchSize <= 0 || !isPositive(this.blockTimeout)
+                || !isPositive(this.ackInterval) || !isPositive(this.claimInterval) || !isPositive(this.trimInterval)
+                || this.claimMinIdle.isNegative()) {
+            throw new IllegalArgumentException("The batch size, concurrency, ack batch size and intervals must be positive.");
+        }
+        createGroup();
+
+        this.maxInFlight = this.concurrency + prefetch;
+        this.inFlight = new Semaphore(this.maxInFlight);
+        if (this.executor == null) {
+            this.executor = createExecutor(this.concurrency);
+            this.ownsExecutor = true;
+        }
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "redis-stream-ack");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        this.scheduler = scheduler;
+        long ackPeriod = this.ackInterval.toNanos();
+        this.scheduler.scheduleWithFixedDelay(this::flushAcksQuietly, ackPeriod, ackPeriod, TimeUnit.NANOSECONDS);
+        if (this.maxLength > 0) {
+            long trimPeriod = this.trimInterval.toNanos();
+            this.scheduler.scheduleWithFixedDelay(this::trimQuietly, trimPeriod, trimPeriod, TimeUnit.NANOSECONDS);
+        }
+
+        this.running = true;
+        this.reader = new Thread(this::readLoop, "redis-stream-reader");
+        this.reader.setDaemon(true);
+        this.reader.start();
+    }
+
+    /**
+     * 是否正在运行
+     */
+    public boolean isRunning() {
+        return this.running;
+    }
+
+    /**
+     * 处理成功的消息数量
+     */
+    public long processedCount() {
+        return this.processed.sum();
+    }
+
+    /**
+     * 处理失败 (未确认) 的消息数量
+     */
+    public long failedCount() {
+        return this.failed.sum();
+    }
+
+    /**
+     * 已确认的消息数量
+     */
+    public long acknowledgedCount() {
+        return this.acknowledged.sum();
+    }
+
+    /**
+     * 通过 XAUTOCLAIM 认领的消息数量
+     */
+    public long claimedCount() {
+        return this.claimed.sum();
+    }
+
+    /**
+     * 当前已读取但尚未处理完毕的消息数量
+     */
+    public int inFlightCount() {
+        Semaphore semaphore = this.inFlight;
+        return semaphore == null ? 0 : this.maxInFlight - semaphore.availablePermits();
+    }
+
+    /**
+     * 停止读取, 在 {@code shutdownTimeout} 内等待处理中的消息完成, 并确认所有已处理的消息.
+     * 超时未完成的消息不会被确认, 之后由其他消费者认领
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+            this.running = false;
+        }
+        if (this.reader == null) {
+            return;
+        }
+        boolean interrupted = false;
+        try {
+            this.reader.join(this.blockTimeout.toMillis() + 1000);
+            if (!this.inFlight.tryAcquire(this.maxInFlight, this.shutdownTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                log.warn("Timed out waiting for {} in-flight messages of stream consumer \"{}\".", inFlightCount(),
+                        this.consumer);
+            }
+        } catch (InterruptedException e) {
+            interrupted = true;
+        }
+        if (this.ownsExecutor) {
+            this.executor.shutdownNow();
+        }
+        this.scheduler.shutdown();
+        flushAcksQuietly();
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        close();
+    }
+
+    private void readLoop() {
+        RedisConnection connection = null;
+        long nextClaimNanos = System.nanoTime();
+        while (this.running) {
+            int permits = 0;
+            try {
+                permits = acquirePermits();
+                if (permits == 0) {
+                    continue;
+                }
+                if (connection == null) {
+                    // 阻塞读取占用连接, 因此使用一个在读取线程中一直持有的连接
+                    connection = this.template.getRequiredConnectionFactory().getConnection();
+                }
+                List<ByteRecord> records;
+                if (System.nanoTime() - nextClaimNanos >= 0) {
+                    records = claim(connection, permits);
+                    nextClaimNanos = System.nanoTime() + this.claimInterval.toNanos();
+                    if (records.isEmpty()) {
+                        records = read(connection, permits);
+                    }
+                } else {
+                    records = read(connection, permits);
+                }
+                for (ByteRecord record : records) {
+                    this.executor.execute(() -> process(record));
+                    permits--;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RejectedExecutionException e) {
+                log.warn("The executor of stream consumer \"{}\" rejected the messages, stop reading.", this.consumer, e);
+                this.running = false;
+            } catch (RuntimeException e) {
+                if (!this.running) {
+                    break;
+                }
+                log.warn("Failed to read from the stream, stream consumer \"{}\" will retry.", this.consumer, e);
+                connection = closeQuietly(connection);
+                // 消费组可能已被删除
+                createGroupQuietly();
+                sleepQuietly(this.blockTimeout.toMillis());
+            } finally {
+                if (permits > 0) {
+                    this.inFlight.release(permits);
+                }
+            }
+        }
+        closeQuietly(connection);
+    }
+
+    /**
+     * 读取线程是唯一获取许可的线程, 因此一次获取所有可用的许可 (不超过 {@code batchSize}) 即为本次可以读取的数量
+     *
+     * @return 获取的许可数量, 在 {@code blockTimeout} 内没有可用的许可时返回 {@code 0}
+     */
+    private int acquirePermits() throws InterruptedException {
+        if (!this.inFlight.tryAcquire(this.blockTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+            return 0;
+        }
+        int permits = 1 + this.inFlight.drainPermits();
+        if (permits > this.batchSize) {
+            this.inFlight.release(permits - this.batchSize);
+            permits = this.batchSize;
+        }
+        return permits;
+    }
+
+    private List<ByteRecord> read(RedisConnection connection, int count) {
+        List<ByteRecord> records = connection.streamCommands().xReadGroup(Consumer.from(this.group, this.consumer),
+                StreamReadOptions.empty().count(count).block(this.blockTimeout), this.readOffsets);
+        return records == null ? Collections.emptyList() : records;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<ByteRecord> claim(RedisConnection connection, int count) {
+        List<Object> result = AUTO_CLAIM.execute(connection, 1, this.rawStream,
+                this.group.getBytes(StandardCharsets.UTF_8), this.consumer.getBytes(StandardCharsets.UTF_8),
+                RedisScripts.toArgument(this.claimMinIdle.toMillis()), this.claimCursor, RedisScripts.toArgument(count));
+        if (result == null || result.size() < 2) {
+            return Collections.emptyList();
+        }
+        this.claimCursor = (byte[]) result.get(0);
+        List<Object> entries = (List<Object>) result.get(1);
+        List<ByteRecord> records = new ArrayList<>(entries.size());
+        for (Object entry : entries) {
+            if (!(entry instanceof List)) {
+                continue;
+            }
+            List<Object> idAndFields = (List<Object>) entry;
+            RecordId id = RecordId.of(new String((byte[]) idAndFields.get(0), StandardCharsets.UTF_8));
+            List<Object> fields = (List<Object>) idAndFields.get(1);
+            if (fields == null) {
+                continue;
+            }
+            Map<byte[], byte[]> body = new LinkedHashMap<>();
+            for (int i = 0; i + 1 < fields.size(); i += 2) {
+                body.put((byte[]) fields.get(i), (byte[]) fields.get(i + 1));
+            }
+            records.add(StreamRecords.rawBytes(body).withStreamKey(this.rawStream).withId(id));
+        }
+        this.claimed.add(records.size());
+        return records;
+    }
+
+    /**
+     * {@code xReadGroup} 的参数只有一个元素, 创建一次后重复使用
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static StreamOffset<byte[]>[] lastConsumed(byte[] rawStream) {
+        return new StreamOffset[]{StreamOffset.create(rawStream, ReadOffset.lastConsumed())};
+    }
+
+    private void process(ByteRecord record) {
+        try {
+            MapRecord<K, Object, Object> message = record.deserialize(this.keySerializer, this.hashKeySerializer,
+                    this.hashValueSerializer);
+            this.handler.handle(message);
+            this.processed.increment();
+            acknowledge(record.getId());
+        } catch (Exception e) {
+            this.failed.increment();
+            log.warn("Failed to process the stream message {}, it will be redelivered after {}.", record.getId(),
+                    this.claimMinIdle, e);
+        } finally {
+            this.inFlight.release();
+        }
+    }
+
+    private void acknowledge(RecordId id) {
+        this.pendingAcks.add(id);
+        if (this.pendingAckCount.incrementAndGet() >= this.resolvedAckBatchSize
+                && this.ackFlushRequested.compareAndSet(false, true)) {
+            try {
+                this.scheduler.execute(this::flushAcksQuietly);
+            } catch (RejectedExecutionException e) {
+                this.ackFlushRequested.set(false);
+            }
+        }
+    }
+
+    private void flushAcksQuietly() {
+        this.ackFlushRequested.set(false);
+        while (true) {
+            List<RecordId> batch = new ArrayList<>(Math.min(this.pendingAckCount.get(), this.resolvedAckBatchSize));
+            RecordId id;
+            while (batch.size() < this.resolvedAckBatchSize && (id = this.pendingAcks.poll()) != null) {
+                batch.add(id);
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            this.pendingAckCount.addAndGet(-batch.size());
+            RecordId[] ids = batch.toArray(new RecordId[0]);
+            try {
+                this.template.execute((RedisCallback<Long>) connection ->
+                        connection.streamCommands().xAck(this.rawStream, this.group, ids));
+                this.acknowledged.add(ids.length);
+            } catch (RuntimeException e) {
+                log.warn("Failed to acknowledge {} stream messages, they will be redelivered after {}.", ids.length,
+                        this.claimMinIdle, e);
+            }
+        }
+    }
+
+    private void trimQuietly() {
+        try {
+            this.template.execute((RedisCallback<Long>) connection ->
+                    connection.streamCommands().xTrim(this.rawStream, this.maxLength, true));
+        } catch (RuntimeException e) {
+            log.warn("Failed to trim the stream of stream consumer \"{}\".", this.consumer, e);
+        }
+    }
+
+    private void createGroup() {
+        try {
+            this.template.execute((RedisCallback<String>) connection ->
+                    connection.streamCommands().xGroupCreate(this.rawStream, this.group, this.startOffset, true));
+        } catch (RuntimeException e) {
+            if (!isBusyGroup(e)) {
+                throw e;
+            }
+        }
+    }
+
+    private void createGroupQuietly() {
+        try {
+            createGroup();
+        } catch (RuntimeException e) {
+            log.debug("Failed to create the stream consumer group \"{}\".", this.group, e);
+        }
+    }
+
+    private static boolean isBusyGroup(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            String message = cause.getMessage();
+            if (message != null && message.contains("BUSYGROUP")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isPositive(Duration duration) {
+        return duration != null && !duration.isNegative() && !duration.isZero();
+    }
+
+    private static RedisConnection closeQuietly(RedisConnection connection) {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (RuntimeException e) {
+                log.debug("Failed to close the stream reader connection.", e);
+            }
+        }
+        return null;
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 固定大小的线程池, 可用时 (Java 21+) 使用虚拟线程
+     */
+    private static ExecutorService createExecutor(int threads) {
+        ThreadFactory factory = virtualThreadFactory();
+        if (factory == null) {
+            AtomicInteger count = new AtomicInteger();
+            factory = runnable -> {
+                Thread thread = new Thread(runnable, "redis-stream-worker-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+        }
+        // 提交的任务数量受许可限制, 队列不会超过 prefetch
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), factory);
+    }
+
+    private static ThreadFactory virtualThreadFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, "redis-stream-worker-", 1L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package io.github.linna.cy.stream;
+
+import org.springframework.data.redis.connection.stream.MapRecord;
+
+/**
+ * {@link RedisStreamProcessor} 的消息处理器
+ *
+ * @param <K> Stream Key 的类型
+ */
+@FunctionalInterface
+public interface StreamMessageHandler<K> {
+
+    /**
+     * 处理一条消息. 正常返回后该消息会被确认 (XACK); 抛出异常时不确认,
+     * 消息保留在消费组的待处理列表 (PEL) 中, 空闲超过 {@code claimMinIdle} 后被重新认领并再次处理
+     *
+     * @param record 字段与值由 {@link org.springframework.data.redis.core.RedisTemplate} 的 Hash 序列化器反序列化
+     */
+    void handle(MapRecord<K, Object, Object> record) throws Exception;
+}